@@ -42,6 +42,7 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -550,7 +551,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a the array to be sorted
      */
@@ -566,7 +572,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a the array to be sorted
      */
@@ -590,7 +601,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a the array to be sorted
      */
@@ -614,7 +630,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a the array to be sorted
      */
@@ -818,7 +839,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a         the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -843,7 +869,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a         the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -876,7 +907,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a         the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -909,7 +945,12 @@ public class Arrays {
      * by Vladimir Yaroslavskiy, Jon Bentley, and Joshua Bloch. This algorithm
      * offers O(n log(n)) performance on many data sets that cause other
      * quicksorts to degrade to quadratic performance, and is typically
-     * faster than traditional (one-pivot) Quicksort implementations.
+     * faster than traditional (one-pivot) Quicksort implementations. Large
+     * arrays that are not highly structured are sorted by LSD radix sort
+     * instead, in linear time. Radix sort needs a temporary array as long
+     * as the range being sorted; ranges longer than 2<sup>23</sup>
+     * elements, or for which that array cannot be allocated, are sorted
+     * in place by Quicksort.
      *
      * @param a         the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -1054,6 +1095,89 @@ public class Arrays {
         }
     }
     
+    /**
+     * Sorts the specified array of objects into ascending order of the
+     * {@code long} keys extracted from them by the given function. This
+     * sort is guaranteed to be <i>stable</i>: elements with equal keys will
+     * not be reordered as a result of the sort.
+     *
+     * <p>The result is the same as that of
+     * {@code sort(a, Comparator.comparingLong(key))}, but the key of each
+     * element is extracted exactly once, and the keys are compared as
+     * primitive values rather than through a comparator.
+     *
+     * @implNote The keys are extracted into a {@code long} array, which is
+     * sorted by a stable LSD radix sort together with the permutation of
+     * element indices; the elements are then rearranged according to that
+     * permutation. The sort requires working space for two {@code long} and
+     * two {@code int} values per element, plus a copy of the array.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a   the array to be sorted
+     * @param key the function extracting the sort key from an element
+     *
+     * @throws NullPointerException if {@code key} is null
+     * @since 11
+     */
+    // 将数组元素按照key函数提取出的long型键值升序排列(稳定排序)，每个元素只提取一次键值
+    public static <T> void sortByKey(T[] a, ToLongFunction<? super T> key) {
+        sortByKey(a, 0, a.length, key);
+    }
+    
+    /**
+     * Sorts the specified range of the specified array of objects into
+     * ascending order of the {@code long} keys extracted from them by the
+     * given function. The range to be sorted extends from index
+     * {@code fromIndex}, inclusive, to index {@code toIndex}, exclusive.
+     * (If {@code fromIndex==toIndex}, the range to be sorted is empty.)
+     * This sort is guaranteed to be <i>stable</i>: elements with equal keys
+     * will not be reordered as a result of the sort.
+     *
+     * @implNote The keys are extracted into a {@code long} array, which is
+     * sorted by a stable LSD radix sort together with the permutation of
+     * element indices; the elements are then rearranged according to that
+     * permutation.
+     *
+     * @param <T>       the class of the objects to be sorted
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *                  sorted
+     * @param toIndex   the index of the last element (exclusive) to be sorted
+     * @param key       the function extracting the sort key from an element
+     *
+     * @throws IllegalArgumentException       if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *                                        {@code toIndex > a.length}
+     * @throws NullPointerException           if {@code key} is null
+     * @since 11
+     */
+    // 将数组指定范围的元素按照key函数提取出的long型键值升序排列(稳定排序)，每个元素只提取一次键值
+    public static <T> void sortByKey(T[] a, int fromIndex, int toIndex, ToLongFunction<? super T> key) {
+        Objects.requireNonNull(key);
+        rangeCheck(a.length, fromIndex, toIndex);
+        
+        int n = toIndex - fromIndex;
+        
+        // 提取键值，并记录每个键值对应的元素下标
+        long[] keys = new long[n];
+        int[] index = new int[n];
+        for(int i = 0; i<n; i++) {
+            keys[i] = key.applyAsLong(a[fromIndex + i]);
+            index[i] = i;
+        }
+        
+        // 对键值排序，下标随之移动
+        DualPivotQuicksort.sortByKey(keys, index, n);
+        
+        // 按排序后的下标重排元素
+        Object[] copy = copyOfRange(a, fromIndex, toIndex, Object[].class);
+        for(int i = 0; i<n; i++) {
+            @SuppressWarnings("unchecked")
+            T t = (T) copy[index[i]];
+            a[fromIndex + i] = t;
+        }
+    }
+    
     /*▲ 排序 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -1170,8 +1294,12 @@ public class Arrays {
      * sorted using the appropriate {@link Arrays#sort(int[]) Arrays.sort}
      * method. If the length of the specified array is less than the minimum
      * granularity, then it is sorted using the appropriate {@link
-     * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a
-     * working space no greater than the size of the original array. The
+     * Arrays#sort(int[]) Arrays.sort} method.
+     * If the array is longer than the minimum granularity and is not highly
+     * structured, it is instead sorted by a parallel LSD radix sort, which
+     * counts and then scatters the digits of contiguous blocks of the array
+     * in parallel. The algorithm requires a working space no greater than
+     * the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      * @since 1.8
@@ -1185,6 +1313,9 @@ public class Arrays {
         if(n<=MIN_ARRAY_SORT_GRAN || p == 1) {
             // 执行非并行排序
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if(DualPivotQuicksort.isUnstructured(a, 0, n - 1)) {
+            // 元素杂乱无章时，执行并行基数排序
+            ArraysParallelSortHelpers.FJRadix.sort(a, 0, n, new int[n], p << 2);
         } else {
             int g = n / (p << 2);
             int gran = (g<=MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g;
@@ -1203,8 +1334,12 @@ public class Arrays {
      * sorted using the appropriate {@link Arrays#sort(long[]) Arrays.sort}
      * method. If the length of the specified array is less than the minimum
      * granularity, then it is sorted using the appropriate {@link
-     * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a
-     * working space no greater than the size of the original array. The
+     * Arrays#sort(long[]) Arrays.sort} method.
+     * If the array is longer than the minimum granularity and is not highly
+     * structured, it is instead sorted by a parallel LSD radix sort, which
+     * counts and then scatters the digits of contiguous blocks of the array
+     * in parallel. The algorithm requires a working space no greater than
+     * the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
      * @since 1.8
@@ -1218,6 +1353,9 @@ public class Arrays {
         if(n<=MIN_ARRAY_SORT_GRAN || p == 1) {
             // 执行非并行排序
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if(DualPivotQuicksort.isUnstructured(a, 0, n - 1)) {
+            // 元素杂乱无章时，执行并行基数排序
+            ArraysParallelSortHelpers.FJRadix.sort(a, 0, n, new long[n], p << 2);
         } else {
             int g = n / (p << 2);
             int gran = (g<=MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g;
@@ -1555,7 +1693,11 @@ public class Arrays {
      * sorted using the appropriate {@link Arrays#sort(int[]) Arrays.sort}
      * method. If the length of the specified array is less than the minimum
      * granularity, then it is sorted using the appropriate {@link
-     * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a working
+     * Arrays#sort(int[]) Arrays.sort} method.
+     * If the range is longer than the minimum granularity and is not highly
+     * structured, it is instead sorted by a parallel LSD radix sort, which
+     * counts and then scatters the digits of contiguous blocks of the range
+     * in parallel. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
@@ -1572,6 +1714,9 @@ public class Arrays {
         if(n<=MIN_ARRAY_SORT_GRAN || p == 1) {
             // 执行非并行排序
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if(DualPivotQuicksort.isUnstructured(a, fromIndex, toIndex - 1)) {
+            // 元素杂乱无章时，执行并行基数排序
+            ArraysParallelSortHelpers.FJRadix.sort(a, fromIndex, n, new int[n], p << 2);
         } else {
             int g = n / (p << 2);
             int gran = (g<=MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g;
@@ -1597,7 +1742,11 @@ public class Arrays {
      * sorted using the appropriate {@link Arrays#sort(long[]) Arrays.sort}
      * method. If the length of the specified array is less than the minimum
      * granularity, then it is sorted using the appropriate {@link
-     * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a working
+     * Arrays#sort(long[]) Arrays.sort} method.
+     * If the range is longer than the minimum granularity and is not highly
+     * structured, it is instead sorted by a parallel LSD radix sort, which
+     * counts and then scatters the digits of contiguous blocks of the range
+     * in parallel. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
@@ -1614,6 +1763,9 @@ public class Arrays {
         if(n<=MIN_ARRAY_SORT_GRAN || p == 1) {
             // 执行非并行排序
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if(DualPivotQuicksort.isUnstructured(a, fromIndex, toIndex - 1)) {
+            // 元素杂乱无章时，执行并行基数排序
+            ArraysParallelSortHelpers.FJRadix.sort(a, fromIndex, n, new long[n], p << 2);
         } else {
             int g = n / (p << 2);
             int gran = (g<=MIN_ARRAY_SORT_GRAN) ? MIN_ARRAY_SORT_GRAN : g;
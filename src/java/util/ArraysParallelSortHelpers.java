@@ -1007,4 +1007,169 @@ import java.util.concurrent.CountedCompleter;
         }
     } // FJDouble
 
+    /**
+     * Parallel LSD radix sort for int and long arrays.
+     *
+     * Each pass sorts by one 8-bit digit in two parallel phases over
+     * the same contiguous blocks of the source: first every block counts
+     * its digits, then, after a sequential prefix sum over (digit,
+     * block) pairs, every block scatters its elements stably to their
+     * slots in the destination. Source and destination alternate
+     * between the array and the workspace. As in the sequential radix
+     * sort in DualPivotQuicksort, passes in which all elements have the
+     * same digit are skipped.
+     */
+    static final class FJRadix {
+        static final int RADIX_BITS = 8, RADIX = 1 << RADIX_BITS;
+
+        /**
+         * Sorts a[base, base+size) using workspace w[0, size), divided
+         * into the given number of blocks.
+         */
+        static void sort(int[] a, int base, int size, int[] w, int blocks) {
+            int[][] counts = new int[blocks][RADIX];
+            int[] src = a, dst = w;
+            int so = base, wo = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+                new IntPass(null, src, so, size, blocks, counts, shift,
+                            null, 0, 0, blocks).invoke();
+                if (!toOffsets(counts, size)) continue;
+                new IntPass(null, src, so, size, blocks, counts, shift,
+                            dst, wo, 0, blocks).invoke();
+                int[] t = src; src = dst; dst = t;
+                int o = so; so = wo; wo = o;
+            }
+            if (src != a)
+                System.arraycopy(src, so, a, base, size);
+        }
+
+        /**
+         * Sorts a[base, base+size) using workspace w[0, size), divided
+         * into the given number of blocks.
+         */
+        static void sort(long[] a, int base, int size, long[] w, int blocks) {
+            int[][] counts = new int[blocks][RADIX];
+            long[] src = a, dst = w;
+            int so = base, wo = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+                new LongPass(null, src, so, size, blocks, counts, shift,
+                             null, 0, 0, blocks).invoke();
+                if (!toOffsets(counts, size)) continue;
+                new LongPass(null, src, so, size, blocks, counts, shift,
+                             dst, wo, 0, blocks).invoke();
+                long[] t = src; src = dst; dst = t;
+                int o = so; so = wo; wo = o;
+            }
+            if (src != a)
+                System.arraycopy(src, so, a, base, size);
+        }
+
+        /**
+         * Replaces the per-block digit counts by the offsets at which
+         * each block writes each digit, unless all n elements have the
+         * same digit, in which case the pass can be skipped.
+         */
+        static boolean toOffsets(int[][] counts, int n) {
+            for (int d = 0, sum = 0; d < RADIX; ++d) {
+                int start = sum;
+                for (int[] c : counts) {
+                    int k = c[d];
+                    c[d] = sum;
+                    sum += k;
+                }
+                if (sum - start == n)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * One phase of a pass over blocks [lo, hi): counting the digits
+         * if dst is null, otherwise scattering to dst.
+         */
+        static final class IntPass extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] src, dst;
+            final int[][] counts;
+            final int so, size, blocks, shift, wo, lo, hi;
+            IntPass(CountedCompleter<?> par, int[] src, int so, int size,
+                    int blocks, int[][] counts, int shift,
+                    int[] dst, int wo, int lo, int hi) {
+                super(par);
+                this.src = src; this.so = so; this.size = size;
+                this.blocks = blocks; this.counts = counts; this.shift = shift;
+                this.dst = dst; this.wo = wo; this.lo = lo; this.hi = hi;
+            }
+            public final void compute() {
+                int[] src = this.src, dst = this.dst; // localize all params
+                int l = this.lo, h = this.hi, sh = this.shift;
+                while (h - l > 1) {
+                    int m = (l + h) >>> 1;
+                    addToPendingCount(1);
+                    new IntPass(this, src, so, size, blocks, counts, sh,
+                                dst, wo, m, h).fork();
+                    h = m;
+                }
+                int[] c = counts[l];
+                int from = so + (int)((long)size * l / blocks);
+                int to = so + (int)((long)size * (l + 1) / blocks);
+                if (dst == null) {
+                    Arrays.fill(c, 0);
+                    for (int i = from; i < to; ++i)
+                        ++c[((src[i] ^ Integer.MIN_VALUE) >>> sh) & 0xFF];
+                } else {
+                    for (int i = from, o = wo; i < to; ++i) {
+                        int x = src[i];
+                        dst[o + c[((x ^ Integer.MIN_VALUE) >>> sh) & 0xFF]++] = x;
+                    }
+                }
+                tryComplete();
+            }
+        }
+
+        /**
+         * One phase of a pass over blocks [lo, hi): counting the digits
+         * if dst is null, otherwise scattering to dst.
+         */
+        static final class LongPass extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] src, dst;
+            final int[][] counts;
+            final int so, size, blocks, shift, wo, lo, hi;
+            LongPass(CountedCompleter<?> par, long[] src, int so, int size,
+                     int blocks, int[][] counts, int shift,
+                     long[] dst, int wo, int lo, int hi) {
+                super(par);
+                this.src = src; this.so = so; this.size = size;
+                this.blocks = blocks; this.counts = counts; this.shift = shift;
+                this.dst = dst; this.wo = wo; this.lo = lo; this.hi = hi;
+            }
+            public final void compute() {
+                long[] src = this.src, dst = this.dst; // localize all params
+                int l = this.lo, h = this.hi, sh = this.shift;
+                while (h - l > 1) {
+                    int m = (l + h) >>> 1;
+                    addToPendingCount(1);
+                    new LongPass(this, src, so, size, blocks, counts, sh,
+                                 dst, wo, m, h).fork();
+                    h = m;
+                }
+                int[] c = counts[l];
+                int from = so + (int)((long)size * l / blocks);
+                int to = so + (int)((long)size * (l + 1) / blocks);
+                if (dst == null) {
+                    Arrays.fill(c, 0);
+                    for (int i = from; i < to; ++i)
+                        ++c[(int)((src[i] ^ Long.MIN_VALUE) >>> sh) & 0xFF];
+                } else {
+                    for (int i = from, o = wo; i < to; ++i) {
+                        long x = src[i];
+                        dst[o + c[(int)((x ^ Long.MIN_VALUE) >>> sh) & 0xFF]++] = x;
+                    }
+                }
+                tryComplete();
+            }
+        }
+    } // FJRadix
+
 }
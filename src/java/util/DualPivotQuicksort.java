@@ -84,6 +84,30 @@ final class DualPivotQuicksort {
      */
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    /**
+     * If the length of an int, long, float or double array to be sorted
+     * is not less than this constant, and the array is not highly
+     * structured, LSD radix sort is used in preference to Quicksort.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 12;
+
+    /**
+     * The maximum length of a workspace array that radix sort allocates
+     * when the caller does not supply one large enough. Larger ranges
+     * are sorted in place by Quicksort instead.
+     */
+    private static final int RADIX_SORT_MAX_WORKSPACE = 1 << 23;
+
+    /**
+     * The number of bits of a digit in radix sort.
+     */
+    private static final int RADIX_BITS = 8;
+
+    /**
+     * The number of distinct values of a digit in radix sort.
+     */
+    private static final int RADIX = 1 << RADIX_BITS;
+
     /*
      * Sorting methods for seven primitive types.
      */
@@ -138,10 +162,14 @@ final class DualPivotQuicksort {
 
             /*
              * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * use Quicksort (or radix sort if it is large)
+             * instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD
+                        || !radixSort(a, left, right, work, workBase, workLen)) {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -604,10 +632,14 @@ final class DualPivotQuicksort {
 
             /*
              * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * use Quicksort (or radix sort if it is large)
+             * instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD
+                        || !radixSort(a, left, right, work, workBase, workLen)) {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2206,10 +2238,14 @@ final class DualPivotQuicksort {
 
             /*
              * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * use Quicksort (or radix sort if it is large)
+             * instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD
+                        || !radixSort(a, left, right, work, workBase, workLen)) {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2763,10 +2799,14 @@ final class DualPivotQuicksort {
 
             /*
              * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * use Quicksort (or radix sort if it is large)
+             * instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD
+                        || !radixSort(a, left, right, work, workBase, workLen)) {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -3178,4 +3218,401 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    /*
+     * LSD radix sort for int, long, float and double arrays, and for
+     * long keys carrying an index permutation.
+     *
+     * Elements are mapped to unsigned keys whose unsigned order is the
+     * sort order: the sign bit of ints and longs is flipped, and all
+     * bits of negative floats and doubles are flipped (otherwise only
+     * the sign bit). The counts of every digit are collected in a single
+     * scan before the first pass, and passes in which all elements have
+     * the same digit, such as the high digits of small or clustered
+     * values, are skipped. Each pass moves the elements stably between
+     * the array and the workspace.
+     */
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort, using
+     * the given workspace array slice if it is large enough, and
+     * otherwise a new one of at most RADIX_SORT_MAX_WORKSPACE elements.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     * @return {@code false}, leaving the range unchanged, if no workspace
+     *         was supplied and none could be allocated
+     */
+    private static boolean radixSort(int[] a, int left, int right,
+                                     int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            if (n > RADIX_SORT_MAX_WORKSPACE) {
+                return false;
+            }
+            try {
+                work = new int[n];
+            } catch (OutOfMemoryError e) {
+                return false;
+            }
+            workBase = 0;
+        }
+        int[][] count = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        for (int i = left; i <= right; ++i) {
+            int x = a[i] ^ Integer.MIN_VALUE;
+            ++count[0][x & 0xFF];
+            ++count[1][(x >>> 8) & 0xFF];
+            ++count[2][(x >>> 16) & 0xFF];
+            ++count[3][x >>> 24];
+        }
+        int[] src = a, dst = work;
+        int so = left, wo = workBase;
+        for (int d = 0; d < count.length; ++d) {
+            int[] c = count[d];
+            if (!toOffsets(c, n)) {
+                continue;
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = so, end = so + n; i < end; ++i) {
+                int x = src[i];
+                dst[wo + c[((x ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++] = x;
+            }
+            int[] t = src; src = dst; dst = t;
+            int o = so; so = wo; wo = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array by LSD radix sort, using
+     * the given workspace array slice if it is large enough, and
+     * otherwise a new one of at most RADIX_SORT_MAX_WORKSPACE elements.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     * @return {@code false}, leaving the range unchanged, if no workspace
+     *         was supplied and none could be allocated
+     */
+    private static boolean radixSort(long[] a, int left, int right,
+                                     long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            if (n > RADIX_SORT_MAX_WORKSPACE) {
+                return false;
+            }
+            try {
+                work = new long[n];
+            } catch (OutOfMemoryError e) {
+                return false;
+            }
+            workBase = 0;
+        }
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (int i = left; i <= right; ++i) {
+            long x = a[i] ^ Long.MIN_VALUE;
+            for (int d = 0; d < count.length; ++d) {
+                ++count[d][(int) (x >>> (d * RADIX_BITS)) & 0xFF];
+            }
+        }
+        long[] src = a, dst = work;
+        int so = left, wo = workBase;
+        for (int d = 0; d < count.length; ++d) {
+            int[] c = count[d];
+            if (!toOffsets(c, n)) {
+                continue;
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = so, end = so + n; i < end; ++i) {
+                long x = src[i];
+                dst[wo + c[(int) ((x ^ Long.MIN_VALUE) >>> shift) & 0xFF]++] = x;
+            }
+            long[] t = src; src = dst; dst = t;
+            int o = so; so = wo; wo = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array, which contains no NaNs, by
+     * LSD radix sort, using the given workspace array slice if it is
+     * large enough, and otherwise a new one of at most
+     * RADIX_SORT_MAX_WORKSPACE elements. Negative zeros are placed
+     * before positive zeros.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     * @return {@code false}, leaving the range unchanged, if no workspace
+     *         was supplied and none could be allocated
+     */
+    private static boolean radixSort(float[] a, int left, int right,
+                                     float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            if (n > RADIX_SORT_MAX_WORKSPACE) {
+                return false;
+            }
+            try {
+                work = new float[n];
+            } catch (OutOfMemoryError e) {
+                return false;
+            }
+            workBase = 0;
+        }
+        int[][] count = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        for (int i = left; i <= right; ++i) {
+            int x = key(a[i]);
+            ++count[0][x & 0xFF];
+            ++count[1][(x >>> 8) & 0xFF];
+            ++count[2][(x >>> 16) & 0xFF];
+            ++count[3][x >>> 24];
+        }
+        float[] src = a, dst = work;
+        int so = left, wo = workBase;
+        for (int d = 0; d < count.length; ++d) {
+            int[] c = count[d];
+            if (!toOffsets(c, n)) {
+                continue;
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = so, end = so + n; i < end; ++i) {
+                float x = src[i];
+                dst[wo + c[(key(x) >>> shift) & 0xFF]++] = x;
+            }
+            float[] t = src; src = dst; dst = t;
+            int o = so; so = wo; wo = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the specified range of the array, which contains no NaNs, by
+     * LSD radix sort, using the given workspace array slice if it is
+     * large enough, and otherwise a new one of at most
+     * RADIX_SORT_MAX_WORKSPACE elements. Negative zeros are placed
+     * before positive zeros.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     * @param workLen usable size of work array
+     * @return {@code false}, leaving the range unchanged, if no workspace
+     *         was supplied and none could be allocated
+     */
+    private static boolean radixSort(double[] a, int left, int right,
+                                     double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            if (n > RADIX_SORT_MAX_WORKSPACE) {
+                return false;
+            }
+            try {
+                work = new double[n];
+            } catch (OutOfMemoryError e) {
+                return false;
+            }
+            workBase = 0;
+        }
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (int i = left; i <= right; ++i) {
+            long x = key(a[i]);
+            for (int d = 0; d < count.length; ++d) {
+                ++count[d][(int) (x >>> (d * RADIX_BITS)) & 0xFF];
+            }
+        }
+        double[] src = a, dst = work;
+        int so = left, wo = workBase;
+        for (int d = 0; d < count.length; ++d) {
+            int[] c = count[d];
+            if (!toOffsets(c, n)) {
+                continue;
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = so, end = so + n; i < end; ++i) {
+                double x = src[i];
+                dst[wo + c[(int) (key(x) >>> shift) & 0xFF]++] = x;
+            }
+            double[] t = src; src = dst; dst = t;
+            int o = so; so = wo; wo = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the first n keys into ascending numerical order by LSD radix
+     * sort, applying the same permutation to the first n elements of
+     * index. The sort is stable, so elements of index whose keys are
+     * equal keep their relative order.
+     *
+     * @param keys the keys to be sorted
+     * @param index the values permuted along with the keys
+     * @param n the number of keys
+     */
+    static void sortByKey(long[] keys, int[] index, int n) {
+        // Use insertion sort on tiny arrays
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            for (int i = 1; i < n; ++i) {
+                long k = keys[i];
+                int v = index[i], j = i - 1;
+                for (; j >= 0 && keys[j] > k; --j) {
+                    keys[j + 1] = keys[j];
+                    index[j + 1] = index[j];
+                }
+                keys[j + 1] = k;
+                index[j + 1] = v;
+            }
+            return;
+        }
+
+        int[][] count = new int[Long.SIZE / RADIX_BITS][RADIX];
+        for (int i = 0; i < n; ++i) {
+            long x = keys[i] ^ Long.MIN_VALUE;
+            for (int d = 0; d < count.length; ++d) {
+                ++count[d][(int) (x >>> (d * RADIX_BITS)) & 0xFF];
+            }
+        }
+        long[] src = keys, dst = null;
+        int[] isrc = index, idst = null;
+        for (int d = 0; d < count.length; ++d) {
+            int[] c = count[d];
+            if (!toOffsets(c, n)) {
+                continue;
+            }
+            if (dst == null) {
+                dst = new long[n];
+                idst = new int[n];
+            }
+            int shift = d * RADIX_BITS;
+            for (int i = 0; i < n; ++i) {
+                long x = src[i];
+                int p = c[(int) ((x ^ Long.MIN_VALUE) >>> shift) & 0xFF]++;
+                dst[p] = x;
+                idst[p] = isrc[i];
+            }
+            long[] t = src; src = dst; dst = t;
+            int[] it = isrc; isrc = idst; idst = it;
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            System.arraycopy(isrc, 0, index, 0, n);
+        }
+    }
+
+    /**
+     * Returns true if the specified range of the array consists of at
+     * least MAX_RUN_COUNT ascending or descending runs, that is, if the
+     * sequential sort would not use merge sort for it. Used to choose
+     * between the parallel merge sort and the parallel radix sort.
+     *
+     * @param a the array to be checked
+     * @param left the index of the first element, inclusive
+     * @param right the index of the last element, inclusive
+     */
+    static boolean isUnstructured(int[] a, int left, int right) {
+        int count = 0;
+        for (int k = left; k < right; ) {
+            while (k < right && a[k] == a[k + 1])
+                k++;
+            if (k == right) break;
+            if (a[k] < a[k + 1]) {
+                while (++k <= right && a[k - 1] <= a[k]);
+            } else {
+                while (++k <= right && a[k - 1] >= a[k]);
+            }
+            if (++count == MAX_RUN_COUNT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the specified range of the array consists of at
+     * least MAX_RUN_COUNT ascending or descending runs, that is, if the
+     * sequential sort would not use merge sort for it. Used to choose
+     * between the parallel merge sort and the parallel radix sort.
+     *
+     * @param a the array to be checked
+     * @param left the index of the first element, inclusive
+     * @param right the index of the last element, inclusive
+     */
+    static boolean isUnstructured(long[] a, int left, int right) {
+        int count = 0;
+        for (int k = left; k < right; ) {
+            while (k < right && a[k] == a[k + 1])
+                k++;
+            if (k == right) break;
+            if (a[k] < a[k + 1]) {
+                while (++k <= right && a[k - 1] <= a[k]);
+            } else {
+                while (++k <= right && a[k - 1] >= a[k]);
+            }
+            if (++count == MAX_RUN_COUNT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the counts of the digit values by the offsets at which
+     * the elements with these digits start, unless all n elements have
+     * the same digit, in which case the pass can be skipped.
+     *
+     * @param count the number of elements with each digit value
+     * @param n the number of elements
+     * @return false if the pass for this digit can be skipped
+     */
+    private static boolean toOffsets(int[] count, int n) {
+        for (int d = 0, sum = 0; d < RADIX; ++d) {
+            int c = count[d];
+            if (c == n) {
+                return false;
+            }
+            count[d] = sum;
+            sum += c;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the unsigned radix sort key of a float that is not NaN.
+     */
+    private static int key(float x) {
+        int bits = Float.floatToRawIntBits(x);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns the unsigned radix sort key of a double that is not NaN.
+     */
+    private static long key(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
 }
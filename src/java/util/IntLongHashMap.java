@@ -0,0 +1,773 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table based map from primitive {@code int} keys to primitive
+ * {@code long} values. Neither keys nor values are boxed and entries are
+ * never allocated: keys and values live side by side in a pair of
+ * parallel arrays and collisions are resolved by linear probing, in the
+ * same way as {@link IntObjectHashMap}.
+ *
+ * <p>Methods that return a value for a key report {@code 0} when the
+ * key is absent, the same default a {@code long[]} indexed by the key
+ * would have. Use {@link #containsKey} or {@link #getOrDefault} when
+ * an absent key must be told apart from a key mapped to {@code 0}.
+ * The {@link #merge} method makes the map convenient for counting:
+ * {@code map.merge(key, 1L, Long::sum)}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are
+ * <i>fail-fast</i> and do not support {@code remove}.
+ *
+ * @see IntIntHashMap
+ * @see IntObjectHashMap
+ */
+/*
+ * 以基本类型int为键、基本类型long为值的哈希映射，采用开放寻址法（线性探测）
+ *
+ * 实现方式与IntObjectHashMap相同，键与值均不会装箱。
+ * 查询不存在的键时返回0（与long数组的默认值一致），需要区分时使用containsKey或getOrDefault。
+ */
+public class IntLongHashMap {
+
+    /** The keys; 0 marks an empty slot */
+    // 键数组，0表示空槽
+    int[] keys;
+
+    /** The values, parallel to keys */
+    // 值数组，与键数组一一对应
+    long[] values;
+
+    /** Whether the key 0 is present */
+    // 是否包含键0
+    boolean hasZeroKey;
+
+    /** The value mapped to the key 0 */
+    // 键0对应的值
+    long zeroValue;
+
+    /** The number of mappings, including the key 0 */
+    // 元素数量（包括键0）
+    int size;
+
+    /** The number of times this map has been structurally modified */
+    // 记录结构的修改次数
+    transient int modCount;
+
+    /** The size at which the table is doubled */
+    // 扩容阈值
+    int threshold;
+
+    /** The load factor */
+    // 装载因子
+    final float loadFactor;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public IntLongHashMap() {
+        this(IntObjectHashMap.DEFAULT_INITIAL_CAPACITY, IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold {@code expectedSize}
+     * mappings without resizing, with the default load factor (0.5).
+     *
+     * @param expectedSize the expected number of mappings
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public IntLongHashMap(int expectedSize) {
+        this(expectedSize, IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold {@code expectedSize}
+     * mappings without resizing, with the specified load factor.
+     *
+     * @param expectedSize the expected number of mappings
+     * @param loadFactor   the load factor, between 0 and 1 exclusive
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is
+     *                                  negative or the load factor is not in (0, 1)
+     */
+    public IntLongHashMap(int expectedSize, float loadFactor) {
+        if(expectedSize<0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if(!(loadFactor>0 && loadFactor<1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+
+        int capacity = IntObjectHashMap.tableSizeFor((int) Math.min((long) Math.ceil(expectedSize / (double) loadFactor), IntObjectHashMap.MAXIMUM_CAPACITY));
+        this.keys = new int[capacity];
+        this.values = new long[capacity];
+        this.threshold = thresholdFor(capacity);
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code 0} if there was no mapping for {@code key}
+     * @throws IllegalStateException if this map is full
+     */
+    // 将指定的元素（key-value）存入Map，并返回旧值（不存在时返回0），允许覆盖
+    public long put(int key, long value) {
+        if(key == 0) {
+            long old = zeroValue;
+            zeroValue = value;
+            if(!hasZeroKey) {
+                hasZeroKey = true;
+                afterInsert();
+            }
+            return old;
+        }
+
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.hash(key) & mask;
+        int k;
+        while((k = ks[i]) != 0) {
+            if(k == key) {
+                long old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        checkCapacity(mask);
+        ks[i] = key;
+        values[i] = value;
+        afterInsert();
+
+        return 0;
+    }
+
+    /**
+     * If the specified key is not already present, associates it with
+     * the given value.
+     *
+     * @return {@code true} if the mapping was added
+     */
+    // 将指定的元素（key-value）存入Map，不允许覆盖，返回值表示是否存入成功
+    public boolean putIfAbsent(int key, long value) {
+        if(containsKey(key)) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code 0} if this map contains no mapping for the key.
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回0
+    public long get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回指定的默认值defaultValue
+    public long getOrDefault(int key, long defaultValue) {
+        if(key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+
+        int i = indexOf(key);
+        return i<0 ? defaultValue : values[i];
+    }
+
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code 0} if there was no mapping for {@code key}
+     */
+    // 移除拥有指定key的元素，并返回刚刚移除的元素的值（不存在时返回0）
+    public long remove(int key) {
+        if(key == 0) {
+            if(!hasZeroKey) {
+                return 0;
+            }
+            long old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            modCount++;
+            return old;
+        }
+
+        int i = indexOf(key);
+        if(i<0) {
+            return 0;
+        }
+
+        long old = values[i];
+        shiftKeys(i);
+        size--;
+        modCount++;
+
+        return old;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    // 清空Map中所有元素
+    public void clear() {
+        if(size>0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, 0);
+            hasZeroKey = false;
+            zeroValue = 0;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     */
+    // 判断Map中是否存在指定key的元素
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value. This operation requires a full scan of the table.
+     */
+    // 判断Map中是否存在指定value的元素
+    public boolean containsValue(long value) {
+        if(hasZeroKey && zeroValue == value) {
+            return true;
+        }
+        int[] ks = keys;
+        long[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0 && vs[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 重新映射 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * If the specified key is not already present, computes its value
+     * using the given mapping function and enters it into this map.
+     *
+     * @return the current (existing or computed) value associated with
+     * the specified key
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     *                                         mapping function modified this map
+     */
+    // 如果key不存在，则使用mappingFunction计算新值并存入，返回最终的值
+    public long computeIfAbsent(int key, IntToLongFunction mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+
+        if(key == 0) {
+            if(hasZeroKey) {
+                return zeroValue;
+            }
+        } else {
+            int i = indexOf(key);
+            if(i >= 0) {
+                return values[i];
+            }
+        }
+
+        int mc = modCount;
+        long v = mappingFunction.applyAsLong(key);
+        if(mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        put(key, v);
+
+        return v;
+    }
+
+    /**
+     * If the specified key is not already present, associates it with
+     * the given value; otherwise replaces the value with the result of
+     * the given remapping function applied to the old and given values.
+     * Unlike {@link Map#merge}, the mapping is never removed.
+     *
+     * @return the new value associated with the specified key
+     * @throws IllegalStateException if this map is full
+     */
+    // 如果key不存在，则存入value；否则存入remappingFunction(旧值, value)的结果，返回新值
+    public long merge(int key, long value, LongBinaryOperator remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+
+        if(key == 0) {
+            if(hasZeroKey) {
+                return zeroValue = remappingFunction.applyAsLong(zeroValue, value);
+            }
+            put(0, value);
+            return value;
+        }
+
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.hash(key) & mask;
+        int k;
+        while((k = ks[i]) != 0) {
+            if(k == key) {
+                return values[i] = remappingFunction.applyAsLong(values[i], value);
+            }
+            i = (i + 1) & mask;
+        }
+
+        checkCapacity(mask);
+        ks[i] = key;
+        values[i] = value;
+        afterInsert();
+
+        return value;
+    }
+
+    /*▲ 重新映射 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns a new array containing all of the keys in this map.
+     * The order matches the one of {@link #values()} as long as the map
+     * is not modified in between.
+     */
+    // 返回所有key组成的数组
+    public int[] keys() {
+        int[] a = new int[size];
+        int n = 0;
+        if(hasZeroKey) {
+            n++;
+        }
+        for(int k : keys) {
+            if(k != 0) {
+                a[n++] = k;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns a new array containing all of the values in this map.
+     * The order matches the one of {@link #keys()} as long as the map
+     * is not modified in between.
+     */
+    // 返回所有value组成的数组
+    public long[] values() {
+        long[] a = new long[size];
+        int n = 0;
+        if(hasZeroKey) {
+            a[n++] = zeroValue;
+        }
+        int[] ks = keys;
+        long[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0) {
+                a[n++] = vs[i];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the keys in this map.
+     */
+    // 返回key的迭代器
+    public PrimitiveIterator.OfInt keyIterator() {
+        return Spliterators.iterator(keySpliterator());
+    }
+
+    /**
+     * Returns a late-binding, fail-fast spliterator over the keys in
+     * this map. The spliterator reports {@link Spliterator#DISTINCT}
+     * and, until it is split, {@link Spliterator#SIZED}.
+     */
+    // 返回key的可分割迭代器
+    public Spliterator.OfInt keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} over the keys in this map.
+     */
+    // 返回key的流
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    // 获取Map中的元素数量
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     */
+    // 判断Map是否为空集
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Compares the specified object with this map for equality. Returns
+     * {@code true} if the given object is also an {@code IntLongHashMap}
+     * and the two maps represent the same mappings.
+     */
+    public boolean equals(Object o) {
+        if(o == this) {
+            return true;
+        }
+        if(!(o instanceof IntLongHashMap)) {
+            return false;
+        }
+
+        IntLongHashMap m = (IntLongHashMap) o;
+        if(m.size != size || m.hasZeroKey != hasZeroKey) {
+            return false;
+        }
+        if(hasZeroKey && zeroValue != m.zeroValue) {
+            return false;
+        }
+        int[] ks = keys;
+        long[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            int k = ks[i];
+            if(k != 0) {
+                int j = m.indexOf(k);
+                if(j<0 || vs[i] != m.values[j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, the sum of
+     * {@code key ^ Long.hashCode(value)} over all mappings.
+     */
+    public int hashCode() {
+        int h = hasZeroKey ? Long.hashCode(zeroValue) : 0;
+        int[] ks = keys;
+        long[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0) {
+                h += ks[i] ^ Long.hashCode(vs[i]);
+            }
+        }
+        return h;
+    }
+
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        if(hasZeroKey) {
+            sj.add("0=" + zeroValue);
+        }
+        int[] ks = keys;
+        long[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0) {
+                sj.add(ks[i] + "=" + vs[i]);
+            }
+        }
+        return sj.toString();
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    // 计算容量为capacity时的扩容阈值（保证至少留有一个空槽）
+    int thresholdFor(int capacity) {
+        return Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    // 返回key在哈希数组中的下标，不存在时返回-1（key不为0）
+    final int indexOf(int key) {
+        int[] ks = keys;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.hash(key) & mask;
+        int k;
+        while((k = ks[i]) != 0) {
+            if(k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 插入新元素后的回调，必要时扩容
+    private void afterInsert() {
+        modCount++;
+        if(++size >= threshold) {
+            resize();
+        }
+    }
+
+    // 插入新元素前的检查：哈希数组达到最大容量后不再扩容，此时需保留一个空槽，否则探测将无法终止
+    private void checkCapacity(int mask) {
+        if(size - (hasZeroKey ? 1 : 0) >= mask) {
+            throw new IllegalStateException("map full");
+        }
+    }
+
+    // 哈希数组扩容为原来的两倍
+    private void resize() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        int oldCap = oldKeys.length;
+        if(oldCap >= IntObjectHashMap.MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        int newCap = oldCap << 1;
+        int mask = newCap - 1;
+        int[] newKeys = new int[newCap];
+        long[] newValues = new long[newCap];
+        for(int j = 0; j<oldCap; j++) {
+            int k = oldKeys[j];
+            if(k != 0) {
+                int i = IntObjectHashMap.hash(k) & mask;
+                while(newKeys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = k;
+                newValues[i] = oldValues[j];
+            }
+        }
+
+        keys = newKeys;
+        values = newValues;
+        threshold = thresholdFor(newCap);
+    }
+
+    // 移除下标pos处的元素，并将同一探测序列上的后续元素前移
+    private void shiftKeys(int pos) {
+        int[] ks = keys;
+        long[] vs = values;
+        int mask = ks.length - 1;
+        for(; ; ) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            for(; ; ) {
+                if((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = 0;
+                    return;
+                }
+                // 元素的理想位置slot不在(last, pos]区间内时，可以前移到last
+                int slot = IntObjectHashMap.hash(k) & mask;
+                if(last<=pos ? (last >= slot || slot>pos) : (last >= slot && slot>pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+
+
+    // key的可分割迭代器
+    static final class KeySpliterator implements Spliterator.OfInt {
+        final IntLongHashMap map;
+        int index;          // current index, modified on advance/split
+        int fence;          // one past last index, -1 until first use
+        int est;            // size estimate
+        int expectedModCount;
+        boolean zeroDone;   // whether the key 0 has been handled
+
+        KeySpliterator(IntLongHashMap map, int origin, int fence, int est, int expectedModCount) {
+            this.map = map;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.zeroDone = origin != 0;
+        }
+
+        // 首次使用时初始化fence
+        final int getFence() {
+            int hi;
+            if((hi = fence)<0) {
+                est = map.size;
+                expectedModCount = map.modCount;
+                hi = fence = map.keys.length;
+            }
+            return hi;
+        }
+
+        public OfInt trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if(lo >= mid) {
+                return null;
+            }
+            // 前半部分保留键0
+            KeySpliterator prefix = new KeySpliterator(map, lo, mid, est >>>= 1, expectedModCount);
+            prefix.zeroDone = zeroDone;
+            zeroDone = true;
+            index = mid;
+            return prefix;
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(map.hasZeroKey) {
+                    action.accept(0);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            int[] ks = map.keys;
+            while(index<hi) {
+                int k = ks[index++];
+                if(k != 0) {
+                    action.accept(k);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(map.hasZeroKey) {
+                    action.accept(0);
+                }
+            }
+
+            int[] ks = map.keys;
+            for(int i = index; i<hi; i++) {
+                if(ks[i] != 0) {
+                    action.accept(ks[i]);
+                }
+            }
+            index = hi;
+
+            checkForComodification();
+        }
+
+        public long estimateSize() {
+            getFence();
+            return est;
+        }
+
+        public int characteristics() {
+            return (fence<0 || est == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+
+        private void checkForComodification() {
+            if(map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+}
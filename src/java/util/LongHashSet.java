@@ -0,0 +1,571 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table based set of primitive {@code long} values. Elements are
+ * never boxed and no per-element objects are allocated: the elements
+ * live in a single {@code long} array and collisions are resolved by
+ * linear probing, in the same way as {@link LongObjectHashMap}.
+ *
+ * <p>The element {@code 0} marks empty slots in the array and is
+ * therefore tracked separately; it is nonetheless a legal element.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are
+ * <i>fail-fast</i> and do not support {@code remove}.
+ *
+ * @see HashSet
+ * @see LongObjectHashMap
+ */
+/*
+ * 元素类型为基本类型long的哈希集合，采用开放寻址法（线性探测）
+ *
+ * 元素直接存储在long数组中，不会装箱，也不会为每个元素创建结点。
+ * 数组中的0表示空槽，所以元素0单独用hasZero标记。
+ */
+public class LongHashSet {
+
+    /** The elements; 0 marks an empty slot */
+    // 元素数组，0表示空槽
+    long[] elements;
+
+    /** Whether 0 is present */
+    // 是否包含元素0
+    boolean hasZero;
+
+    /** The number of elements, including 0 */
+    // 元素数量（包括元素0）
+    int size;
+
+    /** The number of times this set has been structurally modified */
+    // 记录结构的修改次数
+    transient int modCount;
+
+    /** The size at which the table is doubled */
+    // 扩容阈值
+    int threshold;
+
+    /** The load factor */
+    // 装载因子
+    final float loadFactor;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Constructs an empty set with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongHashSet() {
+        this(IntObjectHashMap.DEFAULT_INITIAL_CAPACITY, IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set able to hold {@code expectedSize}
+     * elements without resizing, with the default load factor (0.5).
+     *
+     * @param expectedSize the expected number of elements
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public LongHashSet(int expectedSize) {
+        this(expectedSize, IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set able to hold {@code expectedSize}
+     * elements without resizing, with the specified load factor.
+     *
+     * @param expectedSize the expected number of elements
+     * @param loadFactor   the load factor, between 0 and 1 exclusive
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is
+     *                                  negative or the load factor is not in (0, 1)
+     */
+    public LongHashSet(int expectedSize, float loadFactor) {
+        if(expectedSize<0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if(!(loadFactor>0 && loadFactor<1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+
+        int capacity = IntObjectHashMap.tableSizeFor((int) Math.min((long) Math.ceil(expectedSize / (double) loadFactor), IntObjectHashMap.MAXIMUM_CAPACITY));
+        this.elements = new long[capacity];
+        this.threshold = thresholdFor(capacity);
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 添加 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @param e element to be added to this set
+     *
+     * @return {@code true} if this set did not already contain the element
+     * @throws IllegalStateException if this set is full
+     */
+    // 添加元素，返回值表示是否添加成功
+    public boolean add(long e) {
+        if(e == 0L) {
+            if(hasZero) {
+                return false;
+            }
+            hasZero = true;
+            afterInsert();
+            return true;
+        }
+
+        long[] es = elements;
+        int mask = es.length - 1;
+        int i = LongObjectHashMap.hash(e) & mask;
+        long k;
+        while((k = es[i]) != 0L) {
+            if(k == e) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        checkCapacity(mask);
+        es[i] = e;
+        afterInsert();
+
+        return true;
+    }
+
+    /**
+     * Adds all of the elements of the specified array to this set.
+     *
+     * @return {@code true} if this set changed as a result of the call
+     */
+    // 添加数组中的所有元素，返回值表示集合是否发生了变化
+    public boolean addAll(long... es) {
+        boolean modified = false;
+        for(long e : es) {
+            modified |= add(e);
+        }
+        return modified;
+    }
+
+    /*▲ 添加 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @return {@code true} if this set contained the specified element
+     */
+    // 移除指定的元素，返回值表示是否移除成功
+    public boolean remove(long e) {
+        if(e == 0L) {
+            if(!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            modCount++;
+            return true;
+        }
+
+        int i = indexOf(e);
+        if(i<0) {
+            return false;
+        }
+
+        shiftKeys(i);
+        size--;
+        modCount++;
+
+        return true;
+    }
+
+    /**
+     * Removes all of the elements from this set.
+     */
+    // 清空集合
+    public void clear() {
+        if(size>0) {
+            Arrays.fill(elements, 0L);
+            hasZero = false;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns {@code true} if this set contains the specified element.
+     */
+    // 判断集合中是否包含指定的元素
+    public boolean contains(long e) {
+        return e == 0L ? hasZero : indexOf(e) >= 0;
+    }
+
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Performs the given action for each element of this set.
+     *
+     * @throws ConcurrentModificationException if the set is modified
+     *                                         during iteration
+     */
+    // 遍历集合中的元素，并对其应用action操作
+    public void forEach(LongConsumer action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns a new array containing all of the elements in this set.
+     */
+    // 返回所有元素组成的数组
+    public long[] toArray() {
+        long[] a = new long[size];
+        int n = 0;
+        if(hasZero) {
+            n++;
+        }
+        for(long k : elements) {
+            if(k != 0L) {
+                a[n++] = k;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this set.
+     */
+    // 返回元素的迭代器
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Returns a late-binding, fail-fast spliterator over the elements in
+     * this set. The spliterator reports {@link Spliterator#DISTINCT}
+     * and, until it is split, {@link Spliterator#SIZED}.
+     */
+    // 返回元素的可分割迭代器
+    public Spliterator.OfLong spliterator() {
+        return new ElementSpliterator(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} over the elements of this set.
+     */
+    // 返回元素的流
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the number of elements in this set.
+     */
+    // 获取集合中的元素数量
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this set contains no elements.
+     */
+    // 判断集合是否为空
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Compares the specified object with this set for equality. Returns
+     * {@code true} if the given object is also a {@code LongHashSet}
+     * and the two sets contain the same elements.
+     */
+    public boolean equals(Object o) {
+        if(o == this) {
+            return true;
+        }
+        if(!(o instanceof LongHashSet)) {
+            return false;
+        }
+
+        LongHashSet s = (LongHashSet) o;
+        if(s.size != size || s.hasZero != hasZero) {
+            return false;
+        }
+        for(long k : elements) {
+            if(k != 0L && s.indexOf(k)<0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, the sum of
+     * {@code Long.hashCode(e)} over all elements, as in {@link Set#hashCode()}.
+     */
+    public int hashCode() {
+        int h = 0;
+        for(long k : elements) {
+            h += Long.hashCode(k);
+        }
+        return h;
+    }
+
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "[", "]");
+        forEach(e -> sj.add(Long.toString(e)));
+        return sj.toString();
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    // 计算容量为capacity时的扩容阈值（保证至少留有一个空槽）
+    int thresholdFor(int capacity) {
+        return Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    // 返回元素在哈希数组中的下标，不存在时返回-1（元素不为0）
+    final int indexOf(long e) {
+        long[] es = elements;
+        int mask = es.length - 1;
+        int i = LongObjectHashMap.hash(e) & mask;
+        long k;
+        while((k = es[i]) != 0L) {
+            if(k == e) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 插入新元素后的回调，必要时扩容
+    private void afterInsert() {
+        modCount++;
+        if(++size >= threshold) {
+            resize();
+        }
+    }
+
+    // 插入新元素前的检查：哈希数组达到最大容量后不再扩容，此时需保留一个空槽，否则探测将无法终止
+    private void checkCapacity(int mask) {
+        if(size - (hasZero ? 1 : 0) >= mask) {
+            throw new IllegalStateException("set full");
+        }
+    }
+
+    // 哈希数组扩容为原来的两倍
+    private void resize() {
+        long[] old = elements;
+        int oldCap = old.length;
+        if(oldCap >= IntObjectHashMap.MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        int newCap = oldCap << 1;
+        int mask = newCap - 1;
+        long[] es = new long[newCap];
+        for(long k : old) {
+            if(k != 0L) {
+                int i = LongObjectHashMap.hash(k) & mask;
+                while(es[i] != 0L) {
+                    i = (i + 1) & mask;
+                }
+                es[i] = k;
+            }
+        }
+
+        elements = es;
+        threshold = thresholdFor(newCap);
+    }
+
+    // 移除下标pos处的元素，并将同一探测序列上的后续元素前移
+    private void shiftKeys(int pos) {
+        long[] es = elements;
+        int mask = es.length - 1;
+        for(; ; ) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            long k;
+            for(; ; ) {
+                if((k = es[pos]) == 0L) {
+                    es[last] = 0L;
+                    return;
+                }
+                // 元素的理想位置slot不在(last, pos]区间内时，可以前移到last
+                int slot = LongObjectHashMap.hash(k) & mask;
+                if(last<=pos ? (last >= slot || slot>pos) : (last >= slot && slot>pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            es[last] = k;
+        }
+    }
+
+
+
+    // 元素的可分割迭代器
+    static final class ElementSpliterator implements Spliterator.OfLong {
+        final LongHashSet set;
+        int index;          // current index, modified on advance/split
+        int fence;          // one past last index, -1 until first use
+        int est;            // size estimate
+        int expectedModCount;
+        boolean zeroDone;   // whether the element 0 has been handled
+
+        ElementSpliterator(LongHashSet set, int origin, int fence, int est, int expectedModCount) {
+            this.set = set;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.zeroDone = origin != 0;
+        }
+
+        // 首次使用时初始化fence
+        final int getFence() {
+            int hi;
+            if((hi = fence)<0) {
+                est = set.size;
+                expectedModCount = set.modCount;
+                hi = fence = set.elements.length;
+            }
+            return hi;
+        }
+
+        public OfLong trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if(lo >= mid) {
+                return null;
+            }
+            // 前半部分保留元素0
+            ElementSpliterator prefix = new ElementSpliterator(set, lo, mid, est >>>= 1, expectedModCount);
+            prefix.zeroDone = zeroDone;
+            zeroDone = true;
+            index = mid;
+            return prefix;
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(set.hasZero) {
+                    action.accept(0L);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            long[] es = set.elements;
+            while(index<hi) {
+                long k = es[index++];
+                if(k != 0L) {
+                    action.accept(k);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(set.hasZero) {
+                    action.accept(0L);
+                }
+            }
+
+            long[] es = set.elements;
+            for(int i = index; i<hi; i++) {
+                if(es[i] != 0L) {
+                    action.accept(es[i]);
+                }
+            }
+            index = hi;
+
+            checkForComodification();
+        }
+
+        public long estimateSize() {
+            getFence();
+            return est;
+        }
+
+        public int characteristics() {
+            return (fence<0 || est == set.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+
+        private void checkForComodification() {
+            if(set.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,820 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table based map from primitive {@code long} keys to object
+ * values. Keys are never boxed and entries are never allocated: keys
+ * and values live side by side in two parallel arrays and collisions
+ * are resolved by linear probing. Removal shifts subsequent entries
+ * back instead of leaving tombstones, so lookups never degrade after
+ * many removals. This map permits {@code null} values.
+ *
+ * <p>The key {@code 0} marks empty slots in the key array and is
+ * therefore stored out of line; it is nonetheless a legal key.
+ *
+ * <p>This class offers constant-time performance for {@code get} and
+ * {@code put}, assuming the hash function spreads the keys properly.
+ * Iteration order is unspecified and may change when the table is
+ * resized. Keys can be traversed without boxing through {@link
+ * #keyIterator()}, {@link #keySpliterator()} and {@link #keyStream()}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are
+ * <i>fail-fast</i>: if the map is structurally modified after they are
+ * created they throw {@link ConcurrentModificationException} on a
+ * best-effort basis. The iterators do not support {@code remove}.
+ *
+ * @param <V> the type of mapped values
+ * @see HashMap
+ * @see IntObjectHashMap
+ * @see LongHashSet
+ */
+/*
+ * 以基本类型long为键的哈希映射，采用开放寻址法（线性探测）
+ *
+ * 键与值分别存储在两个平行数组中，存取过程中既不会装箱，也不会为每个元素创建结点。
+ * 移除元素时将后续元素前移（而不是留下墓碑标记），因此频繁移除后查找性能不会退化。
+ *
+ * 键数组中的0表示空槽，所以键为0的元素单独存储在zeroValue中。
+ */
+public class LongObjectHashMap<V> {
+
+    /** The default initial capacity; must be a power of two */
+    // 哈希数组默认容量
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum capacity; must be a power of two */
+    // 哈希数组最大容量
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The load factor used when none specified in constructor */
+    // 默认装载因子，线性探测下不宜过高
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /** The keys; 0 marks an empty slot */
+    // 键数组，0表示空槽
+    long[] keys;
+
+    /** The values, parallel to keys */
+    // 值数组，与键数组一一对应
+    Object[] values;
+
+    /** Whether the key 0 is present */
+    // 是否包含键0
+    boolean hasZeroKey;
+
+    /** The value mapped to the key 0 */
+    // 键0对应的值
+    V zeroValue;
+
+    /** The number of mappings, including the key 0 */
+    // 元素数量（包括键0）
+    int size;
+
+    /** The number of times this map has been structurally modified */
+    // 记录结构的修改次数
+    transient int modCount;
+
+    /** The size at which the table is doubled */
+    // 扩容阈值
+    int threshold;
+
+    /** The load factor */
+    // 装载因子
+    final float loadFactor;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold {@code expectedSize}
+     * mappings without resizing, with the default load factor (0.5).
+     *
+     * @param expectedSize the expected number of mappings
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public LongObjectHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold {@code expectedSize}
+     * mappings without resizing, with the specified load factor.
+     *
+     * @param expectedSize the expected number of mappings
+     * @param loadFactor   the load factor, between 0 and 1 exclusive
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is
+     *                                  negative or the load factor is not in (0, 1)
+     */
+    public LongObjectHashMap(int expectedSize, float loadFactor) {
+        if(expectedSize<0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if(!(loadFactor>0 && loadFactor<1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+
+        int capacity = tableSizeFor((int) Math.min((long) Math.ceil(expectedSize / (double) loadFactor), MAXIMUM_CAPACITY));
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.threshold = thresholdFor(capacity);
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no mapping for {@code key}
+     * @throws IllegalStateException if this map is full
+     */
+    // 将指定的元素（key-value）存入Map，并返回旧值，允许覆盖
+    public V put(long key, V value) {
+        if(key == 0) {
+            V old = zeroValue;
+            zeroValue = value;
+            if(!hasZeroKey) {
+                hasZeroKey = true;
+                afterInsert();
+            }
+            return old;
+        }
+
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        long k;
+        while((k = ks[i]) != 0) {
+            if(k == key) {
+                @SuppressWarnings("unchecked")
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        checkCapacity(mask);
+        ks[i] = key;
+        values[i] = value;
+        afterInsert();
+
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no mapping for {@code key}
+     */
+    // 将指定的元素（key-value）存入Map，并返回旧值，不允许覆盖（旧值为null时允许覆盖）
+    public V putIfAbsent(long key, V value) {
+        V old = get(key);
+        if(old == null) {
+            put(key, value);
+        }
+        return old;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     */
+    // 将指定Map中的元素存入到当前Map（允许覆盖）
+    public void putAll(LongObjectHashMap<? extends V> m) {
+        if(m.hasZeroKey) {
+            put(0L, m.zeroValue);
+        }
+        long[] ks = m.keys;
+        Object[] vs = m.values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0) {
+                @SuppressWarnings("unchecked")
+                V v = (V) vs[i];
+                put(ks[i], v);
+            }
+        }
+    }
+
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     *
+     * @return the value mapped to {@code key}, or {@code null}
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回null
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     *
+     * @return the value mapped to {@code key}, or {@code defaultValue}
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回指定的默认值defaultValue
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if(key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+
+        int i = indexOf(key);
+        return i<0 ? defaultValue : (V) values[i];
+    }
+
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no mapping for {@code key}
+     */
+    // 移除拥有指定key的元素，并返回刚刚移除的元素的值
+    public V remove(long key) {
+        if(key == 0) {
+            if(!hasZeroKey) {
+                return null;
+            }
+            V old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            modCount++;
+            return old;
+        }
+
+        int i = indexOf(key);
+        if(i<0) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V old = (V) values[i];
+        shiftKeys(i);
+        size--;
+        modCount++;
+
+        return old;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    // 清空Map中所有元素
+    public void clear() {
+        if(size>0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, null);
+            hasZeroKey = false;
+            zeroValue = null;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     */
+    // 判断Map中是否存在指定key的元素
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value. This operation requires a full scan of the table.
+     */
+    // 判断Map中是否存在指定value的元素
+    public boolean containsValue(Object value) {
+        if(hasZeroKey && Objects.equals(zeroValue, value)) {
+            return true;
+        }
+        long[] ks = keys;
+        Object[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0 && Objects.equals(vs[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 重新映射 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * If the specified key is not already associated with a non-null
+     * value, attempts to compute its value using the given mapping
+     * function and enters it into this map unless {@code null}.
+     *
+     * @param key             key with which the specified value is to be associated
+     * @param mappingFunction the mapping function to compute a value
+     *
+     * @return the current (existing or computed) value associated with
+     * the specified key, or null if the computed value is null
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     *                                         mapping function modified this map
+     */
+    // 如果key对应的值为null，则使用mappingFunction计算新值并存入，返回最终的值
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+
+        V old = get(key);
+        if(old != null) {
+            return old;
+        }
+
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if(mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if(v != null) {
+            put(key, v);
+        }
+
+        return v;
+    }
+
+    /*▲ 重新映射 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Performs the given action for each mapping in this map. The
+     * action receives the value first and the key second.
+     *
+     * @param action the action to be performed for each mapping
+     *
+     * @throws ConcurrentModificationException if the map is modified
+     *                                         during iteration
+     */
+    // 遍历Map中的元素，并对其应用action操作，action的入参是元素的value和key
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super V> action) {
+        Objects.requireNonNull(action);
+
+        int mc = modCount;
+        if(hasZeroKey) {
+            action.accept(zeroValue, 0L);
+        }
+        long[] ks = keys;
+        Object[] vs = values;
+        for(int i = 0; i<ks.length && mc == modCount; i++) {
+            if(ks[i] != 0) {
+                action.accept((V) vs[i], ks[i]);
+            }
+        }
+        if(mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a new array containing all of the keys in this map.
+     *
+     * @return an array of the keys in this map
+     */
+    // 返回所有key组成的数组
+    public long[] keys() {
+        long[] a = new long[size];
+        int n = 0;
+        if(hasZeroKey) {
+            n++;
+        }
+        for(long k : keys) {
+            if(k != 0) {
+                a[n++] = k;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the keys in this map.
+     *
+     * @return a {@code PrimitiveIterator.OfLong} over the keys
+     */
+    // 返回key的迭代器
+    public PrimitiveIterator.OfLong keyIterator() {
+        return Spliterators.iterator(keySpliterator());
+    }
+
+    /**
+     * Returns a late-binding, fail-fast spliterator over the keys in
+     * this map. The spliterator reports {@link Spliterator#DISTINCT}
+     * and, until it is split, {@link Spliterator#SIZED}.
+     *
+     * @return a {@code Spliterator.OfLong} over the keys
+     */
+    // 返回key的可分割迭代器
+    public Spliterator.OfLong keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} over the keys in this map.
+     *
+     * @return a {@code LongStream} of the keys
+     */
+    // 返回key的流
+    public LongStream keyStream() {
+        return StreamSupport.longStream(keySpliterator(), false);
+    }
+
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    // 获取Map中的元素数量
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     */
+    // 判断Map是否为空集
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Compares the specified object with this map for equality. Returns
+     * {@code true} if the given object is also a {@code LongObjectHashMap}
+     * and the two maps represent the same mappings.
+     */
+    public boolean equals(Object o) {
+        if(o == this) {
+            return true;
+        }
+        if(!(o instanceof LongObjectHashMap)) {
+            return false;
+        }
+
+        LongObjectHashMap<?> m = (LongObjectHashMap<?>) o;
+        if(m.size != size || m.hasZeroKey != hasZeroKey) {
+            return false;
+        }
+        if(hasZeroKey && !Objects.equals(zeroValue, m.zeroValue)) {
+            return false;
+        }
+        long[] ks = keys;
+        Object[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            long k = ks[i];
+            if(k != 0) {
+                int j = m.indexOf(k);
+                if(j<0 || !Objects.equals(vs[i], m.values[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, the sum of
+     * {@code Long.hashCode(key) ^ Objects.hashCode(value)} over all mappings.
+     */
+    public int hashCode() {
+        int h = hasZeroKey ? Objects.hashCode(zeroValue) : 0;
+        long[] ks = keys;
+        Object[] vs = values;
+        for(int i = 0; i<ks.length; i++) {
+            if(ks[i] != 0) {
+                h += Long.hashCode(ks[i]) ^ Objects.hashCode(vs[i]);
+            }
+        }
+        return h;
+    }
+
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        forEach((v, k) -> sj.add(k + "=" + (v == this ? "(this Map)" : v)));
+        return sj.toString();
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /**
+     * Spreads the bits of the key; multiplying by the golden ratio
+     * breaks up the sequential ids typical of long keys.
+     */
+    // 计算哈希值，乘以黄金分割数以打散连续的key
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // 返回不小于cap的2的幂
+    static int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(cap, 2) - 1);
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    // 计算容量为capacity时的扩容阈值（保证至少留有一个空槽）
+    int thresholdFor(int capacity) {
+        return Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    // 返回key在哈希数组中的下标，不存在时返回-1（key不为0）
+    final int indexOf(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 1;
+        int i = hash(key) & mask;
+        long k;
+        while((k = ks[i]) != 0) {
+            if(k == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // 插入新元素后的回调，必要时扩容
+    private void afterInsert() {
+        modCount++;
+        if(++size >= threshold) {
+            resize();
+        }
+    }
+
+    // 插入新元素前的检查：哈希数组达到最大容量后不再扩容，此时需保留一个空槽，否则探测将无法终止
+    private void checkCapacity(int mask) {
+        if(size - (hasZeroKey ? 1 : 0) >= mask) {
+            throw new IllegalStateException("map full");
+        }
+    }
+
+    // 哈希数组扩容为原来的两倍
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldCap = oldKeys.length;
+        if(oldCap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        int newCap = oldCap << 1;
+        int mask = newCap - 1;
+        long[] newKeys = new long[newCap];
+        Object[] newValues = new Object[newCap];
+        for(int j = 0; j<oldCap; j++) {
+            long k = oldKeys[j];
+            if(k != 0) {
+                int i = hash(k) & mask;
+                while(newKeys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = k;
+                newValues[i] = oldValues[j];
+            }
+        }
+
+        keys = newKeys;
+        values = newValues;
+        threshold = thresholdFor(newCap);
+    }
+
+    /**
+     * Removes the entry at pos by shifting back the entries of the same
+     * probe run, so that no tombstone is needed.
+     */
+    // 移除下标pos处的元素，并将同一探测序列上的后续元素前移
+    private void shiftKeys(int pos) {
+        long[] ks = keys;
+        Object[] vs = values;
+        int mask = ks.length - 1;
+        for(; ; ) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            long k;
+            for(; ; ) {
+                if((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = null;
+                    return;
+                }
+                // 元素的理想位置slot不在(last, pos]区间内时，可以前移到last
+                int slot = hash(k) & mask;
+                if(last<=pos ? (last >= slot || slot>pos) : (last >= slot && slot>pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+
+
+    /**
+     * Spliterator over the keys; the key 0 is reported by the
+     * spliterator that covers slot 0 of the table.
+     */
+    // key的可分割迭代器
+    static final class KeySpliterator implements Spliterator.OfLong {
+        final LongObjectHashMap<?> map;
+        int index;          // current index, modified on advance/split
+        int fence;          // one past last index, -1 until first use
+        int est;            // size estimate
+        int expectedModCount;
+        boolean zeroDone;   // whether the key 0 has been handled
+
+        KeySpliterator(LongObjectHashMap<?> map, int origin, int fence, int est, int expectedModCount) {
+            this.map = map;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.zeroDone = origin != 0;
+        }
+
+        // 首次使用时初始化fence
+        final int getFence() {
+            int hi;
+            if((hi = fence)<0) {
+                est = map.size;
+                expectedModCount = map.modCount;
+                hi = fence = map.keys.length;
+            }
+            return hi;
+        }
+
+        public OfLong trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if(lo >= mid) {
+                return null;
+            }
+            // 前半部分保留键0
+            KeySpliterator prefix = new KeySpliterator(map, lo, mid, est >>>= 1, expectedModCount);
+            prefix.zeroDone = zeroDone;
+            zeroDone = true;
+            index = mid;
+            return prefix;
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(map.hasZeroKey) {
+                    action.accept(0L);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            long[] ks = map.keys;
+            while(index<hi) {
+                long k = ks[index++];
+                if(k != 0) {
+                    action.accept(k);
+                    checkForComodification();
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            Objects.requireNonNull(action);
+
+            int hi = getFence();
+            if(!zeroDone) {
+                zeroDone = true;
+                if(map.hasZeroKey) {
+                    action.accept(0L);
+                }
+            }
+
+            long[] ks = map.keys;
+            for(int i = index; i<hi; i++) {
+                if(ks[i] != 0) {
+                    action.accept(ks[i]);
+                }
+            }
+            index = hi;
+
+            checkForComodification();
+        }
+
+        public long estimateSize() {
+            getFence();
+            return est;
+        }
+
+        public int characteristics() {
+            return (fence<0 || est == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+
+        private void checkForComodification() {
+            if(map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+}
@@ -330,6 +330,61 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         return super.add(e);
     }
     
+    /**
+     * Inserts, in order, as many of the elements {@code a[off]} through
+     * {@code a[off + len - 1]} as fit in the remaining capacity, at the
+     * tail of this queue. The lock is acquired once and waiting
+     * consumers are signalled once per call.
+     *
+     * @throws NullPointerException      {@inheritDoc}
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，只加锁一次，队满时不阻塞，返回成功入队的元素个数
+    public int offer(E[] a, int off, int len) {
+        Objects.checkFromIndexSize(off, len, a.length);
+        for(int i = off, end = off + len; i<end; i++) {
+            Objects.requireNonNull(a[i]);
+        }
+        
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            final Object[] items = this.items;
+            
+            // 实际可以入队的元素个数
+            int n = Math.min(len, items.length - count);
+            if(n == 0) {
+                return 0;
+            }
+            
+            // 分两段复制元素（队尾到数组末端，数组起始处到剩余部分）
+            int put = putIndex;
+            int first = Math.min(n, items.length - put);
+            System.arraycopy(a, off, items, put, first);
+            System.arraycopy(a, off + first, items, 0, n - first);
+            
+            // 游标递增（轮转）
+            put += n;
+            if(put >= items.length) {
+                put -= items.length;
+            }
+            putIndex = put;
+            
+            // 元素数量增加
+            count += n;
+            
+            // 唤醒出队线程（至多n个）
+            for(int i = n; i>0 && lock.hasWaiters(notEmpty); i--) {
+                notEmpty.signal();
+            }
+            
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -617,6 +672,42 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         }
     }
     
+    /**
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 11
+     */
+    // 批量出队，队空时阻塞一段时间，直到至少有一个元素可用，然后在同一次加锁内转移前maxElements个元素
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(c);
+        if(c == this)
+            throw new IllegalArgumentException();
+        if(maxElements<=0)
+            return 0;
+        
+        long nanos = unit.toNanos(timeout);
+        
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            // 如果队列为空，阻塞一段时间
+            while(count == 0) {
+                if(nanos<=0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            
+            // 持有锁的情形下转移元素（重入）
+            return drainTo(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
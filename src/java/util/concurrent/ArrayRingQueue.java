@@ -0,0 +1,179 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Skeletal implementation shared by the bounded lock-free array
+ * queues {@link MpmcArrayQueue}, {@link MpscArrayQueue} and {@link
+ * SpscArrayQueue}.
+ *
+ * <p>Elements live in a power-of-two sized circular array and are
+ * addressed by two ever-increasing long indices: the producer index
+ * (next slot to fill) and the consumer index (next slot to drain).
+ * Each index lives in its own padded field, so that producers and
+ * consumers do not falsely share a cache line. Subclasses define how
+ * the indices are claimed. Inserting and removing elements never
+ * allocates.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+/*
+ * 有界无锁环形队列的公共实现
+ *
+ * 元素存储在长度为2的幂的环形数组中，使用两个只增不减的long型索引定位：
+ * 生产者索引producerIndex：下一个待填充的槽位
+ * 消费者索引consumerIndex：下一个待取出的槽位
+ * 两个索引分别填充在独立的缓存行中，避免生产者与消费者之间的伪共享
+ * 入队与出队过程不会分配任何对象
+ */
+abstract class ArrayRingQueue<E> extends AbstractQueue<E> {
+
+    /** The slots; length is a power of two */
+    // 环形数组，长度为2的幂
+    final Object[] buffer;
+
+    /** buffer.length - 1 */
+    final int mask;
+
+    /** Next index to be filled by a producer */
+    // 生产者索引
+    @jdk.internal.vm.annotation.Contended
+    volatile long producerIndex;
+
+    /** Next index to be drained by a consumer */
+    // 消费者索引
+    @jdk.internal.vm.annotation.Contended
+    volatile long consumerIndex;
+
+    /**
+     * Creates a queue holding at least {@code capacity} elements; the
+     * actual capacity is rounded up to a power of two.
+     */
+    ArrayRingQueue(int capacity) {
+        if(capacity<=0 || capacity>(1 << 30)) {
+            throw new IllegalArgumentException();
+        }
+
+        // 容量向上取整为2的幂
+        int n = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested
+     * capacity rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    // 返回队列容量
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the number of elements in this queue. Because producers
+     * and consumers proceed concurrently, the result is only an
+     * estimate, although it is always between zero and the capacity.
+     *
+     * @return the number of elements in this queue
+     */
+    // 返回队列中元素数量（估计值）
+    public int size() {
+        long after = (long) CONSUMER_INDEX.getAcquire(this);
+        for(; ; ) {
+            long before = after;
+            long p = (long) PRODUCER_INDEX.getAcquire(this);
+            after = (long) CONSUMER_INDEX.getAcquire(this);
+            // 读取生产者索引期间消费者索引未变时，结果才有意义
+            if(before == after) {
+                long size = p - after;
+                return (size<0L) ? 0 : (size>buffer.length) ? buffer.length : (int) size;
+            }
+        }
+    }
+
+    // 判断队列是否为空（估计值）
+    public boolean isEmpty() {
+        return (long) CONSUMER_INDEX.getAcquire(this) >= (long) PRODUCER_INDEX.getAcquire(this);
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements present in
+     * this queue, in the order they would be polled. The snapshot is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>
+     * and the iterator does not support {@code remove}; for the same
+     * reason {@link #remove(Object)} is not supported by these queues.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        long c = (long) CONSUMER_INDEX.getAcquire(this);
+        long p = (long) PRODUCER_INDEX.getAcquire(this);
+        if(c >= p) {
+            return Collections.emptyIterator();
+        }
+
+        ArrayList<E> list = new ArrayList<>((int) Math.min(p - c, buffer.length));
+        for(long i = c, end = Math.min(p, c + buffer.length); i<end; i++) {
+            @SuppressWarnings("unchecked")
+            E e = (E) ELEMENT.getAcquire(buffer, (int) i & mask);
+            if(e != null) {
+                list.add(e);
+            }
+        }
+
+        return Collections.unmodifiableList(list).iterator();
+    }
+
+    // 读取槽位中的元素
+    @SuppressWarnings("unchecked")
+    final E elementAt(long index) {
+        return (E) ELEMENT.getAcquire(buffer, (int) index & mask);
+    }
+
+    // VarHandle mechanics
+    static final VarHandle PRODUCER_INDEX;
+    static final VarHandle CONSUMER_INDEX;
+    static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            PRODUCER_INDEX = l.findVarHandle(ArrayRingQueue.class, "producerIndex", long.class);
+            CONSUMER_INDEX = l.findVarHandle(ArrayRingQueue.class, "consumerIndex", long.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+}
@@ -36,6 +36,7 @@
 package java.util.concurrent;
 
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Queue;
 
 /**
@@ -274,6 +275,55 @@ public interface BlockingQueue<E> extends Queue<E> {
     // 入队，无法入队时扩容，或阻塞一段时间，超时后无法入队则返回false
     boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException;
     
+    /**
+     * Inserts, in order, as many of the elements {@code a[off]} through
+     * {@code a[off + len - 1]} as is possible immediately without
+     * violating capacity restrictions, and returns how many were
+     * inserted. Elements are inserted as a prefix of the given range:
+     * if the {@code i}-th element cannot be inserted, no later element
+     * is inserted either.
+     *
+     * <p>Implementations are encouraged to acquire their locks and
+     * signal waiting consumers once per call rather than once per
+     * element, which makes this method much cheaper than repeated
+     * calls to {@link #offer(Object)} when moving batches of elements.
+     *
+     * @implSpec
+     * The default implementation checks that no element in the range
+     * is null and then invokes {@link #offer(Object)} for each element
+     * in turn, until one of them returns {@code false}.
+     *
+     * @param a   the array holding the elements to add
+     * @param off the index of the first element to add
+     * @param len the number of elements to add
+     *
+     * @return the number of elements inserted, from {@code 0} to {@code len}
+     *
+     * @throws ClassCastException        if the class of an element
+     *                                   prevents it from being added to this queue
+     * @throws NullPointerException      if the array or any element of
+     *                                   the range is null; no element is inserted in that case
+     * @throws IndexOutOfBoundsException if the range is out of the
+     *                                   bounds of the array
+     * @throws IllegalArgumentException  if some property of an element
+     *                                   prevents it from being added to this queue
+     * @since 11
+     */
+    // 批量入队，从数组a的off处开始，尝试入队len个元素，无法入队时不阻塞，返回成功入队的元素个数
+    default int offer(E[] a, int off, int len) {
+        Objects.checkFromIndexSize(off, len, a.length);
+        for(int i = off, end = off + len; i<end; i++) {
+            Objects.requireNonNull(a[i]);
+        }
+        
+        int n = 0;
+        while(n<len && offer(a[off + n])) {
+            n++;
+        }
+        
+        return n;
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -388,6 +438,66 @@ public interface BlockingQueue<E> extends Queue<E> {
     // 将队列中前maxElements个元素移除，并转移到给定的容器当中
     int drainTo(Collection<? super E> c, int maxElements);
     
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for at least one element to become
+     * available. Once some element is available, this method does not
+     * wait for further elements: it transfers those present at that
+     * time, up to {@code maxElements}, and returns.
+     *
+     * <p>This is the batch counterpart of {@link #poll(long, TimeUnit)}.
+     * Implementations are encouraged to acquire their locks and signal
+     * waiting producers once per call rather than once per element.
+     * Failures while adding to {@code c} behave as for {@link
+     * #drainTo(Collection, int)}.
+     *
+     * @implSpec
+     * The default implementation invokes {@link #poll(long, TimeUnit)}
+     * and, if that returns an element, adds it to {@code c} and then
+     * invokes {@link #drainTo(Collection, int)} for the remaining
+     * {@code maxElements - 1} elements.
+     *
+     * @param c           the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout     how long to wait before giving up, in units of
+     *                    {@code unit}
+     * @param unit        a {@code TimeUnit} determining how to interpret the
+     *                    {@code timeout} parameter
+     *
+     * @return the number of elements transferred, {@code 0} if the
+     * specified waiting time elapses before an element is available
+     *
+     * @throws InterruptedException          if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *                                       is not supported by the specified collection
+     * @throws ClassCastException            if the class of an element of this queue
+     *                                       prevents it from being added to the specified collection
+     * @throws NullPointerException          if the specified collection is null
+     * @throws IllegalArgumentException      if the specified collection is this
+     *                                       queue, or some property of an element of this queue prevents
+     *                                       it from being added to the specified collection
+     * @since 11
+     */
+    // 批量出队，队空时阻塞一段时间，直到至少有一个元素可用，然后将队列中前maxElements个元素移除，并转移到给定的容器当中
+    default int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(c);
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        if(maxElements<=0) {
+            return 0;
+        }
+        
+        E e = poll(timeout, unit);
+        if(e == null) {
+            return 0;
+        }
+        c.add(e);
+        
+        return 1 + drainTo(c, maxElements - 1);
+    }
+    
     /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
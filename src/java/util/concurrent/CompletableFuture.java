@@ -43,6 +43,7 @@ import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import sun.security.action.GetIntegerAction;
 
 /**
  * A {@link Future} that may be explicitly completed (setting its
@@ -135,6 +136,15 @@ import java.util.function.Supplier;
  *     throw new UnsupportedOperationException(); }
  * }}</pre>
  *
+ * <p>By default the dependents of a CompletableFuture are triggered
+ * by the thread that completes it. When many dependents wait on the
+ * same CompletableFuture, the completing thread may instead trigger
+ * only the first {@code n} of them itself and hand the rest to the
+ * {@link #defaultExecutor()} in batches of {@code n}, where {@code n}
+ * is the value of the system property {@code
+ * java.util.concurrent.CompletableFuture.fanOutThreshold}. Offloading
+ * is disabled when the property is absent or not positive.
+ *
  * @author Doug Lea
  * @param <T> The result type returned by this future's {@code join}
  * and {@code get} methods
@@ -305,6 +315,28 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     // 默认使用【共享工作池】作为任务执行器，除非它不支持并行
     private static final Executor ASYNC_POOL = USE_COMMON_POOL ? ForkJoinPool.commonPool() : new ThreadPerTaskExecutor();
     
+    /**
+     * The number of dependents a completing thread triggers itself
+     * before handing the rest of its stack to the default executor, in
+     * batches of the same size. Zero disables offloading.
+     */
+    // 完成阶段的线程最多亲自触发的下游任务数量，剩余的下游任务按同样的数量分批交给默认的任务执行器；为0时不分流
+    static final int FAN_OUT_THRESHOLD = Math.max(0, GetIntegerAction.privilegedGetProperty("java.util.concurrent.CompletableFuture.fanOutThreshold", 0));
+    
+    /**
+     * The number of stack nodes method cleanStack examines looking for
+     * a dead Completion before giving up and voting for a sweep.
+     */
+    // cleanStack()在下游任务栈中查找已处理任务时，最多检查的任务数量
+    static final int CLEAN_SCAN_LIMIT = 8;
+    
+    /**
+     * The number of votes (unsuccessful cleanStack scans) beyond the
+     * previous sweep's allowance that triggers a full sweep of the stack.
+     */
+    // 清理整个下游任务栈所需的票数（在上一次清理设置的初始票数之上）
+    static final int SWEEP_THRESHOLD = 32;
+    
     
     // 下游任务栈，存储直属的下游待完成任务
     volatile Completion stack;    // Top of Treiber stack of dependent actions
@@ -317,6 +349,14 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     // 当前阶段的执行结果
     volatile Object result;       // Either the result or boxed AltResult
     
+    /**
+     * Votes for a full sweep of dead Completions from the stack. Set to
+     * minus half the number of live Completions after each sweep, so a
+     * sweep costs amortized O(1) per vote. Racy updates are harmless.
+     */
+    // 清理整个下游任务栈的票数
+    int sweepVotes;
+    
     
     // VarHandle mechanics
     private static final VarHandle RESULT;  // CompletableFuture中的result域
@@ -2914,18 +2954,51 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             }
         }
         
-        // 清理栈中首个已处理过的下游任务
-        for(Completion q = p.next; q != null; ) {
+        // 在栈顶附近查找并清理首个已处理过的下游任务
+        for(int scanned = 0; ; ) {
+            Completion q = p.next;
+            if(q == null) {
+                return;
+            }
+            
             Completion s = q.next;
             if(q.isLive()) {
+                if(++scanned >= CLEAN_SCAN_LIMIT) {
+                    break;
+                }
                 p = q;
-                q = s;
             } else if(NEXT.weakCompareAndSet(p, q, s)) {
-                break;
+                return;
+            }
+        }
+        
+        // 没有找到的话进行投票，票数足够时清理整个下游任务栈，以免每次清理都遍历整个栈
+        if(++sweepVotes >= SWEEP_THRESHOLD) {
+            sweep();
+        }
+    }
+    
+    /**
+     * Unlinks all dead Completions below the top of stack, and resets
+     * sweepVotes according to the number of live ones.
+     */
+    // 清理下游任务栈中所有已被处理过的下游任务（栈顶除外）
+    final void sweep() {
+        int live = 0;
+        
+        for(Completion p = stack, q; p != null && (q = p.next) != null; ) {
+            Completion s = q.next;
+            if(q.isLive()) {
+                ++live;
+                p = q;
             } else {
-                q = p.next;
+                // 失败时重新读取p.next
+                NEXT.weakCompareAndSet(p, q, s);
             }
         }
+        
+        // 需要再积累(live/2+SWEEP_THRESHOLD)票才会再次清理，这样清理的开销分摊到每次投票上是O(1)的
+        sweepVotes = -(live >>> 1);
     }
     
     /**
@@ -2947,6 +3020,9 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         
         CompletableFuture<?> future = this;
         
+        // 当前线程从当前阶段的下游任务栈中弹出的任务数量
+        int popped = 0;
+        
         while(true) {
             // 获取下游任务栈中首个元素
             Completion head = future.stack;
@@ -2990,6 +3066,11 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
                         continue;
                     }
                     
+                    // 如果当前阶段的下游任务过多，则取下剩余的下游任务，分批交给默认的任务执行器
+                    if(FAN_OUT_THRESHOLD != 0 && ++popped >= FAN_OUT_THRESHOLD && STACK.compareAndSet(this, next, null)) {
+                        fanOut(next);
+                    }
+                    
                     // 将栈顶元素与下游任务栈分离
                     NEXT.compareAndSet(head, next, null); // try to detach
                 }
@@ -3006,6 +3087,40 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         }
     }
     
+    /**
+     * Hands a detached list of dependents to the default executor, in
+     * batches of FAN_OUT_THRESHOLD. Each batch becomes the stack of an
+     * already completed holder future whose postComplete runs in a
+     * FanOut task, so nested dependents are processed as usual.
+     */
+    // 将取下的下游任务链表分批交给默认的任务执行器
+    final void fanOut(Completion task) {
+        Executor executor = defaultExecutor();
+        
+        while(task != null) {
+            // 截取一批下游任务
+            Completion last = task, rest;
+            for(int k = 1; k<FAN_OUT_THRESHOLD && (rest = last.next) != null; ++k) {
+                last = rest;
+            }
+            rest = last.next;
+            NEXT.set(last, null);
+            
+            // 这批下游任务挂在一个已完成的占位阶段上
+            CompletableFuture<Void> holder = new CompletableFuture<>(NIL);
+            holder.stack = task;
+            
+            try {
+                executor.execute(new FanOut(holder));
+            } catch(Throwable ex) {
+                // 任务执行器不可用时，由当前线程处理这批下游任务
+                holder.postComplete();
+            }
+            
+            task = rest;
+        }
+    }
+    
     /**
      * Post-processing by dependent after successful UniCompletion tryFire.
      * Tries to clean stack of source a, and then either runs postComplete
@@ -3320,6 +3435,39 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         }
     }
     
+    // 分流任务：在任务执行器中处理一批下游任务
+    @SuppressWarnings("serial")
+    static final class FanOut extends ForkJoinTask<Void> implements Runnable, AsynchronousCompletionTask {
+        CompletableFuture<?> holder;      // 持有这批下游任务的占位阶段
+        
+        FanOut(CompletableFuture<?> holder) {
+            this.holder = holder;
+        }
+        
+        // 执行任务
+        public final boolean exec() {
+            run();
+            return false;
+        }
+        
+        // (递归)处理占位阶段的下游任务栈(会触发tryFire(NESTED))
+        public void run() {
+            CompletableFuture<?> holder = this.holder;
+            
+            if(holder != null) {
+                this.holder = null;
+                holder.postComplete();
+            }
+        }
+        
+        public final Void getRawResult() {
+            return null;
+        }
+        
+        public final void setRawResult(Void v) {
+        }
+    }
+    
     //【UniApply】任务：(可以做下游任务)同步/异步执行【Function】任务：该任务【有】返回值，且【需要】等待【一个】上游任务执行完，并使用该上游的执行结果做该任务的入参；如果上游发生异常，则提前返回
     @SuppressWarnings("serial")
     static final class UniApply<T, V> extends UniCompletion<T, V> {
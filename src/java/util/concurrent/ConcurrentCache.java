@@ -0,0 +1,1402 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache, bounded by entry count or by total weight, built
+ * on a {@link ConcurrentHashMap}. Entries that exceed the bound are
+ * evicted according to the W-TinyLFU policy, and entries may also
+ * expire a fixed time after they were written or last read.
+ *
+ * <p><b>Eviction policy.</b> New entries enter a small LRU
+ * <em>admission window</em> (1% of the maximum). Entries leaving the
+ * window compete for a place in the segmented LRU <em>main space</em>:
+ * a compact count-min sketch estimates how often each key was recently
+ * used, and a candidate is only admitted if it is used more often than
+ * the entry the main space would have to evict. This keeps one-hit
+ * wonders and scans from flushing frequently used entries, which gives
+ * noticeably better hit ratios than plain LRU for most workloads.
+ *
+ * <p><b>Concurrency.</b> Reads and writes go straight to the
+ * underlying {@code ConcurrentHashMap} and never take a global lock.
+ * The bookkeeping needed by the policy is recorded in buffers instead:
+ * reads go to lossy striped ring buffers and writes to a bounded
+ * multi-producer queue. Whichever thread manages to acquire the policy
+ * lock replays the buffers in a batch, so the cost of that lock is
+ * amortized across many operations and readers never wait on it.
+ * Consequently the bound is enforced shortly after, not exactly at,
+ * the write that exceeds it.
+ *
+ * <p><b>Eviction listener.</b> An optional listener is told about every
+ * entry that is evicted or expires, so that the owner can release
+ * resources held by the value. It is not told about entries that are
+ * removed or replaced explicitly.
+ *
+ * <p><b>Statistics.</b> Hits, misses and evictions (including
+ * expirations) are counted with {@link LongAdder}s and can be read with
+ * {@link #stats()}.
+ *
+ * <p>Neither keys nor values may be {@code null}.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @see ConcurrentHashMap
+ */
+/*
+ * 基于ConcurrentHashMap实现的有界并发缓存，按元素数量或总权重限制容量，使用W-TinyLFU淘汰策略，并支持写后过期/访问后过期
+ *
+ * 淘汰策略：
+ * 新元素先进入容量为1%的窗口区（LRU），离开窗口区的元素作为候选者与主区（分段LRU）的受害者竞争，
+ * 只有当候选者的近期访问频率（由频率草图估算）高于受害者时，候选者才会被主区接纳。
+ *
+ * 并发设计：
+ * 读写操作直接作用于ConcurrentHashMap，不持有全局锁；
+ * 淘汰策略所需的簿记信息先记录到缓冲区中：读操作记录到有损的分段环形缓冲区，写操作记录到有界的多生产者队列。
+ * 抢到策略锁的线程批量重放这些缓冲区，从而分摊锁的开销，读线程也不必等待锁。
+ *
+ * 淘汰监听器：
+ * 可选的监听器会收到每个被淘汰或过期的元素，以便释放值所持有的资源；显式移除或覆盖的元素不会通知监听器。
+ */
+public class ConcurrentCache<K, V> {
+
+    /** Number of CPUS, to size the read buffers */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffer stripes; a power of two */
+    // 读缓冲区的分段数量
+    static final int READ_BUFFER_STRIPES = Math.min(32, Integer.highestOneBit(Math.max(1, NCPU - 1)) << 1);
+
+    /** The capacity of the write buffer */
+    // 写缓冲区容量
+    static final int WRITE_BUFFER_CAPACITY = 256;
+
+    /** The percentage of the maximum reserved for the admission window */
+    // 窗口区占总容量的比例
+    static final double PERCENT_WINDOW = 0.01d;
+
+    /** The percentage of the main space reserved for the protected segment */
+    // 受保护段占主区容量的比例
+    static final double PERCENT_MAIN_PROTECTED = 0.80d;
+
+    // 维护工作的状态
+    static final int IDLE = 0;          // 无需维护
+    static final int REQUIRED = 1;      // 需要维护
+    static final int PROCESSING = 2;    // 正在维护
+
+    /** The entries */
+    final ConcurrentHashMap<K, Node<K, V>> data;
+
+    /** Computes the weight of an entry, or null if all entries weigh 1 */
+    // 权重计算器，为null时每个元素的权重均为1
+    final ToIntBiFunction<? super K, ? super V> weigher;
+
+    /** Told about evicted and expired entries, or null */
+    // 淘汰监听器，为null时不通知
+    final BiConsumer<? super K, ? super V> evictionListener;
+
+    /** Guards the policy state below */
+    // 策略锁
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    // 读缓冲区
+    final ReadBuffer[] readBuffers;
+
+    // 写缓冲区
+    final MpscArrayQueue<Runnable> writeBuffer = new MpscArrayQueue<>(WRITE_BUFFER_CAPACITY);
+
+    // 维护工作的状态
+    volatile int drainStatus;
+
+    /** Expiration times in nanoseconds; 0 if disabled */
+    // 写后过期时间（纳秒），0表示不过期
+    volatile long expireAfterWriteNanos;
+    // 访问后过期时间（纳秒），0表示不过期
+    volatile long expireAfterAccessNanos;
+
+    // 统计信息
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+    final LongAdder evictionWeight = new LongAdder();
+
+    /* ---------------- Policy state, guarded by evictionLock -------------- */
+
+    // 窗口区（LRU）
+    final NodeDeque<K, V> window = new NodeDeque<>(false);
+    // 主区的试用段（LRU）
+    final NodeDeque<K, V> probation = new NodeDeque<>(false);
+    // 主区的受保护段（LRU）
+    final NodeDeque<K, V> protectedSegment = new NodeDeque<>(false);
+    // 按写入顺序排列的所有元素，用于写后过期
+    final NodeDeque<K, V> writeOrder = new NodeDeque<>(true);
+
+    // 频率草图
+    final FrequencySketch sketch = new FrequencySketch();
+
+    // 容量上限（元素数量或总权重）
+    long maximum;
+    // 窗口区容量上限
+    long windowMaximum;
+    // 受保护段容量上限
+    long protectedMaximum;
+
+    // 当前总权重
+    long weightedSize;
+    // 窗口区当前权重
+    long windowWeightedSize;
+    // 受保护段当前权重
+    long protectedWeightedSize;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Creates a cache holding at most {@code maximumSize} entries.
+     *
+     * @param maximumSize the maximum number of entries
+     *
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     */
+    public ConcurrentCache(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * Creates a cache whose entries weigh at most {@code maximumWeight}
+     * in total. The weight of an entry is computed by {@code weigher}
+     * when it is written and must not be negative.
+     *
+     * @param maximumWeight the maximum total weight of the entries
+     * @param weigher       computes the weight of an entry, or
+     *                      {@code null} if every entry weighs 1
+     *
+     * @throws IllegalArgumentException if {@code maximumWeight} is negative
+     */
+    public ConcurrentCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+        this(maximumWeight, weigher, null);
+    }
+
+    /**
+     * Creates a cache whose entries weigh at most {@code maximumWeight}
+     * in total, and which tells {@code evictionListener} about every
+     * entry it evicts or expires. The listener runs on whichever thread
+     * performs the maintenance, usually while the policy lock is held,
+     * so it should be quick and must not use this cache; exceptions it
+     * throws are ignored.
+     *
+     * @param maximumWeight    the maximum total weight of the entries
+     * @param weigher          computes the weight of an entry, or
+     *                         {@code null} if every entry weighs 1
+     * @param evictionListener told about evicted and expired entries, or
+     *                         {@code null}
+     *
+     * @throws IllegalArgumentException if {@code maximumWeight} is negative
+     */
+    public ConcurrentCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, BiConsumer<? super K, ? super V> evictionListener) {
+        if(maximumWeight<0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        this.data = new ConcurrentHashMap<>((weigher == null && maximumWeight<=(1 << 16)) ? (int) maximumWeight : 16);
+
+        ReadBuffer[] buffers = new ReadBuffer[READ_BUFFER_STRIPES];
+        for(int i = 0; i<buffers.length; i++) {
+            buffers[i] = new ReadBuffer();
+        }
+        this.readBuffers = buffers;
+
+        setMaximumLocked(maximumWeight);
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Associates the specified value with the specified key in this cache.
+     *
+     * @return the previous (unexpired) value associated with {@code key},
+     * or {@code null} if there was none
+     *
+     * @throws NullPointerException if the key or value is null
+     */
+    // 将指定的元素（key-value）存入缓存，并返回旧值，允许覆盖
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        int weight = weigh(key, value);
+        long now = System.nanoTime();
+
+        for(; ; ) {
+            Node<K, V> node = data.get(key);
+
+            // 插入新元素
+            if(node == null) {
+                Node<K, V> created = new Node<>(key, value, weight, now);
+                if((node = data.putIfAbsent(key, created)) == null) {
+                    afterWrite(() -> onAdd(created));
+                    return null;
+                }
+            }
+
+            // 覆盖旧元素的值
+            V oldValue;
+            boolean expired;
+            synchronized(node) {
+                // 元素刚刚被移除了，重试
+                if(!node.isAlive()) {
+                    continue;
+                }
+
+                oldValue = node.value;
+                expired = hasExpired(node, now);
+                node.value = value;
+                node.weight = weight;
+                node.writeTime = now;
+                node.accessTime = now;
+            }
+
+            Node<K, V> updated = node;
+            afterWrite(() -> onUpdate(updated));
+
+            return expired ? null : oldValue;
+        }
+    }
+
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this cache contains no unexpired mapping for it.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    // 根据指定的key获取对应的value，如果不存在或已过期，则返回null
+    public V get(Object key) {
+        Node<K, V> node = data.get(key);
+        if(node == null) {
+            missCount.increment();
+            return null;
+        }
+
+        long now = System.nanoTime();
+
+        // 元素已过期，直接移除
+        if(hasExpired(node, now)) {
+            missCount.increment();
+            evictExpired(node);
+            return null;
+        }
+
+        V value = node.value;
+        afterRead(node, now);
+        hitCount.increment();
+
+        return value;
+    }
+
+    /**
+     * Returns the value associated with {@code key}, computing and
+     * caching it with {@code mappingFunction} if there is no unexpired
+     * mapping. The computation is performed atomically, so it is invoked
+     * at most once per absent key even under contention; it must not
+     * modify this cache.
+     *
+     * @return the current (existing or computed) value associated with
+     * the specified key, or null if the computed value is null
+     *
+     * @throws NullPointerException if the key or mappingFunction is null
+     */
+    // 如果key不存在或已过期，则使用mappingFunction计算新值并存入，返回最终的值
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(mappingFunction);
+
+        long now = System.nanoTime();
+
+        Node<K, V> node = data.get(key);
+        if(node != null && !hasExpired(node, now)) {
+            afterRead(node, now);
+            hitCount.increment();
+            return node.value;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] replaced = (Node<K, V>[]) new Node<?, ?>[2];  // [0] 过期的旧元素，[1] 新元素
+
+        node = data.compute(key, (k, prior) -> {
+            // 其他线程已经存入了有效的值
+            if(prior != null && !hasExpired(prior, now)) {
+                return prior;
+            }
+
+            V value = mappingFunction.apply(k);
+
+            // 不能在此处获取结点的监视器，否则会与淘汰过程的加锁顺序相反
+            if(prior != null) {
+                prior.retire();
+                replaced[0] = prior;
+            }
+
+            if(value == null) {
+                return null;
+            }
+
+            return replaced[1] = new Node<>(k, value, weigh(k, value), now);
+        });
+
+        Node<K, V> expired = replaced[0];
+        if(expired != null) {
+            evictionCount.increment();
+            evictionWeight.add(expired.weight);
+            afterWrite(() -> onRemove(expired));
+        }
+
+        Node<K, V> created = replaced[1];
+        if(created != null) {
+            missCount.increment();
+            afterWrite(() -> onAdd(created));
+        } else if(node != null) {
+            afterRead(node, now);
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+
+        return node == null ? null : node.value;
+    }
+
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Removes the mapping for a key from this cache if it is present.
+     *
+     * @return the previous (unexpired) value associated with {@code key},
+     * or {@code null} if there was none
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    // 移除拥有指定key的元素，并返回刚刚移除的元素的值
+    public V remove(Object key) {
+        Node<K, V> node = data.remove(key);
+        if(node == null) {
+            return null;
+        }
+
+        V oldValue;
+        boolean expired;
+        synchronized(node) {
+            oldValue = node.value;
+            expired = hasExpired(node, System.nanoTime());
+            node.retire();
+        }
+
+        afterWrite(() -> onRemove(node));
+
+        return expired ? null : oldValue;
+    }
+
+    /**
+     * Removes the entry for a key only if it is currently mapped to the
+     * given value (compared with {@code equals}).
+     *
+     * @return {@code true} if the value was removed
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    // 移除拥有指定key和value的元素，返回值表示是否移除成功
+    public boolean remove(Object key, Object value) {
+        Node<K, V> node = data.get(key);
+        if(node == null || value == null) {
+            return false;
+        }
+
+        synchronized(node) {
+            if(!node.isAlive() || !value.equals(node.value) || !data.remove(key, node)) {
+                return false;
+            }
+            node.retire();
+        }
+
+        afterWrite(() -> onRemove(node));
+
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this cache.
+     */
+    // 清空缓存
+    public void clear() {
+        evictionLock.lock();
+        try {
+            // 先重放积压的读写操作，使策略状态与数据保持一致
+            maintenance();
+
+            for(Node<K, V> node : data.values()) {
+                synchronized(node) {
+                    if(!node.isAlive() || !data.remove(node.key, node)) {
+                        continue;
+                    }
+                    node.retire();
+                }
+
+                // 尚未加入策略的元素，其插入任务会因元素已退役而被忽略
+                if(node.queueType != Node.NONE) {
+                    removeFromPolicy(node);
+                }
+                node.die();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Performs the given action for each unexpired entry of this cache.
+     * The traversal is weakly consistent and does not count as access.
+     *
+     * @param action the action to be performed for each entry
+     */
+    // 遍历缓存中未过期的元素，并对其应用action操作（不影响淘汰策略）
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+
+        long now = System.nanoTime();
+        for(Node<K, V> node : data.values()) {
+            V value = node.value;
+            if(node.isAlive() && !hasExpired(node, now)) {
+                action.accept(node.key, value);
+            }
+        }
+    }
+
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 配置 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the maximum number of entries, or the maximum total weight
+     * if this cache uses a weigher.
+     */
+    // 返回容量上限
+    public long getMaximum() {
+        evictionLock.lock();
+        try {
+            return maximum;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum number of entries, or the maximum total weight if
+     * this cache uses a weigher, and evicts entries if needed. Use
+     * {@code Long.MAX_VALUE} for an unbounded cache.
+     *
+     * @throws IllegalArgumentException if {@code maximum} is negative
+     */
+    // 设置容量上限，必要时淘汰元素
+    public void setMaximum(long maximum) {
+        if(maximum<0) {
+            throw new IllegalArgumentException();
+        }
+
+        evictionLock.lock();
+        try {
+            setMaximumLocked(maximum);
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the time after which an entry expires once it has been
+     * created or last replaced. Zero disables this expiration.
+     *
+     * @throws IllegalArgumentException if {@code duration} is negative
+     */
+    // 设置写后过期时间，0表示不过期
+    public void setExpireAfterWrite(long duration, TimeUnit unit) {
+        if(duration<0) {
+            throw new IllegalArgumentException();
+        }
+        expireAfterWriteNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Sets the time after which an entry expires once it has been
+     * created, replaced or last read. Zero disables this expiration.
+     *
+     * @throws IllegalArgumentException if {@code duration} is negative
+     */
+    // 设置访问后过期时间，0表示不过期
+    public void setExpireAfterAccess(long duration, TimeUnit unit) {
+        if(duration<0) {
+            throw new IllegalArgumentException();
+        }
+        expireAfterAccessNanos = unit.toNanos(duration);
+    }
+
+    /*▲ 配置 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the approximate number of entries in this cache, which may
+     * include entries that have expired but not yet been removed.
+     */
+    // 返回缓存中的元素数量（估计值）
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Performs any pending maintenance operations: replays the buffered
+     * reads and writes, removes expired entries and evicts entries over
+     * the bound. This normally happens automatically as the cache is used.
+     */
+    // 执行挂起的维护工作
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     */
+    // 返回统计信息的快照
+    public Stats stats() {
+        return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), evictionWeight.sum());
+    }
+
+    public String toString() {
+        Stats s = stats();
+        return super.toString() + "[size = " + estimatedSize() + ", hits = " + s.hitCount() + ", misses = " + s.missCount() + ", evictions = " + s.evictionCount() + "]";
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    // 判断是否启用了写后过期
+    final boolean expiresAfterWrite() {
+        return expireAfterWriteNanos>0L;
+    }
+
+    // 判断是否启用了访问后过期
+    final boolean expiresAfterAccess() {
+        return expireAfterAccessNanos>0L;
+    }
+
+    // 判断元素是否已过期
+    final boolean hasExpired(Node<K, V> node, long now) {
+        long eaw = expireAfterWriteNanos, eaa = expireAfterAccessNanos;
+        return (eaw>0L && now - node.writeTime >= eaw) || (eaa>0L && now - node.accessTime >= eaa);
+    }
+
+    // 计算元素权重
+    final int weigh(K key, V value) {
+        if(weigher == null) {
+            return 1;
+        }
+        int weight = weigher.applyAsInt(key, value);
+        if(weight<0) {
+            throw new IllegalArgumentException("negative weight");
+        }
+        return weight;
+    }
+
+    // 移除已过期的元素
+    final void evictExpired(Node<K, V> node) {
+        V value;
+        synchronized(node) {
+            if(!node.isAlive() || !data.remove(node.key, node)) {
+                return;
+            }
+            node.retire();
+            value = node.value;
+        }
+
+        evictionCount.increment();
+        evictionWeight.add(node.weight);
+        notifyEviction(node.key, value);
+        afterWrite(() -> onRemove(node));
+    }
+
+    // 通知监听器元素已被淘汰或已过期
+    final void notifyEviction(K key, V value) {
+        if(evictionListener == null) {
+            return;
+        }
+        try {
+            evictionListener.accept(key, value);
+        } catch(Throwable ignored) {
+            // 监听器的异常不能打断维护工作
+        }
+    }
+
+    /* ---------------- Buffers -------------- */
+
+    // 记录一次读操作，必要时执行维护工作
+    final void afterRead(Node<K, V> node, long now) {
+        // 总是记录访问时间，以便之后设置的访问过期时间对已有元素同样有效
+        node.accessTime = now;
+
+        ReadBuffer buffer = readBuffers[ThreadLocalRandom.getProbe() & (readBuffers.length - 1)];
+        boolean full = !buffer.offer(node);
+
+        // 缓冲区满了，或者还有积压的写操作
+        if(full || drainStatus == REQUIRED) {
+            scheduleDrain();
+        }
+    }
+
+    // 记录一次写操作，并尝试执行维护工作
+    final void afterWrite(Runnable task) {
+        // 写缓冲区满了，只能等待持有锁的线程腾出空间
+        while(!writeBuffer.offer(task)) {
+            evictionLock.lock();
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        scheduleDrain();
+    }
+
+    /**
+     * Performs maintenance in the calling thread if the policy lock is
+     * free; otherwise flags it so that the current holder runs another
+     * round before releasing the lock.
+     */
+    // 登记维护工作，如果策略锁空闲，则在当前线程中执行
+    final void scheduleDrain() {
+        DRAIN_STATUS.setRelease(this, REQUIRED);
+
+        while(evictionLock.tryLock()) {
+            try {
+                do {
+                    DRAIN_STATUS.setRelease(this, PROCESSING);
+                    maintenance();
+                } while(!DRAIN_STATUS.compareAndSet(this, PROCESSING, IDLE));
+            } finally {
+                evictionLock.unlock();
+            }
+
+            // 解锁前后有新的维护请求，且无人处理
+            if(drainStatus != REQUIRED) {
+                return;
+            }
+        }
+    }
+
+    /* ---------------- Policy, guarded by evictionLock -------------- */
+
+    // 执行维护工作：重放读写缓冲区，移除过期元素，淘汰超出容量的元素
+    final void maintenance() {
+        for(ReadBuffer buffer : readBuffers) {
+            buffer.drain(this);
+        }
+
+        for(Runnable task; (task = writeBuffer.poll()) != null; ) {
+            task.run();
+        }
+
+        expireEntries();
+        evictEntries();
+    }
+
+    // 设置容量上限，并重新划分窗口区与主区
+    final void setMaximumLocked(long maximum) {
+        this.maximum = maximum;
+        long window = maximum - (long) (maximum * (1.0d - PERCENT_WINDOW));
+        this.windowMaximum = window;
+        this.protectedMaximum = (long) ((maximum - window) * PERCENT_MAIN_PROTECTED);
+
+        // 频率草图在接近满员时才分配，这里只处理缩容后的容量
+        if(sketch.isInitialized()) {
+            sketch.ensureCapacity(sketchCapacity());
+        }
+    }
+
+    // 频率草图需要追踪的元素数量
+    final long sketchCapacity() {
+        return weigher == null ? maximum : Math.max(16L, data.mappingCount() << 1);
+    }
+
+    // 响应读操作：提高访问频率，并调整元素在LRU队列中的位置
+    final void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+
+        switch(node.queueType) {
+            case Node.WINDOW:
+                window.moveToBack(node);
+                break;
+            case Node.PROBATION:
+                // 试用段中再次被访问的元素晋升到受保护段
+                probation.remove(node);
+                node.queueType = Node.PROTECTED;
+                protectedSegment.addLast(node);
+                protectedWeightedSize += node.policyWeight;
+                demoteFromProtected();
+                break;
+            case Node.PROTECTED:
+                protectedSegment.moveToBack(node);
+                break;
+            default:
+                // 尚未加入策略，或已被移除
+        }
+    }
+
+    // 响应插入操作
+    final void onAdd(Node<K, V> node) {
+        if(!node.isAlive() || node.queueType != Node.NONE) {
+            return;
+        }
+
+        int weight = node.weight;
+        node.policyWeight = weight;
+        weightedSize += weight;
+        windowWeightedSize += weight;
+
+        // 总权重接近上限时，才开始分配频率草图
+        if(weightedSize >= (maximum >>> 1)) {
+            sketch.ensureCapacity(sketchCapacity());
+        }
+        sketch.increment(node.key);
+
+        node.queueType = Node.WINDOW;
+        window.addLast(node);
+        writeOrder.addLast(node);
+    }
+
+    // 响应更新操作
+    final void onUpdate(Node<K, V> node) {
+        if(node.queueType == Node.NONE) {
+            return;
+        }
+
+        int delta = node.weight - node.policyWeight;
+        node.policyWeight += delta;
+        weightedSize += delta;
+        if(node.queueType == Node.WINDOW) {
+            windowWeightedSize += delta;
+        } else if(node.queueType == Node.PROTECTED) {
+            protectedWeightedSize += delta;
+        }
+
+        writeOrder.moveToBack(node);
+        onAccess(node);
+    }
+
+    // 响应移除操作
+    final void onRemove(Node<K, V> node) {
+        if(node.queueType != Node.NONE) {
+            removeFromPolicy(node);
+        }
+        node.die();
+    }
+
+    // 将元素从策略中移除
+    final void removeFromPolicy(Node<K, V> node) {
+        int weight = node.policyWeight;
+        weightedSize -= weight;
+
+        switch(node.queueType) {
+            case Node.WINDOW:
+                window.remove(node);
+                windowWeightedSize -= weight;
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                break;
+            case Node.PROTECTED:
+                protectedSegment.remove(node);
+                protectedWeightedSize -= weight;
+                break;
+            default:
+                return;
+        }
+
+        writeOrder.remove(node);
+        node.queueType = Node.NONE;
+    }
+
+    // 受保护段超出上限时，将最久未访问的元素降级到试用段
+    final void demoteFromProtected() {
+        while(protectedWeightedSize>protectedMaximum) {
+            Node<K, V> demoted = protectedSegment.peekFirst();
+            if(demoted == null) {
+                break;
+            }
+            protectedSegment.remove(demoted);
+            protectedWeightedSize -= demoted.policyWeight;
+            demoted.queueType = Node.PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    // 淘汰超出容量的元素
+    final void evictEntries() {
+        // 窗口区溢出的元素作为候选者进入试用段，总量超限时与试用段的受害者竞争
+        while(windowWeightedSize>windowMaximum) {
+            Node<K, V> candidate = window.peekFirst();
+            if(candidate == null) {
+                break;
+            }
+            window.remove(candidate);
+            windowWeightedSize -= candidate.policyWeight;
+            candidate.queueType = Node.PROBATION;
+            probation.addLast(candidate);
+
+            if(weightedSize>maximum) {
+                Node<K, V> victim = probation.peekFirst();
+                if(victim == candidate) {
+                    victim = protectedSegment.peekFirst();
+                }
+                if(victim == null || admit(candidate, victim)) {
+                    evict(victim == null ? candidate : victim);
+                } else {
+                    evict(candidate);
+                }
+            }
+        }
+
+        // 总量仍然超限，则依次从试用段、受保护段、窗口区中淘汰
+        while(weightedSize>maximum) {
+            Node<K, V> victim = probation.peekFirst();
+            if(victim == null) {
+                victim = protectedSegment.peekFirst();
+            }
+            if(victim == null) {
+                victim = window.peekFirst();
+            }
+            if(victim == null) {
+                break;
+            }
+            evict(victim);
+        }
+    }
+
+    /**
+     * Decides whether the candidate should replace the victim. The
+     * candidate wins only if its estimated frequency is higher; a small
+     * random chance for warm candidates protects against an attacker
+     * keeping a hot victim in place with colliding keys.
+     */
+    // 判断候选者能否取代受害者
+    final boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        int candidateFreq = sketch.frequency(candidate.key);
+        int victimFreq = sketch.frequency(victim.key);
+        if(candidateFreq>victimFreq) {
+            return true;
+        }
+        if(candidateFreq<=5) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    // 淘汰元素
+    final void evict(Node<K, V> node) {
+        V value = null;
+        synchronized(node) {
+            if(node.isAlive() && data.remove(node.key, node)) {
+                node.retire();
+                value = node.value;
+                evictionCount.increment();
+                evictionWeight.add(node.policyWeight);
+            }
+        }
+        if(value != null) {
+            notifyEviction(node.key, value);
+        }
+
+        // 无论是否由当前线程移除，元素都已不在缓存中，可以直接移出策略
+        removeFromPolicy(node);
+        node.die();
+    }
+
+    // 移除已过期的元素
+    final void expireEntries() {
+        long eaw = expireAfterWriteNanos, eaa = expireAfterAccessNanos;
+        if(eaw<=0L && eaa<=0L) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if(eaa>0L) {
+            expireAfterAccess(window, now, eaa);
+            expireAfterAccess(probation, now, eaa);
+            expireAfterAccess(protectedSegment, now, eaa);
+        }
+
+        if(eaw>0L) {
+            for(Node<K, V> node; (node = writeOrder.peekFirst()) != null && now - node.writeTime >= eaw; ) {
+                expire(node);
+            }
+        }
+    }
+
+    // 按访问顺序移除deque中访问时间已过期的元素
+    final void expireAfterAccess(NodeDeque<K, V> deque, long now, long eaa) {
+        for(Node<K, V> node; (node = deque.peekFirst()) != null && now - node.accessTime >= eaa; ) {
+            expire(node);
+        }
+    }
+
+    // 移除单个过期元素
+    final void expire(Node<K, V> node) {
+        V value = null;
+        synchronized(node) {
+            if(node.isAlive() && data.remove(node.key, node)) {
+                node.retire();
+                value = node.value;
+                evictionCount.increment();
+                evictionWeight.add(node.policyWeight);
+            }
+        }
+        if(value != null) {
+            notifyEviction(node.key, value);
+        }
+        removeFromPolicy(node);
+        node.die();
+    }
+
+
+
+    /**
+     * Statistics about the performance of a cache.
+     */
+    // 缓存的统计信息
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long evictionWeight;
+
+        Stats(long hitCount, long missCount, long evictionCount, long evictionWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+
+        /** Returns the number of lookups that found an unexpired entry. */
+        // 命中次数
+        public long hitCount() {
+            return hitCount;
+        }
+
+        /** Returns the number of lookups that found no unexpired entry. */
+        // 未命中次数
+        public long missCount() {
+            return missCount;
+        }
+
+        /** Returns the number of entries evicted or expired. */
+        // 淘汰（含过期）次数
+        public long evictionCount() {
+            return evictionCount;
+        }
+
+        /** Returns the total weight of the entries evicted or expired. */
+        // 淘汰（含过期）的总权重
+        public long evictionWeight() {
+            return evictionWeight;
+        }
+
+        /** Returns the ratio of hits to lookups, or 1.0 if there were none. */
+        // 命中率
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0d : (double) hitCount / requests;
+        }
+
+        public String toString() {
+            return "Stats[hits = " + hitCount + ", misses = " + missCount + ", hitRate = " + hitRate() + ", evictions = " + evictionCount + ", evictionWeight = " + evictionWeight + "]";
+        }
+    }
+
+
+
+    /**
+     * A cache entry. The value and timestamps are written under the
+     * node's monitor; the links and policy fields are guarded by the
+     * cache's evictionLock.
+     */
+    // 缓存元素
+    static final class Node<K, V> {
+        // 元素在策略中的位置
+        static final int NONE = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        // 元素的生命周期
+        static final int ALIVE = 0;     // 存在于缓存中
+        static final int RETIRED = 1;   // 已从缓存中移除，但尚未移出策略
+        static final int DEAD = 2;      // 已移出策略
+
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int state;
+
+        // guarded by evictionLock
+        int queueType;
+        int policyWeight;
+        Node<K, V> prevInAccessOrder, nextInAccessOrder;
+        Node<K, V> prevInWriteOrder, nextInWriteOrder;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+
+        boolean isAlive() {
+            return state == ALIVE;
+        }
+
+        void retire() {
+            state = RETIRED;
+        }
+
+        void die() {
+            state = DEAD;
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked deque threaded through either the
+     * access-order or the write-order links of the nodes.
+     */
+    // 侵入式双向链表，使用结点中的访问顺序链接或写入顺序链接
+    static final class NodeDeque<K, V> {
+        final boolean writeOrder;
+        Node<K, V> first, last;
+
+        NodeDeque(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            Node<K, V> l = last;
+            setPrev(node, l);
+            setNext(node, null);
+            last = node;
+            if(l == null) {
+                first = node;
+            } else {
+                setNext(l, node);
+            }
+        }
+
+        void remove(Node<K, V> node) {
+            Node<K, V> prev = getPrev(node), next = getNext(node);
+            if(prev == null) {
+                if(first != node) {
+                    return;     // not linked
+                }
+                first = next;
+            } else {
+                setNext(prev, next);
+                setPrev(node, null);
+            }
+            if(next == null) {
+                last = prev;
+            } else {
+                setPrev(next, prev);
+                setNext(node, null);
+            }
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if(node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private Node<K, V> getPrev(Node<K, V> node) {
+            return writeOrder ? node.prevInWriteOrder : node.prevInAccessOrder;
+        }
+
+        private Node<K, V> getNext(Node<K, V> node) {
+            return writeOrder ? node.nextInWriteOrder : node.nextInAccessOrder;
+        }
+
+        private void setPrev(Node<K, V> node, Node<K, V> prev) {
+            if(writeOrder) {
+                node.prevInWriteOrder = prev;
+            } else {
+                node.prevInAccessOrder = prev;
+            }
+        }
+
+        private void setNext(Node<K, V> node, Node<K, V> next) {
+            if(writeOrder) {
+                node.nextInWriteOrder = next;
+            } else {
+                node.nextInAccessOrder = next;
+            }
+        }
+    }
+
+    /**
+     * A lossy, bounded buffer of recently read nodes. Any thread may
+     * offer; only the holder of the evictionLock drains. When the buffer
+     * is full or a slot is contended the read is simply dropped, since
+     * losing some recency information is harmless.
+     */
+    // 有损的读缓冲区：任意线程都可以写入，只有持有策略锁的线程可以读取；缓冲区满了或出现竞争时直接丢弃记录
+    static final class ReadBuffer {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+
+        final Object[] buffer = new Object[SIZE];
+
+        @jdk.internal.vm.annotation.Contended
+        volatile long writeCounter;
+
+        // guarded by evictionLock
+        volatile long readCounter;
+
+        /** Returns false if the buffer is full and should be drained. */
+        // 记录一次读操作，返回false表示缓冲区已满
+        boolean offer(Object node) {
+            long head = readCounter;
+            long tail = writeCounter;
+            if(tail - head >= SIZE) {
+                return false;
+            }
+            if(WRITE_COUNTER.weakCompareAndSet(this, tail, tail + 1)) {
+                ELEMENT.setRelease(buffer, (int) tail & MASK, node);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K, V> void drain(ConcurrentCache<K, V> cache) {
+            long head = readCounter;
+            long tail = writeCounter;
+            for(; head<tail; head++) {
+                int i = (int) head & MASK;
+                Object node = ELEMENT.getAcquire(buffer, i);
+                // 写入者已占用槽位但尚未写入，下次再处理
+                if(node == null) {
+                    break;
+                }
+                ELEMENT.setRelease(buffer, i, null);
+                cache.onAccess((Node<K, V>) node);
+            }
+            READ_COUNTER.setRelease(this, head);
+        }
+
+        private static final VarHandle WRITE_COUNTER;
+        private static final VarHandle READ_COUNTER;
+        private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                WRITE_COUNTER = l.findVarHandle(ReadBuffer.class, "writeCounter", long.class);
+                READ_COUNTER = l.findVarHandle(ReadBuffer.class, "readCounter", long.class);
+            } catch(ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    /**
+     * A probabilistic estimate of how often each key was recently used:
+     * a count-min sketch of 4-bit counters, sixteen to a long, that
+     * halves all counters once the number of increments reaches ten
+     * times the table size, so that old popularity fades away.
+     */
+    // 频率草图：由4位计数器组成的Count-Min Sketch，每个long存储16个计数器；累计增量达到阈值后，所有计数器减半，使过时的热度逐渐衰减
+    static final class FrequencySketch {
+        static final long[] SEED = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        long[] table;
+        int tableMask;
+        int sampleSize;
+        int size;
+
+        boolean isInitialized() {
+            return table != null;
+        }
+
+        // 确保草图能够追踪maximumSize个元素，扩容时会丢弃已有的统计
+        void ensureCapacity(long maximumSize) {
+            int maximum = (int) Math.min(Math.max(maximumSize, 1L), 1 << 26);
+            if(table != null && table.length >= maximum) {
+                return;
+            }
+
+            int length = maximum<=1 ? 1 : Integer.highestOneBit(maximum - 1) << 1;
+            table = new long[length];
+            tableMask = length - 1;
+            sampleSize = 10 * maximum;
+            size = 0;
+        }
+
+        // 返回元素的估计频率（0~15）
+        int frequency(Object e) {
+            if(table == null) {
+                return 0;
+            }
+
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for(int i = 0; i<4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        // 增加元素的频率
+        void increment(Object e) {
+            if(table == null) {
+                return;
+            }
+
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for(int i = 0; i<4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+
+            if(added && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int i, int j) {
+            int offset = j << 2;
+            long mask = 0xfL << offset;
+            if((table[i] & mask) != mask) {
+                table[i] += 1L << offset;
+                return true;
+            }
+            return false;
+        }
+
+        // 所有计数器减半
+        private void reset() {
+            int count = 0;
+            for(int i = 0; i<table.length; i++) {
+                count += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (count >>> 2);
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+
+
+    // VarHandle mechanics
+    private static final VarHandle DRAIN_STATUS;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            DRAIN_STATUS = l.findVarHandle(ConcurrentCache.class, "drainStatus", int.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+}
@@ -0,0 +1,1942 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+import jdk.internal.misc.Unsafe;
+
+/**
+ * A hash table supporting full concurrency of retrievals and high
+ * expected concurrency for updates, keyed by primitive {@code long}
+ * values. This class follows the design of {@link ConcurrentHashMap}:
+ * lock-free reads, per-bin locking for updates on the first node of
+ * each bin, cooperative multi-threaded resizing through forwarding
+ * nodes, and a striped {@code CounterCell} size counter. Keys are
+ * stored unboxed in the nodes, so each mapping costs one node rather
+ * than a node plus a {@link Long}.
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does not allow
+ * {@code null} values, retrieval operations do not block and reflect
+ * the results of the most recently completed updates, and iterators
+ * and bulk operations are weakly consistent.
+ *
+ * <p>Unlike {@code ConcurrentHashMap}, bins are never converted into
+ * balanced trees: keys are spread with a 64-bit mixing function before
+ * indexing, so long bins only arise for adversarially chosen keys.
+ *
+ * <p>The bulk operations {@link #forEach(long, ObjLongConsumer)},
+ * {@link #forEachKey}, {@link #forEachValue}, {@link #reduceValues},
+ * {@link #reduceKeysToLong} and {@link #reduceValuesToLong} take a
+ * {@code parallelismThreshold} argument with the same meaning as in
+ * {@code ConcurrentHashMap}: they run sequentially when the map has
+ * fewer elements than the threshold, and otherwise in parallel in the
+ * {@link ForkJoinPool#commonPool()}.
+ *
+ * @param <V> the type of mapped values
+ * @see ConcurrentHashMap
+ * @see java.util.LongObjectHashMap
+ */
+/*
+ * 以基本类型long为键的ConcurrentHashMap
+ *
+ * 实现思路与ConcurrentHashMap一致：
+ * 读操作无锁；写操作锁住哈希槽上的首个结点；扩容时由多个线程借助前向结点协同迁移数据；
+ * 元素数量使用CounterCell分段计数。
+ * 不同之处在于key以long的形式直接存储在结点中，每个元素只需要一个结点，而不需要额外的Long对象。
+ *
+ * 由于key在定位哈希槽之前会经过64位的混淆，只有刻意构造的key才会形成长链，因此这里不再将链表转换为红黑树。
+ */
+public class ConcurrentLongHashMap<V> {
+
+    /* ---------------- Constants -------------- */
+
+    // 哈希数组最大容量
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    // 哈希数组默认容量
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Minimum number of rebinnings per transfer step */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    /** The number of bits used for generation stamp in sizeCtl */
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    /** The maximum number of threads that can help resize */
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /** The bit shift for recording size stamp in sizeCtl */
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    static final int MOVED     = -1; // hash for forwarding nodes       // 前向结点
+    static final int RESERVED  = -3; // hash for transient reservations // 占位结点
+    static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /* ---------------- Fields -------------- */
+
+    /** The array of bins; lazily initialized, size is always a power of two */
+    // 哈希数组
+    transient volatile Node<V>[] table;
+
+    /** The next table to use; non-null only while resizing */
+    // 扩容时的新哈希数组
+    private transient volatile Node<V>[] nextTable;
+
+    /** Base counter value, used mainly when there is no contention */
+    // 元素数量的基础计数
+    private transient volatile long baseCount;
+
+    /**
+     * Table initialization and resizing control; same encoding as
+     * ConcurrentHashMap.sizeCtl.
+     */
+    private transient volatile int sizeCtl;
+
+    /** The next table index (plus one) to split while resizing */
+    private transient volatile int transferIndex;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating CounterCells */
+    private transient volatile int cellsBusy;
+
+    /** Table of counter cells; when non-null, size is a power of 2 */
+    // 分段计数单元
+    private transient volatile ConcurrentHashMap.CounterCell[] counterCells;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     */
+    public ConcurrentLongHashMap() {
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size accommodating
+     * the specified number of elements without the need to dynamically
+     * resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     *                        sizing to accommodate this many elements
+     *
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ConcurrentLongHashMap(int initialCapacity) {
+        if(initialCapacity<0) {
+            throw new IllegalArgumentException();
+        }
+
+        // 与ConcurrentHashMap(int, float, int)相同，按0.75的装载因子换算
+        long size = (long) (1.0 + (long) initialCapacity / 0.75f);
+        this.sizeCtl = (size >= (long) MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : tableSizeFor((int) size);
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 存值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     * The value can not be null.
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no mapping for {@code key}
+     *
+     * @throws NullPointerException if the specified value is null
+     */
+    // 将指定的元素（key-value）存入Map，并返回旧值，允许覆盖
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     *
+     * @throws NullPointerException if the specified value is null
+     */
+    // 将指定的元素（key-value）存入Map，并返回旧值，不允许覆盖
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /*▲ 存值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回null
+    public V get(long key) {
+        Node<V>[] tab;
+        Node<V> e, p;
+        int n, eh;
+
+        int h = spread(key);
+
+        if((tab = table) != null && (n = tab.length)>0 && (e = tabAt(tab, (n - 1) & h)) != null) {
+            if((eh = e.hash) == h) {
+                if(e.key == key) {
+                    return e.val;
+                }
+            } else if(eh<0) {
+                return (p = e.find(h, key)) != null ? p.val : null;
+            }
+
+            while((e = e.next) != null) {
+                if(e.hash == h && e.key == key) {
+                    return e.val;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the key.
+     */
+    // 根据指定的key获取对应的value，如果不存在，则返回指定的默认值defaultValue
+    public V getOrDefault(long key, V defaultValue) {
+        V v = get(key);
+        return v == null ? defaultValue : v;
+    }
+
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 移除 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @return the previous value associated with {@code key}, or
+     * {@code null} if there was no mapping for {@code key}
+     */
+    // 移除拥有指定key的元素，并返回刚刚移除的元素的值
+    public V remove(long key) {
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a given value.
+     *
+     * @return {@code true} if the value was removed
+     */
+    // 移除拥有指定key和value的元素，返回值表示是否移除成功
+    public boolean remove(long key, Object value) {
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    // 清空当前Map中所有元素
+    public void clear() {
+        long delta = 0L; // negative number of deletions
+        int i = 0;
+
+        Node<V>[] tab = table;
+
+        while(tab != null && i<tab.length) {
+            int fh;
+            Node<V> f = tabAt(tab, i);
+
+            if(f == null) {
+                ++i;
+            } else if((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+                i = 0; // restart
+            } else {
+                synchronized(f) {
+                    if(tabAt(tab, i) == f) {
+                        Node<V> p = (fh >= 0 ? f : null);
+                        while(p != null) {
+                            --delta;
+                            p = p.next;
+                        }
+
+                        // 设置tab[i]为null
+                        setTabAt(tab, i++, null);
+                    }
+                }
+            }
+        }
+
+        if(delta != 0L) {
+            addCount(delta, -1);
+        }
+    }
+
+    /*▲ 移除 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 替换 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Replaces the entry for a key only if currently mapped to some value.
+     *
+     * @return the previous value associated with the specified key,
+     * or {@code null} if there was no mapping for the key
+     *
+     * @throws NullPointerException if the specified value is null
+     */
+    // 将拥有指定key的元素的值替换为value，并返回刚刚替换的元素的值（替换失败返回null）
+    public V replace(long key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a given value.
+     *
+     * @return {@code true} if the value was replaced
+     *
+     * @throws NullPointerException if any of the values is null
+     */
+    // 将拥有指定key和oldValue的元素的值替换为newValue，返回值表示是否成功替换
+    public boolean replace(long key, V oldValue, V newValue) {
+        if(oldValue == null || newValue == null) {
+            throw new NullPointerException();
+        }
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /*▲ 替换 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Tests if the specified key is a key in this table.
+     */
+    // 判断Map中是否存在指定key的元素
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value. This method requires a full traversal.
+     *
+     * @throws NullPointerException if the specified value is null
+     */
+    // 判断Map中是否存在指定value的元素
+    public boolean containsValue(Object value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+
+        Node<V>[] t;
+        if((t = table) != null) {
+            Traverser<V> it = new Traverser<>(t, t.length, 0, t.length);
+            for(Node<V> p; (p = it.advance()) != null; ) {
+                V v;
+                if((v = p.val) == value || (v != null && value.equals(v))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 遍历 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns a weakly consistent iterator over the keys in this map.
+     * The iterator does not support {@code remove}.
+     *
+     * @return an iterator over the keys of this map
+     */
+    // 返回key的迭代器
+    public PrimitiveIterator.OfLong keyIterator() {
+        Node<V>[] t;
+        int f = (t = table) == null ? 0 : t.length;
+        return new KeyIterator<>(t, f, 0, f);
+    }
+
+    /*▲ 遍历 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 重新映射 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}. The entire
+     * method invocation is performed atomically, so the function is
+     * applied at most once per key. The mapping function must not
+     * attempt to update any other mappings of this map.
+     *
+     * @param key             key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     *
+     * @return the current (existing or computed) value associated with
+     * the specified key, or null if the computed value is null
+     *
+     * @throws NullPointerException  if the mappingFunction is null
+     * @throws IllegalStateException if the computation detectably
+     *                               attempts a recursive update to this map
+     */
+    // 如果key不存在，则使用mappingFunction计算新值并存入，返回最终的值
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        if(mappingFunction == null) {
+            throw new NullPointerException();
+        }
+
+        int h = spread(key);
+
+        V newValue = null;
+        int binCount = 0;
+        for(Node<V>[] tab = table; ; ) {
+            Node<V> f;
+            int n, i, fh;
+            V fv;
+
+            if(tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                Node<V> x = new ReservationNode<>();
+
+                synchronized(x) {
+                    // 原子地更新tab[i]为x
+                    if(casTabAt(tab, i, null, x)) {
+                        binCount = 1;
+                        Node<V> node = null;
+                        try {
+                            newValue = mappingFunction.apply(key);
+
+                            if(newValue != null) {
+                                node = new Node<>(h, key, newValue);
+                            }
+                        } finally {
+                            // 设置tab[i]为node
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if(binCount != 0) {
+                    break;
+                }
+            } else if((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else if(fh == h && f.key == key && (fv = f.val) != null) {
+                // check first node without acquiring lock
+                return fv;
+            } else {
+                boolean added = false;
+                synchronized(f) {
+                    if(tabAt(tab, i) == f) {
+                        if(fh >= 0) {
+                            binCount = 1;
+                            for(Node<V> e = f; ; ++binCount) {
+                                if(e.hash == h && e.key == key) {
+                                    newValue = e.val;
+                                    break;
+                                }
+
+                                Node<V> pred = e;
+
+                                if((e = e.next) == null) {
+                                    newValue = mappingFunction.apply(key);
+
+                                    if(newValue != null) {
+                                        if(pred.next != null) {
+                                            throw new IllegalStateException("Recursive update");
+                                        }
+                                        added = true;
+                                        pred.next = new Node<>(h, key, newValue);
+                                    }
+                                    break;
+                                }
+                            }
+                        } else if(f instanceof ReservationNode) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                    }
+                }
+
+                if(binCount != 0) {
+                    if(!added) {
+                        return newValue;
+                    }
+
+                    break;
+                }
+            }
+        }
+
+        if(newValue != null) {
+            addCount(1L, binCount);
+        }
+
+        return newValue;
+    }
+
+    /**
+     * If the specified key is not already associated with a (non-null)
+     * value, associates it with the given value. Otherwise, replaces the
+     * value with the results of the given remapping function, or removes
+     * if {@code null}. The entire method invocation is performed
+     * atomically.
+     *
+     * @return the new value associated with the specified key, or null if none
+     *
+     * @throws NullPointerException if the specified value or the
+     *                              remappingFunction is null
+     */
+    // 如果key不存在，则存入value；否则存入remappingFunction(旧值, value)的结果（结果为null时移除元素），返回新值
+    public V merge(long key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if(value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+
+        int h = spread(key);
+
+        V newValue = null;
+        int delta = 0;
+        int binCount = 0;
+        Node<V>[] tab = table;
+        for(; ; ) {
+            Node<V> f;
+            int n, i, fh;
+            if(tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                // 当做新元素插入
+                if(casTabAt(tab, i, null, new Node<>(h, key, value))) {
+                    delta = 1;
+                    newValue = value;
+                    break;
+                }
+            } else if((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else {
+                synchronized(f) {
+                    if(tabAt(tab, i) == f) {
+                        if(fh >= 0) {
+                            binCount = 1;
+
+                            for(Node<V> e = f, pred = null; ; ++binCount) {
+                                // 找到了同位元素
+                                if(e.hash == h && e.key == key) {
+                                    newValue = remappingFunction.apply(e.val, value);
+
+                                    if(newValue != null) {
+                                        e.val = newValue;
+                                    } else {
+                                        delta = -1;
+                                        Node<V> en = e.next;
+
+                                        if(pred != null) {
+                                            pred.next = en;
+                                        } else {
+                                            setTabAt(tab, i, en);
+                                        }
+                                    }
+
+                                    break;
+                                }
+
+                                pred = e;
+
+                                // 当做新元素插入
+                                if((e = e.next) == null) {
+                                    delta = 1;
+                                    newValue = value;
+                                    pred.next = new Node<>(h, key, newValue);
+                                    break;
+                                }
+                            }
+                        } else if(f instanceof ReservationNode) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                    }
+                }
+
+                if(binCount != 0) {
+                    break;
+                }
+            }
+        }
+
+        if(delta != 0) {
+            addCount(delta, binCount);
+        }
+
+        return newValue;
+    }
+
+    /*▲ 重新映射 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the number of mappings, clamped to {@code Integer.MAX_VALUE}.
+     */
+    // 获取Map中的元素数量
+    public int size() {
+        long n = sumCount();
+        return ((n<0L) ? 0 : (n>(long) Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n);
+    }
+
+    /**
+     * Returns the number of mappings. The value returned is an estimate;
+     * the actual count may differ if there are concurrent insertions or
+     * removals.
+     */
+    // 获取Map中的元素数量（估计值）
+    public long mappingCount() {
+        long n = sumCount();
+        return (n<0L) ? 0L : n; // ignore transient negative values
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     */
+    // 判断Map是否为空
+    public boolean isEmpty() {
+        return sumCount()<=0L; // ignore transient negative values
+    }
+
+    public String toString() {
+        Node<V>[] t;
+        int f = (t = table) == null ? 0 : t.length;
+        Traverser<V> it = new Traverser<>(t, f, 0, f);
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        Node<V> p;
+        if((p = it.advance()) != null) {
+            for(; ; ) {
+                sb.append(p.key).append('=').append(p.val);
+                if((p = it.advance()) == null) {
+                    break;
+                }
+                sb.append(',').append(' ');
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 并行操作 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Performs the given action for each (value, key) mapping.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param action               the action, receiving the value and the key
+     */
+    // 遍历Map中的元素，并对其应用action操作，action的入参是元素的value和key
+    public void forEach(long parallelismThreshold, ObjLongConsumer<? super V> action) {
+        if(action == null) {
+            throw new NullPointerException();
+        }
+
+        new ForEachMappingTask<>(null, batchFor(parallelismThreshold), 0, 0, table, action).invoke();
+    }
+
+    /**
+     * Performs the given action for each key.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param action               the action
+     */
+    // 遍历Map中的key，并对其应用action操作
+    public void forEachKey(long parallelismThreshold, LongConsumer action) {
+        if(action == null) {
+            throw new NullPointerException();
+        }
+
+        new ForEachKeyTask<>(null, batchFor(parallelismThreshold), 0, 0, table, action).invoke();
+    }
+
+    /**
+     * Performs the given action for each value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param action               the action
+     */
+    // 遍历Map中的value，并对其应用action操作
+    public void forEachValue(long parallelismThreshold, Consumer<? super V> action) {
+        if(action == null) {
+            throw new NullPointerException();
+        }
+
+        new ForEachValueTask<>(null, batchFor(parallelismThreshold), 0, 0, table, action).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating all values using the given
+     * reducer to combine values, or null if none.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param reducer              a commutative associative combining function
+     *
+     * @return the result of accumulating all values
+     */
+    // 使用reducer对所有value进行归约
+    public V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+        if(reducer == null) {
+            throw new NullPointerException();
+        }
+
+        return new ReduceValuesTask<V>(null, batchFor(parallelismThreshold), 0, 0, table, null, reducer).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of
+     * all keys using the given reducer to combine values, and the given
+     * basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param transformer          a function returning the transformation for an element
+     * @param basis                the identity (initial default value) for the reduction
+     * @param reducer              a commutative associative combining function
+     *
+     * @return the result of accumulating the given transformation of all keys
+     */
+    // 使用transformer对key进行转换，再使用reducer对转换结果进行归约
+    public long reduceKeysToLong(long parallelismThreshold, LongUnaryOperator transformer, long basis, LongBinaryOperator reducer) {
+        if(transformer == null || reducer == null) {
+            throw new NullPointerException();
+        }
+
+        return new MapReduceKeysToLongTask<V>(null, batchFor(parallelismThreshold), 0, 0, table, null, transformer, basis, reducer).invoke();
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of
+     * all values using the given reducer to combine values, and the
+     * given basis as an identity value.
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     *                             needed for this operation to be executed in parallel
+     * @param transformer          a function returning the transformation for an element
+     * @param basis                the identity (initial default value) for the reduction
+     * @param reducer              a commutative associative combining function
+     *
+     * @return the result of accumulating the given transformation of all values
+     */
+    // 使用transformer对value进行转换，再使用reducer对转换结果进行归约
+    public long reduceValuesToLong(long parallelismThreshold, ToLongFunction<? super V> transformer, long basis, LongBinaryOperator reducer) {
+        if(transformer == null || reducer == null) {
+            throw new NullPointerException();
+        }
+
+        return new MapReduceValuesToLongTask<V>(null, batchFor(parallelismThreshold), 0, 0, table, null, transformer, basis, reducer).invoke();
+    }
+
+    /*▲ 并行操作 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Mixes all 64 bits of the key into a non-negative int hash; the
+     * low bits decide the bin, so both halves of the key must reach them.
+     */
+    // 哈希算法
+    static final int spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return ((int) h ^ ((int) h >>> 16)) & HASH_BITS;
+    }
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static final int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(cap - 1);
+        return (n<0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /* ---------------- Table element access -------------- */
+
+    // 获取tab[i]
+    @SuppressWarnings("unchecked")
+    static final <V> Node<V> tabAt(Node<V>[] tab, int i) {
+        return (Node<V>) U.getObjectAcquire(tab, ((long) i << ASHIFT) + ABASE);
+    }
+
+    // 原子地更新tab[i]为node
+    static final <V> boolean casTabAt(Node<V>[] tab, int i, Node<V> expected, Node<V> node) {
+        return U.compareAndSetObject(tab, ((long) i << ASHIFT) + ABASE, expected, node);
+    }
+
+    // 设置tab[i]为x
+    static final <V> void setTabAt(Node<V>[] tab, int i, Node<V> x) {
+        U.putObjectRelease(tab, ((long) i << ASHIFT) + ABASE, x);
+    }
+
+    /*
+     * 向当前Map中存入新的元素，并返回旧元素
+     *
+     * onlyIfAbsent 是否需要维持原状（不覆盖旧值）
+     */
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+
+        int hash = spread(key);
+
+        int binCount = 0;
+
+        Node<V>[] tab = table;
+
+        while(true) {
+            Node<V> f;
+            int fh;
+            V fv;
+            int len;
+            int i;
+
+            if(tab == null || (len = tab.length) == 0) {
+                tab = initTable();
+            } else if((f = tabAt(tab, i = (len - 1) & hash)) == null) {
+                // no lock when adding to empty bin
+                if(casTabAt(tab, i, null, new Node<>(hash, key, value))) {
+                    break;
+                }
+            } else if((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else if(onlyIfAbsent && fh == hash && f.key == key && (fv = f.val) != null) {
+                return fv;
+            } else {
+                V oldVal = null;
+
+                synchronized(f) {
+                    if(tabAt(tab, i) == f) {
+                        if(fh >= 0) {
+                            binCount = 1;
+
+                            for(Node<V> e = f; ; ++binCount) {
+                                if(e.hash == hash && e.key == key) {
+                                    oldVal = e.val;
+                                    if(!onlyIfAbsent) {
+                                        e.val = value;
+                                    }
+                                    break;
+                                }
+
+                                Node<V> pred = e;
+                                if((e = e.next) == null) {
+                                    pred.next = new Node<>(hash, key, value);
+                                    break;
+                                }
+                            }
+                        } else if(f instanceof ReservationNode) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                    }
+                }
+
+                if(binCount != 0) {
+                    if(oldVal != null) {
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+
+        addCount(1L, binCount);
+
+        return null;
+    }
+
+    /*
+     * 根据key查找同位元素，如果找不到，直接返回null
+     * 如果存在同位元素，则：
+     * 　　如果cv不为空，且不等于旧值，仍然返回null
+     * 　　如果cv为null，或者cv等于旧值，则：
+     * 　　　　如果newValue不为空，用新值覆盖旧值
+     * 　　　　如果newValue为null，移除旧值
+     */
+    final V replaceNode(long key, V newValue, Object cv) {
+        int hash = spread(key);
+
+        Node<V>[] tab = table;
+
+        for(; ; ) {
+            Node<V> f;
+            int n, i, fh;
+
+            if(tab == null || (n = tab.length) == 0 || (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                break;
+            } else if((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else {
+                V oldVal = null;
+                boolean validated = false;
+
+                synchronized(f) {
+                    if(tabAt(tab, i) == f) {
+                        if(fh >= 0) {
+                            validated = true;
+
+                            for(Node<V> e = f, pred = null; ; ) {
+                                if(e.hash == hash && e.key == key) {
+                                    V ev = e.val;
+                                    if(cv == null || cv == ev || (ev != null && cv.equals(ev))) {
+                                        oldVal = ev;
+                                        if(newValue != null) {
+                                            e.val = newValue;
+                                        } else if(pred != null) {
+                                            pred.next = e.next;
+                                        } else {
+                                            setTabAt(tab, i, e.next);
+                                        }
+                                    }
+                                    break;
+                                }
+
+                                pred = e;
+                                if((e = e.next) == null) {
+                                    break;
+                                }
+                            }
+                        } else if(f instanceof ReservationNode) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                    }
+                }
+
+                if(validated) {
+                    if(oldVal != null) {
+                        if(newValue == null) {
+                            addCount(-1L, -1);
+                        }
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /* ---------------- Table Initialization and Resizing -------------- */
+
+    /**
+     * Returns the stamp bits for resizing a table of size n.
+     * Must be negative when shifted left by RESIZE_STAMP_SHIFT.
+     */
+    static final int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    // 初始化哈希数组
+    private final Node<V>[] initTable() {
+        Node<V>[] tab;
+
+        while((tab = table) == null || tab.length == 0) {
+            int sc = sizeCtl;
+
+            if(sc<0) {
+                Thread.yield(); // lost initialization race; just spin
+            } else if(U.compareAndSetInt(this, SIZECTL, sc, -1)) {
+                try {
+                    if((tab = table) == null || tab.length == 0) {
+                        int len = (sc>0) ? sc : DEFAULT_CAPACITY;
+                        @SuppressWarnings("unchecked")
+                        Node<V>[] nt = (Node<V>[]) new Node<?>[len];
+                        table = tab = nt;
+                        sc = len - (len >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+
+        return tab;
+    }
+
+    // 加速扩容过程
+    final Node<V>[] helpTransfer(Node<V>[] tab, Node<V> f) {
+        Node<V>[] nextTab;
+        int sc;
+
+        if(tab != null && (f instanceof ForwardingNode) && (nextTab = ((ForwardingNode<V>) f).nextTable) != null) {
+            int rs = resizeStamp(tab.length);
+
+            while(nextTab == nextTable && table == tab && (sc = sizeCtl)<0) {
+                if((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 || sc == rs + MAX_RESIZERS || transferIndex<=0) {
+                    break;
+                }
+
+                if(U.compareAndSetInt(this, SIZECTL, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+
+            return nextTab;
+        }
+
+        return table;
+    }
+
+    /**
+     * Adds to count, and if table is too small and not already resizing,
+     * initiates transfer. If already resizing, helps perform transfer if
+     * work is available.
+     *
+     * @param x     the count to add
+     * @param check if <0, don't check resize, if <= 1 only check if uncontended
+     */
+    private final void addCount(long x, int check) {
+        ConcurrentHashMap.CounterCell[] cs;
+        long b, s;
+
+        if((cs = counterCells) != null || !U.compareAndSetLong(this, BASECOUNT, b = baseCount, s = b + x)) {
+            ConcurrentHashMap.CounterCell c;
+            long v;
+            int m;
+            boolean uncontended = true;
+
+            if(cs == null || (m = cs.length - 1)<0 || (c = cs[ThreadLocalRandom.getProbe() & m]) == null || !(uncontended = U.compareAndSetLong(c, CELLVALUE, v = c.value, v + x))) {
+                fullAddCount(x, uncontended);
+                return;
+            }
+
+            if(check<=1) {
+                return;
+            }
+
+            s = sumCount();
+        }
+
+        if(check >= 0) {
+            Node<V>[] tab, nt;
+            int n, sc;
+
+            while(s >= (long) (sc = sizeCtl) && (tab = table) != null && (n = tab.length)<MAXIMUM_CAPACITY) {
+                int rs = resizeStamp(n);
+
+                if(sc<0) {
+                    if((sc >>> RESIZE_STAMP_SHIFT) != rs || sc == rs + 1 || sc == rs + MAX_RESIZERS || (nt = nextTable) == null || transferIndex<=0) {
+                        break;
+                    }
+
+                    if(U.compareAndSetInt(this, SIZECTL, sc, sc + 1)) {
+                        transfer(tab, nt);
+                    }
+                } else if(U.compareAndSetInt(this, SIZECTL, sc, (rs << RESIZE_STAMP_SHIFT) + 2)) {
+                    transfer(tab, null);
+                }
+
+                s = sumCount();
+            }
+        }
+    }
+
+    // 在哈希数组的扩容过程中进行数据迁移，参见ConcurrentHashMap#transfer
+    private final void transfer(Node<V>[] tab, Node<V>[] nextTab) {
+        int n = tab.length;
+
+        int stride = (NCPU>1) ? (n >>> 3) / NCPU : n;
+        if(stride<MIN_TRANSFER_STRIDE) {
+            stride = MIN_TRANSFER_STRIDE; // subdivide range
+        }
+
+        if(nextTab == null) {            // initiating
+            try {
+                @SuppressWarnings("unchecked")
+                Node<V>[] nt = (Node<V>[]) new Node<?>[n << 1];
+                nextTab = nt;
+            } catch(Throwable ex) {      // try to cope with OOME
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+
+        ForwardingNode<V> fwd = new ForwardingNode<>(nextTab);
+        int nextn = nextTab.length;
+        boolean advance = true;
+        boolean finishing = false; // to ensure sweep before committing nextTab
+
+        for(int i = 0, bound = 0; ; ) {
+            Node<V> f;
+            int fh;
+
+            while(advance) {
+                int nextIndex, nextBound;
+
+                if(--i >= bound || finishing) {
+                    advance = false;
+                } else if((nextIndex = transferIndex)<=0) {
+                    i = -1;
+                    advance = false;
+                } else if(U.compareAndSetInt(this, TRANSFERINDEX, nextIndex, nextBound = (nextIndex>stride ? nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+
+            if(i<0 || i >= n || i + n >= nextn) {
+                int sc;
+
+                if(finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+
+                if(U.compareAndSetInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
+                    if((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+                        return;
+                    }
+
+                    finishing = advance = true;
+                    i = n; // recheck before commit
+                }
+            } else if((f = tabAt(tab, i)) == null) {
+                advance = casTabAt(tab, i, null, fwd);
+            } else if((fh = f.hash) == MOVED) {
+                advance = true; // already processed
+            } else {
+                synchronized(f) {
+                    if(tabAt(tab, i) == f && fh >= 0) {
+                        Node<V> ln, hn;
+
+                        int runBit = fh & n;
+                        Node<V> lastRun = f;
+                        for(Node<V> p = f.next; p != null; p = p.next) {
+                            int b = p.hash & n;
+                            if(b != runBit) {
+                                runBit = b;
+                                lastRun = p;
+                            }
+                        }
+
+                        if(runBit == 0) {
+                            ln = lastRun;
+                            hn = null;
+                        } else {
+                            hn = lastRun;
+                            ln = null;
+                        }
+
+                        for(Node<V> p = f; p != lastRun; p = p.next) {
+                            int ph = p.hash;
+                            long pk = p.key;
+                            V pv = p.val;
+                            if((ph & n) == 0) {
+                                ln = new Node<>(ph, pk, pv, ln);
+                            } else {
+                                hn = new Node<>(ph, pk, pv, hn);
+                            }
+                        }
+
+                        setTabAt(nextTab, i, ln);
+                        setTabAt(nextTab, i + n, hn);
+                        setTabAt(tab, i, fwd);
+
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Counter support -------------- */
+
+    final long sumCount() {
+        ConcurrentHashMap.CounterCell[] cs = counterCells;
+
+        long sum = baseCount;
+
+        if(cs != null) {
+            for(ConcurrentHashMap.CounterCell c : cs) {
+                if(c != null) {
+                    sum += c.value;
+                }
+            }
+        }
+
+        return sum;
+    }
+
+    // See LongAdder version for explanation
+    private final void fullAddCount(long x, boolean wasUncontended) {
+        int h;
+
+        if((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();      // force initialization
+            h = ThreadLocalRandom.getProbe();
+            wasUncontended = true;
+        }
+
+        boolean collide = false;                // True if last slot nonempty
+
+        for(; ; ) {
+            ConcurrentHashMap.CounterCell[] cs;
+            ConcurrentHashMap.CounterCell c;
+            int n;
+            long v;
+
+            if((cs = counterCells) != null && (n = cs.length)>0) {
+                if((c = cs[(n - 1) & h]) == null) {
+                    if(cellsBusy == 0) {            // Try to attach new Cell
+                        ConcurrentHashMap.CounterCell r = new ConcurrentHashMap.CounterCell(x); // Optimistic create
+                        if(cellsBusy == 0 && U.compareAndSetInt(this, CELLSBUSY, 0, 1)) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                ConcurrentHashMap.CounterCell[] rs;
+                                int m, j;
+                                if((rs = counterCells) != null && (m = rs.length)>0 && rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                cellsBusy = 0;
+                            }
+
+                            if(created) {
+                                break;
+                            }
+
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+
+                    collide = false;
+                } else if(!wasUncontended) {    // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                } else if(U.compareAndSetLong(c, CELLVALUE, v = c.value, v + x)) {
+                    break;
+                } else if(counterCells != cs || n >= NCPU) {
+                    collide = false;            // At max size or stale
+                } else if(!collide) {
+                    collide = true;
+                } else if(cellsBusy == 0 && U.compareAndSetInt(this, CELLSBUSY, 0, 1)) {
+                    try {
+                        if(counterCells == cs) { // Expand table unless stale
+                            counterCells = Arrays.copyOf(cs, n << 1);
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+
+                h = ThreadLocalRandom.advanceProbe(h);
+            } else if(cellsBusy == 0 && counterCells == cs && U.compareAndSetInt(this, CELLSBUSY, 0, 1)) {
+                boolean init = false;
+
+                try {                           // Initialize table
+                    if(counterCells == cs) {
+                        ConcurrentHashMap.CounterCell[] rs = new ConcurrentHashMap.CounterCell[2];
+                        rs[h & 1] = new ConcurrentHashMap.CounterCell(x);
+                        counterCells = rs;
+                        init = true;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+
+                if(init) {
+                    break;
+                }
+            } else if(U.compareAndSetLong(this, BASECOUNT, v = baseCount, v + x)) {
+                break;                          // Fall back on using base
+            }
+        }
+    }
+
+    /**
+     * Computes initial batch value for bulk tasks, as in ConcurrentHashMap.
+     */
+    final int batchFor(long b) {
+        long n;
+
+        if(b == Long.MAX_VALUE || (n = sumCount())<=1L || n<b) {
+            return 0;
+        }
+
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+
+        return (b>0L && (n /= b)<sp) ? (int) n : sp;
+    }
+
+
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * Key-value entry. The key is kept as a primitive long; nodes with a
+     * negative hash are special and hold no key.
+     */
+    // 普通结点
+    static class Node<V> {
+        final int hash;
+        final long key;
+        volatile V val;
+        volatile Node<V> next;
+
+        Node(int hash, long key, V val) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+        }
+
+        Node(int hash, long key, V val, Node<V> next) {
+            this(hash, key, val);
+            this.next = next;
+        }
+
+        /**
+         * Virtualized support for get(); overridden in subclasses.
+         */
+        Node<V> find(int h, long k) {
+            Node<V> e = this;
+            do {
+                if(e.hash == h && e.key == k) {
+                    return e;
+                }
+            } while((e = e.next) != null);
+
+            return null;
+        }
+    }
+
+    /**
+     * A node inserted at head of bins during transfer operations.
+     */
+    // 前向结点
+    static final class ForwardingNode<V> extends Node<V> {
+        final Node<V>[] nextTable;
+
+        ForwardingNode(Node<V>[] tab) {
+            super(MOVED, 0L, null);
+            this.nextTable = tab;
+        }
+
+        Node<V> find(int h, long k) {
+            // loop to avoid arbitrarily deep recursion on forwarding nodes
+outer:
+            for(Node<V>[] tab = nextTable; ; ) {
+                Node<V> e;
+                int n;
+
+                if(tab == null || (n = tab.length) == 0 || (e = tabAt(tab, (n - 1) & h)) == null) {
+                    return null;
+                }
+
+                for(; ; ) {
+                    int eh;
+
+                    if((eh = e.hash) == h && e.key == k) {
+                        return e;
+                    }
+
+                    if(eh<0) {
+                        if(e instanceof ForwardingNode) {
+                            tab = ((ForwardingNode<V>) e).nextTable;
+                            continue outer;
+                        } else {
+                            return e.find(h, k);
+                        }
+                    }
+
+                    if((e = e.next) == null) {
+                        return null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A place-holder node used in computeIfAbsent.
+     */
+    // 占位结点
+    static final class ReservationNode<V> extends Node<V> {
+        ReservationNode() {
+            super(RESERVED, 0L, null);
+        }
+
+        Node<V> find(int h, long k) {
+            return null;
+        }
+    }
+
+
+
+    /* ---------------- Traversal -------------- */
+
+    /**
+     * Records the table, its length, and current traversal index for a
+     * traverser that must process a region of a forwarded table before
+     * proceeding with current table.
+     */
+    static final class TableStack<V> {
+        int length;
+        int index;
+        Node<V>[] tab;
+        TableStack<V> next;
+    }
+
+    /**
+     * Encapsulates traversal for containsValue and iterators; a trimmed
+     * copy of ConcurrentHashMap.Traverser without tree bins.
+     */
+    static class Traverser<V> {
+        final int baseSize;     // initial table size
+        Node<V>[] tab;          // current table; updated if resized
+        Node<V> next;           // the next entry to use
+        TableStack<V> stack, spare; // to save/restore on ForwardingNodes
+        int index;              // index of bin to use next
+        int baseIndex;          // current index of initial table
+        int baseLimit;          // index bound for initial table
+
+        Traverser(Node<V>[] tab, int size, int index, int limit) {
+            this.tab = tab;
+            this.baseSize = size;
+            this.baseIndex = this.index = index;
+            this.baseLimit = limit;
+        }
+
+        /**
+         * Advances if possible, returning next valid node, or null if none.
+         */
+        final Node<V> advance() {
+            Node<V> e;
+
+            if((e = next) != null) {
+                e = e.next;
+            }
+
+            for(; ; ) {
+                Node<V>[] t;
+                int i, n;  // must use locals in checks
+
+                if(e != null) {
+                    return next = e;
+                }
+
+                if(baseIndex >= baseLimit || (t = tab) == null || (n = t.length)<=(i = index) || i<0) {
+                    return next = null;
+                }
+
+                if((e = tabAt(t, i)) != null && e.hash<0) {
+                    if(e instanceof ForwardingNode) {
+                        tab = ((ForwardingNode<V>) e).nextTable;
+                        e = null;
+                        pushState(t, i, n);
+                        continue;
+                    } else {
+                        e = null;
+                    }
+                }
+
+                if(stack != null) {
+                    recoverState(n);
+                } else if((index = i + baseSize) >= n) {
+                    index = ++baseIndex; // visit upper slots if present
+                }
+            }
+        }
+
+        /**
+         * Saves traversal state upon encountering a forwarding node.
+         */
+        final void pushState(Node<V>[] t, int i, int n) {
+            TableStack<V> s = spare;  // reuse if possible
+            if(s != null) {
+                spare = s.next;
+            } else {
+                s = new TableStack<>();
+            }
+            s.tab = t;
+            s.length = n;
+            s.index = i;
+            s.next = stack;
+            stack = s;
+        }
+
+        /**
+         * Possibly pops traversal state.
+         *
+         * @param n length of current table
+         */
+        final void recoverState(int n) {
+            TableStack<V> s;
+            int len;
+
+            while((s = stack) != null && (index += (len = s.length)) >= n) {
+                n = len;
+                index = s.index;
+                tab = s.tab;
+                s.tab = null;
+                TableStack<V> next = s.next;
+                s.next = spare; // save for reuse
+                stack = next;
+                spare = s;
+            }
+
+            if(s == null && (index += baseSize) >= n) {
+                index = ++baseIndex;
+            }
+        }
+    }
+
+    // key的迭代器
+    static final class KeyIterator<V> extends Traverser<V> implements PrimitiveIterator.OfLong {
+        KeyIterator(Node<V>[] tab, int size, int index, int limit) {
+            super(tab, size, index, limit);
+            advance();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public long nextLong() {
+            Node<V> p;
+            if((p = next) == null) {
+                throw new NoSuchElementException();
+            }
+            long k = p.key;
+            advance();
+            return k;
+        }
+    }
+
+
+
+    /* ---------------- Bulk tasks -------------- */
+
+    /**
+     * Base class for bulk tasks. Repeats some fields and code from
+     * class Traverser, because we need to subclass CountedCompleter.
+     */
+    @SuppressWarnings("serial")
+    abstract static class BulkTask<V, R> extends CountedCompleter<R> {
+        Node<V>[] tab;        // same as Traverser
+        Node<V> next;
+        TableStack<V> stack, spare;
+        int index;
+        int baseIndex;
+        int baseLimit;
+        final int baseSize;
+        int batch;            // split control
+
+        BulkTask(BulkTask<V, ?> par, int b, int i, int f, Node<V>[] t) {
+            super(par);
+            this.batch = b;
+            this.index = this.baseIndex = i;
+            if((this.tab = t) == null) {
+                this.baseSize = this.baseLimit = 0;
+            } else if(par == null) {
+                this.baseSize = this.baseLimit = t.length;
+            } else {
+                this.baseLimit = f;
+                this.baseSize = par.baseSize;
+            }
+        }
+
+        /**
+         * Same as Traverser version.
+         */
+        final Node<V> advance() {
+            Node<V> e;
+
+            if((e = next) != null) {
+                e = e.next;
+            }
+
+            for(; ; ) {
+                Node<V>[] t;
+                int i, n;
+
+                if(e != null) {
+                    return next = e;
+                }
+
+                if(baseIndex >= baseLimit || (t = tab) == null || (n = t.length)<=(i = index) || i<0) {
+                    return next = null;
+                }
+
+                if((e = tabAt(t, i)) != null && e.hash<0) {
+                    if(e instanceof ForwardingNode) {
+                        tab = ((ForwardingNode<V>) e).nextTable;
+                        e = null;
+                        pushState(t, i, n);
+                        continue;
+                    } else {
+                        e = null;
+                    }
+                }
+
+                if(stack != null) {
+                    recoverState(n);
+                } else if((index = i + baseSize) >= n) {
+                    index = ++baseIndex;
+                }
+            }
+        }
+
+        private void pushState(Node<V>[] t, int i, int n) {
+            TableStack<V> s = spare;
+            if(s != null) {
+                spare = s.next;
+            } else {
+                s = new TableStack<>();
+            }
+            s.tab = t;
+            s.length = n;
+            s.index = i;
+            s.next = stack;
+            stack = s;
+        }
+
+        private void recoverState(int n) {
+            TableStack<V> s;
+            int len;
+
+            while((s = stack) != null && (index += (len = s.length)) >= n) {
+                n = len;
+                index = s.index;
+                tab = s.tab;
+                s.tab = null;
+                TableStack<V> next = s.next;
+                s.next = spare; // save for reuse
+                stack = next;
+                spare = s;
+            }
+
+            if(s == null && (index += baseSize) >= n) {
+                index = ++baseIndex;
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachMappingTask<V> extends BulkTask<V, Void> {
+        final ObjLongConsumer<? super V> action;
+
+        ForEachMappingTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, ObjLongConsumer<? super V> action) {
+            super(p, b, i, f, t);
+            this.action = action;
+        }
+
+        public final void compute() {
+            final ObjLongConsumer<? super V> action;
+
+            if((action = this.action) != null) {
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    new ForEachMappingTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, action).fork();
+                }
+
+                for(Node<V> p; (p = advance()) != null; ) {
+                    action.accept(p.val, p.key);
+                }
+
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachKeyTask<V> extends BulkTask<V, Void> {
+        final LongConsumer action;
+
+        ForEachKeyTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, LongConsumer action) {
+            super(p, b, i, f, t);
+            this.action = action;
+        }
+
+        public final void compute() {
+            final LongConsumer action;
+
+            if((action = this.action) != null) {
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    new ForEachKeyTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, action).fork();
+                }
+
+                for(Node<V> p; (p = advance()) != null; ) {
+                    action.accept(p.key);
+                }
+
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachValueTask<V> extends BulkTask<V, Void> {
+        final Consumer<? super V> action;
+
+        ForEachValueTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, Consumer<? super V> action) {
+            super(p, b, i, f, t);
+            this.action = action;
+        }
+
+        public final void compute() {
+            final Consumer<? super V> action;
+
+            if((action = this.action) != null) {
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    new ForEachValueTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, action).fork();
+                }
+
+                for(Node<V> p; (p = advance()) != null; ) {
+                    action.accept(p.val);
+                }
+
+                propagateCompletion();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ReduceValuesTask<V> extends BulkTask<V, V> {
+        final BiFunction<? super V, ? super V, ? extends V> reducer;
+        V result;
+        ReduceValuesTask<V> rights, nextRight;
+
+        ReduceValuesTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, ReduceValuesTask<V> nextRight, BiFunction<? super V, ? super V, ? extends V> reducer) {
+            super(p, b, i, f, t);
+            this.nextRight = nextRight;
+            this.reducer = reducer;
+        }
+
+        public final V getRawResult() {
+            return result;
+        }
+
+        public final void compute() {
+            final BiFunction<? super V, ? super V, ? extends V> reducer;
+            if((reducer = this.reducer) != null) {
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    (rights = new ReduceValuesTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, rights, reducer)).fork();
+                }
+
+                V r = null;
+                for(Node<V> p; (p = advance()) != null; ) {
+                    V v = p.val;
+                    r = (r == null) ? v : reducer.apply(r, v);
+                }
+                result = r;
+
+                for(CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    ReduceValuesTask<V> t = (ReduceValuesTask<V>) c, s = t.rights;
+                    while(s != null) {
+                        V tr, sr;
+                        if((sr = s.result) != null) {
+                            t.result = (((tr = t.result) == null) ? sr : reducer.apply(tr, sr));
+                        }
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceKeysToLongTask<V> extends BulkTask<V, Long> {
+        final LongUnaryOperator transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceKeysToLongTask<V> rights, nextRight;
+
+        MapReduceKeysToLongTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, MapReduceKeysToLongTask<V> nextRight, LongUnaryOperator transformer, long basis, LongBinaryOperator reducer) {
+            super(p, b, i, f, t);
+            this.nextRight = nextRight;
+            this.transformer = transformer;
+            this.basis = basis;
+            this.reducer = reducer;
+        }
+
+        public final Long getRawResult() {
+            return result;
+        }
+
+        public final void compute() {
+            final LongUnaryOperator transformer;
+            final LongBinaryOperator reducer;
+            if((transformer = this.transformer) != null && (reducer = this.reducer) != null) {
+                long r = this.basis;
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    (rights = new MapReduceKeysToLongTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, rights, transformer, r, reducer)).fork();
+                }
+
+                for(Node<V> p; (p = advance()) != null; ) {
+                    r = reducer.applyAsLong(r, transformer.applyAsLong(p.key));
+                }
+                result = r;
+
+                for(CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    MapReduceKeysToLongTask<V> t = (MapReduceKeysToLongTask<V>) c, s = t.rights;
+                    while(s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapReduceValuesToLongTask<V> extends BulkTask<V, Long> {
+        final ToLongFunction<? super V> transformer;
+        final LongBinaryOperator reducer;
+        final long basis;
+        long result;
+        MapReduceValuesToLongTask<V> rights, nextRight;
+
+        MapReduceValuesToLongTask(BulkTask<V, ?> p, int b, int i, int f, Node<V>[] t, MapReduceValuesToLongTask<V> nextRight, ToLongFunction<? super V> transformer, long basis, LongBinaryOperator reducer) {
+            super(p, b, i, f, t);
+            this.nextRight = nextRight;
+            this.transformer = transformer;
+            this.basis = basis;
+            this.reducer = reducer;
+        }
+
+        public final Long getRawResult() {
+            return result;
+        }
+
+        public final void compute() {
+            final ToLongFunction<? super V> transformer;
+            final LongBinaryOperator reducer;
+            if((transformer = this.transformer) != null && (reducer = this.reducer) != null) {
+                long r = this.basis;
+                for(int i = baseIndex, f, h; batch>0 && (h = ((f = baseLimit) + i) >>> 1)>i; ) {
+                    addToPendingCount(1);
+                    (rights = new MapReduceValuesToLongTask<V>(this, batch >>>= 1, baseLimit = h, f, tab, rights, transformer, r, reducer)).fork();
+                }
+
+                for(Node<V> p; (p = advance()) != null; ) {
+                    r = reducer.applyAsLong(r, transformer.applyAsLong(p.val));
+                }
+                result = r;
+
+                for(CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                    @SuppressWarnings("unchecked")
+                    MapReduceValuesToLongTask<V> t = (MapReduceValuesToLongTask<V>) c, s = t.rights;
+                    while(s != null) {
+                        t.result = reducer.applyAsLong(t.result, s.result);
+                        s = t.rights = s.nextRight;
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    // Unsafe mechanics
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long SIZECTL;
+    private static final long TRANSFERINDEX;
+    private static final long BASECOUNT;
+    private static final long CELLSBUSY;
+    private static final long CELLVALUE;
+    private static final int ABASE;
+    private static final int ASHIFT;
+
+    static {
+        SIZECTL = U.objectFieldOffset(ConcurrentLongHashMap.class, "sizeCtl");
+        TRANSFERINDEX = U.objectFieldOffset(ConcurrentLongHashMap.class, "transferIndex");
+        BASECOUNT = U.objectFieldOffset(ConcurrentLongHashMap.class, "baseCount");
+        CELLSBUSY = U.objectFieldOffset(ConcurrentLongHashMap.class, "cellsBusy");
+        CELLVALUE = U.objectFieldOffset(ConcurrentHashMap.CounterCell.class, "value");
+        ABASE = U.arrayBaseOffset(Node[].class);
+        int scale = U.arrayIndexScale(Node[].class);
+        if((scale & (scale - 1)) != 0) {
+            throw new Error("array index scale not a power of two");
+        }
+        ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+    }
+
+}
@@ -459,6 +459,75 @@ public class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Blocking
         return super.addAll(c);
     }
     
+    /**
+     * Inserts, in order, as many of the elements {@code a[off]} through
+     * {@code a[off + len - 1]} as fit in the remaining capacity, at the
+     * end of this deque. The nodes are linked under a single
+     * acquisition of the lock.
+     *
+     * @throws NullPointerException      {@inheritDoc}
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @since 11
+     */
+    // 批量从队尾入队，线程安全，只加锁一次，队满时不阻塞，返回成功入队的元素个数
+    public int offer(E[] a, int off, int len) {
+        Objects.checkFromIndexSize(off, len, a.length);
+        for(int i = off, end = off + len; i<end; i++) {
+            Objects.requireNonNull(a[i]);
+        }
+        
+        if(len == 0) {
+            return 0;
+        }
+        
+        // Copy a into a chain of nodes outside the lock
+        Node<E> beg = new Node<E>(a[off]);
+        Node<E> end = beg;
+        for(int i = 1; i<len; i++) {
+            Node<E> newNode = new Node<E>(a[off + i]);
+            newNode.prev = end;
+            end.next = newNode;
+            end = newNode;
+        }
+        
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int n = Math.min(len, capacity - count);
+            if(n<=0) {
+                return 0;
+            }
+            
+            // 如果容量不足，截断结点链
+            if(n<len) {
+                end = beg;
+                for(int i = 1; i<n; i++) {
+                    end = end.next;
+                }
+                end.next = null;
+            }
+            
+            // Atomically append the chain at the end
+            beg.prev = last;
+            if(first == null) {
+                first = beg;
+            } else {
+                last.next = beg;
+            }
+            last = end;
+            count += n;
+            
+            // 唤醒出队线程（至多n个）
+            for(int i = n; i>0 && lock.hasWaiters(notEmpty); i--) {
+                notEmpty.signal();
+            }
+            
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -769,6 +838,41 @@ public class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Blocking
         }
     }
     
+    /**
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 11
+     */
+    // 批量从队头出队，队空时阻塞一段时间，直到至少有一个元素可用，然后在同一次加锁内转移前maxElements个元素
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(c);
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        if(maxElements<=0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while(count == 0) {
+                if(nanos<=0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            
+            // 持有锁的情形下转移元素（重入）
+            return drainTo(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
     /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -400,6 +400,80 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         }
     }
     
+    /**
+     * Inserts, in order, as many of the elements {@code a[off]} through
+     * {@code a[off + len - 1]} as fit in the remaining capacity, at the
+     * tail of this queue. The nodes are linked under a single
+     * acquisition of the put lock, and waiting consumers are signalled
+     * at most once per call.
+     *
+     * @throws NullPointerException      {@inheritDoc}
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @since 11
+     */
+    // 批量入队，线程安全，只加锁一次，队满时不阻塞，返回成功入队的元素个数
+    public int offer(E[] a, int off, int len) {
+        Objects.checkFromIndexSize(off, len, a.length);
+        for(int i = off, end = off + len; i<end; i++) {
+            Objects.requireNonNull(a[i]);
+        }
+        
+        final AtomicInteger count = this.count;
+        
+        int m = Math.min(len, capacity - count.get());
+        if(m<=0) {
+            return 0;
+        }
+        
+        // 在锁外构造结点链
+        final Node<E> first = new Node<E>(a[off]);
+        Node<E> tail = first;
+        for(int i = 1; i<m; i++) {
+            tail = tail.next = new Node<E>(a[off + i]);
+        }
+        
+        final int c, n;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            // 锁外读取count后，其他"入队"线程可能已经填满了队列，需要在锁内重新检查
+            n = Math.min(m, capacity - count.get());
+            if(n<=0) {
+                return 0;
+            }
+            
+            // 如果容量不足，截断结点链
+            if(n<m) {
+                tail = first;
+                for(int i = 1; i<n; i++) {
+                    tail = tail.next;
+                }
+                tail.next = null;
+            }
+            
+            // 整条链一起入队
+            last.next = first;
+            last = tail;
+            
+            c = count.getAndAdd(n);
+            
+            // 如果现在至少还剩一个空槽
+            if(c + n<capacity) {
+                // 唤醒可能阻塞的"入队"线程
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        
+        // 如果队列之前为空（现在不空了），唤醒一个"出队"线程，它会接力唤醒其他"出队"线程
+        if(c == 0) {
+            signalNotEmpty();
+        }
+        
+        return n;
+    }
+    
     /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -687,6 +761,81 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         }
     }
     
+    /**
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 11
+     */
+    // 批量出队，队空时阻塞一段时间，直到至少有一个元素可用，然后在同一次加锁内转移前maxElements个元素
+    public int drainTo(Collection<? super E> c, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(c);
+        
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        
+        if(maxElements<=0) {
+            return 0;
+        }
+        
+        long nanos = unit.toNanos(timeout);
+        boolean signalNotFull = false;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            // 如果队列已空，且未超时，则需要阻塞一段时间
+            while(count.get() == 0) {
+                if(nanos<=0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            
+            int n = Math.min(maxElements, count.get());
+            // count.get provides visibility to first n Nodes
+            Node<E> h = head;
+            int i = 0;
+            try {
+                // 将队列中的元素转移到给定的容器当中
+                while(i<n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if(i>0) {
+                    head = h;
+                    
+                    int before = count.getAndAdd(-i);
+                    
+                    // 如果现在至少还剩一个元素，接力唤醒"出队"线程
+                    if(before>i) {
+                        notEmpty.signal();
+                    }
+                    
+                    // 判断是否有必要唤醒"入队"线程
+                    signalNotFull = (before == capacity);
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            
+            // 如果转移元素前队列是满的（现在不满了），则唤醒"入队"线程
+            if(signalNotFull) {
+                signalNotFull();
+            }
+        }
+    }
+    
     /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -0,0 +1,194 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue backed by
+ * a circular array. Any number of threads may concurrently {@link
+ * #offer} and {@link #poll}. This queue orders elements FIFO and does
+ * not permit null elements.
+ *
+ * <p>Every slot carries a sequence number that tells a producer whether
+ * the slot is free for the current lap and tells a consumer whether
+ * the slot has been published. Producers and consumers therefore only
+ * contend on their own index, with a single CAS per operation, and
+ * neither {@code offer} nor {@code poll} allocates. Unlike {@link
+ * ArrayBlockingQueue} there is no lock and no blocking; {@code offer}
+ * returns {@code false} when the queue is full and {@code poll} returns
+ * {@code null} when it is empty. A slot that is still being written or
+ * read by a slower thread may make the queue briefly appear full or
+ * empty, respectively.
+ *
+ * <p>Bulk removal via {@link #remove(Object)} and iterator removal are
+ * not supported.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpscArrayQueue
+ * @see SpscArrayQueue
+ */
+/*
+ * 有界无锁环形队列，支持多生产者多消费者（MPMC）
+ *
+ * 每个槽位关联一个序号sequence：
+ * 序号==索引时，槽位空闲，等待索引为index的生产者写入；
+ * 序号==索引+1时，槽位已发布，等待索引为index的消费者取出；
+ * 消费者取出元素后将序号置为索引+容量，供下一圈的生产者使用。
+ *
+ * 生产者与消费者各自只在自己的索引上执行一次CAS，入队与出队均不分配对象
+ */
+public class MpmcArrayQueue<E> extends ArrayRingQueue<E> {
+
+    /** Per-slot sequence numbers */
+    // 槽位序号
+    private final long[] sequences;
+
+    /**
+     * Creates a queue with at least the given capacity; the actual
+     * capacity is rounded up to a power of two.
+     *
+     * @param capacity the minimum capacity of this queue
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *                                  positive or exceeds {@code 2^30}
+     */
+    public MpmcArrayQueue(int capacity) {
+        super(capacity);
+        long[] seq = new long[buffer.length];
+        for(int i = 0; i<seq.length; i++) {
+            seq[i] = i;
+        }
+        this.sequences = seq;
+    }
+
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity.
+     *
+     * @return {@code true} if the element was added, {@code false} if
+     * this queue is full
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，队满时返回false
+    public boolean offer(E e) {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+
+        final long[] seqs = sequences;
+        final int mask = this.mask;
+
+        for(; ; ) {
+            long p = producerIndex;
+            int i = (int) p & mask;
+            long seq = (long) SEQUENCE.getAcquire(seqs, i);
+
+            // 槽位空闲，尝试占用
+            if(seq == p) {
+                if(PRODUCER_INDEX.weakCompareAndSet(this, p, p + 1)) {
+                    ELEMENT.setOpaque(buffer, i, e);
+                    // 发布元素
+                    SEQUENCE.setRelease(seqs, i, p + 1);
+                    return true;
+                }
+
+                // 槽位还未被上一圈的消费者释放，队满
+            } else if(seq<p) {
+                return false;
+            }
+
+            // 其他生产者抢先了，重试
+            Thread.onSpinWait();
+        }
+    }
+
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    // 出队，队空时返回null
+    public E poll() {
+        final long[] seqs = sequences;
+        final int mask = this.mask;
+
+        for(; ; ) {
+            long c = consumerIndex;
+            int i = (int) c & mask;
+            long seq = (long) SEQUENCE.getAcquire(seqs, i);
+
+            // 槽位已发布，尝试取出
+            if(seq == c + 1) {
+                if(CONSUMER_INDEX.weakCompareAndSet(this, c, c + 1)) {
+                    @SuppressWarnings("unchecked")
+                    E e = (E) ELEMENT.getOpaque(buffer, i);
+                    ELEMENT.setOpaque(buffer, i, null);
+                    // 释放槽位给下一圈的生产者
+                    SEQUENCE.setRelease(seqs, i, c + buffer.length);
+                    return e;
+                }
+
+                // 槽位还未被生产者发布，队空
+            } else if(seq<c + 1) {
+                return null;
+            }
+
+            // 其他消费者抢先了，重试
+            Thread.onSpinWait();
+        }
+    }
+
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+    // 查看队头元素，队空时返回null
+    public E peek() {
+        for(; ; ) {
+            long c = consumerIndex;
+            int i = (int) c & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, i);
+            if(seq<c + 1) {
+                return null;
+            }
+
+            @SuppressWarnings("unchecked")
+            E e = (E) ELEMENT.getOpaque(buffer, i);
+            // 读取期间未被其他消费者取走
+            if(e != null && (long) SEQUENCE.getAcquire(sequences, i) == c + 1) {
+                return e;
+            }
+        }
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+}
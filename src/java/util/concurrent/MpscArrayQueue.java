@@ -0,0 +1,182 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue backed by
+ * a circular array. Any number of threads may concurrently {@link
+ * #offer}, but at most one thread at a time may {@link #poll}, {@link
+ * #peek} or otherwise remove elements. This queue orders elements FIFO
+ * and does not permit null elements.
+ *
+ * <p>Producers claim a slot with a single CAS on the producer index
+ * and then publish the element with a release store; the consumer
+ * owns the consumer index and never performs a CAS. A producer only
+ * re-reads the consumer index when its cached view of the free
+ * capacity runs out. Neither {@code offer} nor {@code poll}
+ * allocates. This makes the queue a good fit for handing work from
+ * many threads to a single dedicated worker.
+ *
+ * <p>Using this queue from more than one consuming thread at a time
+ * yields undefined results. Bulk removal via {@link #remove(Object)}
+ * and iterator removal are not supported.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpmcArrayQueue
+ * @see SpscArrayQueue
+ */
+/*
+ * 有界无锁环形队列，支持多生产者单消费者（MPSC）
+ *
+ * 生产者通过CAS生产者索引占用槽位，随后使用release语义写入元素；
+ * 消费者独占消费者索引，出队时不需要CAS。
+ * 生产者缓存了可用的索引上限producerLimit，只有超出上限时才回读消费者索引。
+ *
+ * 注：同一时刻只允许一个线程执行出队操作
+ */
+public class MpscArrayQueue<E> extends ArrayRingQueue<E> {
+
+    /** Cached producer index bound; consumerIndex + capacity as last seen */
+    // 生产者可用的索引上限（缓存值）
+    private volatile long producerLimit;
+
+    /**
+     * Creates a queue with at least the given capacity; the actual
+     * capacity is rounded up to a power of two.
+     *
+     * @param capacity the minimum capacity of this queue
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *                                  positive or exceeds {@code 2^30}
+     */
+    public MpscArrayQueue(int capacity) {
+        super(capacity);
+        this.producerLimit = buffer.length;
+    }
+
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity. May be called
+     * concurrently by any number of threads.
+     *
+     * @return {@code true} if the element was added, {@code false} if
+     * this queue is full
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，队满时返回false
+    public boolean offer(E e) {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+
+        long limit = producerLimit;
+
+        for(; ; ) {
+            long p = producerIndex;
+
+            // 缓存的上限已用完，回读消费者索引
+            if(p >= limit) {
+                limit = (long) CONSUMER_INDEX.getAcquire(this) + buffer.length;
+                if(p >= limit) {
+                    return false;
+                }
+                producerLimit = limit;
+            }
+
+            if(PRODUCER_INDEX.compareAndSet(this, p, p + 1)) {
+                // 发布元素，消费者以此判断槽位是否就绪
+                ELEMENT.setRelease(buffer, (int) p & mask, e);
+                return true;
+            }
+        }
+    }
+
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty. Must only be called by the single
+     * consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is
+     * empty
+     */
+    // 出队，队空时返回null（仅限消费者线程调用）
+    public E poll() {
+        long c = consumerIndex;
+        int i = (int) c & mask;
+        E e = elementAt(c);
+
+        if(e == null) {
+            // 队列确实为空
+            if(c == producerIndex) {
+                return null;
+            }
+
+            // 生产者已占用槽位但尚未写入元素，等待其完成
+            while((e = elementAt(c)) == null) {
+                Thread.onSpinWait();
+            }
+        }
+
+        // 先清空槽位，再推进消费者索引，生产者据此判断槽位可复用
+        ELEMENT.setOpaque(buffer, i, null);
+        CONSUMER_INDEX.setRelease(this, c + 1);
+
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty. Must only be called by the
+     * single consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is
+     * empty
+     */
+    // 查看队头元素，队空时返回null（仅限消费者线程调用）
+    public E peek() {
+        long c = consumerIndex;
+        E e = elementAt(c);
+
+        if(e == null && c != producerIndex) {
+            while((e = elementAt(c)) == null) {
+                Thread.onSpinWait();
+            }
+        }
+
+        return e;
+    }
+
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+}
@@ -207,6 +207,31 @@ public class Semaphore implements Serializable {
         sync = fair ? new FairSync(permits) : new NonfairSync(permits);
     }
     
+    /**
+     * Creates a {@code Semaphore} with the given number of
+     * permits and the given fairness and spinning settings.
+     *
+     * <p>With adaptive spinning, a thread that reaches the front of the
+     * wait queue spins for a while before it blocks, for about as long as
+     * permits have recently taken to become available. This avoids the
+     * cost of blocking and unblocking when permits are held briefly. See
+     * {@link java.util.concurrent.locks.AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+     *
+     * @param permits          the initial number of permits available.
+     *                         This value may be negative, in which case
+     *                         releases must occur before any acquires will
+     *                         be granted.
+     * @param fair             {@code true} if this semaphore will guarantee
+     *                         first-in first-out granting of permits under
+     *                         contention, else {@code false}
+     * @param adaptiveSpinning {@code true} if waiting threads should spin
+     *                         adaptively before blocking
+     */
+    public Semaphore(int permits, boolean fair, boolean adaptiveSpinning) {
+        this(permits, fair);
+        sync.adaptiveSpinning(adaptiveSpinning);
+    }
+    
     /*▲ 构造方法 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -598,6 +623,17 @@ public class Semaphore implements Serializable {
         return sync instanceof FairSync;
     }
     
+    /**
+     * Returns {@code true} if waiting threads spin adaptively before
+     * blocking.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     */
+    // 判断是否启用了自适应自旋
+    public boolean isAdaptiveSpinning() {
+        return sync.adaptiveSpinning();
+    }
+    
     /**
      * Queries whether any threads are waiting to acquire. Note that
      * because cancellations may occur at any time, a {@code true}
@@ -723,6 +759,16 @@ public class Semaphore implements Serializable {
             setState(permits);
         }
         
+        // 设置是否启用自适应自旋
+        final void adaptiveSpinning(boolean enabled) {
+            setAdaptiveSpinning(enabled);
+        }
+        
+        // 判断是否启用了自适应自旋
+        final boolean adaptiveSpinning() {
+            return isAdaptiveSpinning();
+        }
+        
         // 允许单个或多个线程多次申请锁（借出许可证）
         final int nonfairTryAcquireShared(int acquires) {
             for(; ; ) {
@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * A bounded, wait-free, single-producer single-consumer queue backed
+ * by a circular array. At most one thread at a time may {@link
+ * #offer}, and at most one (possibly different) thread at a time may
+ * {@link #poll}, {@link #peek} or otherwise remove elements. This
+ * queue orders elements FIFO and does not permit null elements.
+ *
+ * <p>Each side owns its index and publishes it with a release store,
+ * so neither {@code offer} nor {@code poll} performs a CAS or
+ * allocates. Whether a slot is free or filled is decided by the slot
+ * itself, so the producer and the consumer normally never read each
+ * other's index at all.
+ *
+ * <p>Using this queue from more than one producing thread, or from
+ * more than one consuming thread, at a time yields undefined results.
+ * Bulk removal via {@link #remove(Object)} and iterator removal are
+ * not supported.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpmcArrayQueue
+ * @see MpscArrayQueue
+ */
+/*
+ * 有界无等待环形队列，支持单生产者单消费者（SPSC）
+ *
+ * 生产者与消费者各自独占自己的索引，以release语义发布索引，不需要CAS。
+ * 槽位本身是否为null就表示了它是否可写/可读，
+ * 因此生产者与消费者在入队/出队时通常不需要读取对方的索引。
+ *
+ * 注：同一时刻只允许一个线程入队，一个线程出队
+ */
+public class SpscArrayQueue<E> extends ArrayRingQueue<E> {
+
+    /**
+     * Creates a queue with at least the given capacity; the actual
+     * capacity is rounded up to a power of two.
+     *
+     * @param capacity the minimum capacity of this queue
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *                                  positive or exceeds {@code 2^30}
+     */
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so without exceeding the capacity. Must only be
+     * called by the single producer thread.
+     *
+     * @return {@code true} if the element was added, {@code false} if
+     * this queue is full
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，队满时返回false（仅限生产者线程调用）
+    public boolean offer(E e) {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+
+        long p = producerIndex;
+        int i = (int) p & mask;
+
+        // 槽位尚未被消费者清空，队满
+        if(elementAt(p) != null) {
+            return false;
+        }
+
+        ELEMENT.setRelease(buffer, i, e);
+        PRODUCER_INDEX.setRelease(this, p + 1);
+
+        return true;
+    }
+
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty. Must only be called by the single
+     * consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is
+     * empty
+     */
+    // 出队，队空时返回null（仅限消费者线程调用）
+    public E poll() {
+        long c = consumerIndex;
+        E e = elementAt(c);
+
+        // 槽位尚未被生产者填充，队空
+        if(e == null) {
+            return null;
+        }
+
+        ELEMENT.setRelease(buffer, (int) c & mask, null);
+        CONSUMER_INDEX.setRelease(this, c + 1);
+
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or returns
+     * {@code null} if this queue is empty. Must only be called by the
+     * single consumer thread.
+     *
+     * @return the head of this queue, or {@code null} if this queue is
+     * empty
+     */
+    // 查看队头元素，队空时返回null（仅限消费者线程调用）
+    public E peek() {
+        return elementAt(consumerIndex);
+    }
+
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+}
@@ -39,6 +39,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiConsumer;
@@ -196,6 +197,16 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
      */
     static final int INITIAL_CAPACITY = 32;
     
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * The number of nanoseconds a consumer task with spinning enabled
+     * busy-waits for new items before giving up its run status.
+     */
+    // 启用消费者自旋时，消费者任务在消息队列变空后，退出之前自旋等待新消息的时长
+    static final long CONSUMER_SPIN_NANOS = 50_000L;
+    
     // default Executor setup; nearly the same as CompletableFuture
     
     /**
@@ -245,6 +256,9 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
     // 消息队列最大容量
     final int maxBufferCapacity;
     
+    // 消费者在消息队列变空后，是否先自旋等待一会儿再退出
+    final boolean consumerSpinning;
+    
     
     
     /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
@@ -311,6 +325,42 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
      * handler           - 如果消息在消费过程中出现异常，设置handler可以让消费者决定下一步该采取什么操作，包括如何处理异常
      */
     public SubmissionPublisher(Executor executor, int maxBufferCapacity, BiConsumer<? super Subscriber<? super T>, ? super Throwable> handler) {
+        this(executor, maxBufferCapacity, handler, false);
+    }
+    
+    /**
+     * Creates a new SubmissionPublisher using the given Executor for
+     * async delivery to subscribers, with the given maximum buffer size
+     * for each subscriber, the given handler for Subscriber exceptions
+     * in method {@link Flow.Subscriber#onNext(Object) onNext}, and the
+     * given consumer spinning mode.
+     *
+     * <p>Each subscriber is served by a consumer task that runs while
+     * items are available and exits when its buffer becomes empty; the
+     * next item then starts a new task. When {@code consumerSpinning} is
+     * {@code true}, a consumer task that finds its buffer empty first
+     * busy-waits for a few tens of microseconds for new items before
+     * exiting. This avoids a task hand-off per burst when items are
+     * published at a high rate, at the cost of some CPU time. Spinning
+     * is never used on a uniprocessor.
+     *
+     * @param executor          the executor to use for async delivery,
+     *                          supporting creation of at least one independent thread
+     * @param maxBufferCapacity the maximum capacity for each
+     *                          subscriber's buffer
+     * @param handler           if non-null, procedure to invoke upon exception
+     *                          thrown in method {@code onNext}
+     * @param consumerSpinning  {@code true} if consumer tasks should
+     *                          spin for new items before exiting
+     *
+     * @throws NullPointerException     if executor is null
+     * @throws IllegalArgumentException if maxBufferCapacity not
+     *                                  positive
+     */
+    /**
+     * consumerSpinning - 消费者在消息队列变空后，是否先自旋等待一会儿再退出（单核机器上不会自旋）
+     */
+    public SubmissionPublisher(Executor executor, int maxBufferCapacity, BiConsumer<? super Subscriber<? super T>, ? super Throwable> handler, boolean consumerSpinning) {
         if(executor == null) {
             throw new NullPointerException();
         }
@@ -325,6 +375,8 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         
         // 适当扩大maxBufferCapacity（扩大倍数不超过2）
         this.maxBufferCapacity = roundCapacity(maxBufferCapacity);
+        
+        this.consumerSpinning = consumerSpinning;
     }
     
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
@@ -367,8 +419,17 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         // 中介内部的消息队列（按最大容量分配）
         Object[] array = new Object[max<INITIAL_CAPACITY ? max : INITIAL_CAPACITY];
         
+        // 批量消费者每次最多接收的消息数量，普通消费者为0
+        int batch = 0;
+        if(subscriber instanceof BatchSubscriber) {
+            batch = Math.max(1, ((BatchSubscriber<?>) subscriber).maxBatchSize());
+        }
+        
+        // 消费者在消息队列变空后自旋等待的时长
+        long spinNanos = (consumerSpinning && NCPU>1) ? CONSUMER_SPIN_NANOS : 0L;
+        
         // 这里将消息队列的初始容量设置的跟最大容量一样大
-        BufferedSubscription<T> subscription = new BufferedSubscription<T>(subscriber, executor, onNextHandler, array, max);
+        BufferedSubscription<T> subscription = new BufferedSubscription<T>(subscriber, executor, onNextHandler, array, max, batch, spinNanos);
         
         synchronized(this) {
             // 如果是首次注册消费者
@@ -735,6 +796,9 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
             if(stat == 0) {
                 lag = (lag >= 0) ? -1 : lag - 1;
                 
+                // 记录该中介丢弃的消息数量
+                ++r.dropped;
+                
                 // 中介已关闭，稍后需要清理
             } else if(stat<0) {
                 cleanMe = true;
@@ -1072,6 +1136,87 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         return max;
     }
     
+    /**
+     * Returns an estimate of the number of items produced but not yet
+     * consumed by the given subscriber.
+     *
+     * @param subscriber the subscriber
+     *
+     * @return the estimate, or {@code -1} if the subscriber is not
+     * currently subscribed
+     *
+     * @throws NullPointerException if subscriber is null
+     */
+    // 返回指定消费者积压的消息数量(估计值)，如果该消费者未注册，则返回-1
+    public int estimateLag(Subscriber<? super T> subscriber) {
+        synchronized(this) {
+            BufferedSubscription<T> b = findSubscription(subscriber);
+            return (b == null) ? -1 : b.estimateLag();
+        }
+    }
+    
+    /**
+     * Returns the number of items that were not delivered to the given
+     * subscriber because its buffer was saturated, including items
+     * dropped by an {@code offer} method after its {@code onDrop}
+     * handler declined or failed to retry.
+     *
+     * @param subscriber the subscriber
+     *
+     * @return the number of dropped items, or {@code -1} if the
+     * subscriber is not currently subscribed
+     *
+     * @throws NullPointerException if subscriber is null
+     */
+    // 返回因消息队列已满而没有推送给指定消费者的消息数量，如果该消费者未注册，则返回-1
+    public long getDroppedCount(Subscriber<? super T> subscriber) {
+        synchronized(this) {
+            BufferedSubscription<T> b = findSubscription(subscriber);
+            return (b == null) ? -1L : b.dropped;
+        }
+    }
+    
+    /**
+     * Returns the current capacity of the given subscriber's buffer.
+     * Buffers start small, grow up to {@link #getMaxBufferCapacity}
+     * when the subscriber lags behind, and shrink again after a period
+     * in which they are mostly empty.
+     *
+     * @param subscriber the subscriber
+     *
+     * @return the current buffer capacity, or {@code -1} if the
+     * subscriber is not currently subscribed
+     *
+     * @throws NullPointerException if subscriber is null
+     */
+    // 返回指定消费者当前的消息队列容量，如果该消费者未注册，则返回-1
+    public int getBufferCapacity(Subscriber<? super T> subscriber) {
+        synchronized(this) {
+            BufferedSubscription<T> b = findSubscription(subscriber);
+            Object[] a;
+            return (b == null) ? -1 : ((a = b.array) == null) ? 0 : a.length;
+        }
+    }
+    
+    /**
+     * Returns the open subscription of the given subscriber, or null if none.
+     * Call only while holding lock.
+     */
+    // 查找指定消费者所在的未关闭的中介
+    private BufferedSubscription<T> findSubscription(Subscriber<? super T> subscriber) {
+        if(subscriber == null) {
+            throw new NullPointerException();
+        }
+        
+        for(BufferedSubscription<T> b = clients; b != null; b = b.next) {
+            if(!b.isClosed() && subscriber.equals(b.subscriber)) {
+                return b;
+            }
+        }
+        
+        return null;
+    }
+    
     /**
      * Processes all published items using the given Consumer function.
      * Returns a CompletableFuture that is completed normally when this
@@ -1124,6 +1269,56 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         return (n<=0) ? 1 : (n >= BUFFER_CAPACITY_LIMIT) ? BUFFER_CAPACITY_LIMIT : n + 1;
     }
     
+    /**
+     * A {@link Flow.Subscriber} that receives items in batches. When
+     * subscribed to a SubmissionPublisher, the items available in its
+     * buffer, up to the requested demand and {@link #maxBatchSize}, are
+     * handed over in a single call to {@link #onNextBatch}, instead of
+     * one {@link #onNext} call each. This amortizes the per-item
+     * delivery overhead for high rates of small items. Each item in a
+     * batch counts as one unit of demand, as for {@code onNext}.
+     *
+     * <p>Other publishers see an ordinary Subscriber whose {@code
+     * onNext} method delivers a batch of one item.
+     *
+     * @param <T> the subscribed item type
+     *
+     * @since 11
+     */
+    // 批量消费者：注册到SubmissionPublisher后，消费者一次性接收消息队列中现有的多条消息（不超过消费请求与maxBatchSize()）
+    public interface BatchSubscriber<T> extends Subscriber<T> {
+        
+        /**
+         * Method invoked with the next batch of items, in the order they
+         * were published.
+         *
+         * @param items the items, a non-empty unmodifiable list
+         */
+        // 消费者开始消费一批消息
+        void onNextBatch(List<T> items);
+        
+        /**
+         * Returns the maximum number of items delivered in one batch.
+         * The default implementation returns 256.
+         *
+         * @return the maximum batch size, treated as 1 if not positive
+         */
+        // 每批最多接收的消息数量
+        default int maxBatchSize() {
+            return 256;
+        }
+        
+        /**
+         * {@inheritDoc}
+         *
+         * @implSpec The default implementation invokes {@link #onNextBatch}
+         * with a list containing only the given item.
+         */
+        default void onNext(T item) {
+            onNextBatch(List.of(item));
+        }
+    }
+    
     
     
     
@@ -1258,6 +1453,19 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         // 生产者向中介推送消息时，如果中介的消息队列满了或因为其他意外而无法存储消息，则将这些中介统一记录，并串联起来，nextRetry指向链条上的下一个中介
         BufferedSubscription<T> nextRetry; // used only by publisher
         
+        // 因消息队列已满而丢弃的消息数量
+        long dropped;                      // used only by publisher
+        
+        // 最近一个统计周期内消息队列长度的峰值，以及该周期内推送的消息数量，用于判断是否需要缩小消息队列
+        int peakLag;                       // used only by producer
+        int offers;                        // used only by producer
+        
+        // 批量消费者每批最多接收的消息数量，普通消费者为0
+        final int maxBatch;                // 0 if not a BatchSubscriber
+        
+        // 消息队列变空后，消费者退出之前自旋等待新消息的时长
+        final long spinNanos;              // 0 if not spinning
+        
         
         // VarHandle mechanics
         static final VarHandle CTL;
@@ -1284,13 +1492,17 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
         
         /**
          * maxBufferCapacity 消息队列最大容量
+         * maxBatch          批量消费者每批最多接收的消息数量，普通消费者为0
+         * spinNanos         消息队列变空后，消费者退出之前自旋等待新消息的时长
          */
-        BufferedSubscription(Subscriber<? super T> subscriber, Executor executor, BiConsumer<? super Subscriber<? super T>, ? super Throwable> onNextHandler, Object[] array, int maxBufferCapacity) {
+        BufferedSubscription(Subscriber<? super T> subscriber, Executor executor, BiConsumer<? super Subscriber<? super T>, ? super Throwable> onNextHandler, Object[] array, int maxBufferCapacity, int maxBatch, long spinNanos) {
             this.subscriber = subscriber;
             this.executor = executor;
             this.onNextHandler = onNextHandler;
             this.array = array;
             this.maxCapacity = maxBufferCapacity;
+            this.maxBatch = maxBatch;
+            this.spinNanos = spinNanos;
         }
         
         /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
@@ -1390,6 +1602,15 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
                 if(added) {
                     tail = t + 1;
                     stat = n;
+                    
+                    if(n>peakLag) {
+                        peakLag = n;
+                    }
+                    
+                    // 每推送4倍容量的消息，检查一次消息队列是否过大
+                    if(++offers >= cap << 2) {
+                        shrinkIfIdle(array, t + 1);
+                    }
                 }
             }
             
@@ -1438,9 +1659,62 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
             
             VarHandle.releaseFence();         // release array and slots
             
+            // 开始新的统计周期
+            peakLag = offers = 0;
+            
             return true;
         }
         
+        /**
+         * Shrinks buffer if it held few items during the last period of
+         * offers. Called only by producer, after an offer, with the array
+         * and tail it used. Items are moved in the same way as in
+         * growAndOffer, so a racing consumer either takes an item from
+         * the old array or finds it moved.
+         */
+        // 如果上一个统计周期内消息队列的峰值长度不足容量的1/4，则缩小消息队列（缩小后至少为峰值的2倍）
+        final void shrinkIfIdle(Object[] a, int t) {
+            int p = peakLag, cap, newCap;
+            
+            // 开始新的统计周期
+            peakLag = offers = 0;
+            
+            if(a == null || (cap = a.length)<=INITIAL_CAPACITY || p >= (cap >>> 2)) {
+                return;
+            }
+            
+            newCap = Math.max(INITIAL_CAPACITY, roundCapacity(p << 1));
+            
+            // head可能是旧值，此时估计的消息数量只会偏大
+            if(newCap >= cap || t - head >= (newCap >>> 1)) {
+                return;
+            }
+            
+            Object[] newArray;
+            try {
+                newArray = new Object[newCap];
+            } catch(OutOfMemoryError ex) {
+                return;
+            }
+            
+            // 从后往前将消息从旧队列复制到新队列，遇到已被消费的位置时停止
+            int newMask = newCap - 1;
+            for(int mask = cap - 1, k = mask; k >= 0; --k) {
+                Object x = QA.getAndSet(a, --t & mask, null);
+                
+                // already consumed
+                if(x == null) {
+                    break;
+                }
+                
+                newArray[t & newMask] = x;
+            }
+            
+            array = newArray;
+            
+            VarHandle.releaseFence();         // release array and slots
+        }
+        
         /**
          * Version of offer for retries (no resize or bias)
          */
@@ -1553,6 +1827,11 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
                      * 2.消息队列不为null，但消费者没有再申请消费消息
                      */
                     if(empty || d == 0L) {
+                        // 消息队列为空，但消费者仍有消费请求时，先自旋等待一会儿，期间有新消息到达的话，继续消费
+                        if(empty && d != 0L && (c & ACTIVE) != 0 && spinNanos != 0L && awaitItems(c, h)) {
+                            continue;
+                        }
+                        
                         int bit = ((c & ACTIVE) != 0) ? ACTIVE : RUN;
                         
                         /*
@@ -1567,6 +1846,28 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
             }
         }
         
+        /**
+         * Spins for at most spinNanos until the slot at head is filled
+         * or ctl changes. Returns true if so.
+         */
+        // 自旋等待，直到head处出现了新消息，或者中介状态发生了变化（比如被关闭），超时后返回false
+        final boolean awaitItems(int c, int h) {
+            long deadline = System.nanoTime() + spinNanos;
+            
+            do {
+                Object[] a = array;
+                int cap;
+                
+                if(a == null || (cap = a.length) == 0 || QA.getAcquire(a, h & (cap - 1)) != null || ctl != c) {
+                    return true;
+                }
+                
+                Thread.onSpinWait();
+            } while(System.nanoTime() - deadline<0L);
+            
+            return false;
+        }
+        
         /**
          * Issues subscriber.onSubscribe if this is first signal.
          */
@@ -1619,6 +1920,11 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
          * 返回本次消费的消息数量
          */
         final int takeItems(Subscriber<? super T> s, long d, int h) {
+            // 批量消费者
+            if(maxBatch != 0) {
+                return takeBatch(s, d, h);
+            }
+            
             Object[] a;
             
             int k = 0, cap;
@@ -1653,6 +1959,67 @@ public class SubmissionPublisher<T> implements Publisher<T>, AutoCloseable {
             return k;
         }
         
+        /**
+         * Version of takeItems for BatchSubscribers: takes the available
+         * items, up to demand and maxBatch, and delivers them in one call.
+         */
+        // 根据消费者的请求，取出消息队列中现有的消息（不超过maxBatch），一次性交给批量消费者
+        final int takeBatch(Subscriber<? super T> s, long d, int h) {
+            Object[] a;
+            
+            int k = 0, cap, n;
+            
+            // 估计现有的消息数量（tail可能是旧值，此时只会偏小）
+            if(d>0L && (a = array) != null && (cap = a.length)>0 && (n = tail - h)>0) {
+                if(n>maxBatch) {
+                    n = maxBatch;
+                }
+                
+                if(d<(long) n) {
+                    n = (int) d;
+                }
+                
+                Object[] items = new Object[n];
+                
+                for(int m = cap - 1; k<n; ++h, ++k) {
+                    Object x = QA.getAndSet(a, h & m, null);
+                    
+                    // 如果还没有待消费消息（或者消息已被挪到新队列），退出循环
+                    if(x == null) {
+                        break;
+                    }
+                    
+                    items[k] = x;
+                }
+                
+                // 如果中介处于阻塞状态，解除对中介的阻塞（随后生产者可以继续推送消息）
+                if(waiting != 0) {
+                    signalWaiter();
+                }
+                
+                if(k>0) {
+                    consumeBatch(s, (k == n) ? items : Arrays.copyOf(items, k));
+                }
+            }
+            
+            return k;
+        }
+        
+        // ★★★ 调用批量消费者的onNextBatch()，由消费者s消费一批消息
+        final void consumeBatch(Subscriber<? super T> s, Object[] items) {
+            try {
+                @SuppressWarnings("unchecked")
+                BatchSubscriber<Object> bs = (BatchSubscriber<Object>) (Subscriber<?>) s;
+                
+                if(bs != null) {
+                    bs.onNextBatch(Collections.unmodifiableList(Arrays.asList(items)));
+                }
+            } catch(Throwable ex) {
+                // 消费者在消费消息的过程中发生了异常，则需要将控制权移交给消费者以决定如何处理异常
+                handleOnNext(s, ex);
+            }
+        }
+        
         // ★★★ 调用消费者的onNext()，由消费者s消费消息x
         final boolean consumeNext(Subscriber<? super T> s, Object x) {
             try {
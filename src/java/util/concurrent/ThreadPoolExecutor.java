@@ -36,7 +36,10 @@
 package java.util.concurrent;
 
 import java.util.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -152,7 +155,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * </ul>
  * <p>
- * There are three general strategies for queuing:
+ * There are four general strategies for queuing:
  * <ol>
  *
  * <li><em> Direct handoffs.</em> A good default choice for a work
@@ -192,6 +195,14 @@ import java.util.concurrent.locks.ReentrantLock;
  * may encounter unacceptable scheduling overhead, which also
  * decreases throughput.
  *
+ * <li><em>Work-stealing queues.</em> With many workers running short
+ * tasks, all of them contend on the single lock of a shared queue.
+ * A {@link WorkStealingBlockingQueue} (bounded or not) gives each
+ * worker its own local deque and lets idle workers steal from the
+ * others, at the cost of giving up overall FIFO ordering. Pool
+ * sizing and rejection behave as with the corresponding linked or
+ * array based queue.
+ *
  * </ol>
  *
  * </dd>
@@ -465,10 +476,23 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private final Condition termination = mainLock.newCondition();
 
     /**
-     * Set containing all worker threads in pool. Accessed only when holding mainLock.
+     * Set containing all worker threads in pool. Accessed only when
+     * holding mainLock, unless the pool was constructed with striped
+     * bookkeeping, in which case it is a concurrent set that is
+     * updated without mainLock when workers start and exit.
      * 线程池，存储【 核心Worker】与【非核心Worker】
+     * 默认模式下为HashSet，由mainLock保护；分段记账模式下为ConcurrentHashMap的KeySet，增删Worker时无需加锁
+     */
+    private final Set<Worker> workerPool;
+
+    /**
+     * True if worker registration and statistics are maintained
+     * without mainLock. See the constructor taking a
+     * {@code stripedBookkeeping} argument.
+     *
+     * 是否启用了【分段记账】模式：Worker的增删与统计信息的更新不再争用mainLock
      */
-    private final HashSet<Worker> workerPool = new HashSet<>();
+    private final boolean stripedBookkeeping;
 
     /**
      * The queue used for holding tasks and handing off to worker
@@ -558,6 +582,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
 
     /**
      * Tracks largest attained poize. Accessed onol sly under mainLock.
+     * In striped mode it is instead updated by CAS (see LARGEST_POOL_SIZE).
      * 记录线程池中Worker数量达到的最大值
      */
     private int largestPoolSize;
@@ -569,6 +594,14 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private long completedTaskCount;
 
+    /**
+     * Striped counter for completed tasks of exited workers, used
+     * instead of completedTaskCount in striped mode; null otherwise.
+     *
+     * 分段记账模式下使用的累计任务计数器，替代completedTaskCount
+     */
+    private final LongAdder completedTaskCounter;
+
     /**
      * The default rejected execution handler.
      *
@@ -599,6 +632,18 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private static final RuntimePermission shutdownPerm = new RuntimePermission("modifyThread");
 
+    // VarHandle mechanics
+    private static final VarHandle LARGEST_POOL_SIZE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            LARGEST_POOL_SIZE = l.findVarHandle(ThreadPoolExecutor.class, "largestPoolSize", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
 
 
     /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
@@ -750,6 +795,61 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                               BlockingQueue<Runnable> workQueue,
                               ThreadFactory threadFactory,
                               RejectedExecutionHandler handler) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler, false);
+    }
+
+    /**
+     * Creates a new {@code ThreadPoolExecutor} with the given initial
+     * parameters, optionally using striped worker bookkeeping.
+     *
+     * <p>By default the set of workers and the pool statistics are
+     * guarded by a single lock that is also acquired whenever a
+     * worker starts or exits. With {@code stripedBookkeeping} set,
+     * workers are registered in a concurrent set and the statistics
+     * reported by {@link #getCompletedTaskCount}, {@link
+     * #getLargestPoolSize}, {@link #getPoolSize}, {@link
+     * #getActiveCount} and {@link #getTaskCount} are maintained
+     * without that lock, so that worker churn and metrics reads scale
+     * with the number of processors. Shutdown and termination
+     * behave as usual. The statistics remain approximations; in
+     * this mode a worker that is exiting concurrently with a call
+     * may transiently be counted twice or not at all.
+     *
+     * @param corePoolSize    the number of threads to keep in the pool, even
+     *                        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *                        pool
+     * @param keepAliveTime   when the number of threads is greater than
+     *                        the core, this is the maximum time that excess idle threads
+     *                        will wait for new tasks before terminating.
+     * @param unit            the time unit for the {@code keepAliveTime} argument
+     * @param workQueue       the queue to use for holding tasks before they are
+     *                        executed.  This queue will hold only the {@code Runnable}
+     *                        tasks submitted by the {@code execute} method.
+     * @param threadFactory   the factory to use when the executor
+     *                        creates a new thread
+     * @param handler         the handler to use when execution is blocked
+     *                        because the thread bounds and queue capacities are reached
+     * @param stripedBookkeeping if {@code true}, maintain the worker set
+     *                        and statistics without the pool's main lock
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *                                  {@code corePoolSize < 0}<br>
+     *                                  {@code keepAliveTime < 0}<br>
+     *                                  {@code maximumPoolSize <= 0}<br>
+     *                                  {@code maximumPoolSize < corePoolSize}
+     * @throws NullPointerException     if {@code workQueue}
+     *                                  or {@code threadFactory} or {@code handler} is null
+     * @since 11
+     */
+    // stripedBookkeeping：是否启用【分段记账】模式
+    public ThreadPoolExecutor(int corePoolSize,
+                              int maximumPoolSize,
+                              long keepAliveTime,
+                              TimeUnit unit,
+                              BlockingQueue<Runnable> workQueue,
+                              ThreadFactory threadFactory,
+                              RejectedExecutionHandler handler,
+                              boolean stripedBookkeeping) {
         if (corePoolSize < 0 ||
                 maximumPoolSize <= 0 ||
                 maximumPoolSize < corePoolSize ||
@@ -767,6 +867,15 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         this.keepAliveTime = unit.toNanos(keepAliveTime);
         this.threadFactory = threadFactory;
         this.handler = handler;
+        this.stripedBookkeeping = stripedBookkeeping;
+
+        if (stripedBookkeeping) {
+            this.workerPool = ConcurrentHashMap.newKeySet();
+            this.completedTaskCounter = new LongAdder();
+        } else {
+            this.workerPool = new HashSet<>();
+            this.completedTaskCounter = null;
+        }
     }
 
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
@@ -1037,7 +1146,15 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             // 获取线程域
             final Thread workerThread = worker.workerThread;
 
-            if (workerThread != null) {
+            if (workerThread != null && stripedBookkeeping) {
+                // 分段记账模式下，无需加锁即可完成Worker的注册
+                workerAdded = addWorkerStriped(worker, firstTask);
+
+                if (workerAdded) {
+                    workerThread.start();
+                    workerStarted = true;
+                }
+            } else if (workerThread != null) {
                 mainLock.lock();
 
                 try {
@@ -1096,6 +1213,53 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         return workerStarted;
     }
 
+    /**
+     * Registers the given worker without holding mainLock. The worker
+     * is published in the concurrent set before the run state is
+     * rechecked, so that a concurrent shutdown either observes it
+     * when interrupting workers or is itself observed here, in which
+     * case the worker is withdrawn again.
+     *
+     * @return true if the worker was added
+     */
+    // 分段记账模式下注册Worker：先加入线程池，再复查线程池状态，必要时撤回
+    private boolean addWorkerStriped(Worker worker, Runnable firstTask) {
+        // 检查线程是否已经启动
+        if (worker.workerThread.isAlive()) {
+            throw new IllegalThreadStateException();
+        }
+
+        // 添加新的Worker到线程池
+        workerPool.add(worker);
+
+        int state = ctl.get();
+
+        // {-1} 如果线程池仍处于【运行】状态，或者，{0} 线程池处于【关闭】状态且正在添加【N】型Worker
+        if (isRunning(state) || (runStateLessThan(state, STOP) && firstTask == null)) {
+            // 更新线程池中Worker数量达到的最大值
+            updateLargestPoolSize(workerCountOf(state));
+            return true;
+        }
+
+        // 线程池状态已变，撤回该Worker（后续由addWorkerFailed完成计数回滚）
+        workerPool.remove(worker);
+
+        return false;
+    }
+
+    /**
+     * Raises largestPoolSize to at least the given size, by CAS
+     * (only used in striped mode).
+     */
+    // 原子地更新线程池中Worker数量达到的最大值
+    private void updateLargestPoolSize(int size) {
+        for (int s; size > (s = (int) LARGEST_POOL_SIZE.getVolatile(this)); ) {
+            if (LARGEST_POOL_SIZE.compareAndSet(this, s, size)) {
+                break;
+            }
+        }
+    }
+
     /**
      * Rolls back the worker thread creation.
      * - removes worker from workers, if present
@@ -1105,6 +1269,16 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // Worker启动失败后，需要移除该Worker，并尝试让线程池进入【终止】状态
     private void addWorkerFailed(Worker w) {
+        // 分段记账模式下，无需加锁（tryTerminate()在必要时会自行加锁）
+        if (stripedBookkeeping) {
+            if (w != null) {
+                workerPool.remove(w);
+            }
+            decrementWorkerCount();
+            tryTerminate();
+            return;
+        }
+
         mainLock.lock();
         try {
             if (w != null) {
@@ -1442,14 +1616,20 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             decrementWorkerCount();
         }
 
-        mainLock.lock();
-        try {
-            // 记录线程池累计执行的任务数量
-            completedTaskCount += worker.completedTasks;
-            // 从线程池中移除该Worker
+        if (stripedBookkeeping) {
+            // 分段记账模式下，记录累计执行的任务数量，并移除该Worker，均无需加锁
+            completedTaskCounter.add(worker.completedTasks);
             workerPool.remove(worker);
-        } finally {
-            mainLock.unlock();
+        } else {
+            mainLock.lock();
+            try {
+                // 记录线程池累计执行的任务数量
+                completedTaskCount += worker.completedTasks;
+                // 从线程池中移除该Worker
+                workerPool.remove(worker);
+            } finally {
+                mainLock.unlock();
+            }
         }
 
         // 尝试让线程池进入【终止】状态
@@ -2329,6 +2509,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // 获取线程池中当前的Worker数量，如果已处于【完结】或【终止】状态，直接返回0
     public int getPoolSize() {
+        if (stripedBookkeeping) {
+            return runStateAtLeast(ctl.get(), TIDYING) ? 0 : workerPool.size();
+        }
+
         mainLock.lock();
         try {
             // Remove rare and surprising possibility of isTerminated() && getPoolSize() > 0
@@ -2346,6 +2530,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // 线程池中Worker数量达到的最大值
     public int getLargestPoolSize() {
+        if (stripedBookkeeping) {
+            return (int) LARGEST_POOL_SIZE.getVolatile(this);
+        }
+
         mainLock.lock();
         try {
             return largestPoolSize;
@@ -2362,22 +2550,31 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // 获取线程池中当前【执行】的Worker数量
     public int getActiveCount() {
+        if (stripedBookkeeping) {
+            return countActiveWorkers();
+        }
+
         mainLock.lock();
         try {
-            int n = 0;
-            // 遍历Worker
-            for (Worker w : workerPool) {
-                // 如果Worker已上锁（正在执行）
-                if (w.isLocked()) {
-                    ++n;    // 累加
-                }
-            }
-            return n;
+            return countActiveWorkers();
         } finally {
             mainLock.unlock();
         }
     }
 
+    // 统计正在执行任务的Worker数量
+    private int countActiveWorkers() {
+        int n = 0;
+        // 遍历Worker
+        for (Worker w : workerPool) {
+            // 如果Worker已上锁（正在执行）
+            if (w.isLocked()) {
+                ++n;    // 累加
+            }
+        }
+        return n;
+    }
+
     /**
      * Returns the approximate total number of tasks that have ever been
      * scheduled for execution. Because the states of tasks and
@@ -2388,27 +2585,35 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // 获取线程池执行过的所有Worker数量（包括此刻正在执行的任务数量和在可预计的将来会执行的任务数量）
     public long getTaskCount() {
+        if (stripedBookkeeping) {
+            return sumTaskCount() + workQueue.size();
+        }
+
         mainLock.lock();
         try {
-            // 线程池累计执行的任务数量
-            long n = completedTaskCount;
-            // 遍历Worker
-            for (Worker w : workerPool) {
-                // 累加当前Worker执行的任务数
-                n += w.completedTasks;
-                // 如果Worker已上锁（正在执行）
-                if (w.isLocked()) {
-                    ++n;    // 累加
-                }
-            }
-
             // 加上当前阻塞队列中的任务数量（后续会被执行）
-            return n + workQueue.size();
+            return sumTaskCount() + workQueue.size();
         } finally {
             mainLock.unlock();
         }
     }
 
+    // 统计已执行完以及正在执行的任务数量
+    private long sumTaskCount() {
+        // 线程池累计执行的任务数量
+        long n = exitedCompletedTaskCount();
+        // 遍历Worker
+        for (Worker w : workerPool) {
+            // 累加当前Worker执行的任务数
+            n += w.completedTasks;
+            // 如果Worker已上锁（正在执行）
+            if (w.isLocked()) {
+                ++n;    // 累加
+            }
+        }
+        return n;
+    }
+
     /**
      * Returns the approximate total number of tasks that have
      * completed execution. Because the states of tasks and threads
@@ -2420,21 +2625,35 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     // 获取线程池执行完毕的所有Worker数量（只包括当前确定执行完的）
     public long getCompletedTaskCount() {
+        if (stripedBookkeeping) {
+            return sumCompletedTaskCount();
+        }
+
         mainLock.lock();
         try {
-            // 线程池累计执行的任务数量
-            long n = completedTaskCount;
-            // 遍历Worker
-            for (Worker w : workerPool) {
-                // 累加当前Worker执行的任务数
-                n += w.completedTasks;
-            }
-            return n;
+            return sumCompletedTaskCount();
         } finally {
             mainLock.unlock();
         }
     }
 
+    // 统计已执行完的任务数量
+    private long sumCompletedTaskCount() {
+        // 线程池累计执行的任务数量
+        long n = exitedCompletedTaskCount();
+        // 遍历Worker
+        for (Worker w : workerPool) {
+            // 累加当前Worker执行的任务数
+            n += w.completedTasks;
+        }
+        return n;
+    }
+
+    // 已退出的Worker累计执行的任务数量
+    private long exitedCompletedTaskCount() {
+        return stripedBookkeeping ? completedTaskCounter.sum() : completedTaskCount;
+    }
+
     /*▲ 统计 ████████████████████████████████████████████████████████████████████████████████┛ */
 
 
@@ -2599,10 +2818,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         long ncompleted;
         int nworkers, nactive;
 
-        mainLock.lock();
+        if (!stripedBookkeeping) {
+            mainLock.lock();
+        }
 
         try {
-            ncompleted = completedTaskCount;
+            ncompleted = exitedCompletedTaskCount();
             nactive = 0;
             nworkers = workerPool.size();
             for (Worker w : workerPool) {
@@ -2612,7 +2833,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 }
             }
         } finally {
-            mainLock.unlock();
+            if (!stripedBookkeeping) {
+                mainLock.unlock();
+            }
         }
 
         int c = ctl.get();
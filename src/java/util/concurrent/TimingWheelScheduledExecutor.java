@@ -0,0 +1,797 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical hashed timing wheel instead of a heap.
+ *
+ * <p>A {@link ScheduledThreadPoolExecutor} keeps its delayed tasks in a
+ * binary heap guarded by a single lock, so scheduling and cancelling
+ * costs O(log n) under that lock, and cancelling with {@link
+ * ScheduledThreadPoolExecutor#setRemoveOnCancelPolicy remove-on-cancel}
+ * costs O(n). This class is meant for workloads that schedule and
+ * mostly cancel very large numbers of short timeouts, such as request
+ * deadlines and retries. Scheduling and cancellation only append the
+ * task to a lock-free queue, and a single ticker thread moves tasks
+ * into and out of the wheel in O(1) per task.
+ *
+ * <p>Time is divided into ticks of a fixed resolution chosen at
+ * construction. A task becomes eligible to run at the first tick
+ * boundary at or after its trigger time, so tasks may run up to one
+ * tick late, and tasks due in the same tick are not ordered. Due
+ * tasks are run by a fixed pool of {@code corePoolSize} threads.
+ *
+ * <p>Apart from this coarser timing, the class follows the default
+ * policies of {@link ScheduledThreadPoolExecutor} and can be used in
+ * its place: after {@link #shutdown} periodic tasks are cancelled,
+ * delayed one-shot tasks still run, and new tasks are rejected with
+ * {@link RejectedExecutionException}. Cancelled tasks are always
+ * removed from the wheel. Tasks submitted with zero delay through
+ * {@code execute} or {@code submit} bypass the wheel.
+ *
+ * @since 11
+ */
+/*
+ * 基于【分层时间轮】的定时任务线程池
+ *
+ * ScheduledThreadPoolExecutor使用小顶堆（DelayedWorkQueue）存储定时任务，增删任务都需要在同一把锁下花费O(log n)的时间；
+ * 这里改用分层时间轮存储定时任务，增删任务只需将任务放入无锁队列，由【时钟线程】统一以O(1)的代价挂入/摘出时间轮。
+ *
+ * 时间轮共LEVELS层，每层WHEEL_SIZE个槽位：
+ * 第0层每个槽位跨越1个刻度(tick)，第1层每个槽位跨越WHEEL_SIZE个刻度，依此类推。
+ * 低层时间轮转完一圈时，将高层时间轮中对应槽位的任务【降级】到低层时间轮中。
+ *
+ * 注：任务最多会延后一个刻度才被执行，同一刻度内到期的任务之间无先后顺序
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    /*
+     * The wheel is the classic hierarchical scheme used by operating
+     * system timer lists: LEVELS wheels of WHEEL_SIZE buckets, where a
+     * bucket at level L covers WHEEL_SIZE^L ticks. A task expiring at
+     * tick e, seen from the next unprocessed tick "currentTick", goes
+     * to the lowest level L with e - currentTick < WHEEL_SIZE^(L+1),
+     * in bucket (e >>> L * WHEEL_BITS) & WHEEL_MASK. Whenever the
+     * level L-1 index wraps to zero, the corresponding level L bucket
+     * is redistributed ("cascaded") into lower levels before the
+     * level 0 bucket for the tick is expired.
+     *
+     * The buckets are intrusive doubly-linked lists through the tasks
+     * themselves and are only touched by the ticker thread while
+     * holding wheelLock, which is otherwise only taken by
+     * shutdownNow. Other threads hand tasks to the ticker through two
+     * lock-free queues, one for tasks to (re)schedule and one for
+     * cancelled tasks to unlink.
+     *
+     * When the wheel and the inbox are empty the ticker parks until
+     * the next schedule, and on waking jumps its tick forward instead
+     * of walking through the idle ticks.
+     */
+
+    /** Number of bits of tick index resolved by each wheel level */
+    private static final int WHEEL_BITS = 6;
+
+    /** Number of buckets per wheel level */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** Number of levels, enough to cover any non-negative long tick */
+    private static final int LEVELS = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    /** Largest accepted delay, so that trigger times never overflow */
+    private static final long MAX_DELAY = Long.MAX_VALUE >> 1;
+
+    // 运行状态
+    private static final int RUNNING = 0;       // 【运行】
+    private static final int SHUTDOWN = 1;      // 【关闭】：不再接收新任务，已有的一次性定时任务继续执行
+    private static final int STOP = 2;          // 【停止】：不再接收新任务，丢弃所有定时任务
+    private static final int TERMINATED = 3;    // 【终止】：时钟线程已退出
+
+    /** Tick resolution in nanoseconds */
+    // 时间轮刻度（纳秒）
+    private final long tickNanos;
+
+    /** nanoTime origin of tick 0 */
+    // 时间轮的起始时间，即第0个刻度所在时刻
+    private final long startNanos;
+
+    /** Runs due tasks */
+    // 执行到期任务的线程池
+    private final ThreadPoolExecutor runner;
+
+    /** Thread advancing the wheel */
+    // 时钟线程，负责转动时间轮
+    private final Thread ticker;
+
+    /** Tasks to add to the wheel */
+    // 等待挂入时间轮的任务
+    private final ConcurrentLinkedQueue<WheelTask<?>> inbox = new ConcurrentLinkedQueue<>();
+
+    /** Cancelled tasks to unlink from the wheel */
+    // 等待从时间轮中摘除的已中止任务
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+    /** Guards buckets, currentTick, pending and periodicCancelled */
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    /** Bucket heads, LEVELS * WHEEL_SIZE */
+    // 时间轮槽位，每个槽位是一个双向链表
+    private final WheelTask<?>[] buckets = new WheelTask<?>[LEVELS * WHEEL_SIZE];
+
+    /** Next tick to be processed */
+    // 下一个待处理的刻度
+    private long currentTick;
+
+    /** Number of tasks linked into buckets */
+    // 时间轮中的任务数量
+    private int pending;
+
+    /** True once the periodic tasks in the wheel have been cancelled */
+    // 【关闭】后，时间轮中的重复性任务是否已被中止（只需中止一次，之后由drainInbox中止新挂入的重复性任务）
+    private boolean periodicCancelled;
+
+    private volatile int runState;
+
+    /** True while the ticker is parked without a timeout */
+    // 时钟线程是否处于无限期休眠中
+    private volatile boolean idle;
+
+    /** Counted down when the ticker exits */
+    private final CountDownLatch termination = new CountDownLatch(1);
+
+    // VarHandle mechanics
+    private static final VarHandle RUN_STATE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            RUN_STATE = l.findVarHandle(TimingWheelScheduledExecutor.class, "runState", int.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * core pool size, tick resolution and the
+     * {@linkplain Executors#defaultThreadFactory default thread factory}.
+     *
+     * @param corePoolSize the number of threads running due tasks
+     * @param tick         the tick resolution
+     * @param unit         the time unit of the {@code tick} argument
+     *
+     * @throws IllegalArgumentException if {@code corePoolSize <= 0}
+     *                                  or {@code tick <= 0}
+     * @throws NullPointerException     if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize, long tick, TimeUnit unit) {
+        this(corePoolSize, tick, unit, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * initial parameters. The ticker thread and the threads running due
+     * tasks are all created by {@code threadFactory}.
+     *
+     * @param corePoolSize  the number of threads running due tasks
+     * @param tick          the tick resolution
+     * @param unit          the time unit of the {@code tick} argument
+     * @param threadFactory the factory to use when the executor
+     *                      creates a new thread
+     *
+     * @throws IllegalArgumentException if {@code corePoolSize <= 0}
+     *                                  or {@code tick <= 0}
+     * @throws NullPointerException     if {@code unit} or
+     *                                  {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize, long tick, TimeUnit unit, ThreadFactory threadFactory) {
+        if(corePoolSize<=0 || tick<=0) {
+            throw new IllegalArgumentException();
+        }
+
+        if(unit == null || threadFactory == null) {
+            throw new NullPointerException();
+        }
+
+        this.tickNanos = Math.max(1L, unit.toNanos(tick));
+        this.runner = new ThreadPoolExecutor(corePoolSize, corePoolSize, 0L, NANOSECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.ticker = threadFactory.newThread(this::runTicker);
+        if(ticker == null) {
+            throw new RejectedExecutionException("thread factory failed to create ticker thread");
+        }
+        this.startNanos = System.nanoTime();
+        ticker.start();
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 执行/提交任务 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Executes {@code command} with zero required delay, directly on
+     * the pool running due tasks.
+     *
+     * @throws RejectedExecutionException if this executor has been shut down
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    // 立即执行任务（不经过时间轮）
+    public void execute(Runnable command) {
+        if(command == null) {
+            throw new NullPointerException();
+        }
+
+        if(runState != RUNNING) {
+            throw new RejectedExecutionException("Task " + command + " rejected from " + this);
+        }
+
+        runner.execute(command);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    // 执行一次性的定时任务：在delay时长后开始执行
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if(command == null || unit == null) {
+            throw new NullPointerException();
+        }
+
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(delay, unit), 0L));
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    // 执行一次性的定时任务：在delay时长后开始执行
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if(callable == null || unit == null) {
+            throw new NullPointerException();
+        }
+
+        return enqueue(new WheelTask<V>(callable, triggerTime(delay, unit)));
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    // 执行重复性的定时任务：在initialDelay时长后开始执行，此后每隔period时长执行一次（固定周期）
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if(command == null || unit == null) {
+            throw new NullPointerException();
+        }
+
+        if(period<=0L) {
+            throw new IllegalArgumentException();
+        }
+
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    // 执行重复性的定时任务：在initialDelay时长后开始执行，此后每次执行结束后，间隔delay时长再次执行（固定延时）
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if(command == null || unit == null) {
+            throw new NullPointerException();
+        }
+
+        if(delay<=0L) {
+            throw new IllegalArgumentException();
+        }
+
+        return enqueue(new WheelTask<Void>(command, null, triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    /*▲ 执行/提交任务 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 运行状态 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * one-shot delayed tasks are executed when due, but periodic tasks
+     * are cancelled and no new tasks are accepted.
+     *
+     * @throws SecurityException {@inheritDoc}
+     */
+    // 【关闭】：不再接收新任务，已有的一次性定时任务到期后照常执行，重复性任务被中止
+    public void shutdown() {
+        advanceRunState(SHUTDOWN);
+        LockSupport.unpark(ticker);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution, as {@link ScheduledFuture}s.
+     *
+     * @return list of tasks that never commenced execution
+     *
+     * @throws SecurityException {@inheritDoc}
+     */
+    // 【停止】：不再接收新任务，中止并返回尚未执行的定时任务，中断正在执行的任务
+    public List<Runnable> shutdownNow() {
+        advanceRunState(STOP);
+
+        List<Runnable> list = new ArrayList<>();
+
+        wheelLock.lock();
+        try {
+            // 摘出时间轮中所有任务
+            for(int i = 0; i<buckets.length; i++) {
+                for(WheelTask<?> t = detach(i); t != null; ) {
+                    WheelTask<?> next = t.next;
+                    t.next = null;
+                    if(!t.isCancelled()) {
+                        list.add(t);
+                    }
+                    t = next;
+                }
+            }
+            pending = 0;
+
+            for(WheelTask<?> t; (t = inbox.poll()) != null; ) {
+                if(!t.isCancelled()) {
+                    list.add(t);
+                }
+            }
+            cancelled.clear();
+        } finally {
+            wheelLock.unlock();
+        }
+
+        list.addAll(runner.shutdownNow());
+
+        LockSupport.unpark(ticker);
+
+        return list;
+    }
+
+    // 判断是否已【关闭】
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    // 判断是否已【终止】
+    public boolean isTerminated() {
+        return runState == TERMINATED && runner.isTerminated();
+    }
+
+    // 等待【终止】，超时后返回false
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if(!termination.await(timeout, unit)) {
+            return false;
+        }
+        return runner.awaitTermination(deadline - System.nanoTime(), NANOSECONDS);
+    }
+
+    /*▲ 运行状态 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 时钟线程 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Main loop of the ticker thread.
+     */
+    // 时钟线程：每个刻度转动一次时间轮，将到期任务交给runner执行
+    private void runTicker() {
+        try {
+            for(; ; ) {
+                int rs = runState;
+                if(rs == STOP) {
+                    break;
+                }
+
+                boolean empty;
+
+                wheelLock.lock();
+                try {
+                    if(runState == STOP) {
+                        break;
+                    }
+
+                    long nowTick = nowTick();
+
+                    // 摘除已中止的任务
+                    drainCancelled();
+
+                    // 时间轮为空时，直接跳到当前刻度，无需逐个刻度地转动
+                    if(pending == 0 && currentTick<nowTick) {
+                        currentTick = nowTick;
+                    }
+
+                    // 挂入新任务
+                    drainInbox(rs);
+
+                    if(rs == SHUTDOWN && !periodicCancelled) {
+                        // 进入【关闭】状态后，中止时间轮中的重复性任务
+                        periodicCancelled = true;
+                        cancelPeriodic();
+                    }
+
+                    while(pending != 0 && currentTick<=nowTick) {
+                        processTick();
+                    }
+
+                    empty = pending == 0;
+                } finally {
+                    wheelLock.unlock();
+                }
+
+                if(empty) {
+                    if(rs != RUNNING && inbox.isEmpty()) {
+                        // 【关闭】后，时间轮中已无任务，退出
+                        break;
+                    }
+
+                    idle = true;
+                    if(inbox.isEmpty() && runState == rs) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                } else {
+                    // 休眠到下一个刻度
+                    long wait = startNanos + currentTick * tickNanos - System.nanoTime();
+                    if(wait>0L) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                }
+            }
+        } finally {
+            // 让执行到期任务的线程池也进入【关闭】状态（shutdownNow()已经处理过的话，这里无影响）
+            runner.shutdown();
+            advanceRunState(TERMINATED);
+            termination.countDown();
+        }
+    }
+
+    /**
+     * Processes tick currentTick: cascades higher levels when the
+     * lower index wraps, then runs everything in the level 0 bucket.
+     */
+    // 处理当前刻度：必要时将高层时间轮中的任务降级，然后执行第0层当前槽位中的任务
+    private void processTick() {
+        long t = currentTick;
+        int index = (int) t & WHEEL_MASK;
+
+        if(index == 0) {
+            for(int level = 1; level<LEVELS; level++) {
+                int i = (int) (t >>> (level * WHEEL_BITS)) & WHEEL_MASK;
+                cascade(level * WHEEL_SIZE + i);
+                if(i != 0) {
+                    break;
+                }
+            }
+        }
+
+        WheelTask<?> t0 = detach(index);
+
+        currentTick = t + 1;
+
+        while(t0 != null) {
+            WheelTask<?> next = t0.next;
+            t0.next = null;
+            pending--;
+            if(!t0.isCancelled()) {
+                runner.execute(t0);
+            }
+            t0 = next;
+        }
+    }
+
+    // 将指定槽位中的任务重新挂入时间轮（降级）
+    private void cascade(int bucket) {
+        WheelTask<?> t = detach(bucket);
+        while(t != null) {
+            WheelTask<?> next = t.next;
+            t.next = null;
+            pending--;
+            place(t);
+            t = next;
+        }
+    }
+
+    /**
+     * Links t into the bucket for its expiration tick.
+     */
+    // 将任务挂入时间轮中合适的槽位
+    private void place(WheelTask<?> t) {
+        long expires = tickOf(t.time);
+        long idx = expires - currentTick;
+
+        int bucket;
+        if(idx<=0L) {
+            // 已经到期，挂入下一个待处理的槽位
+            bucket = (int) currentTick & WHEEL_MASK;
+        } else {
+            int level = (63 - Long.numberOfLeadingZeros(idx)) / WHEEL_BITS;
+            bucket = level * WHEEL_SIZE + ((int) (expires >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        }
+
+        WheelTask<?> head = buckets[bucket];
+        t.prev = null;
+        t.next = head;
+        if(head != null) {
+            head.prev = t;
+        }
+        buckets[bucket] = t;
+        t.bucket = bucket;
+        pending++;
+    }
+
+    // 摘出指定槽位中的所有任务，返回链表头
+    private WheelTask<?> detach(int bucket) {
+        WheelTask<?> head = buckets[bucket];
+        buckets[bucket] = null;
+        for(WheelTask<?> t = head; t != null; t = t.next) {
+            t.prev = null;
+            t.bucket = -1;
+        }
+        return head;
+    }
+
+    // 从时间轮中摘除单个任务
+    private void unlink(WheelTask<?> t) {
+        int bucket = t.bucket;
+        if(bucket<0) {
+            return;
+        }
+
+        WheelTask<?> prev = t.prev, next = t.next;
+        if(prev == null) {
+            buckets[bucket] = next;
+        } else {
+            prev.next = next;
+        }
+        if(next != null) {
+            next.prev = prev;
+        }
+
+        t.prev = t.next = null;
+        t.bucket = -1;
+        pending--;
+    }
+
+    // 将新任务挂入时间轮
+    private void drainInbox(int rs) {
+        for(WheelTask<?> t; (t = inbox.poll()) != null; ) {
+            if(t.isCancelled()) {
+                continue;
+            }
+            if(rs != RUNNING && t.isPeriodic()) {
+                t.cancel(false);
+                continue;
+            }
+            place(t);
+        }
+    }
+
+    // 从时间轮中摘除已中止的任务
+    private void drainCancelled() {
+        for(WheelTask<?> t; (t = cancelled.poll()) != null; ) {
+            unlink(t);
+        }
+    }
+
+    // 中止时间轮中的重复性任务
+    private void cancelPeriodic() {
+        for(int i = 0; i<buckets.length; i++) {
+            for(WheelTask<?> t = buckets[i]; t != null; ) {
+                WheelTask<?> next = t.next;
+                if(t.isPeriodic()) {
+                    t.cancel(false);
+                    unlink(t);
+                }
+                t = next;
+            }
+        }
+    }
+
+    /*▲ 时钟线程 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    public String toString() {
+        int rs = runState;
+        String runStateName = rs == RUNNING ? "Running" : rs == TERMINATED ? "Terminated" : "Shutting down";
+        return super.toString() + "[" + runStateName + ", tick = " + tickNanos + "ns, runner = " + runner + "]";
+    }
+
+
+
+    /**
+     * Hands t to the ticker, rejecting it if shut down.
+     */
+    // 将任务交给时钟线程
+    private <T extends WheelTask<?>> T enqueue(T task) {
+        if(runState != RUNNING) {
+            throw new RejectedExecutionException("Task " + task + " rejected from " + this);
+        }
+
+        inbox.offer(task);
+
+        // 时钟线程处于无限期休眠时，唤醒它
+        if(idle) {
+            LockSupport.unpark(ticker);
+        }
+
+        return task;
+    }
+
+    /**
+     * Requeues a periodic task after a run, unless shut down.
+     */
+    // 将重复性任务再次交给时钟线程
+    private void reExecutePeriodic(WheelTask<?> task) {
+        if(runState != RUNNING) {
+            task.cancel(false);
+            return;
+        }
+
+        inbox.offer(task);
+
+        if(idle) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    // 原子地推进运行状态（只增不减）
+    private void advanceRunState(int targetState) {
+        for(int rs; (rs = runState)<targetState; ) {
+            if(RUN_STATE.compareAndSet(this, rs, targetState)) {
+                break;
+            }
+        }
+    }
+
+    // 计算任务的触发时间（=当前时刻+delay，时间单位是纳秒）
+    private static long triggerTime(long delay, TimeUnit unit) {
+        long nanos = unit.toNanos(delay<0L ? 0L : delay);
+        return System.nanoTime() + Math.min(nanos, MAX_DELAY);
+    }
+
+    // 返回当前时刻所处的刻度
+    private long nowTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    // 返回触发时间所处的刻度（向上取整）
+    private long tickOf(long time) {
+        long d = time - startNanos;
+        return (d<=0L) ? 0L : (d - 1) / tickNanos + 1;
+    }
+
+
+
+    /**
+     * A task linked into the wheel.
+     */
+    // 时间轮中的定时任务
+    private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /**
+         * Period for repeating tasks, in nanoseconds.
+         * A positive value indicates fixed-rate execution.
+         * A negative value indicates fixed-delay execution.
+         * A value of 0 indicates a non-repeating (one-shot) task.
+         */
+        private final long period;
+
+        /** The nanoTime-based time when the task is enabled to execute. */
+        // 任务下次被触发的时间（绝对时间，时间单位是纳秒）
+        private volatile long time;
+
+        // 所在槽位，-1表示不在时间轮中（仅由时钟线程访问）
+        int bucket = -1;
+
+        // 槽位链表中的前驱与后继（仅由时钟线程访问）
+        WheelTask<?> prev, next;
+
+        WheelTask(Runnable r, V result, long triggerTime, long period) {
+            super(r, result);
+            this.time = triggerTime;
+            this.period = period;
+        }
+
+        WheelTask(Callable<V> callable, long triggerTime) {
+            super(callable);
+            this.time = triggerTime;
+            this.period = 0L;
+        }
+
+        // 执行定时任务
+        public void run() {
+            if(!isPeriodic()) {
+                super.run();
+            } else if(super.runAndReset()) {
+                // 设置任务下次被触发的时间
+                if(period>0L) {
+                    time += period;
+                } else {
+                    time = triggerTime(-period, NANOSECONDS);
+                }
+                reExecutePeriodic(this);
+            }
+        }
+
+        // 获取距任务触发还剩余的时间
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        // 是否为重复性任务
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        // 中止任务，并通知时钟线程将其从时间轮中摘除
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if(result && runState<STOP) {
+                cancelled.offer(this);
+                if(idle) {
+                    LockSupport.unpark(ticker);
+                }
+            }
+            return result;
+        }
+
+        public int compareTo(Delayed other) {
+            if(other == this) {
+                return 0;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff<0) ? -1 : (diff>0) ? 1 : 0;
+        }
+    }
+
+}
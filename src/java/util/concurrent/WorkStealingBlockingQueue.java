@@ -0,0 +1,885 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An optionally-bounded {@linkplain BlockingQueue blocking queue} that
+ * spreads its elements over a set of per-thread local deques, with
+ * consumers stealing from sibling deques when their own is empty.
+ *
+ * <p>This queue is intended as the work queue of a {@link
+ * ThreadPoolExecutor} whose tasks are short, where a single shared
+ * queue such as {@link LinkedBlockingQueue} makes all workers contend
+ * on the same lock. Each thread is hashed (in the same way as {@link
+ * java.util.concurrent.atomic.LongAdder}) to a home deque: elements
+ * offered by a thread go to its home deque, and a thread retrieving
+ * elements first polls its home deque and then scans the others.
+ * Pool worker threads therefore mostly work on their own deque, and
+ * tasks submitted from within a task tend to run on the submitting
+ * worker. When a deque is contended the thread is rehashed to
+ * another one.
+ *
+ * <p>Because of this, elements are ordered FIFO only with respect to
+ * each deque; the queue as a whole provides no ordering guarantee.
+ * All {@link ThreadPoolExecutor} sizing and rejection semantics are
+ * preserved: a bounded queue rejects {@code offer} when {@code
+ * capacity} elements are present, which lets the pool grow up to its
+ * maximum size and then apply its {@link RejectedExecutionHandler}.
+ *
+ * <p>Bulk operations, {@code toArray} and the iterator take each
+ * local deque's lock in turn, so they are weakly consistent: they
+ * reflect some state of each deque, but not necessarily a single
+ * state of the whole queue. This class does not permit {@code null}
+ * elements.
+ *
+ * @param <E> the type of elements held in this queue
+ *
+ * @since 11
+ */
+/*
+ * 工作窃取式阻塞队列，有界/无界（初始化时决定），线程安全（分段锁）
+ *
+ * 队列内部由多个【本地队列】组成，每个线程依据其探针值(probe)映射到一个【本地队列】：
+ * 入队时，元素进入当前线程的【本地队列】；
+ * 出队时，先从当前线程的【本地队列】中取元素，取不到时，再去其他【本地队列】中【窃取】元素。
+ *
+ * 用作ThreadPoolExecutor的阻塞队列时，各个Worker基本上只操作自己的【本地队列】，
+ * 避免了所有Worker争用同一把锁（如LinkedBlockingQueue中的takeLock）。
+ *
+ * 注：元素仅在同一个【本地队列】内满足FIFO，整个队列不保证顺序
+ */
+public class WorkStealingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /*
+     * Elements live in an array of Stripes, each an ArrayDeque guarded
+     * by its own lock and padded to avoid false sharing. The total
+     * number of elements is kept in an atomic "count" that doubles
+     * as the capacity reservation: offers reserve a slot before
+     * pushing, and polls release it after removing an element. So
+     * count may transiently exceed the number of elements actually
+     * present in stripes, and takers that see count > 0 but find no
+     * element spin briefly rather than block.
+     *
+     * Blocking uses the same lock/condition pairs as
+     * LinkedBlockingQueue, but signals only when some thread is
+     * actually waiting. A waiter increments its "waiting" field and
+     * then rechecks count; a signaller updates count and then reads
+     * "waiting". Both are volatile, so at least one side observes the
+     * other and no wakeup is lost.
+     *
+     * Stealing scans skip stripes whose deque looks empty without
+     * taking their lock. This read is racy, but a stale answer only
+     * makes a taker rescan, since count stays nonzero until the
+     * element is removed.
+     */
+
+    /** Maximum number of stripes */
+    private static final int MAX_STRIPES = 1 << 16;
+
+    /** The capacity bound, or Integer.MAX_VALUE if none */
+    // 队列容量，默认为Integer.MAX_VALUE
+    private final int capacity;
+
+    /** Current number of elements, including reserved slots */
+    // 队列中元素数量（包括已预留但尚未放入本地队列的位置）
+    private final AtomicInteger count = new AtomicInteger();
+
+    /** Per-thread local deques; length is a power of two */
+    // 本地队列，数量为2的幂
+    private final Stripe<E>[] stripes;
+
+    /** Lock held by take, poll, etc when waiting */
+    private final ReentrantLock takeLock = new ReentrantLock();
+
+    /** Wait queue for waiting takes */
+    private final Condition notEmpty = takeLock.newCondition();
+
+    /** Lock held by put, offer, etc when waiting */
+    private final ReentrantLock putLock = new ReentrantLock();
+
+    /** Wait queue for waiting puts */
+    private final Condition notFull = putLock.newCondition();
+
+    /** Number of threads waiting on notEmpty */
+    // 阻塞在notEmpty上的"出队"线程数量
+    private volatile int waitingTakers;
+
+    /** Number of threads waiting on notFull */
+    // 阻塞在notFull上的"入队"线程数量
+    private volatile int waitingPutters;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} with a capacity of
+     * {@link Integer#MAX_VALUE} and one local deque per available
+     * processor.
+     */
+    public WorkStealingBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} with the given (fixed)
+     * capacity and one local deque per available processor.
+     *
+     * @param capacity the capacity of this queue
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not greater
+     *                                  than zero
+     */
+    public WorkStealingBlockingQueue(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a {@code WorkStealingBlockingQueue} with the given (fixed)
+     * capacity and at least {@code parallelism} local deques.
+     *
+     * @param capacity    the capacity of this queue
+     * @param parallelism the expected number of threads concurrently
+     *                    accessing this queue, typically the maximum
+     *                    pool size
+     *
+     * @throws IllegalArgumentException if {@code capacity} or
+     *                                  {@code parallelism} is not greater than zero
+     */
+    public WorkStealingBlockingQueue(int capacity, int parallelism) {
+        if(capacity<=0 || parallelism<=0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.capacity = capacity;
+
+        // 本地队列的数量为不小于parallelism的2的幂
+        int n = (parallelism >= MAX_STRIPES) ? MAX_STRIPES : 1 << (32 - Integer.numberOfLeadingZeros(parallelism - 1));
+
+        @SuppressWarnings("unchecked")
+        Stripe<E>[] ss = (Stripe<E>[]) new Stripe<?>[n];
+        for(int i = 0; i<n; i++) {
+            ss[i] = new Stripe<>();
+        }
+        this.stripes = ss;
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 入队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Inserts the specified element into the calling thread's local
+     * deque if it is possible to do so immediately without exceeding
+     * the queue's capacity, returning {@code true} upon success and
+     * {@code false} if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    // 入队，线程安全，队满时不阻塞，直接返回false
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+
+        // 预留位置
+        if(!tryReserve()) {
+            return false;
+        }
+
+        // 放入当前线程的本地队列
+        push(e);
+
+        return true;
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting if
+     * necessary up to the specified wait time for space to become
+     * available.
+     *
+     * @return {@code true} if successful, or {@code false} if
+     * the specified waiting time elapses before space is available
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    // 入队，线程安全，队满时阻塞一段时间，超时后返回false
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+
+        long nanos = unit.toNanos(timeout);
+
+        while(!tryReserve()) {
+            if(nanos<=0L) {
+                return false;
+            }
+            nanos = awaitNotFull(nanos, true);
+        }
+
+        push(e);
+
+        return true;
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting if
+     * necessary for space to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    // 入队，线程安全，队满时阻塞
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+
+        while(!tryReserve()) {
+            awaitNotFull(0L, false);
+        }
+
+        push(e);
+    }
+
+    /*▲ 入队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 出队 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    // 出队，线程安全，队空时不阻塞，直接返回null
+    public E poll() {
+        // 正在入队的元素视为尚未入队
+        return pollStripes();
+    }
+
+    // 出队，线程安全，队空时阻塞一段时间，超时后返回null
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        for(; ; ) {
+            E x = pollStripes();
+            if(x != null) {
+                return x;
+            }
+
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if(count.get() != 0) {
+                // 有元素正在入队，稍等片刻
+                Thread.onSpinWait();
+            } else if(nanos<=0L) {
+                return null;
+            } else {
+                nanos = awaitNotEmpty(nanos, true);
+            }
+        }
+    }
+
+    // 出队，线程安全，队空时阻塞
+    public E take() throws InterruptedException {
+        for(; ; ) {
+            E x = pollStripes();
+            if(x != null) {
+                return x;
+            }
+
+            if(Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if(count.get() != 0) {
+                // 有元素正在入队，稍等片刻
+                Thread.onSpinWait();
+            } else {
+                awaitNotEmpty(0L, false);
+            }
+        }
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.
+     *
+     * @param o element to be removed from this queue, if present
+     *
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    // 移除元素o，移除成功则返回true
+    public boolean remove(Object o) {
+        if(o == null) {
+            return false;
+        }
+
+        for(Stripe<E> stripe : stripes) {
+            boolean removed;
+
+            stripe.lock();
+            try {
+                removed = stripe.deque.remove(o);
+            } finally {
+                stripe.unlock();
+            }
+
+            if(removed) {
+                release(1);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Atomically removes all of the elements of each local deque in
+     * turn. The queue will be empty after this call returns, unless
+     * elements were inserted concurrently.
+     */
+    // 清空队列
+    public void clear() {
+        for(Stripe<E> stripe : stripes) {
+            int n;
+
+            stripe.lock();
+            try {
+                n = stripe.deque.size();
+                stripe.deque.clear();
+            } finally {
+                stripe.unlock();
+            }
+
+            if(n != 0) {
+                release(n);
+            }
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    // 将队列中所有元素移除，并转移到给定的容器当中
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    // 将队列中前maxElements个元素移除，并转移到给定的容器当中
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+
+        int n = 0;
+
+        // 逐个本地队列地转移元素，每个本地队列只加锁一次
+        for(int i = 0; i<stripes.length && n<maxElements; i++) {
+            Stripe<E> stripe = stripes[i];
+            int k = 0;
+
+            stripe.lock();
+            try {
+                // 先转移再出队：如果c.add(x)抛出异常，x仍留在本地队列中，k只统计已出队的元素，其占用的位置在finally中释放
+                for(E x; n + k<maxElements && (x = stripe.deque.peekFirst()) != null; k++) {
+                    c.add(x);
+                    stripe.deque.pollFirst();
+                }
+            } finally {
+                stripe.unlock();
+                if(k != 0) {
+                    release(k);
+                }
+            }
+
+            n += k;
+        }
+
+        return n;
+    }
+
+    /*▲ 出队 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 取值 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    // 获取队头元素，线程安全（优先查看当前线程的本地队列）
+    public E peek() {
+        Stripe<E>[] ss = stripes;
+        int mask = ss.length - 1;
+        int h = probe();
+
+        for(int i = 0; i<ss.length; i++) {
+            Stripe<E> stripe = ss[(h + i) & mask];
+
+            stripe.lock();
+            try {
+                E x = stripe.deque.peekFirst();
+                if(x != null) {
+                    return x;
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+
+        return null;
+    }
+
+    /*▲ 取值 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 包含查询 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     *
+     * @param o object to be checked for containment in this queue
+     *
+     * @return {@code true} if this queue contains the specified element
+     */
+    // 判断队列中是否包含元素o
+    public boolean contains(Object o) {
+        if(o == null) {
+            return false;
+        }
+
+        for(Stripe<E> stripe : stripes) {
+            stripe.lock();
+            try {
+                if(stripe.deque.contains(o)) {
+                    return true;
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+
+        return false;
+    }
+
+    /*▲ 包含查询 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 视图 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns an array containing all of the elements in this queue,
+     * grouped by local deque.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue,
+     * grouped by local deque; the runtime type of the returned array is
+     * that of the specified array.
+     *
+     * @throws ArrayStoreException  if the runtime type of the specified array
+     *                              is not a supertype of the runtime type of every element in
+     *                              this queue
+     * @throws NullPointerException if the specified array is null
+     */
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    /*▲ 视图 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 迭代 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this queue.
+     * The iterator's {@code remove} method removes the last returned
+     * element from this queue if it is still present.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot());
+    }
+
+    /**
+     * Returns a {@link Spliterator} over a snapshot of the elements in
+     * this queue.
+     *
+     * <p>The returned spliterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return a {@code Spliterator} over the elements in this queue
+     */
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(snapshot(), Spliterator.NONNULL | Spliterator.CONCURRENT);
+    }
+
+    /*▲ 迭代 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 杂项 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns the number of elements in this queue. The value may
+     * transiently include elements whose insertion is in progress.
+     *
+     * @return the number of elements in this queue
+     */
+    // 返回队列中元素数量
+    public int size() {
+        return count.get();
+    }
+
+    // 返回队列的剩余容量
+    public int remainingCapacity() {
+        return capacity - count.get();
+    }
+
+    /*▲ 杂项 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 锁 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Waits until count may be nonzero.
+     *
+     * @return remaining nanos if timed
+     */
+    // 阻塞"出队"线程，直到队列可能不为空
+    private long awaitNotEmpty(long nanos, boolean timed) throws InterruptedException {
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            waitingTakers++;
+            while(count.get() == 0) {
+                if(!timed) {
+                    notEmpty.await();
+                } else if(nanos<=0L) {
+                    break;
+                } else {
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            }
+        } finally {
+            waitingTakers--;
+            takeLock.unlock();
+        }
+
+        return nanos;
+    }
+
+    /**
+     * Waits until count may be below capacity.
+     *
+     * @return remaining nanos if timed
+     */
+    // 阻塞"入队"线程，直到队列可能未满
+    private long awaitNotFull(long nanos, boolean timed) throws InterruptedException {
+        final ReentrantLock putLock = this.putLock;
+        putLock.lockInterruptibly();
+        try {
+            waitingPutters++;
+            while(count.get() >= capacity) {
+                if(!timed) {
+                    notFull.await();
+                } else if(nanos<=0L) {
+                    break;
+                } else {
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            }
+        } finally {
+            waitingPutters--;
+            putLock.unlock();
+        }
+
+        return nanos;
+    }
+
+    // 唤醒"出队"线程（仅当确实有线程在等待时才加锁）
+    private void signalNotEmpty() {
+        if(waitingTakers != 0) {
+            final ReentrantLock takeLock = this.takeLock;
+            takeLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                takeLock.unlock();
+            }
+        }
+    }
+
+    // 唤醒"入队"线程（仅当确实有线程在等待时才加锁）
+    private void signalNotFull(int n) {
+        if(waitingPutters != 0) {
+            final ReentrantLock putLock = this.putLock;
+            putLock.lock();
+            try {
+                if(n == 1) {
+                    notFull.signal();
+                } else {
+                    notFull.signalAll();
+                }
+            } finally {
+                putLock.unlock();
+            }
+        }
+    }
+
+    /*▲ 锁 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    public String toString() {
+        return Helpers.collectionToString(this);
+    }
+
+
+
+    /**
+     * Reserves one slot, failing if the queue is full.
+     */
+    // 预留一个位置，队满时返回false
+    private boolean tryReserve() {
+        final AtomicInteger count = this.count;
+        for(int c; (c = count.get())<capacity; ) {
+            if(count.compareAndSet(c, c + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases n slots after elements were removed from stripes.
+     */
+    // 释放n个位置，必要时唤醒"入队"线程
+    private void release(int n) {
+        count.getAndAdd(-n);
+        signalNotFull(n);
+    }
+
+    /**
+     * Pushes e, for which a slot is already reserved, onto the calling
+     * thread's home stripe, rehashing the thread if that stripe is
+     * contended.
+     */
+    // 将元素放入当前线程的本地队列（本地队列被争用时，更换当前线程的探针值）
+    private void push(E e) {
+        Stripe<E>[] ss = stripes;
+        int mask = ss.length - 1;
+        int h = probe();
+
+        Stripe<E> stripe = ss[h & mask];
+        if(!stripe.tryLock()) {
+            // 本地队列被争用，换一个本地队列
+            h = ThreadLocalRandom.advanceProbe(h);
+            stripe = ss[h & mask];
+            stripe.lock();
+        }
+
+        try {
+            stripe.deque.addLast(e);
+        } finally {
+            stripe.unlock();
+        }
+
+        signalNotEmpty();
+    }
+
+    /**
+     * Polls the calling thread's home stripe, then steals from the
+     * others.
+     */
+    // 先从当前线程的本地队列中取元素，取不到时，去其他本地队列中窃取
+    private E pollStripes() {
+        Stripe<E>[] ss = stripes;
+        int mask = ss.length - 1;
+        int h = probe();
+
+        for(int i = 0; i<ss.length; i++) {
+            Stripe<E> stripe = ss[(h + i) & mask];
+
+            // 跳过明显为空的本地队列，避免无谓的加锁
+            if(stripe.deque.isEmpty()) {
+                continue;
+            }
+
+            E x;
+            stripe.lock();
+            try {
+                x = stripe.deque.pollFirst();
+            } finally {
+                stripe.unlock();
+            }
+
+            if(x != null) {
+                release(1);
+                return x;
+            }
+        }
+
+        return null;
+    }
+
+    // 返回当前线程的探针值
+    private static int probe() {
+        int h = ThreadLocalRandom.getProbe();
+        if(h == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        return h;
+    }
+
+    /**
+     * Returns a snapshot of the current elements, taking each stripe's
+     * lock in turn.
+     */
+    // 返回队列元素的快照
+    private ArrayList<E> snapshot() {
+        ArrayList<E> list = new ArrayList<>(Math.max(count.get(), 0));
+        for(Stripe<E> stripe : stripes) {
+            stripe.lock();
+            try {
+                list.addAll(stripe.deque);
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Removes the given element, compared by identity.
+     */
+    // 移除元素o（比较引用），移除成功则返回true
+    private boolean removeEq(Object o) {
+        for(Stripe<E> stripe : stripes) {
+            boolean removed = false;
+
+            stripe.lock();
+            try {
+                for(Iterator<E> it = stripe.deque.iterator(); it.hasNext(); ) {
+                    if(it.next() == o) {
+                        it.remove();
+                        removed = true;
+                        break;
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+
+            if(removed) {
+                release(1);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+
+    /**
+     * A local deque with its lock, padded to reduce cache contention
+     * between neighbouring stripes.
+     */
+    // 本地队列
+    @jdk.internal.vm.annotation.Contended
+    static final class Stripe<E> extends ReentrantLock {
+        private static final long serialVersionUID = 3442624585216405419L;
+
+        final ArrayDeque<E> deque = new ArrayDeque<>();
+    }
+
+    /**
+     * Iterator over a snapshot of the queue.
+     */
+    private final class Itr implements Iterator<E> {
+        private final ArrayList<E> items;
+        private int cursor;
+        private E lastRet;
+
+        Itr(ArrayList<E> items) {
+            this.items = items;
+        }
+
+        public boolean hasNext() {
+            return cursor<items.size();
+        }
+
+        public E next() {
+            if(cursor >= items.size()) {
+                throw new NoSuchElementException();
+            }
+            return lastRet = items.get(cursor++);
+        }
+
+        public void remove() {
+            E x = lastRet;
+            if(x == null) {
+                throw new IllegalStateException();
+            }
+            lastRet = null;
+            removeEq(x);
+        }
+    }
+
+}
@@ -116,6 +116,9 @@ public class DoubleAdder extends Striped64 implements Serializable {
                 || (c = cs[getProbe() & m]) == null // cells存在且有效，且当前线程关联的cell为null（很可能是探测值无效引起的）
                 || !(uncontended = c.cas(v = c.value, Double.doubleToRawLongBits(Double.longBitsToDouble(v) + x)))) { // cells存在且有效，且当前线程关联着非空cell，则尝试更新该cell内的【操作系数】
                 doubleAccumulate(x, null, uncontended);
+            } else if(c.retired) {
+                // 该cell刚刚被收缩了，需要将更新转移到基值中
+                salvage(c, true);
             }
         }
     }
@@ -148,6 +151,9 @@ public class DoubleAdder extends Striped64 implements Serializable {
                     sum += Double.longBitsToDouble(c.value);
                 }
             }
+            
+            // 顺便检查cells是否已闲置，闲置时将其收缩
+            contractIfIdle(true);
         }
         return sum;
     }
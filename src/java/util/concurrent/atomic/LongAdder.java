@@ -114,6 +114,9 @@ public class LongAdder extends Striped64 implements Serializable {
                 || (c = cs[getProbe() & m]) == null // cells存在且有效，且当前线程关联的cell为null（很可能是探测值无效引起的）
                 || !(uncontended = c.cas(v = c.value, v + x))) { // cells存在且有效，且当前线程关联着非空cell，则尝试更新该cell内的【操作系数】
                 longAccumulate(x, null, uncontended);
+            } else if(c.retired) {
+                // 该cell刚刚被收缩了，需要将更新转移到基值中
+                salvage(c, false);
             }
         }
     }
@@ -147,6 +150,10 @@ public class LongAdder extends Striped64 implements Serializable {
      * occur while the sum is being calculated might not be
      * incorporated.
      *
+     * <p>If the cells used to spread contention have not been updated
+     * for a while, this method also releases them, so that an adder
+     * that is only occasionally contended does not keep them forever.
+     *
      * @return the sum
      */
     // 遍历cells，处理【操作系数】，返回总值
@@ -159,6 +166,9 @@ public class LongAdder extends Striped64 implements Serializable {
                     sum += c.value;
                 }
             }
+            
+            // 顺便检查cells是否已闲置，闲置时将其收缩
+            contractIfIdle(false);
         }
         return sum;
     }
@@ -0,0 +1,558 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.concurrent.atomic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A concurrent histogram of non-negative {@code long} values, intended
+ * for recording latencies and sizes on hot paths at about the cost of
+ * a {@link LongAdder} increment.
+ *
+ * <p>Values are counted in log-linear buckets: every power-of-two
+ * range is divided into {@code 2^precisionBits} equally wide buckets,
+ * so that a value is reported with a relative error of at most
+ * {@code 2^-precisionBits} (about 3% with the default of 5 bits),
+ * while values below {@code 2^(precisionBits+1)} are counted exactly.
+ * Values above the highest trackable value are counted as that value.
+ *
+ * <p>As in {@link LongAdder}, recording starts out on a single stripe
+ * of counters; when threads contend, further stripes (up to the number
+ * of processors) are added lazily and threads are spread across them.
+ *
+ * <p>Results are read through a {@link Snapshot}, which merges the
+ * stripes into an immutable copy. The bucket counts of a snapshot are
+ * self-consistent (its total count is exactly the sum of its buckets,
+ * and percentiles are computed from them), although recordings that
+ * happen while the snapshot is taken may or may not be included. With
+ * {@link #snapshotThenReset} every recording is included in exactly
+ * one snapshot, which is the usual way to report interval statistics.
+ *
+ * @see LongAdder
+ * @see java.util.LongSummaryStatistics
+ */
+/*
+ * 并发直方图，用于在热点路径上低开销地记录非负long值（如延迟、大小）
+ *
+ * 采用对数-线性分桶：每个2的幂区间被等分为2^precisionBits个桶，因此记录值的相对误差不超过2^-precisionBits
+ * 与LongAdder类似，计数器起初只有一个分段，出现线程争用时才会惰性地增加分段（最多不超过处理器数量）
+ * 读取结果时需要先生成快照，快照中的总数量恰好等于各个桶的数量之和
+ */
+public class LongHistogram {
+
+    /** Number of CPUS, to place bound on the number of stripes */
+    // 虚拟机可用的处理器数量
+    static final int NCPU = Striped64.NCPU;
+
+    /** The default number of bits of precision */
+    // 默认精度
+    static final int DEFAULT_PRECISION_BITS = 5;
+
+    /** log2 of the number of buckets per power of two */
+    // 每个2的幂区间被划分为2^precisionBits个桶
+    final int precisionBits;
+
+    /** Values above this are counted as this */
+    // 可追踪的最大值，更大的值按此值计数
+    final long highestTrackableValue;
+
+    /** Number of buckets in each stripe */
+    // 每个分段中桶的数量
+    final int bucketCount;
+
+    /**
+     * Stripes of counters. Size is a power of 2; slot 0 is never null,
+     * other slots are filled in when first needed.
+     */
+    // 计数器分段，长度为2的幂，其中0号分段总是存在
+    volatile Stripe[] stripes;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating stripes */
+    // 自旋锁，扩充分段或创建分段时使用
+    volatile int stripesBusy;
+
+
+
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Creates a histogram that tracks all non-negative {@code long}
+     * values with 5 bits of precision.
+     */
+    public LongHistogram() {
+        this(Long.MAX_VALUE, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * Creates a histogram that tracks values up to
+     * {@code highestTrackableValue} with the given precision. A lower
+     * highest value or precision makes each stripe smaller.
+     *
+     * @param highestTrackableValue values above this are counted as this
+     * @param precisionBits         log2 of the number of buckets per power
+     *                              of two, between 1 and 14
+     *
+     * @throws IllegalArgumentException if {@code highestTrackableValue} is
+     *                                  negative or {@code precisionBits} is
+     *                                  out of range
+     */
+    public LongHistogram(long highestTrackableValue, int precisionBits) {
+        if(highestTrackableValue<0L || precisionBits<1 || precisionBits>14) {
+            throw new IllegalArgumentException();
+        }
+
+        this.precisionBits = precisionBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.bucketCount = indexOf(highestTrackableValue, precisionBits) + 1;
+        this.stripes = new Stripe[]{new Stripe(bucketCount)};
+    }
+
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 记录 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Records a value.
+     *
+     * @param value the value to record
+     *
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    // 记录一个值
+    public void record(long value) {
+        record(value, 1L);
+    }
+
+    /**
+     * Records {@code count} occurrences of a value.
+     *
+     * @param value the value to record
+     * @param count the number of occurrences
+     *
+     * @throws IllegalArgumentException if {@code value} or {@code count} is
+     *                                  negative
+     */
+    // 记录count次值value
+    public void record(long value, long count) {
+        if(value<0L || count<0L) {
+            throw new IllegalArgumentException();
+        }
+        if(count == 0L) {
+            return;
+        }
+
+        int index = indexOf(Math.min(value, highestTrackableValue), precisionBits);
+
+        Stripe[] ss = stripes;
+        Stripe s = ss[Striped64.getProbe() & (ss.length - 1)];
+        if(s != null) {
+            long[] counts = s.counts;
+            long c = (long) COUNT.getVolatile(counts, index);
+            // 当前线程关联的分段上出现了争用
+            if(!COUNT.compareAndSet(counts, index, c, c + count)) {
+                s = null;
+            }
+        }
+
+        if(s == null) {
+            s = contendedStripe();
+            COUNT.getAndAdd(s.counts, index, count);
+        }
+
+        s.recordExtremes(value, count);
+    }
+
+    /*▲ 记录 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /*▼ 快照 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Returns a snapshot of the values recorded so far.
+     *
+     * @return a snapshot of this histogram
+     */
+    // 返回当前直方图的快照
+    public Snapshot snapshot() {
+        return merge(false);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded so far, and resets this
+     * histogram. Each recording is included in exactly one snapshot,
+     * although the minimum and maximum of a recording that races with
+     * the reset may be attributed to the next interval.
+     *
+     * @return a snapshot of this histogram before the reset
+     */
+    // 返回当前直方图的快照，并重置直方图
+    public Snapshot snapshotThenReset() {
+        return merge(true);
+    }
+
+    /**
+     * Resets this histogram. Like {@link LongAdder#reset}, this is
+     * only exact if there are no concurrent recordings.
+     */
+    // 重置直方图
+    public void reset() {
+        merge(true);
+    }
+
+    /*▲ 快照 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
+    /**
+     * Returns a String summarizing the current state of this histogram.
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    // 合并各个分段，必要时重置它们
+    private Snapshot merge(boolean reset) {
+        long[] counts = new long[bucketCount];
+        long sum = 0L;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for(Stripe s : stripes) {
+            if(s == null) {
+                continue;
+            }
+
+            long[] cs = s.counts;
+            for(int i = 0; i<cs.length; i++) {
+                // 跳过空桶，避免无谓的写操作
+                if((long) COUNT.getVolatile(cs, i) != 0L) {
+                    counts[i] += reset ? (long) COUNT.getAndSet(cs, i, 0L) : (long) COUNT.getVolatile(cs, i);
+                }
+            }
+
+            if(reset) {
+                sum += (long) Stripe.SUM.getAndSet(s, 0L);
+                min = Math.min(min, (long) Stripe.MIN.getAndSet(s, Long.MAX_VALUE));
+                max = Math.max(max, (long) Stripe.MAX.getAndSet(s, Long.MIN_VALUE));
+            } else {
+                sum += s.sum;
+                min = Math.min(min, s.min);
+                max = Math.max(max, s.max);
+            }
+        }
+
+        return new Snapshot(this, counts, sum, min, max);
+    }
+
+    /**
+     * Returns a stripe for a thread whose stripe was contended: adds
+     * stripes if there are fewer than processors, and moves the thread
+     * to another (possibly new) stripe.
+     */
+    // 当前线程关联的分段被争用，必要时扩充分段，然后为当前线程重新选择一个分段
+    private Stripe contendedStripe() {
+        int h = Striped64.getProbe();
+        if(h == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = Striped64.getProbe();
+        } else {
+            h = Striped64.advanceProbe(h);
+        }
+
+        Stripe[] ss = stripes;
+
+        // 分段数量小于处理器数量时，将分段数量加倍（新增的分段在用到时才创建）
+        if(ss.length<NCPU && stripesBusy == 0 && STRIPES_BUSY.compareAndSet(this, 0, 1)) {
+            try {
+                if(stripes == ss) {
+                    stripes = Arrays.copyOf(ss, ss.length << 1);
+                }
+            } finally {
+                stripesBusy = 0;
+            }
+        }
+
+        ss = stripes;
+        Stripe s = ss[h & (ss.length - 1)];
+        if(s != null) {
+            return s;
+        }
+
+        // 创建新的分段；如果无法获取锁，则暂时使用0号分段
+        if(stripesBusy == 0 && STRIPES_BUSY.compareAndSet(this, 0, 1)) {
+            try {
+                ss = stripes;
+                int i = h & (ss.length - 1);
+                if((s = ss[i]) == null) {
+                    ss[i] = s = new Stripe(bucketCount);
+                }
+                return s;
+            } finally {
+                stripesBusy = 0;
+            }
+        }
+
+        return ss[0];
+    }
+
+    /**
+     * Returns the bucket of a value: values below 2^(bits+1) have a
+     * bucket of their own, larger ones share a bucket with the values
+     * that agree in the top bits+1 bits.
+     */
+    // 计算value所在的桶
+    static int indexOf(long value, int bits) {
+        if(value<(2L << bits)) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - bits;
+        return (shift << bits) + (int) (value >>> shift);
+    }
+
+    // 返回桶中的最小值
+    static long lowestValueAt(int index, int bits) {
+        if(index<(2 << bits)) {
+            return index;
+        }
+        int shift = (index >>> bits) - 1;
+        long mantissa = (index & ((1 << bits) - 1)) + (1L << bits);
+        return mantissa << shift;
+    }
+
+    // 返回桶中的最大值
+    static long highestValueAt(int index, int bits) {
+        if(index<(2 << bits)) {
+            return index;
+        }
+        int shift = (index >>> bits) - 1;
+        return lowestValueAt(index, bits) + ((1L << shift) - 1L);
+    }
+
+
+
+    /**
+     * An immutable snapshot of a {@link LongHistogram}.
+     */
+    // 直方图的快照
+    public static final class Snapshot {
+        private final long[] counts;
+        private final int precisionBits;
+        private final long totalCount;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(LongHistogram histogram, long[] counts, long sum, long min, long max) {
+            long total = 0L;
+            for(long c : counts) {
+                total += c;
+            }
+
+            this.counts = counts;
+            this.precisionBits = histogram.precisionBits;
+            this.totalCount = total;
+            this.sum = sum;
+            this.min = total == 0L ? 0L : min;
+            this.max = total == 0L ? 0L : max;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         */
+        // 返回记录的值的数量
+        public long getCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the sum of the recorded values (not of their buckets),
+         * which wraps around like {@code long} addition on overflow.
+         */
+        // 返回记录的值之和
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Returns the smallest recorded value, or zero if none.
+         */
+        // 返回记录的最小值
+        public long getMin() {
+            return min;
+        }
+
+        /**
+         * Returns the largest recorded value, or zero if none.
+         */
+        // 返回记录的最大值
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the arithmetic mean of the recorded values, or zero if
+         * none.
+         */
+        // 返回记录的值的平均值
+        public double getAverage() {
+            return totalCount == 0L ? 0.0d : (double) sum / totalCount;
+        }
+
+        /**
+         * Returns the value below or at which the given percentage of the
+         * recorded values fall, within the precision of the histogram.
+         *
+         * @param percentile a percentage between 0 and 100
+         *
+         * @return the value at the given percentile, or zero if no values
+         * were recorded
+         *
+         * @throws IllegalArgumentException if {@code percentile} is out of
+         *                                  range
+         */
+        // 返回指定百分位上的值
+        public long getValueAtPercentile(double percentile) {
+            if(!(percentile >= 0.0d && percentile<=100.0d)) {
+                throw new IllegalArgumentException();
+            }
+            if(totalCount == 0L) {
+                return 0L;
+            }
+
+            long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0d * totalCount));
+            long seen = 0L;
+            for(int i = 0; i<counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank) {
+                    long value = highestValueAt(i, precisionBits);
+                    return Math.max(min, Math.min(value, max));
+                }
+            }
+
+            return max;
+        }
+
+        /**
+         * Returns the number of recorded values that were at most the
+         * given value, within the precision of the histogram.
+         *
+         * @param value the upper bound
+         *
+         * @return the number of values at or below {@code value}
+         */
+        // 返回不大于value的值的数量
+        public long getCountAtOrBelow(long value) {
+            if(value<0L) {
+                return 0L;
+            }
+
+            int last = indexOf(value, precisionBits);
+            long count = 0L;
+            for(int i = 0; i<=last && i<counts.length; i++) {
+                count += counts[i];
+            }
+            return count;
+        }
+
+        public String toString() {
+            return "LongHistogram.Snapshot[count = " + totalCount + ", min = " + min + ", average = " + getAverage() + ", max = " + max
+                + ", p50 = " + getValueAtPercentile(50) + ", p90 = " + getValueAtPercentile(90) + ", p99 = " + getValueAtPercentile(99)
+                + ", p99.9 = " + getValueAtPercentile(99.9) + "]";
+        }
+    }
+
+    /**
+     * A stripe of bucket counters plus the sum and extremes of the values
+     * recorded on it; padded to avoid false sharing with other stripes.
+     */
+    // 计数器分段
+    @jdk.internal.vm.annotation.Contended
+    static final class Stripe {
+        // 各个桶的计数
+        final long[] counts;
+        // 记录的值之和
+        volatile long sum;
+        // 记录的最小值
+        volatile long min = Long.MAX_VALUE;
+        // 记录的最大值
+        volatile long max = Long.MIN_VALUE;
+
+        Stripe(int bucketCount) {
+            counts = new long[bucketCount];
+        }
+
+        // 更新值之和以及最值
+        void recordExtremes(long value, long count) {
+            SUM.getAndAdd(this, value * count);
+
+            long m;
+            while(value<(m = min) && !MIN.weakCompareAndSet(this, m, value)) {
+                // retry
+            }
+            while(value>(m = max) && !MAX.weakCompareAndSet(this, m, value)) {
+                // retry
+            }
+        }
+
+        // VarHandle mechanics
+        static final VarHandle SUM;
+        static final VarHandle MIN;
+        static final VarHandle MAX;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                SUM = l.findVarHandle(Stripe.class, "sum", long.class);
+                MIN = l.findVarHandle(Stripe.class, "min", long.class);
+                MAX = l.findVarHandle(Stripe.class, "max", long.class);
+            } catch(ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+
+
+    // VarHandle mechanics
+    private static final VarHandle STRIPES_BUSY;
+    private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STRIPES_BUSY = l.findVarHandle(LongHistogram.class, "stripesBusy", int.class);
+        } catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+}
@@ -41,6 +41,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.LongBinaryOperator;
 
@@ -112,10 +113,30 @@ abstract class Striped64 extends Number {
      * It is possible for a Cell to become unused when threads that
      * once hashed to it terminate, as well as in the case where
      * doubling the table causes no thread to hash to it under
-     * expanded mask.  We do not try to detect or remove such cells,
-     * under the assumption that for long-running instances, observed
-     * contention levels will recur, so the cells will eventually be
-     * needed again; and for short-lived ones, it does not matter.
+     * expanded mask.  For LongAccumulator and DoubleAccumulator we do
+     * not try to detect or remove such cells, under the assumption
+     * that for long-running instances, observed contention levels
+     * will recur, so the cells will eventually be needed again; and
+     * for short-lived ones, it does not matter.
+     *
+     * The adders, however, are commonly kept by the thousands as
+     * metrics, where a burst of contention would otherwise pin a
+     * padded table of up to NCPU cells per adder forever. They
+     * therefore contract the table once it has gone idle (see
+     * contractIfIdle): whenever a sum is requested, at most once per
+     * CONTRACT_CHECK_NANOS, the cell values are compared with those
+     * seen at the previous check. If none has changed for at least
+     * CONTRACT_DELAY_NANOS, each cell is marked retired, its value is
+     * moved into base, and the table is dropped, so that updates go
+     * to base again until contention recurs. An updater still
+     * holding a stale table may CAS a retired cell after its value
+     * was moved; every successful cell CAS is therefore followed by
+     * a check of the retired flag, and the updater moves the value
+     * itself (see salvage). Because the flag is set before the value
+     * is taken, each update is moved into base exactly once. A sum
+     * racing with a contraction may transiently miss or double count
+     * the moved values, which is within the (non-atomic) contract of
+     * sum.
      */
     
     /** Number of CPUS, to place bound on table size */
@@ -144,6 +165,26 @@ abstract class Striped64 extends Number {
     // 自旋锁，标记cells是否处于繁忙（被操作）状态，繁忙是1，不忙是0
     transient volatile int cellsBusy;
     
+    /** Minimum time between two idle checks of the cells */
+    // 两次闲置检查之间的最小间隔
+    static final long CONTRACT_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    
+    /** Time the cells must stay unchanged before they are contracted */
+    // cells保持不变多久之后才会被收缩
+    static final long CONTRACT_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1L);
+    
+    /** Cell values seen by the previous idle check; guarded by cellsBusy */
+    // 上次闲置检查时记录的cell值
+    transient long[] idleValues;
+    
+    /** Time since which the cells are known to be unchanged */
+    // cells自此时刻起没有发生变化
+    transient long idleSince;
+    
+    /** Time of the previous idle check */
+    // 上次闲置检查的时间
+    transient long lastIdleCheck;
+    
     // VarHandle mechanics
     private static final VarHandle BASE;
     private static final VarHandle CELLSBUSY;
@@ -282,6 +323,10 @@ abstract class Striped64 extends Number {
                     
                     // 如果当前线程关联的cell不为null，尝试更新其【操作系数】（wasUncontended已经为true）
                 } else if(c.cas(v = c.value, (fn == null) ? v + x : fn.applyAsLong(v, x))) {
+                    // 该cell刚刚被收缩了，需要将更新转移到基值中
+                    if(c.retired) {
+                        salvage(c, false);
+                    }
                     break;
                     
                     // 如果cell的数量已经超过了虚拟机可用的处理器数量，或者，cells被别的线程扩容了，则不需要纠结碰撞的问题
@@ -405,6 +450,10 @@ abstract class Striped64 extends Number {
                     
                     // 如果当前线程关联的cell不为null，尝试更新其【操作系数】（wasUncontended已经为true）
                 } else if(c.cas(v = c.value, apply(fn, v, x))) {
+                    // 该cell刚刚被收缩了，需要将更新转移到基值中
+                    if(c.retired) {
+                        salvage(c, true);
+                    }
                     break;
                     
                     // 如果cell的数量已经超过了虚拟机可用的处理器数量，或者，cells被别的线程扩容了，则不需要纠结碰撞的问题
@@ -466,6 +515,93 @@ abstract class Striped64 extends Number {
         }
     }
     
+    /**
+     * Contracts the table if no cell has changed for at least
+     * CONTRACT_DELAY_NANOS: the cells are retired, their values are
+     * added to base and the table is dropped. Does nothing if the
+     * cells were checked recently or are busy. Only for the adders,
+     * whose values are combined by addition.
+     *
+     * @param isDouble whether the values are double bits
+     */
+    // 如果cells闲置了足够长的时间，则将其中的值合并到基值中，并丢弃cells（仅用于加法器）
+    final void contractIfIdle(boolean isDouble) {
+        long now = System.nanoTime();
+        
+        // 距上次检查的时间太短，或者cells繁忙
+        if(now - lastIdleCheck<CONTRACT_CHECK_NANOS || cellsBusy != 0 || !casCellsBusy()) {
+            return;
+        }
+        
+        try {
+            lastIdleCheck = now;
+            
+            Cell[] cs = cells;
+            if(cs == null) {
+                idleValues = null;
+                return;
+            }
+            
+            long[] seen = idleValues;
+            boolean unchanged = seen != null && seen.length == cs.length;
+            if(!unchanged) {
+                seen = idleValues = new long[cs.length];
+            }
+            
+            // 与上次检查时记录的值比较，并记录本次的值
+            for(int i = 0; i<cs.length; i++) {
+                Cell c = cs[i];
+                long v = (c == null) ? 0L : c.value;
+                if(seen[i] != v) {
+                    seen[i] = v;
+                    unchanged = false;
+                }
+            }
+            
+            if(!unchanged) {
+                idleSince = now;
+                return;
+            }
+            
+            if(now - idleSince<CONTRACT_DELAY_NANOS) {
+                return;
+            }
+            
+            // 先标记cell已退役，再取走其中的值，保证每个更新只会被转移一次
+            for(Cell c : cs) {
+                if(c != null) {
+                    c.retired = true;
+                    salvage(c, isDouble);
+                }
+            }
+            
+            cells = null;
+            idleValues = null;
+        } finally {
+            cellsBusy = 0;
+        }
+    }
+    
+    /**
+     * Moves the value of a retired cell into base.
+     */
+    // 将已退役cell中的值转移到基值中
+    final void salvage(Cell c, boolean isDouble) {
+        // 0L也是0.0d的二进制格式
+        long x = c.getAndSet(0L);
+        if(x == 0L) {
+            return;
+        }
+        
+        for(; ; ) {
+            long b = base;
+            long r = isDouble ? Double.doubleToRawLongBits(Double.longBitsToDouble(b) + Double.longBitsToDouble(x)) : b + x;
+            if(casBase(b, r)) {
+                return;
+            }
+        }
+    }
+    
     // 使用fn处理v和x（v要先转换为double，返回值也代表double）
     private static long apply(DoubleBinaryOperator fn, long v, double x) {
         // 先计算v的二进制格式，然后返回该二进制格式表示的double
@@ -488,6 +624,10 @@ abstract class Striped64 extends Number {
         // 【操作系数】，参见cells参数
         volatile long value;
         
+        /** Set once the cell has been dropped by a contraction */
+        // 该cell是否已被收缩（退役）
+        volatile boolean retired;
+        
         // VarHandle mechanics
         private static final VarHandle VALUE;
         static {
@@ -100,8 +100,8 @@ import java.util.concurrent.TimeUnit;
  * synchronization mechanics.
  *
  * <p>Serialization of this class stores only the underlying atomic
- * integer maintaining state, so deserialized objects have empty
- * thread queues. Typical subclasses requiring serializability will
+ * integer maintaining state and the adaptive spinning setting, so
+ * deserialized objects have empty thread queues. Typical subclasses requiring serializability will
  * define a {@code readObject} method that restores this to a known
  * initial state upon deserialization.
  *
@@ -332,6 +332,25 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
     // 重入锁计数/许可证数量，在不同的锁中，使用方式有所不同
     private volatile int state;
 
+    /** Number of CPUS, spinning is pointless on a uniprocessor */
+    // 虚拟机可用的处理器数量，单处理器上自旋没有意义
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Upper bound on the number of spins before parking */
+    // 阻塞之前自旋次数的上限
+    static final int MAX_ADAPTIVE_SPINS = 1 << 10;
+
+    /** Whether the first queued thread spins before parking */
+    // 是否启用自适应自旋（随同步器一起序列化）
+    private volatile boolean adaptiveSpinning;
+
+    /**
+     * Running average of the spins that successful spinning acquires
+     * needed; racy updates are harmless as it is only a hint.
+     */
+    // 近期自旋成功时所需自旋次数的均值，用于估计锁的持有时间（仅作为提示，不需要精确）
+    private transient int spinEstimate;
+
     // VarHandle mechanics
     private static final VarHandle STATE;   // 保存字段 state 的内存地址
     private static final VarHandle HEAD;    // 保存字段 head  的内存地址
@@ -369,6 +388,44 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
 
 
 
+    /*▼ 自适应自旋 ████████████████████████████████████████████████████████████████████████████████┓ */
+
+    /**
+     * Sets whether a thread that reaches the front of the queue and
+     * fails to acquire spins for a while, retrying the acquire, before
+     * it parks. The number of spins adapts to this synchronizer: it
+     * follows a running average of the spins that recent successful
+     * spinning acquires needed, which approximates how long the
+     * synchronizer is usually held, and it decays when spinning does
+     * not pay off. Spinning avoids a park/unpark round trip when the
+     * synchronizer is held only briefly under moderate contention, at
+     * the cost of some CPU time. It is never used on a uniprocessor.
+     *
+     * <p>This method is intended to be called by subclasses on
+     * construction, for example to implement a constructor option.
+     * The setting is serialized along with the synchronization state.
+     *
+     * @param enabled {@code true} to spin before parking
+     */
+    // 设置是否启用自适应自旋：排在队首的线程抢锁失败后，先自旋一段时间再阻塞，自旋次数会根据该锁近期的持有时间自动调整
+    protected final void setAdaptiveSpinning(boolean enabled) {
+        adaptiveSpinning = enabled;
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     */
+    // 判断是否启用了自适应自旋
+    protected final boolean isAdaptiveSpinning() {
+        return adaptiveSpinning;
+    }
+
+    /*▲ 自适应自旋 ████████████████████████████████████████████████████████████████████████████████┛ */
+
+
+
     /*▼ 独占锁 ████████████████████████████████████████████████████████████████████████████████┓ */
 
     /* 申请 ▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼▼  */
@@ -464,7 +521,8 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 // 如果node结点目前排在了队首，则node线程有权利申请锁
                 if (p == head) {
                     // 再次尝试申请锁
-                    if (tryAcquire(arg)) {
+                    // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                    if (tryAcquire(arg) || spinForAcquire(p, arg, false, false, 0L)) {
                         // 设置node为头结点（即丢掉了原来的头结点,所有内容置空）
                         setHead(node);
 
@@ -551,7 +609,8 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 // 如果node结点目前排在了队首，则node线程有权利申请锁
                 if (p == head) {
                     // 尝试申请锁
-                    if (tryAcquire(arg)) {
+                    // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                    if (tryAcquire(arg) || spinForAcquire(p, arg, true, false, 0L)) {
                         // 设置node为头结点（即丢掉了原来的头结点）
                         setHead(node);
                         // 切断旧的头结点与后一个结点的联系，以便GC
@@ -644,7 +703,8 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 // 如果node结点目前排在了队首，则node线程有权利申请锁
                 if (p == head) {
                     // 尝试申请独占锁
-                    if (tryAcquire(arg)) {
+                    // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                    if (tryAcquire(arg) || spinForAcquire(p, arg, true, true, deadline)) {
                         // 设置node为头结点（即丢掉了原来的头结点）
                         setHead(node);
                         // 切断旧的头结点与后一个结点的联系，以便GC
@@ -833,6 +893,10 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 if (p == head) {
                     // 再次尝试申请锁
                     int r = tryAcquireShared(arg);
+                    if (r < 0) {
+                        // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                        r = spinForAcquireShared(p, arg, false, false, 0L);
+                    }
                     if (r >= 0) {
                         // 更新头结点为node，并为其设置Node.PROPAGATE标记，或唤醒其后续结点
                         setHeadAndPropagate(node, r);
@@ -916,6 +980,10 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 if (p == head) {
                     // 尝试申请锁
                     int r = tryAcquireShared(arg);
+                    if (r < 0) {
+                        // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                        r = spinForAcquireShared(p, arg, true, false, 0L);
+                    }
                     if (r >= 0) {
                         // 更新头结点为node，并为其设置Node.PROPAGATE标记，或唤醒其后续结点
                         setHeadAndPropagate(node, r);
@@ -1008,6 +1076,10 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
                 if (p == head) {
                     // 尝试申请锁
                     int r = tryAcquireShared(arg);
+                    if (r < 0) {
+                        // 抢锁失败时，如果启用了自适应自旋，则先自旋一段时间再阻塞
+                        r = spinForAcquireShared(p, arg, true, true, deadline);
+                    }
                     if (r >= 0) {
                         // 更新头结点为node，并为其设置Node.PROPAGATE标记，或唤醒其后续结点
                         setHeadAndPropagate(node, r);
@@ -1924,6 +1996,88 @@ public abstract class AbstractQueuedSynchronizer extends AbstractOwnableSynchron
         Thread.currentThread().interrupt();
     }
 
+    /**
+     * Spins for a while retrying an exclusive acquire, if adaptive
+     * spinning is enabled. Only called by the first queued thread, and
+     * only once its predecessor is signalled, so that every park is
+     * preceded by a single round of spinning. Interruptible acquires stop
+     * spinning once the thread is interrupted, and timed acquires once the
+     * deadline has passed, leaving both to the caller.
+     *
+     * @return {@code true} if acquired
+     */
+    // 如果启用了自适应自旋，则自旋一段时间并不断尝试申请独占锁，返回值表示是否申请成功
+    private boolean spinForAcquire(Node pred, int arg, boolean interruptible, boolean timed, long deadline) {
+        if (!adaptiveSpinning || NCPU < 2 || pred.waitStatus != Node.SIGNAL) {
+            return false;
+        }
+
+        int limit = spinLimit();
+        for (int spins = 1; spins <= limit; spins++) {
+            Thread.onSpinWait();
+            if (spinAborted(interruptible, timed, deadline)) {
+                return false;
+            }
+            if (tryAcquire(arg)) {
+                spinSucceeded(spins);
+                return true;
+            }
+        }
+
+        spinFailed();
+        return false;
+    }
+
+    /**
+     * Shared-mode analog of spinForAcquire.
+     *
+     * @return the last result of tryAcquireShared
+     */
+    // 如果启用了自适应自旋，则自旋一段时间并不断尝试申请共享锁，返回最后一次申请的结果
+    private int spinForAcquireShared(Node pred, int arg, boolean interruptible, boolean timed, long deadline) {
+        if (!adaptiveSpinning || NCPU < 2 || pred.waitStatus != Node.SIGNAL) {
+            return -1;
+        }
+
+        int limit = spinLimit();
+        for (int spins = 1; spins <= limit; spins++) {
+            Thread.onSpinWait();
+            if (spinAborted(interruptible, timed, deadline)) {
+                return -1;
+            }
+            int r = tryAcquireShared(arg);
+            if (r >= 0) {
+                spinSucceeded(spins);
+                return r;
+            }
+        }
+
+        spinFailed();
+        return -1;
+    }
+
+    // 判断是否应当提前结束自旋：可中断的申请中线程已被中断，或限时的申请已经超时；中断标记留给调用者处理
+    private static boolean spinAborted(boolean interruptible, boolean timed, long deadline) {
+        return (interruptible && Thread.currentThread().isInterrupted()) || (timed && deadline - System.nanoTime() <= 0L);
+    }
+
+    // 本轮自旋次数的上限：允许比近期均值多自旋一倍，并保留少量试探
+    private int spinLimit() {
+        return Math.min(MAX_ADAPTIVE_SPINS, (spinEstimate << 1) + 16);
+    }
+
+    // 自旋成功，将本次自旋次数计入均值
+    private void spinSucceeded(int spins) {
+        int estimate = spinEstimate;
+        spinEstimate = estimate + (spins - estimate) / 8;
+    }
+
+    // 自旋失败，说明锁的持有时间较长，缩减均值
+    private void spinFailed() {
+        int estimate = spinEstimate;
+        spinEstimate = estimate - (estimate >>> 1);
+    }
+
     /**
      * Checks and updates status for a node that failed to acquire.
      * Returns true if thread should block. This is the main signal
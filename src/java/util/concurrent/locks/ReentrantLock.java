@@ -151,6 +151,28 @@ public class ReentrantLock implements Lock, Serializable {
         sync = fair ? new FairSync() : new NonfairSync();
     }
 
+    /**
+     * Creates an instance of {@code ReentrantLock} with the
+     * given fairness and spinning policies.
+     *
+     * <p>With adaptive spinning, a thread that reaches the front of the
+     * wait queue spins for a while before it blocks, for about as long as
+     * this lock has recently been held. This avoids the cost of blocking
+     * and unblocking when critical sections are short, at the expense of
+     * some CPU time. See {@link
+     * AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+     *
+     * @param fair             {@code true} if this lock should use a fair
+     *                         ordering policy
+     * @param adaptiveSpinning {@code true} if waiting threads should spin
+     *                         adaptively before blocking
+     */
+    // 创建一个锁，fair决定锁是公平锁还是非公平锁，adaptiveSpinning决定排队线程阻塞之前是否先自适应地自旋
+    public ReentrantLock(boolean fair, boolean adaptiveSpinning) {
+        this(fair);
+        sync.setAdaptiveSpinning(adaptiveSpinning);
+    }
+
     /*▲ 构造方法 ████████████████████████████████████████████████████████████████████████████████┛ */
 
 
@@ -414,6 +436,17 @@ public class ReentrantLock implements Lock, Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Returns {@code true} if waiting threads spin adaptively before
+     * blocking.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     */
+    // 是否启用了自适应自旋
+    public final boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
     /**
      * Queries whether any threads are waiting to acquire this lock. Note that
      * because cancellations may occur at any time, a {@code true}
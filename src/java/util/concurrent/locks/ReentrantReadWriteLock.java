@@ -247,7 +247,26 @@ public class ReentrantReadWriteLock implements ReadWriteLock, Serializable {
      * @param fair {@code true} if this lock should use a fair ordering policy
      */
     public ReentrantReadWriteLock(boolean fair) {
+        this(fair, false);
+    }
+    
+    /**
+     * Creates a new {@code ReentrantReadWriteLock} with
+     * the given fairness and spinning policies.
+     *
+     * <p>With adaptive spinning, a reader or writer that reaches the
+     * front of the wait queue spins for a while before it blocks, for
+     * about as long as this lock has recently been held. See {@link
+     * AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+     *
+     * @param fair             {@code true} if this lock should use a fair
+     *                         ordering policy
+     * @param adaptiveSpinning {@code true} if waiting threads should spin
+     *                         adaptively before blocking
+     */
+    public ReentrantReadWriteLock(boolean fair, boolean adaptiveSpinning) {
         sync = fair ? new FairSync() : new NonfairSync();
+        sync.setAdaptiveSpinning(adaptiveSpinning);
         readerLock = new ReadLock(this);
         writerLock = new WriteLock(this);
     }
@@ -277,6 +296,17 @@ public class ReentrantReadWriteLock implements ReadWriteLock, Serializable {
         return sync instanceof FairSync;
     }
     
+    /**
+     * Returns {@code true} if waiting threads spin adaptively before
+     * blocking.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     */
+    // 判断是否启用了自适应自旋
+    public final boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+    
     /**
      * Queries whether any threads are waiting to acquire the read or
      * write lock. Note that because cancellations may occur at any
@@ -26,6 +26,8 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -143,6 +145,12 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
      */
     private boolean parallel;                       // 是否并行执行
     
+    /**
+     * The pool in which a parallel pipeline is evaluated, or null to use
+     * the common pool; only valid for the source stage.
+     */
+    private ForkJoinPool pool;                      // 并行流的执行线程池，为null时使用共享线程池
+    
     /**
      * The number of intermediate operations between this pipeline object
      * and the stream source if sequential, or the previous stateful if parallel.
@@ -637,6 +645,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
     @SuppressWarnings("unchecked")
     public final S sequential() {
         sourceStage.parallel = false;
+        sourceStage.pool = null;
         return (S) this;
     }
     
@@ -645,6 +654,17 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
     @SuppressWarnings("unchecked")
     public final S parallel() {
         sourceStage.parallel = true;
+        sourceStage.pool = null;
+        return (S) this;
+    }
+    
+    // 中间操作：将当前流设置为并行流后返回，终端操作会在指定的线程池中执行
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        sourceStage.parallel = true;
+        sourceStage.pool = pool;
         return (S) this;
     }
     
@@ -670,6 +690,19 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         
         linkedOrConsumed = true;
         
+        // 如果为并行流指定了线程池，则转到该线程池中执行
+        ForkJoinPool pool = evaluationPool();
+        if(pool != null) {
+            return pool.invoke(ForkJoinTask.adapt(() -> doEvaluateToArrayNode(generator)));
+        }
+        
+        return doEvaluateToArrayNode(generator);
+    }
+    
+    // 收集当前阶段输出的元素，参见evaluateToArrayNode()
+    @SuppressWarnings("unchecked")
+    private Node<E_OUT> doEvaluateToArrayNode(IntFunction<E_OUT[]> generator) {
+        
         /*
          * If the last intermediate operation is stateful
          * then evaluate directly to avoid an extra collection step
@@ -725,6 +758,17 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         // 指示当前阶段已经与下一个阶段建立了链接
         linkedOrConsumed = true;
         
+        // 如果为并行流指定了线程池，则转到该线程池中执行
+        ForkJoinPool pool = evaluationPool();
+        if(pool != null) {
+            return pool.invoke(ForkJoinTask.adapt(() -> doEvaluate(terminalOp)));
+        }
+        
+        return doEvaluate(terminalOp);
+    }
+    
+    // 执行一个终端操作，返回执行结果，参见evaluate(TerminalOp)
+    private <R> R doEvaluate(TerminalOp<E_OUT, R> terminalOp) {
         // 获取当前终端操作上的组合参数
         int terminalFlags = terminalOp.getOpFlags();
         
@@ -857,6 +901,23 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         return sourceStage.parallel;
     }
     
+    /**
+     * Returns the pool in which a parallel evaluation must be started, or
+     * null if the evaluation can proceed in the current thread, either
+     * because no pool was requested or because the current thread already
+     * belongs to it. Subtasks forked from a worker stay in its pool, and
+     * {@link AbstractTask#getLeafTarget()} picks up its parallelism.
+     */
+    // 返回并行流需要转入的执行线程池；如果未指定线程池，或者当前线程已属于该线程池，则返回null
+    private ForkJoinPool evaluationPool() {
+        ForkJoinPool pool = sourceStage.pool;
+        if(pool == null || !sourceStage.parallel || ForkJoinTask.getPool() == pool) {
+            return null;
+        }
+        
+        return pool;
+    }
+    
     /**
      * Returns whether this operation is stateful or not.  If it is stateful,
      * then the method
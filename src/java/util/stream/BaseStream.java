@@ -25,7 +25,9 @@
 package java.util.stream;
 
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Base interface for streams, which are sequences of elements supporting sequential and parallel aggregate operations.
@@ -133,6 +135,37 @@ public interface BaseStream<T, S extends BaseStream<T, S>> extends AutoCloseable
     // 中间操作：将当前流设置为并行流后返回
     S parallel();
     
+    /**
+     * Returns an equivalent stream that is parallel and whose terminal
+     * operation runs its fork-join subtasks in the given pool instead of
+     * the {@linkplain ForkJoinPool#commonPool() common pool}. The
+     * parallelism of {@code pool} also determines how finely the source is
+     * split. This isolates CPU-heavy pipelines from other work that shares
+     * the common pool. A later call to {@link #parallel()} or
+     * {@link #sequential()} discards the pool.
+     *
+     * <p>The pool applies to terminal operations. The {@link #iterator()}
+     * and {@link #spliterator()} escape hatches traverse the stream lazily
+     * in the calling thread, as before.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @param pool the pool in which to evaluate the stream
+     *
+     * @return a parallel stream
+     *
+     * @throws NullPointerException if {@code pool} is null
+     * @implSpec The default implementation ignores {@code pool} and returns
+     * {@link #parallel()}.
+     * @since 11
+     */
+    // 中间操作：将当前流设置为并行流后返回，终端操作会在指定的线程池中执行
+    default S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        return parallel();
+    }
+    
     /**
      * Returns an equivalent stream with an additional close handler.  Close
      * handlers are run when the {@link #close()} method
@@ -34,9 +34,14 @@ import java.util.DoubleSummaryStatistics;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IntIntHashMap;
+import java.util.IntLongHashMap;
+import java.util.IntObjectHashMap;
 import java.util.IntSummaryStatistics;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LongLongHashMap;
+import java.util.LongObjectHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
@@ -1959,6 +1964,272 @@ public final class Collectors {
     
     
     
+    /*▼ 基本类型分类 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and returning the results
+     * in an {@link IntObjectHashMap}.
+     *
+     * <p>This behaves like {@link #groupingBy(Function)}, except that the
+     * classification keys are never boxed.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingBy(Function)
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 11
+     */
+    // 按int特征值对上游数据分类，分类容器为IntObjectHashMap，每个类别的数据收集到List中
+    public static <T> Collector<T, ?, IntObjectHashMap<List<T>>> groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code int}-valued classification function, and then
+     * performing a reduction operation on the values associated with a given
+     * key using the specified downstream {@code Collector}.
+     *
+     * <p>For example, to count the words of each length:
+     * <pre>{@code
+     * IntObjectHashMap<Long> countsByLength
+     *   = words.stream().collect(groupingByInt(String::length, counting()));
+     * }</pre>
+     * When only counts or sums are needed, {@link #countingByInt} and
+     * {@link #summingLongByKey} avoid the boxed downstream result as well.
+     *
+     * @param <T>        the type of the input elements
+     * @param <A>        the intermediate accumulation type of the downstream collector
+     * @param <D>        the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     *
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @implNote For parallel stream pipelines, the {@code combiner} function
+     * merges the smaller of the two partial maps into the larger one.
+     * @see #groupingBy(Function, Collector)
+     * @since 11
+     */
+    // 按int特征值对上游数据分类，分类容器为IntObjectHashMap，每个类别的数据由downstream收集
+    public static <T, A, D> Collector<T, ?, IntObjectHashMap<D>> groupingByInt(ToIntFunction<? super T> classifier, Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        
+        BiConsumer<IntObjectHashMap<A>, T> accumulator = (map, t) -> {
+            A container = map.computeIfAbsent(classifier.applyAsInt(t), key -> downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        
+        BinaryOperator<IntObjectHashMap<A>> combiner = intMapMerger(downstream.combiner());
+        
+        Supplier<IntObjectHashMap<A>> supplier = IntObjectHashMap::new;
+        
+        // 如果downstream指示不需要执行收尾操作，则这里可以直接构造收集器了
+        if(downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(supplier, accumulator, combiner, CH_ID);
+        }
+        
+        Function<A, D> downstreamFinisher = downstream.finisher();
+        
+        // 使用downstream中的收尾操作处理容器中的元素（仅替换已有key的值，不会引起结构变化）
+        Function<IntObjectHashMap<A>, IntObjectHashMap<D>> finisher = intermediate -> {
+            @SuppressWarnings("unchecked")
+            IntObjectHashMap<Object> map = (IntObjectHashMap<Object>) (IntObjectHashMap<?>) intermediate;
+            intermediate.forEach((v, k) -> map.put(k, downstreamFinisher.apply(v)));
+            @SuppressWarnings("unchecked")
+            IntObjectHashMap<D> castResult = (IntObjectHashMap<D>) (IntObjectHashMap<?>) intermediate;
+            return castResult;
+        };
+        
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher, CH_NOID);
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and returning the results
+     * in a {@link LongObjectHashMap}.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction)
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @since 11
+     */
+    // 按long特征值对上游数据分类，分类容器为LongObjectHashMap，每个类别的数据收集到List中
+    public static <T> Collector<T, ?, LongObjectHashMap<List<T>>> groupingByLong(ToLongFunction<? super T> classifier) {
+        return groupingByLong(classifier, toList());
+    }
+    
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to a {@code long}-valued classification function, and then
+     * performing a reduction operation on the values associated with a given
+     * key using the specified downstream {@code Collector}.
+     *
+     * @param <T>        the type of the input elements
+     * @param <A>        the intermediate accumulation type of the downstream collector
+     * @param <D>        the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     *
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @implNote For parallel stream pipelines, the {@code combiner} function
+     * merges the smaller of the two partial maps into the larger one.
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 11
+     */
+    // 按long特征值对上游数据分类，分类容器为LongObjectHashMap，每个类别的数据由downstream收集
+    public static <T, A, D> Collector<T, ?, LongObjectHashMap<D>> groupingByLong(ToLongFunction<? super T> classifier, Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        
+        BiConsumer<LongObjectHashMap<A>, T> accumulator = (map, t) -> {
+            A container = map.computeIfAbsent(classifier.applyAsLong(t), key -> downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        
+        BinaryOperator<LongObjectHashMap<A>> combiner = longMapMerger(downstream.combiner());
+        
+        Supplier<LongObjectHashMap<A>> supplier = LongObjectHashMap::new;
+        
+        // 如果downstream指示不需要执行收尾操作，则这里可以直接构造收集器了
+        if(downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(supplier, accumulator, combiner, CH_ID);
+        }
+        
+        Function<A, D> downstreamFinisher = downstream.finisher();
+        
+        // 使用downstream中的收尾操作处理容器中的元素（仅替换已有key的值，不会引起结构变化）
+        Function<LongObjectHashMap<A>, LongObjectHashMap<D>> finisher = intermediate -> {
+            @SuppressWarnings("unchecked")
+            LongObjectHashMap<Object> map = (LongObjectHashMap<Object>) (LongObjectHashMap<?>) intermediate;
+            intermediate.forEach((v, k) -> map.put(k, downstreamFinisher.apply(v)));
+            @SuppressWarnings("unchecked")
+            LongObjectHashMap<D> castResult = (LongObjectHashMap<D>) (LongObjectHashMap<?>) intermediate;
+            return castResult;
+        };
+        
+        return new CollectorImpl<>(supplier, accumulator, combiner, finisher, CH_NOID);
+    }
+    
+    /**
+     * Returns a {@code Collector} that counts the input elements of type
+     * {@code T} for each {@code int}-valued key. The counts are kept as
+     * primitive {@code long}s in an {@link IntLongHashMap}, so no boxing
+     * happens per element, unlike
+     * {@code groupingBy(classifier, counting())}.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} that counts the input elements per key
+     *
+     * @see #counting()
+     * @see IntStream#countByValue()
+     * @since 11
+     */
+    // 按int特征值对上游数据分类并计数，计数结果以long形式存放在IntLongHashMap中
+    public static <T> Collector<T, ?, IntLongHashMap> countingByInt(ToIntFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<>(IntLongHashMap::new, (map, t) -> map.merge(classifier.applyAsInt(t), 1L, Long::sum), Collectors::mergeIntLongMaps, CH_UNORDERED_ID);
+    }
+    
+    /**
+     * Returns a {@code Collector} that counts the input elements of type
+     * {@code T} for each {@code long}-valued key, keeping the counts in a
+     * {@link LongLongHashMap}.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     *
+     * @return a {@code Collector} that counts the input elements per key
+     *
+     * @see #countingByInt(ToIntFunction)
+     * @see LongStream#countByValue()
+     * @since 11
+     */
+    // 按long特征值对上游数据分类并计数，计数结果以long形式存放在LongLongHashMap中
+    public static <T> Collector<T, ?, LongLongHashMap> countingByLong(ToLongFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<>(LongLongHashMap::new, (map, t) -> map.merge(classifier.applyAsLong(t), 1L, Long::sum), Collectors::mergeLongLongMaps, CH_UNORDERED_ID);
+    }
+    
+    /**
+     * Returns a {@code Collector} that sums an integer-valued function of
+     * the input elements for each {@code int}-valued key. The sums are kept
+     * as primitive {@code int}s in an {@link IntIntHashMap}; like
+     * {@link #summingInt}, they silently overflow.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper     a function extracting the property to be summed
+     *
+     * @return a {@code Collector} that produces the sum of a derived property per key
+     *
+     * @see #summingInt(ToIntFunction)
+     * @since 11
+     */
+    // 按int特征值对上游数据分类，并对每个类别中由mapper提取的int值求和
+    public static <T> Collector<T, ?, IntIntHashMap> summingIntByKey(ToIntFunction<? super T> classifier, ToIntFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        
+        BinaryOperator<IntIntHashMap> combiner = (m1, m2) -> {
+            IntIntHashMap big = m1.size() >= m2.size() ? m1 : m2;
+            IntIntHashMap small = big == m1 ? m2 : m1;
+            int[] ks = small.keys();
+            int[] vs = small.values();
+            for(int i = 0; i<ks.length; i++) {
+                big.merge(ks[i], vs[i], Integer::sum);
+            }
+            return big;
+        };
+        
+        return new CollectorImpl<>(IntIntHashMap::new, (map, t) -> map.merge(classifier.applyAsInt(t), mapper.applyAsInt(t), Integer::sum), combiner, CH_UNORDERED_ID);
+    }
+    
+    /**
+     * Returns a {@code Collector} that sums a long-valued function of the
+     * input elements for each {@code int}-valued key, keeping the sums as
+     * primitive {@code long}s in an {@link IntLongHashMap}.
+     *
+     * @param <T>        the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper     a function extracting the property to be summed
+     *
+     * @return a {@code Collector} that produces the sum of a derived property per key
+     *
+     * @see #summingLong(ToLongFunction)
+     * @since 11
+     */
+    // 按int特征值对上游数据分类，并对每个类别中由mapper提取的long值求和
+    public static <T> Collector<T, ?, IntLongHashMap> summingLongByKey(ToIntFunction<? super T> classifier, ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<>(IntLongHashMap::new, (map, t) -> map.merge(classifier.applyAsInt(t), mapper.applyAsLong(t), Long::sum), Collectors::mergeIntLongMaps, CH_UNORDERED_ID);
+    }
+    
+    /*▲ 基本类型分类 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
     /*▼ 二元分组 ████████████████████████████████████████████████████████████████████████████████┓ */
     
     /**
@@ -2851,6 +3122,66 @@ public final class Collectors {
         };
     }
     
+    // 合并两个IntObjectHashMap：将较小的Map并入较大的Map，key出现重复时使用mergeFunction按左右顺序归并value
+    private static <A> BinaryOperator<IntObjectHashMap<A>> intMapMerger(BinaryOperator<A> mergeFunction) {
+        return (m1, m2) -> {
+            if(m1.size() >= m2.size()) {
+                m2.forEach((v, k) -> {
+                    A old = m1.get(k);
+                    m1.put(k, old == null ? v : mergeFunction.apply(old, v));
+                });
+                return m1;
+            }
+            m1.forEach((v, k) -> {
+                A old = m2.get(k);
+                m2.put(k, old == null ? v : mergeFunction.apply(v, old));
+            });
+            return m2;
+        };
+    }
+    
+    // 合并两个LongObjectHashMap：将较小的Map并入较大的Map，key出现重复时使用mergeFunction按左右顺序归并value
+    private static <A> BinaryOperator<LongObjectHashMap<A>> longMapMerger(BinaryOperator<A> mergeFunction) {
+        return (m1, m2) -> {
+            if(m1.size() >= m2.size()) {
+                m2.forEach((v, k) -> {
+                    A old = m1.get(k);
+                    m1.put(k, old == null ? v : mergeFunction.apply(old, v));
+                });
+                return m1;
+            }
+            m1.forEach((v, k) -> {
+                A old = m2.get(k);
+                m2.put(k, old == null ? v : mergeFunction.apply(v, old));
+            });
+            return m2;
+        };
+    }
+    
+    // 合并两个计数表：将较小的表累加到较大的表中，返回较大的表
+    static IntLongHashMap mergeIntLongMaps(IntLongHashMap m1, IntLongHashMap m2) {
+        IntLongHashMap big = m1.size() >= m2.size() ? m1 : m2;
+        IntLongHashMap small = big == m1 ? m2 : m1;
+        int[] ks = small.keys();
+        long[] vs = small.values();
+        for(int i = 0; i<ks.length; i++) {
+            big.merge(ks[i], vs[i], Long::sum);
+        }
+        return big;
+    }
+    
+    // 合并两个计数表：将较小的表累加到较大的表中，返回较大的表
+    static LongLongHashMap mergeLongLongMaps(LongLongHashMap m1, LongLongHashMap m2) {
+        LongLongHashMap big = m1.size() >= m2.size() ? m1 : m2;
+        LongLongHashMap small = big == m1 ? m2 : m1;
+        long[] ks = small.keys();
+        long[] vs = small.values();
+        for(int i = 0; i<ks.length; i++) {
+            big.merge(ks[i], vs[i], Long::sum);
+        }
+        return big;
+    }
+    
     // 将identity包装到数组后返回
     @SuppressWarnings("unchecked")
     private static <T> Supplier<T[]> boxSupplier(T identity) {
@@ -415,6 +415,12 @@ abstract class DoublePipeline<E_IN> extends AbstractPipeline<E_IN, Double, Doubl
         return WhileOps.makeDropWhileDouble(this, predicate);
     }
     
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    @Override
+    public final DoubleStream scan(DoubleBinaryOperator accumulator) {
+        return ScanOps.makeDouble(this, accumulator);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
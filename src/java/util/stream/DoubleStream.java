@@ -703,6 +703,47 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
         return StreamSupport.doubleStream(new WhileOps.UnorderedWhileSpliterator.OfDouble.Dropping(spliterator(), true, predicate), isParallel()).onClose(this::close);
     }
     
+    /**
+     * Returns a stream consisting of the running results of combining the
+     * elements of this stream with the given associative accumulation
+     * function, in encounter order. The first element of the new stream is
+     * the first element of this stream, and each following element is the
+     * result of applying the function to the previous result and the
+     * corresponding element of this stream:
+     * <pre>{@code
+     *     r[0] = e[0]; r[i] = accumulator.applyAsDouble(r[i - 1], e[i]);
+     * }</pre>
+     * The new stream has as many elements as this stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline carries the running
+     * result from one element to the next; a parallel pipeline first
+     * collects the elements of this stream and then computes the running
+     * results in parallel, as {@link java.util.Arrays#parallelPrefix} does,
+     * which requires the function to be associative.
+     *
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values
+     *
+     * @return the new stream
+     *
+     * @apiNote Running totals are a typical use:
+     * <pre>{@code
+     *     double[] runningMax = DoubleStream.of(prices).scan(Math::max).toArray();
+     * }</pre>
+     * @implSpec The default implementation scans the {@link #boxed()}
+     * stream with {@link Stream#scan(java.util.function.BinaryOperator)}
+     * and unboxes each result.
+     * @since 11
+     */
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    default DoubleStream scan(DoubleBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return boxed().scan((left, right) -> accumulator.applyAsDouble(left, right)).mapToDouble(Double::doubleValue);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -25,6 +25,7 @@
 package java.util.stream;
 
 import java.util.Arrays;
+import java.util.IntLongHashMap;
 import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -776,6 +777,104 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
         return StreamSupport.intStream(new WhileOps.UnorderedWhileSpliterator.OfInt.Dropping(spliterator(), true, predicate), isParallel()).onClose(this::close);
     }
     
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into consecutive, non-overlapping chunks of {@code size} elements, in
+     * encounter order. The last chunk holds the remaining elements and may
+     * be shorter than {@code size}; an empty stream yields no chunks.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline makes a single pass
+     * and buffers at most one chunk; a parallel pipeline first collects the
+     * elements of this stream, as {@link #sorted()} does.
+     *
+     * @param size the number of elements in each chunk but the last
+     *
+     * @return the new stream, whose elements are newly allocated arrays
+     *
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @apiNote Chunking is the usual way to batch the elements of a stream
+     * into bulk operations:
+     * <pre>{@code
+     *     ids.chunked(500).forEach(batch -> dao.deleteAll(batch));
+     * }</pre>
+     * @implSpec The default implementation windows the {@link #boxed()}
+     * stream with {@link Stream#chunked(int)} and unboxes each window.
+     * @since 11
+     */
+    // 分块：将相邻的size个元素分为一组，各组互不重叠，最后一组的元素可能不足size个
+    default Stream<int[]> chunked(int size) {
+        return boxed().chunked(size).map(w -> w.stream().mapToInt(Integer::intValue).toArray());
+    }
+    
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of this stream, in encounter order. Each window
+     * starts one element after the previous one, so a stream of <em>n</em>
+     * &gt;= {@code size} elements yields <em>n - size + 1</em> windows. A
+     * non-empty stream of fewer than {@code size} elements yields a single
+     * window holding all of them; an empty stream yields no windows.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline makes a single pass
+     * and buffers at most one window; a parallel pipeline first collects the
+     * elements of this stream, as {@link #sorted()} does.
+     *
+     * @param size the number of elements in each window
+     *
+     * @return the new stream, whose elements are newly allocated arrays
+     *
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @implSpec The default implementation windows the {@link #boxed()}
+     * stream with {@link Stream#windowSliding(int)} and unboxes each window.
+     * @since 11
+     */
+    // 滑动窗口：每个窗口包含相邻的size个元素，每次向后滑动一个元素；元素不足size个时，只返回一个包含全部元素的窗口
+    default Stream<int[]> windowSliding(int size) {
+        return boxed().windowSliding(size).map(w -> w.stream().mapToInt(Integer::intValue).toArray());
+    }
+    
+    /**
+     * Returns a stream consisting of the running results of combining the
+     * elements of this stream with the given associative accumulation
+     * function, in encounter order. The first element of the new stream is
+     * the first element of this stream, and each following element is the
+     * result of applying the function to the previous result and the
+     * corresponding element of this stream:
+     * <pre>{@code
+     *     r[0] = e[0]; r[i] = accumulator.applyAsInt(r[i - 1], e[i]);
+     * }</pre>
+     * The new stream has as many elements as this stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline carries the running
+     * result from one element to the next; a parallel pipeline first
+     * collects the elements of this stream and then computes the running
+     * results in parallel, as {@link java.util.Arrays#parallelPrefix} does,
+     * which requires the function to be associative.
+     *
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values
+     *
+     * @return the new stream
+     *
+     * @apiNote Running totals are a typical use:
+     * <pre>{@code
+     *     int[] runningTotals = IntStream.of(values).scan(Integer::sum).toArray();
+     * }</pre>
+     * @implSpec The default implementation scans the {@link #boxed()}
+     * stream with {@link Stream#scan(java.util.function.BinaryOperator)}
+     * and unboxes each result.
+     * @since 11
+     */
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    default IntStream scan(IntBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return boxed().scan((left, right) -> accumulator.applyAsInt(left, right)).mapToInt(Integer::intValue);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -1082,6 +1181,37 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
     // 信息统计
     IntSummaryStatistics summaryStatistics();
     
+    /**
+     * Returns a map from each distinct element of this stream to the number
+     * of times it occurs. This is a special case of a
+     * <a href="package-summary.html#MutableReduction">mutable reduction</a>
+     * and is equivalent to:
+     * <pre>{@code
+     *     return boxed().collect(Collectors.countingByInt(e -> e));
+     * }</pre>
+     * but neither the elements nor the counts are boxed.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @return a {@code IntLongHashMap} mapping each distinct element to its count
+     *
+     * @implSpec The default implementation counts the elements with
+     * {@link #collect(Supplier, ObjIntConsumer, BiConsumer)}.
+     * @see Collectors#countingByInt
+     * @since 11
+     */
+    // 统计每个元素出现的次数
+    default IntLongHashMap countByValue() {
+        return collect(IntLongHashMap::new, (map, e) -> map.merge(e, 1L, Long::sum), (m1, m2) -> {
+            int[] ks = m2.keys();
+            long[] vs = m2.values();
+            for(int i = 0; i<ks.length; i++) {
+                m1.merge(ks[i], vs[i], Long::sum);
+            }
+        });
+    }
+    
     /*▲ 终端操作-非短路操作 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
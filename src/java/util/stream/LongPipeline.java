@@ -24,6 +24,8 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
+import java.util.LongLongHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -162,28 +164,7 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
     public final LongStream filter(LongPredicate predicate) {
         Objects.requireNonNull(predicate);
     
-        return new StatelessOp<Long>(this, StreamShape.LONG_VALUE, StreamOpFlag.NOT_SIZED) {
-        
-            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
-            @Override
-            Sink<Long> opWrapSink(int flags, Sink<Long> downSink) {
-            
-                // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedLong<Long>(downSink) {
-                    @Override
-                    public void begin(long size) {
-                        downstream.begin(-1);
-                    }
-                
-                    @Override
-                    public void accept(long t) {
-                        if(predicate.test(t)) {
-                            downstream.accept(t);
-                        }
-                    }
-                };
-            }
-        };
+        return new FusedOp(this, StreamOpFlag.NOT_SIZED, FusedOp.FILTER, predicate);
     }
     
     // 映射数据
@@ -191,21 +172,7 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
     public final LongStream map(LongUnaryOperator mapper) {
         Objects.requireNonNull(mapper);
     
-        return new StatelessOp<Long>(this, StreamShape.LONG_VALUE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
-        
-            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
-            @Override
-            Sink<Long> opWrapSink(int flags, Sink<Long> downSink) {
-            
-                // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedLong<Long>(downSink) {
-                    @Override
-                    public void accept(long t) {
-                        downstream.accept(mapper.applyAsLong(t));
-                    }
-                };
-            }
-        };
+        return new FusedOp(this, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT, FusedOp.MAP, mapper);
     }
     
     // 映射数据
@@ -318,22 +285,7 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
     public final LongStream peek(LongConsumer action) {
         Objects.requireNonNull(action);
     
-        return new StatelessOp<Long>(this, StreamShape.LONG_VALUE, 0) {
-        
-            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
-            @Override
-            Sink<Long> opWrapSink(int flags, Sink<Long> downSink) {
-            
-                // 返回一个链式Sink，其中downstream的值就是downSink，即下个流阶段的sink
-                return new Sink.ChainedLong<Long>(downSink) {
-                    @Override
-                    public void accept(long t) {
-                        action.accept(t);
-                        downstream.accept(t);
-                    }
-                };
-            }
-        };
+        return new FusedOp(this, 0, FusedOp.PEEK, action);
     }
     
     // 装箱
@@ -439,6 +391,32 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
         return WhileOps.makeDropWhileLong(this, predicate);
     }
     
+    // 分块：将相邻的size个元素分为一组，各组互不重叠，最后一组的元素可能不足size个
+    @Override
+    public final Stream<long[]> chunked(int size) {
+        if(size<=0) {
+            throw new IllegalArgumentException(Integer.toString(size));
+        }
+        
+        return WindowOps.makeLong(this, size, false);
+    }
+    
+    // 滑动窗口：每个窗口包含相邻的size个元素，每次向后滑动一个元素；元素不足size个时，只返回一个包含全部元素的窗口
+    @Override
+    public final Stream<long[]> windowSliding(int size) {
+        if(size<=0) {
+            throw new IllegalArgumentException(Integer.toString(size));
+        }
+        
+        return WindowOps.makeLong(this, size, true);
+    }
+    
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    @Override
+    public final LongStream scan(LongBinaryOperator accumulator) {
+        return ScanOps.makeLong(this, accumulator);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -548,6 +526,13 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
         return collect(LongSummaryStatistics::new, LongSummaryStatistics::accept, LongSummaryStatistics::combine);
     }
     
+    // 统计每个元素出现的次数
+    @Override
+    public final LongLongHashMap countByValue() {
+        TerminalOp<Long, LongLongHashMap> terminalOp = ReduceOps.makeLong(LongLongHashMap::new, (map, e) -> map.merge(e, 1L, Long::sum), Collectors::mergeLongLongMaps);
+        return evaluate(terminalOp);
+    }
+    
     /*▲ 终端操作-非短路操作 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -866,6 +851,203 @@ abstract class LongPipeline<E_IN> extends AbstractPipeline<E_IN, Long, LongStrea
         }
     }
     
+    /**
+     * A stateless stage for {@code map}, {@code filter} or {@code peek}
+     * that absorbs the steps of an upstream stage of the same kind. The
+     * last stage of such a run wraps a single sink that applies every
+     * step in turn; the absorbed stages contribute no sink of their own.
+     * This saves one sink, and one megamorphic {@code downstream.accept}
+     * call per element, for every fused step.
+     *
+     * <p>A stage is only ever absorbed by the stage linked directly after
+     * it, and both are stateless, so they are always wrapped together.
+     */
+    /*
+     * 可融合的无状态中间阶段(long类型版本)，用于map、filter和peek操作
+     *
+     * 如果上个阶段也是可融合的阶段，则吸收上个阶段中的所有操作步骤，并将上个阶段标记为已吸收。
+     * 构造sink链时，连续的可融合阶段中只有最后一个阶段会生成sink，该sink依次执行所有步骤；
+     * 被吸收的阶段直接返回下游的sink。
+     * 这样每融合一个步骤，就少一个sink，每个元素也少一次对downstream.accept的多态调用。
+     *
+     * 注：被吸收的阶段只会被紧随其后的无状态阶段吸收，所以二者总是在同一次构造sink链时一起被处理。
+     */
+    static final class FusedOp extends StatelessOp<Long> {
+        static final byte MAP = 0;      // 映射
+        static final byte FILTER = 1;   // 筛选
+        static final byte PEEK = 2;     // 查看
+        
+        private final byte[] kinds;                 // 每个步骤的类型
+        private final LongUnaryOperator[] mappers;   // 映射步骤的函数，其它步骤对应的位置为null
+        private final LongPredicate[] predicates;    // 筛选步骤的函数，其它步骤对应的位置为null
+        private final LongConsumer[] actions;        // 查看步骤的函数，其它步骤对应的位置为null
+        
+        private boolean absorbed;   // 当前阶段的步骤是否已被下游阶段吸收
+        
+        FusedOp(LongPipeline<?> upstream, int opFlags, byte kind, Object function) {
+            super(upstream, StreamShape.LONG_VALUE, opFlags);
+            
+            int n = 0;
+            if(upstream instanceof FusedOp) {
+                FusedOp prev = (FusedOp) upstream;
+                prev.absorbed = true;
+                n = prev.kinds.length;
+                kinds = Arrays.copyOf(prev.kinds, n + 1);
+                mappers = Arrays.copyOf(prev.mappers, n + 1);
+                predicates = Arrays.copyOf(prev.predicates, n + 1);
+                actions = Arrays.copyOf(prev.actions, n + 1);
+            } else {
+                kinds = new byte[1];
+                mappers = new LongUnaryOperator[1];
+                predicates = new LongPredicate[1];
+                actions = new LongConsumer[1];
+            }
+            
+            kinds[n] = kind;
+            switch(kind) {
+                case MAP:
+                    mappers[n] = (LongUnaryOperator) function;
+                    break;
+                case FILTER:
+                    predicates[n] = (LongPredicate) function;
+                    break;
+                default:
+                    actions[n] = (LongConsumer) function;
+            }
+        }
+        
+        // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+        @Override
+        Sink<Long> opWrapSink(int flags, Sink<Long> downSink) {
+            // 已被下游阶段吸收，由下游阶段的sink执行当前阶段的步骤
+            if(absorbed) {
+                return downSink;
+            }
+            
+            /*
+             * 从最后一个步骤开始向前构造sink链。
+             * 相邻的两个map/filter步骤合并到同一个sink中执行，peek步骤及落单的步骤使用单独的sink。
+             * 每个sink中的函数调用点只对应一个固定的步骤，因此调用点的类型信息不会被其它步骤污染。
+             */
+            Sink<Long> sink = downSink;
+            int i = kinds.length - 1;
+            while(i >= 0) {
+                if(i>0 && kinds[i] != PEEK && kinds[i - 1] != PEEK) {
+                    sink = wrapPair(i - 1, sink);
+                    i -= 2;
+                } else {
+                    sink = wrapStep(i, sink);
+                    i--;
+                }
+            }
+            
+            return sink;
+        }
+        
+        // 返回执行第i个步骤的sink
+        private Sink<Long> wrapStep(int i, Sink<Long> downSink) {
+            switch(kinds[i]) {
+                case MAP:
+                    LongUnaryOperator mapper = mappers[i];
+                    return new Sink.ChainedLong<Long>(downSink) {
+                        @Override
+                        public void accept(long t) {
+                            downstream.accept(mapper.applyAsLong(t));
+                        }
+                    };
+                case FILTER:
+                    LongPredicate predicate = predicates[i];
+                    return new Sink.ChainedLong<Long>(downSink) {
+                        @Override
+                        public void begin(long size) {
+                            downstream.begin(-1);
+                        }
+                        
+                        @Override
+                        public void accept(long t) {
+                            if(predicate.test(t)) {
+                                downstream.accept(t);
+                            }
+                        }
+                    };
+                default:
+                    LongConsumer action = actions[i];
+                    return new Sink.ChainedLong<Long>(downSink) {
+                        @Override
+                        public void accept(long t) {
+                            action.accept(t);
+                            downstream.accept(t);
+                        }
+                    };
+            }
+        }
+        
+        // 返回依次执行第i个和第i+1个步骤的sink，这两个步骤均为map或filter
+        private Sink<Long> wrapPair(int i, Sink<Long> downSink) {
+            if(kinds[i] == MAP) {
+                LongUnaryOperator first = mappers[i];
+                if(kinds[i + 1] == MAP) {
+                    LongUnaryOperator second = mappers[i + 1];
+                    return new Sink.ChainedLong<Long>(downSink) {
+                        @Override
+                        public void accept(long t) {
+                            downstream.accept(second.applyAsLong(first.applyAsLong(t)));
+                        }
+                    };
+                }
+                
+                LongPredicate second = predicates[i + 1];
+                return new Sink.ChainedLong<Long>(downSink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+                    
+                    @Override
+                    public void accept(long t) {
+                        long u = first.applyAsLong(t);
+                        if(second.test(u)) {
+                            downstream.accept(u);
+                        }
+                    }
+                };
+            }
+            
+            LongPredicate first = predicates[i];
+            if(kinds[i + 1] == MAP) {
+                LongUnaryOperator second = mappers[i + 1];
+                return new Sink.ChainedLong<Long>(downSink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+                    
+                    @Override
+                    public void accept(long t) {
+                        if(first.test(t)) {
+                            downstream.accept(second.applyAsLong(t));
+                        }
+                    }
+                };
+            }
+            
+            LongPredicate second = predicates[i + 1];
+            return new Sink.ChainedLong<Long>(downSink) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(-1);
+                }
+                
+                @Override
+                public void accept(long t) {
+                    if(first.test(t) && second.test(t)) {
+                        downstream.accept(t);
+                    }
+                }
+            };
+        }
+    }
+    
     /**
      * Base class for a stateful intermediate stage of a LongStream.
      *
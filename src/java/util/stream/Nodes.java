@@ -214,6 +214,11 @@ final class Nodes {
      */
     // 构造增强"数组"Node或"弹性缓冲区"Node(int类型版本)
     static Node.Builder.OfInt intBuilder(long exactSizeIfKnown) {
+        // 元素数量较大或未知，且启用了堆外存储
+        if(OffHeapSpinedBuffer.useFor(exactSizeIfKnown)) {
+            return new OffHeapSpinedBuffer.OfInt(exactSizeIfKnown);
+        }
+        
         // 长度已知且固定
         if(exactSizeIfKnown >= 0 && exactSizeIfKnown<MAX_ARRAY_SIZE) {
             // 构造增强"数组"Node(int类型版本)
@@ -234,6 +239,11 @@ final class Nodes {
      */
     // 构造增强"数组"Node或"弹性缓冲区"Node(long类型版本)
     static Node.Builder.OfLong longBuilder(long exactSizeIfKnown) {
+        // 元素数量较大或未知，且启用了堆外存储
+        if(OffHeapSpinedBuffer.useFor(exactSizeIfKnown)) {
+            return new OffHeapSpinedBuffer.OfLong(exactSizeIfKnown);
+        }
+        
         // 长度已知且固定
         if(exactSizeIfKnown >= 0 && exactSizeIfKnown<MAX_ARRAY_SIZE) {
             // 构造增强"数组"Node(long类型版本)
@@ -255,6 +265,11 @@ final class Nodes {
      */
     // 构造增强"数组"Node或"弹性缓冲区"Node(double类型版本)
     static Node.Builder.OfDouble doubleBuilder(long exactSizeIfKnown) {
+        // 元素数量较大或未知，且启用了堆外存储
+        if(OffHeapSpinedBuffer.useFor(exactSizeIfKnown)) {
+            return new OffHeapSpinedBuffer.OfDouble(exactSizeIfKnown);
+        }
+        
         // 长度已知且固定
         if(exactSizeIfKnown >= 0 && exactSizeIfKnown<MAX_ARRAY_SIZE) {
             // 构造增强"数组"Node(double类型版本)
@@ -655,8 +670,11 @@ final class Nodes {
          */
         long sizeIfKnown = helper.exactOutputSizeIfKnown(spliterator);
     
+        // 元素数量较大或未知，且启用了堆外存储时，使用树状"并行择取"任务，叶子任务的元素存储在堆外
+        boolean offHeap = OffHeapSpinedBuffer.useFor(sizeIfKnown);
+    
         // 处理元素总量一定，但是子结点数量不确定的Node
-        if(sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if(!offHeap && sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
             if(sizeIfKnown >= MAX_ARRAY_SIZE) {
                 throw new IllegalArgumentException(BAD_SIZE);
             }
@@ -676,7 +694,7 @@ final class Nodes {
             // 如果spliterator中的数据量未知，则需要使用树状"并行择取"任务
         } else {
             // 构造树状"并行择取"任务：将spliterator中的元素并行地择取/筛选到指定的Node(数组)中
-            CollectorTask.OfInt<P_IN> task = new CollectorTask.OfInt<>(helper, spliterator);
+            CollectorTask.OfInt<P_IN> task = new CollectorTask.OfInt<>(helper, spliterator, offHeap);
         
             // 提交树状"并行择取"任务到线程池，并将任务执行结果存入Node后返回
             Node.OfInt node = task.invoke();
@@ -728,8 +746,11 @@ final class Nodes {
          */
         long sizeIfKnown = helper.exactOutputSizeIfKnown(spliterator);
     
+        // 元素数量较大或未知，且启用了堆外存储时，使用树状"并行择取"任务，叶子任务的元素存储在堆外
+        boolean offHeap = OffHeapSpinedBuffer.useFor(sizeIfKnown);
+    
         // 处理元素总量一定，但是子结点数量不确定的Node
-        if(sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if(!offHeap && sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
             if(sizeIfKnown >= MAX_ARRAY_SIZE) {
                 throw new IllegalArgumentException(BAD_SIZE);
             }
@@ -749,7 +770,7 @@ final class Nodes {
             // 如果spliterator中的数据量未知，则需要使用树状"并行择取"任务
         } else {
             // 构造树状"并行择取"任务：将spliterator中的元素并行地择取/筛选到指定的Node(数组)中
-            CollectorTask.OfLong<P_IN> task = new CollectorTask.OfLong<>(helper, spliterator);
+            CollectorTask.OfLong<P_IN> task = new CollectorTask.OfLong<>(helper, spliterator, offHeap);
         
             // 提交树状"并行择取"任务到线程池，并将任务执行结果存入Node后返回
             Node.OfLong node = task.invoke();
@@ -801,8 +822,11 @@ final class Nodes {
          */
         long sizeIfKnown = helper.exactOutputSizeIfKnown(spliterator);
     
+        // 元素数量较大或未知，且启用了堆外存储时，使用树状"并行择取"任务，叶子任务的元素存储在堆外
+        boolean offHeap = OffHeapSpinedBuffer.useFor(sizeIfKnown);
+    
         // 处理元素总量一定，但是子结点数量不确定的Node
-        if(sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if(!offHeap && sizeIfKnown >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
             if(sizeIfKnown >= MAX_ARRAY_SIZE) {
                 throw new IllegalArgumentException(BAD_SIZE);
             }
@@ -822,7 +846,7 @@ final class Nodes {
             // 如果spliterator中的数据量未知，则需要使用树状"并行择取"任务
         } else {
             // 构造树状"并行择取"任务：将spliterator中的元素并行地择取/筛选到指定的Node(数组)中
-            CollectorTask.OfDouble<P_IN> task = new CollectorTask.OfDouble<>(helper, spliterator);
+            CollectorTask.OfDouble<P_IN> task = new CollectorTask.OfDouble<>(helper, spliterator, offHeap);
         
             // 提交树状"并行择取"任务到线程池，并将任务执行结果存入Node后返回
             Node.OfDouble node = task.invoke();
@@ -3170,24 +3194,24 @@ final class Nodes {
         // 树状"并行择取"任务(int类型版本)
         @SuppressWarnings("serial")
         private static final class OfInt<P_IN> extends CollectorTask<P_IN, Integer, Node.OfInt, Node.Builder.OfInt> {
-            OfInt(PipelineHelper<Integer> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::intBuilder, ConcNode.OfInt::new);
+            OfInt(PipelineHelper<Integer> helper, Spliterator<P_IN> spliterator, boolean offHeap) {
+                super(helper, spliterator, offHeap ? OffHeapSpinedBuffer.OfInt::new : Nodes::intBuilder, ConcNode.OfInt::new);
             }
         }
         
         // 树状"并行择取"任务(long类型版本)
         @SuppressWarnings("serial")
         private static final class OfLong<P_IN> extends CollectorTask<P_IN, Long, Node.OfLong, Node.Builder.OfLong> {
-            OfLong(PipelineHelper<Long> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::longBuilder, ConcNode.OfLong::new);
+            OfLong(PipelineHelper<Long> helper, Spliterator<P_IN> spliterator, boolean offHeap) {
+                super(helper, spliterator, offHeap ? OffHeapSpinedBuffer.OfLong::new : Nodes::longBuilder, ConcNode.OfLong::new);
             }
         }
         
         // 树状"并行择取"任务(double类型版本)
         @SuppressWarnings("serial")
         private static final class OfDouble<P_IN> extends CollectorTask<P_IN, Double, Node.OfDouble, Node.Builder.OfDouble> {
-            OfDouble(PipelineHelper<Double> helper, Spliterator<P_IN> spliterator) {
-                super(helper, spliterator, Nodes::doubleBuilder, ConcNode.OfDouble::new);
+            OfDouble(PipelineHelper<Double> helper, Spliterator<P_IN> spliterator, boolean offHeap) {
+                super(helper, spliterator, offHeap ? OffHeapSpinedBuffer.OfDouble::new : Nodes::doubleBuilder, ConcNode.OfDouble::new);
             }
         }
     }
@@ -0,0 +1,1034 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.stream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import jdk.internal.misc.VM;
+import jdk.internal.ref.CleanerFactory;
+
+/**
+ * A spined buffer of primitive elements whose chunks live outside the Java
+ * heap, in direct {@link ByteBuffer}s, or in memory-mapped temporary files
+ * once the direct memory held by all such buffers exceeds a threshold.
+ * Collecting or sorting very large primitive streams into these buffers
+ * leaves only a few small objects per chunk on the heap, so multi-gigabyte
+ * intermediate results are not promoted to the old generation.
+ *
+ * <p>The buffers are only used when the system property
+ * {@code org.openjdk.java.util.stream.offHeapThreshold} is set. Its value is
+ * the number of elements from which a primitive node is stored off-heap.
+ * Nodes whose size is not known in advance, or is below the threshold,
+ * keep their first chunks in heap buffers and only allocate off-heap chunks
+ * once they hold more elements than the threshold, so small pipelines of
+ * unknown size never touch direct memory.
+ * The property {@code org.openjdk.java.util.stream.offHeapSpillBytes} sets how
+ * many bytes of direct memory may be held before new chunks are mapped
+ * from files in {@code java.io.tmpdir}; by default it is half of the
+ * maximum direct memory. Off-heap memory is released when the chunks
+ * become unreachable.
+ *
+ * <p>Each buffer is both a {@link Node} and a {@link Node.Builder}, like the
+ * spined node builders in {@link Nodes}, and can therefore take their place
+ * in parallel collection and in the parallel {@code sorted()} operation.
+ *
+ * @see SpinedBuffer
+ */
+/*
+ * 堆外弹性缓冲区
+ *
+ * 与SpinedBuffer类似，由多个chunk组成，但chunk位于Java堆之外：
+ * 通常是直接缓冲区(DirectByteBuffer)，当所有堆外缓冲区占用的直接内存超过阈值后，新的chunk改为映射临时文件。
+ * 堆上只保留少量的chunk引用，从而避免大型中间结果晋升到老年代并引发Full GC。
+ *
+ * 只有设置了系统属性org.openjdk.java.util.stream.offHeapThreshold时才会启用，该属性给出了元素数量的阈值：
+ * 元素数量已知且不少于该阈值的基本类型Node直接存储在堆外；
+ * 元素数量未知(或少于阈值)的Node先使用堆上的chunk，只有元素数量超过阈值后才分配堆外chunk，
+ * 因此元素数量很少的流不会分配直接内存。
+ * 系统属性org.openjdk.java.util.stream.offHeapSpillBytes给出了溢出到临时文件之前允许占用的直接内存字节数，
+ * 默认为最大直接内存的一半。
+ *
+ * 堆外缓冲区同时实现了Node与Node.Builder，可以在并行收集与并行排序中代替"弹性缓冲区"Node。
+ */
+abstract class OffHeapSpinedBuffer {
+    
+    private static final String THRESHOLD_PROPERTY = "org.openjdk.java.util.stream.offHeapThreshold";
+    private static final String SPILL_PROPERTY = "org.openjdk.java.util.stream.offHeapSpillBytes";
+    
+    /** Element count from which primitive nodes are stored off-heap; Long.MAX_VALUE if disabled */
+    // 启用堆外存储的元素数量阈值；未启用时为Long.MAX_VALUE
+    static final long THRESHOLD = AccessController.doPrivileged((PrivilegedAction<Long>) () -> Long.getLong(THRESHOLD_PROPERTY, Long.MAX_VALUE));
+    
+    /** Bytes of direct memory that may be held before chunks spill to files */
+    // 溢出到临时文件之前允许占用的直接内存字节数
+    static final long SPILL_BYTES = AccessController.doPrivileged((PrivilegedAction<Long>) () -> Long.getLong(SPILL_PROPERTY, VM.maxDirectMemory() / 2));
+    
+    /** Capacity, in elements, of the first chunk of a growing buffer */
+    // 第一个chunk的容量(元素数量)
+    static final int MIN_CHUNK_SIZE = 1 << 12;
+    
+    /** Maximum capacity, in elements, of a chunk; also the run length of sort */
+    // chunk的最大容量(元素数量)，同时也是排序时每个有序段的长度
+    static final int MAX_CHUNK_SIZE = 1 << 20;
+    
+    /** Bytes of direct memory currently held by all buffers */
+    // 所有堆外缓冲区当前占用的直接内存字节数
+    private static final AtomicLong reservedBytes = new AtomicLong();
+    
+    private final int shift;            // 每个元素占用的字节数的对数
+    private final long heapLimit;       // 可以存储在堆上chunk中的元素数量上限，超出后才分配堆外chunk
+    
+    private ByteBuffer[] spine;         // 所有chunk
+    private long[] priorElementCount;   // 每个chunk之前所有chunk的容量之和
+    private int chunkCount;             // 已分配的chunk数量
+    
+    int spineIndex;                     // 正在写入的chunk的索引
+    int elementIndex;                   // 下一个元素在当前chunk中的索引
+    ByteBuffer curChunk;                // 正在写入的chunk
+    int curCapacity;                    // 正在写入的chunk的容量
+    
+    boolean building;                   // 是否正在构建
+    
+    OffHeapSpinedBuffer(int shift, long initialCapacity) {
+        this.shift = shift;
+        // 元素数量已知且达到阈值时直接使用堆外chunk，否则先使用堆上的chunk
+        this.heapLimit = initialCapacity >= THRESHOLD ? 0L : THRESHOLD;
+        clear();
+        ensureCapacity(initialCapacity);
+    }
+    
+    /**
+     * Returns whether a primitive node of the given exact size, or of an
+     * unknown size if negative, should be built in an off-heap buffer.
+     * Buffers of unknown size start on the heap and only move to off-heap
+     * chunks past the threshold.
+     */
+    // 判断元素数量为size(-1表示未知)的基本类型Node是否应当使用堆外缓冲区构建；元素数量未知时，缓冲区超过阈值后才使用堆外chunk
+    static boolean useFor(long size) {
+        return THRESHOLD != Long.MAX_VALUE && (size<0 || size >= THRESHOLD);
+    }
+    
+    // 返回缓冲区中的元素数量
+    public long count() {
+        return chunkCount == 0 ? 0L : priorElementCount[spineIndex] + elementIndex;
+    }
+    
+    // 清空缓冲区，释放所有chunk
+    final void clear() {
+        spine = new ByteBuffer[8];
+        priorElementCount = new long[8];
+        chunkCount = 0;
+        spineIndex = 0;
+        elementIndex = 0;
+        curChunk = null;
+        curCapacity = 0;
+    }
+    
+    // 确保缓冲区至少可以容纳capacity个元素；除最后一个外，新分配的chunk都是满容量的
+    final void ensureCapacity(long capacity) {
+        long total = capacity();
+        while(total<capacity) {
+            int size = (int) Math.min(MAX_CHUNK_SIZE, capacity - total);
+            allocateChunk(size);
+            total += size;
+        }
+        if(curChunk == null && chunkCount>0) {
+            curChunk = spine[0];
+            curCapacity = capacityOf(0);
+        }
+    }
+    
+    // 返回当前已分配的容量
+    private long capacity() {
+        return chunkCount == 0 ? 0L : priorElementCount[chunkCount - 1] + capacityOf(chunkCount - 1);
+    }
+    
+    // 返回第i个chunk的容量(元素数量)
+    final int capacityOf(int i) {
+        return spine[i].capacity() >>> shift;
+    }
+    
+    // 返回第i个chunk
+    final ByteBuffer chunk(int i) {
+        return spine[i];
+    }
+    
+    // 返回第i个chunk之前所有chunk的容量之和
+    final long priorElementCount(int i) {
+        return priorElementCount[i];
+    }
+    
+    // 返回第i个chunk中已存入的元素数量
+    final int sizeOf(int i) {
+        return i<spineIndex ? capacityOf(i) : i == spineIndex ? elementIndex : 0;
+    }
+    
+    // 返回已分配的chunk数量
+    final int chunkCount() {
+        return chunkCount;
+    }
+    
+    // 返回索引为index的元素所在的chunk
+    final int chunkOf(long index) {
+        int lo = 0, hi = chunkCount - 1;
+        while(lo<hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if(priorElementCount[mid]<=index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+    
+    // 当前chunk已满时，切换到下一个chunk，必要时为其分配空间
+    final void advance() {
+        if(curChunk == null) {
+            allocateChunk(MIN_CHUNK_SIZE);
+            spineIndex = 0;
+        } else {
+            if(spineIndex + 1 == chunkCount) {
+                long total = capacity();
+                allocateChunk((int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, total)));
+            }
+            spineIndex++;
+        }
+        elementIndex = 0;
+        curChunk = spine[spineIndex];
+        curCapacity = capacityOf(spineIndex);
+    }
+    
+    // 新增一个容量为size的chunk
+    private void allocateChunk(int size) {
+        if(chunkCount == spine.length) {
+            spine = Arrays.copyOf(spine, chunkCount << 1);
+            priorElementCount = Arrays.copyOf(priorElementCount, chunkCount << 1);
+        }
+        long prior = capacity();
+        priorElementCount[chunkCount] = prior;
+        if(prior + size<=heapLimit) {
+            // 尚未超过阈值，使用堆上的chunk，不占用直接内存，也无需注册Cleaner
+            spine[chunkCount] = ByteBuffer.allocate(size << shift).order(ByteOrder.nativeOrder());
+        } else {
+            spine[chunkCount] = allocate((long) size << shift);
+        }
+        chunkCount++;
+    }
+    
+    /**
+     * Allocates a chunk of the given size in bytes, from direct memory or,
+     * past the spill threshold, by mapping a temporary file. The file is
+     * deleted right away; its storage lives as long as the mapping.
+     */
+    // 分配一个chunk：直接内存未超过阈值时使用直接缓冲区，否则映射一个临时文件
+    private static ByteBuffer allocate(long bytes) {
+        if(reservedBytes.addAndGet(bytes)<=SPILL_BYTES) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes);
+                // chunk被回收后归还额度
+                CleanerFactory.cleaner().register(buffer, () -> reservedBytes.addAndGet(-bytes));
+                return buffer.order(ByteOrder.nativeOrder());
+            } catch(OutOfMemoryError e) {
+                // 直接内存不足时，改为映射临时文件
+                reservedBytes.addAndGet(-bytes);
+            }
+        } else {
+            reservedBytes.addAndGet(-bytes);
+        }
+        
+        return map(bytes);
+    }
+    
+    // 映射一个临时文件作为chunk，文件在映射后即被删除
+    private static ByteBuffer map(long bytes) {
+        return AccessController.doPrivileged((PrivilegedAction<ByteBuffer>) () -> {
+            try {
+                Path file = Files.createTempFile("stream-spill", ".tmp");
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                    return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder());
+                }
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    
+    /**
+     * Base spliterator over the range {@code [index, fence)} of a buffer.
+     */
+    // 堆外缓冲区的流迭代器，遍历[index, fence)范围内的元素
+    abstract class BaseSpliterator<T, T_CONS, T_SPLITR extends Spliterator.OfPrimitive<T, T_CONS, T_SPLITR>> implements Spliterator.OfPrimitive<T, T_CONS, T_SPLITR> {
+        long index;         // 下一个待遍历元素的索引
+        final long fence;   // 遍历的上限(不包含)
+        int chunk;          // 下一个待遍历元素所在的chunk
+        int offset;         // 下一个待遍历元素在chunk中的索引
+        
+        BaseSpliterator(long origin, long fence) {
+            this.fence = fence;
+            seek(origin);
+        }
+        
+        // 消费buffer中索引为i的元素
+        abstract void accept(ByteBuffer buffer, int i, T_CONS action);
+        
+        // 消费buffer中[from, to)范围内的元素
+        abstract void acceptRange(ByteBuffer buffer, int from, int to, T_CONS action);
+        
+        // 构造遍历[origin, fence)范围内元素的流迭代器
+        abstract T_SPLITR newSpliterator(long origin, long fence);
+        
+        // 定位到索引为origin的元素
+        private void seek(long origin) {
+            index = origin;
+            chunk = chunkOf(origin);
+            offset = (int) (origin - priorElementCount(chunk));
+        }
+        
+        @Override
+        public boolean tryAdvance(T_CONS action) {
+            Objects.requireNonNull(action);
+            if(index >= fence) {
+                return false;
+            }
+            if(offset == capacityOf(chunk)) {
+                chunk++;
+                offset = 0;
+            }
+            accept(chunk(chunk), offset++, action);
+            index++;
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(T_CONS action) {
+            Objects.requireNonNull(action);
+            while(index<fence) {
+                if(offset == capacityOf(chunk)) {
+                    chunk++;
+                    offset = 0;
+                }
+                int n = (int) Math.min(capacityOf(chunk) - offset, fence - index);
+                acceptRange(chunk(chunk), offset, offset + n, action);
+                offset += n;
+                index += n;
+            }
+        }
+        
+        @Override
+        public T_SPLITR trySplit() {
+            long mid = (index + fence) >>> 1;
+            if(mid<=index) {
+                return null;
+            }
+            T_SPLITR prefix = newSpliterator(index, mid);
+            seek(mid);
+            return prefix;
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED;
+        }
+    }
+
+    
+    /**
+     * An off-heap spined buffer and node of {@code int} elements.
+     */
+    // 堆外弹性缓冲区(int类型版本)
+    static final class OfInt extends OffHeapSpinedBuffer implements Node.OfInt, Node.Builder.OfInt {
+        
+        OfInt() {
+            super(2, 0L);
+        }
+        
+        OfInt(long initialCapacity) {
+            super(2, initialCapacity);
+        }
+        
+        /**
+         * Sorts the elements of the given node into a new off-heap buffer,
+         * in the order of {@link Arrays#sort(int[])}. Runs of
+         * {@link #MAX_CHUNK_SIZE} elements are sorted on the heap, one at a
+         * time, and written to one chunk each; the runs are then merged
+         * into the result, so only a single run is ever held on the heap.
+         */
+        /*
+         * 对node中的元素排序，并将结果存入新的堆外缓冲区
+         *
+         * 1.每次将MAX_CHUNK_SIZE个元素读入堆上的临时数组并排序，写入堆外缓冲区的一个chunk中，形成一个有序段
+         * 2.多路归并所有有序段，写入新的堆外缓冲区
+         * 整个过程只有一个有序段会驻留在堆上
+         */
+        static OffHeapSpinedBuffer.OfInt sort(Node.OfInt node) {
+            long size = node.count();
+            OffHeapSpinedBuffer.OfInt runs = new OffHeapSpinedBuffer.OfInt(size);
+            int[] scratch = new int[(int) Math.min(size, MAX_CHUNK_SIZE)];
+            
+            // 1.生成有序段
+            Spliterator.OfInt spliterator = node.spliterator();
+            IntConsumer sink = new IntConsumer() {
+                int fill;
+                
+                @Override
+                public void accept(int value) {
+                    scratch[fill++] = value;
+                    if(fill == scratch.length) {
+                        Arrays.parallelSort(scratch);
+                        runs.append(scratch, fill);
+                        fill = 0;
+                    }
+                }
+            };
+            spliterator.forEachRemaining(sink);
+            int fill = (int) (size - runs.count());
+            if(fill>0) {
+                Arrays.parallelSort(scratch, 0, fill);
+                runs.append(scratch, fill);
+            }
+            
+            int k = runs.spineIndex + 1;
+            if(size == 0 || k == 1) {
+                return runs;
+            }
+            
+            // 2.多路归并：最小堆中存放各有序段的编号，以各段的当前元素排序
+            OffHeapSpinedBuffer.OfInt out = new OffHeapSpinedBuffer.OfInt(size);
+            int[] heap = new int[k];
+            int[] pos = new int[k];
+            int[] head = new int[k];
+            for(int r = 0; r<k; r++) {
+                head[r] = runs.chunk(r).getInt(0);
+                pos[r] = 1;
+                heap[r] = r;
+            }
+            for(int i = (k >>> 1) - 1; i >= 0; i--) {
+                siftDown(heap, head, i, k);
+            }
+            int n = k;
+            while(n>0) {
+                int r = heap[0];
+                out.accept(head[r]);
+                if(pos[r]<runs.sizeOf(r)) {
+                    head[r] = runs.chunk(r).getInt(pos[r]++ << 2);
+                } else {
+                    heap[0] = heap[--n];
+                }
+                siftDown(heap, head, 0, n);
+            }
+            return out;
+        }
+        
+        // 将heap[i]下沉到合适的位置
+        private static void siftDown(int[] heap, int[] head, int i, int n) {
+            int r = heap[i];
+            int v = head[r];
+            int child;
+            while((child = (i << 1) + 1)<n) {
+                int c = heap[child];
+                if(child + 1<n && head[heap[child + 1]]<head[c]) {
+                    c = heap[++child];
+                }
+                if(v<=head[c]) {
+                    break;
+                }
+                heap[i] = c;
+                i = child;
+            }
+            heap[i] = r;
+        }
+        
+        // 将array中前n个元素追加到缓冲区
+        private void append(int[] array, int n) {
+            for(int from = 0; from<n; ) {
+                if(curChunk == null || elementIndex == curCapacity) {
+                    advance();
+                }
+                int len = Math.min(n - from, curCapacity - elementIndex);
+                curChunk.duplicate().order(ByteOrder.nativeOrder()).position(elementIndex << 2).asIntBuffer().put(array, from, len);
+                elementIndex += len;
+                from += len;
+            }
+        }
+        
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            if(count() != 0) {
+                clear();
+            }
+            ensureCapacity(size);
+        }
+        
+        @Override
+        public void accept(int value) {
+            if(curChunk == null || elementIndex == curCapacity) {
+                advance();
+            }
+            curChunk.putInt(elementIndex++ << 2, value);
+        }
+        
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+        
+        @Override
+        public Node.OfInt build() {
+            assert !building : "during building";
+            return this;
+        }
+        
+        @Override
+        public Spliterator.OfInt spliterator() {
+            assert !building : "during building";
+            return new Splitr(0, count());
+        }
+        
+        @Override
+        public void forEach(IntConsumer consumer) {
+            assert !building : "during building";
+            spliterator().forEachRemaining(consumer);
+        }
+        
+        @Override
+        public void copyInto(int[] array, int offset) {
+            assert !building : "during building";
+            long size = count();
+            if(offset<0 || size>array.length - offset) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for(int i = 0; i<=spineIndex && i<chunkCount(); i++) {
+                int n = sizeOf(i);
+                chunk(i).duplicate().order(ByteOrder.nativeOrder()).asIntBuffer().get(array, offset, n);
+                offset += n;
+            }
+        }
+        
+        @Override
+        public int[] asPrimitiveArray() {
+            assert !building : "during building";
+            long size = count();
+            if(size >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            int[] result = new int[(int) size];
+            copyInto(result, 0);
+            return result;
+        }
+        
+        @Override
+        public int[] newArray(int size) {
+            return new int[size];
+        }
+        
+        // 堆外缓冲区的流迭代器(int类型版本)
+        final class Splitr extends BaseSpliterator<Integer, IntConsumer, Spliterator.OfInt> implements Spliterator.OfInt {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+            
+            @Override
+            void accept(ByteBuffer buffer, int i, IntConsumer action) {
+                action.accept(buffer.getInt(i << 2));
+            }
+            
+            @Override
+            void acceptRange(ByteBuffer buffer, int from, int to, IntConsumer action) {
+                for(int i = from; i<to; i++) {
+                    action.accept(buffer.getInt(i << 2));
+                }
+            }
+            
+            @Override
+            Spliterator.OfInt newSpliterator(long origin, long fence) {
+                return new Splitr(origin, fence);
+            }
+        }
+    }
+
+    
+    /**
+     * An off-heap spined buffer and node of {@code long} elements.
+     */
+    // 堆外弹性缓冲区(long类型版本)
+    static final class OfLong extends OffHeapSpinedBuffer implements Node.OfLong, Node.Builder.OfLong {
+        
+        OfLong() {
+            super(3, 0L);
+        }
+        
+        OfLong(long initialCapacity) {
+            super(3, initialCapacity);
+        }
+        
+        /**
+         * Sorts the elements of the given node into a new off-heap buffer,
+         * in the order of {@link Arrays#sort(long[])}. Runs of
+         * {@link #MAX_CHUNK_SIZE} elements are sorted on the heap, one at a
+         * time, and written to one chunk each; the runs are then merged
+         * into the result, so only a single run is ever held on the heap.
+         */
+        /*
+         * 对node中的元素排序，并将结果存入新的堆外缓冲区
+         *
+         * 1.每次将MAX_CHUNK_SIZE个元素读入堆上的临时数组并排序，写入堆外缓冲区的一个chunk中，形成一个有序段
+         * 2.多路归并所有有序段，写入新的堆外缓冲区
+         * 整个过程只有一个有序段会驻留在堆上
+         */
+        static OffHeapSpinedBuffer.OfLong sort(Node.OfLong node) {
+            long size = node.count();
+            OffHeapSpinedBuffer.OfLong runs = new OffHeapSpinedBuffer.OfLong(size);
+            long[] scratch = new long[(int) Math.min(size, MAX_CHUNK_SIZE)];
+            
+            // 1.生成有序段
+            Spliterator.OfLong spliterator = node.spliterator();
+            LongConsumer sink = new LongConsumer() {
+                int fill;
+                
+                @Override
+                public void accept(long value) {
+                    scratch[fill++] = value;
+                    if(fill == scratch.length) {
+                        Arrays.parallelSort(scratch);
+                        runs.append(scratch, fill);
+                        fill = 0;
+                    }
+                }
+            };
+            spliterator.forEachRemaining(sink);
+            int fill = (int) (size - runs.count());
+            if(fill>0) {
+                Arrays.parallelSort(scratch, 0, fill);
+                runs.append(scratch, fill);
+            }
+            
+            int k = runs.spineIndex + 1;
+            if(size == 0 || k == 1) {
+                return runs;
+            }
+            
+            // 2.多路归并：最小堆中存放各有序段的编号，以各段的当前元素排序
+            OffHeapSpinedBuffer.OfLong out = new OffHeapSpinedBuffer.OfLong(size);
+            int[] heap = new int[k];
+            int[] pos = new int[k];
+            long[] head = new long[k];
+            for(int r = 0; r<k; r++) {
+                head[r] = runs.chunk(r).getLong(0);
+                pos[r] = 1;
+                heap[r] = r;
+            }
+            for(int i = (k >>> 1) - 1; i >= 0; i--) {
+                siftDown(heap, head, i, k);
+            }
+            int n = k;
+            while(n>0) {
+                int r = heap[0];
+                out.accept(head[r]);
+                if(pos[r]<runs.sizeOf(r)) {
+                    head[r] = runs.chunk(r).getLong(pos[r]++ << 3);
+                } else {
+                    heap[0] = heap[--n];
+                }
+                siftDown(heap, head, 0, n);
+            }
+            return out;
+        }
+        
+        // 将heap[i]下沉到合适的位置
+        private static void siftDown(int[] heap, long[] head, int i, int n) {
+            int r = heap[i];
+            long v = head[r];
+            int child;
+            while((child = (i << 1) + 1)<n) {
+                int c = heap[child];
+                if(child + 1<n && head[heap[child + 1]]<head[c]) {
+                    c = heap[++child];
+                }
+                if(v<=head[c]) {
+                    break;
+                }
+                heap[i] = c;
+                i = child;
+            }
+            heap[i] = r;
+        }
+        
+        // 将array中前n个元素追加到缓冲区
+        private void append(long[] array, int n) {
+            for(int from = 0; from<n; ) {
+                if(curChunk == null || elementIndex == curCapacity) {
+                    advance();
+                }
+                int len = Math.min(n - from, curCapacity - elementIndex);
+                curChunk.duplicate().order(ByteOrder.nativeOrder()).position(elementIndex << 3).asLongBuffer().put(array, from, len);
+                elementIndex += len;
+                from += len;
+            }
+        }
+        
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            if(count() != 0) {
+                clear();
+            }
+            ensureCapacity(size);
+        }
+        
+        @Override
+        public void accept(long value) {
+            if(curChunk == null || elementIndex == curCapacity) {
+                advance();
+            }
+            curChunk.putLong(elementIndex++ << 3, value);
+        }
+        
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+        
+        @Override
+        public Node.OfLong build() {
+            assert !building : "during building";
+            return this;
+        }
+        
+        @Override
+        public Spliterator.OfLong spliterator() {
+            assert !building : "during building";
+            return new Splitr(0, count());
+        }
+        
+        @Override
+        public void forEach(LongConsumer consumer) {
+            assert !building : "during building";
+            spliterator().forEachRemaining(consumer);
+        }
+        
+        @Override
+        public void copyInto(long[] array, int offset) {
+            assert !building : "during building";
+            long size = count();
+            if(offset<0 || size>array.length - offset) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for(int i = 0; i<=spineIndex && i<chunkCount(); i++) {
+                int n = sizeOf(i);
+                chunk(i).duplicate().order(ByteOrder.nativeOrder()).asLongBuffer().get(array, offset, n);
+                offset += n;
+            }
+        }
+        
+        @Override
+        public long[] asPrimitiveArray() {
+            assert !building : "during building";
+            long size = count();
+            if(size >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            long[] result = new long[(int) size];
+            copyInto(result, 0);
+            return result;
+        }
+        
+        @Override
+        public long[] newArray(int size) {
+            return new long[size];
+        }
+        
+        // 堆外缓冲区的流迭代器(long类型版本)
+        final class Splitr extends BaseSpliterator<Long, LongConsumer, Spliterator.OfLong> implements Spliterator.OfLong {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+            
+            @Override
+            void accept(ByteBuffer buffer, int i, LongConsumer action) {
+                action.accept(buffer.getLong(i << 3));
+            }
+            
+            @Override
+            void acceptRange(ByteBuffer buffer, int from, int to, LongConsumer action) {
+                for(int i = from; i<to; i++) {
+                    action.accept(buffer.getLong(i << 3));
+                }
+            }
+            
+            @Override
+            Spliterator.OfLong newSpliterator(long origin, long fence) {
+                return new Splitr(origin, fence);
+            }
+        }
+    }
+
+    
+    /**
+     * An off-heap spined buffer and node of {@code double} elements.
+     */
+    // 堆外弹性缓冲区(double类型版本)
+    static final class OfDouble extends OffHeapSpinedBuffer implements Node.OfDouble, Node.Builder.OfDouble {
+        
+        OfDouble() {
+            super(3, 0L);
+        }
+        
+        OfDouble(long initialCapacity) {
+            super(3, initialCapacity);
+        }
+        
+        /**
+         * Sorts the elements of the given node into a new off-heap buffer,
+         * in the order of {@link Arrays#sort(double[])}. Runs of
+         * {@link #MAX_CHUNK_SIZE} elements are sorted on the heap, one at a
+         * time, and written to one chunk each; the runs are then merged
+         * into the result, so only a single run is ever held on the heap.
+         */
+        /*
+         * 对node中的元素排序，并将结果存入新的堆外缓冲区
+         *
+         * 1.每次将MAX_CHUNK_SIZE个元素读入堆上的临时数组并排序，写入堆外缓冲区的一个chunk中，形成一个有序段
+         * 2.多路归并所有有序段，写入新的堆外缓冲区
+         * 整个过程只有一个有序段会驻留在堆上
+         */
+        static OffHeapSpinedBuffer.OfDouble sort(Node.OfDouble node) {
+            long size = node.count();
+            OffHeapSpinedBuffer.OfDouble runs = new OffHeapSpinedBuffer.OfDouble(size);
+            double[] scratch = new double[(int) Math.min(size, MAX_CHUNK_SIZE)];
+            
+            // 1.生成有序段
+            Spliterator.OfDouble spliterator = node.spliterator();
+            DoubleConsumer sink = new DoubleConsumer() {
+                int fill;
+                
+                @Override
+                public void accept(double value) {
+                    scratch[fill++] = value;
+                    if(fill == scratch.length) {
+                        Arrays.parallelSort(scratch);
+                        runs.append(scratch, fill);
+                        fill = 0;
+                    }
+                }
+            };
+            spliterator.forEachRemaining(sink);
+            int fill = (int) (size - runs.count());
+            if(fill>0) {
+                Arrays.parallelSort(scratch, 0, fill);
+                runs.append(scratch, fill);
+            }
+            
+            int k = runs.spineIndex + 1;
+            if(size == 0 || k == 1) {
+                return runs;
+            }
+            
+            // 2.多路归并：最小堆中存放各有序段的编号，以各段的当前元素排序
+            OffHeapSpinedBuffer.OfDouble out = new OffHeapSpinedBuffer.OfDouble(size);
+            int[] heap = new int[k];
+            int[] pos = new int[k];
+            double[] head = new double[k];
+            for(int r = 0; r<k; r++) {
+                head[r] = runs.chunk(r).getDouble(0);
+                pos[r] = 1;
+                heap[r] = r;
+            }
+            for(int i = (k >>> 1) - 1; i >= 0; i--) {
+                siftDown(heap, head, i, k);
+            }
+            int n = k;
+            while(n>0) {
+                int r = heap[0];
+                out.accept(head[r]);
+                if(pos[r]<runs.sizeOf(r)) {
+                    head[r] = runs.chunk(r).getDouble(pos[r]++ << 3);
+                } else {
+                    heap[0] = heap[--n];
+                }
+                siftDown(heap, head, 0, n);
+            }
+            return out;
+        }
+        
+        // 将heap[i]下沉到合适的位置
+        private static void siftDown(int[] heap, double[] head, int i, int n) {
+            int r = heap[i];
+            double v = head[r];
+            int child;
+            while((child = (i << 1) + 1)<n) {
+                int c = heap[child];
+                if(child + 1<n && Double.compare(head[heap[child + 1]], head[c])<0) {
+                    c = heap[++child];
+                }
+                if(Double.compare(v, head[c])<=0) {
+                    break;
+                }
+                heap[i] = c;
+                i = child;
+            }
+            heap[i] = r;
+        }
+        
+        // 将array中前n个元素追加到缓冲区
+        private void append(double[] array, int n) {
+            for(int from = 0; from<n; ) {
+                if(curChunk == null || elementIndex == curCapacity) {
+                    advance();
+                }
+                int len = Math.min(n - from, curCapacity - elementIndex);
+                curChunk.duplicate().order(ByteOrder.nativeOrder()).position(elementIndex << 3).asDoubleBuffer().put(array, from, len);
+                elementIndex += len;
+                from += len;
+            }
+        }
+        
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            if(count() != 0) {
+                clear();
+            }
+            ensureCapacity(size);
+        }
+        
+        @Override
+        public void accept(double value) {
+            if(curChunk == null || elementIndex == curCapacity) {
+                advance();
+            }
+            curChunk.putDouble(elementIndex++ << 3, value);
+        }
+        
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+        
+        @Override
+        public Node.OfDouble build() {
+            assert !building : "during building";
+            return this;
+        }
+        
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            assert !building : "during building";
+            return new Splitr(0, count());
+        }
+        
+        @Override
+        public void forEach(DoubleConsumer consumer) {
+            assert !building : "during building";
+            spliterator().forEachRemaining(consumer);
+        }
+        
+        @Override
+        public void copyInto(double[] array, int offset) {
+            assert !building : "during building";
+            long size = count();
+            if(offset<0 || size>array.length - offset) {
+                throw new IndexOutOfBoundsException("does not fit");
+            }
+            for(int i = 0; i<=spineIndex && i<chunkCount(); i++) {
+                int n = sizeOf(i);
+                chunk(i).duplicate().order(ByteOrder.nativeOrder()).asDoubleBuffer().get(array, offset, n);
+                offset += n;
+            }
+        }
+        
+        @Override
+        public double[] asPrimitiveArray() {
+            assert !building : "during building";
+            long size = count();
+            if(size >= Nodes.MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            double[] result = new double[(int) size];
+            copyInto(result, 0);
+            return result;
+        }
+        
+        @Override
+        public double[] newArray(int size) {
+            return new double[size];
+        }
+        
+        // 堆外缓冲区的流迭代器(double类型版本)
+        final class Splitr extends BaseSpliterator<Double, DoubleConsumer, Spliterator.OfDouble> implements Spliterator.OfDouble {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+            
+            @Override
+            void accept(ByteBuffer buffer, int i, DoubleConsumer action) {
+                action.accept(buffer.getDouble(i << 3));
+            }
+            
+            @Override
+            void acceptRange(ByteBuffer buffer, int from, int to, DoubleConsumer action) {
+                for(int i = from; i<to; i++) {
+                    action.accept(buffer.getDouble(i << 3));
+                }
+            }
+            
+            @Override
+            Spliterator.OfDouble newSpliterator(long origin, long fence) {
+                return new Splitr(origin, fence);
+            }
+        }
+    }
+
+}
@@ -26,6 +26,7 @@ package java.util.stream;
 
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -599,6 +600,32 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
         return WhileOps.makeDropWhileRef(this, predicate);
     }
     
+    // 分块：将相邻的size个元素分为一组，各组互不重叠，最后一组的元素可能不足size个
+    @Override
+    public final Stream<List<P_OUT>> chunked(int size) {
+        if(size<=0) {
+            throw new IllegalArgumentException(Integer.toString(size));
+        }
+        
+        return WindowOps.makeRef(this, size, false);
+    }
+    
+    // 滑动窗口：每个窗口包含相邻的size个元素，每次向后滑动一个元素；元素不足size个时，只返回一个包含全部元素的窗口
+    @Override
+    public final Stream<List<P_OUT>> windowSliding(int size) {
+        if(size<=0) {
+            throw new IllegalArgumentException(Integer.toString(size));
+        }
+        
+        return WindowOps.makeRef(this, size, true);
+    }
+    
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    @Override
+    public final Stream<P_OUT> scan(BinaryOperator<P_OUT> accumulator) {
+        return ScanOps.makeRef(this, accumulator);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -0,0 +1,320 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Factory for the stateful intermediate "scan" operation, which replaces
+ * each element by the cumulative result of an associative function over
+ * all elements up to and including it in encounter order.
+ *
+ * <p>Sequentially the running value is carried from one element to the
+ * next in a single pass. In parallel the input is first collected in
+ * encounter order, as for {@code sorted()}, and the prefix is then computed
+ * with the two-pass {@link java.util.concurrent.CountedCompleter} algorithm
+ * of {@link Arrays#parallelPrefix(Object[], BinaryOperator)}.
+ *
+ * @since 11
+ */
+/*
+ * 应用在有状态的中间阶段的辅助类，服务于scan方法
+ *
+ * scan(前缀运算)：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果，运算需满足结合律。
+ *
+ * 顺序流中只需遍历一遍元素，将累积值从一个元素传递到下一个元素。
+ * 并行流中先按遭遇顺序收集上游元素(与sorted()相同)，
+ * 再使用Arrays.parallelPrefix中基于CountedCompleter的两趟并行前缀算法计算结果(参见ArrayPrefixHelpers)。
+ */
+final class ScanOps {
+    
+    private ScanOps() {
+    }
+    
+    
+    /**
+     * Returns a stream of the running results of {@code stream}, computed by
+     * a spliterator that wraps the spliterator of {@code stream}. This backs
+     * the default {@code scan} method of {@link Stream}, for implementations
+     * other than {@link ReferencePipeline}.
+     *
+     * @param <T>    the type of both input and output elements
+     * @param stream a stream with element type T
+     * @param op     an associative, non-interfering, stateless function
+     *
+     * @return the new stream
+     */
+    // 在stream的流迭代器上包装出前缀运算流，用作Stream中scan(BinaryOperator)的默认实现
+    static <T> Stream<T> adapt(Stream<T> stream, BinaryOperator<T> op) {
+        Objects.requireNonNull(op);
+        
+        Spliterator<T> results = new AdaptedScanSpliterator<>(stream.spliterator(), op);
+        
+        // 为结果流注册关闭回调：如果结果流关闭了，也顺便将stream关闭
+        return StreamSupport.stream(results, stream.isParallel()).onClose(stream::close);
+    }
+    
+    /**
+     * Appends a "scan" operation to the provided reference stream.
+     *
+     * @param <T>      the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param op       an associative, non-interfering, stateless function
+     *
+     * @return the new stream
+     */
+    // 构造可以执行"前缀运算"任务的流的中间阶段(引用类型版本)
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream, BinaryOperator<T> op) {
+        Objects.requireNonNull(op);
+        
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, StreamShape.REFERENCE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<T> downSink) {
+                return new Sink.ChainedReference<T, T>(downSink) {
+                    boolean seen;   // 是否已接收过元素
+                    T acc;          // 累积值
+                    
+                    @Override
+                    public void accept(T t) {
+                        if(seen) {
+                            acc = op.apply(acc, t);
+                        } else {
+                            seen = true;
+                            acc = t;
+                        }
+                        downstream.accept(acc);
+                    }
+                };
+            }
+            
+            // 并行处理helper流阶段输出的元素，先按遭遇顺序收集，再并行计算前缀
+            @Override
+            <P_IN> Node<T> opEvaluateParallel(PipelineHelper<T> helper, Spliterator<P_IN> spliterator, IntFunction<T[]> generator) {
+                T[] data = helper.evaluate(spliterator, true, generator).asArray(generator);
+                Arrays.parallelPrefix(data, op);
+                return Nodes.node(data);
+            }
+        };
+    }
+    
+    /**
+     * Appends a "scan" operation to the provided int stream.
+     *
+     * @param upstream an int stream
+     * @param op       an associative, non-interfering, stateless function
+     *
+     * @return the new stream
+     */
+    // 构造可以执行"前缀运算"任务的流的中间阶段(int类型版本)
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream, IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        
+        return new IntPipeline.StatefulOp<Integer>(upstream, StreamShape.INT_VALUE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> downSink) {
+                return new Sink.ChainedInt<Integer>(downSink) {
+                    boolean seen;   // 是否已接收过元素
+                    int acc;        // 累积值
+                    
+                    @Override
+                    public void accept(int t) {
+                        if(seen) {
+                            acc = op.applyAsInt(acc, t);
+                        } else {
+                            seen = true;
+                            acc = t;
+                        }
+                        downstream.accept(acc);
+                    }
+                };
+            }
+            
+            // 并行处理helper流阶段输出的元素，先按遭遇顺序收集，再并行计算前缀
+            @Override
+            <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper, Spliterator<P_IN> spliterator, IntFunction<Integer[]> generator) {
+                int[] data = ((Node.OfInt) helper.evaluate(spliterator, true, generator)).asPrimitiveArray();
+                Arrays.parallelPrefix(data, op);
+                return Nodes.node(data);
+            }
+        };
+    }
+    
+    /**
+     * Appends a "scan" operation to the provided long stream.
+     *
+     * @param upstream a long stream
+     * @param op       an associative, non-interfering, stateless function
+     *
+     * @return the new stream
+     */
+    // 构造可以执行"前缀运算"任务的流的中间阶段(long类型版本)
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream, LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        
+        return new LongPipeline.StatefulOp<Long>(upstream, StreamShape.LONG_VALUE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> downSink) {
+                return new Sink.ChainedLong<Long>(downSink) {
+                    boolean seen;   // 是否已接收过元素
+                    long acc;       // 累积值
+                    
+                    @Override
+                    public void accept(long t) {
+                        if(seen) {
+                            acc = op.applyAsLong(acc, t);
+                        } else {
+                            seen = true;
+                            acc = t;
+                        }
+                        downstream.accept(acc);
+                    }
+                };
+            }
+            
+            // 并行处理helper流阶段输出的元素，先按遭遇顺序收集，再并行计算前缀
+            @Override
+            <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper, Spliterator<P_IN> spliterator, IntFunction<Long[]> generator) {
+                long[] data = ((Node.OfLong) helper.evaluate(spliterator, true, generator)).asPrimitiveArray();
+                Arrays.parallelPrefix(data, op);
+                return Nodes.node(data);
+            }
+        };
+    }
+    
+    /**
+     * Appends a "scan" operation to the provided double stream.
+     *
+     * @param upstream a double stream
+     * @param op       an associative, non-interfering, stateless function
+     *
+     * @return the new stream
+     */
+    // 构造可以执行"前缀运算"任务的流的中间阶段(double类型版本)
+    static DoubleStream makeDouble(AbstractPipeline<?, Double, ?> upstream, DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        
+        return new DoublePipeline.StatefulOp<Double>(upstream, StreamShape.DOUBLE_VALUE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<Double> opWrapSink(int flags, Sink<Double> downSink) {
+                return new Sink.ChainedDouble<Double>(downSink) {
+                    boolean seen;   // 是否已接收过元素
+                    double acc;     // 累积值
+                    
+                    @Override
+                    public void accept(double t) {
+                        if(seen) {
+                            acc = op.applyAsDouble(acc, t);
+                        } else {
+                            seen = true;
+                            acc = t;
+                        }
+                        downstream.accept(acc);
+                    }
+                };
+            }
+            
+            // 并行处理helper流阶段输出的元素，先按遭遇顺序收集，再并行计算前缀
+            @Override
+            <P_IN> Node<Double> opEvaluateParallel(PipelineHelper<Double> helper, Spliterator<P_IN> spliterator, IntFunction<Double[]> generator) {
+                double[] data = ((Node.OfDouble) helper.evaluate(spliterator, true, generator)).asPrimitiveArray();
+                Arrays.parallelPrefix(data, op);
+                return Nodes.node(data);
+            }
+        };
+    }
+    
+    /**
+     * A spliterator that carries the running result over the elements of a
+     * wrapped spliterator. It does not split, so the results are computed
+     * in encounter order.
+     */
+    // 包装了上游流迭代器的前缀运算流迭代器，将累积值从一个元素传递到下一个元素；不可分割，因此总是按遭遇顺序计算
+    private static final class AdaptedScanSpliterator<T> implements Spliterator<T>, Consumer<T> {
+        private final Spliterator<T> source;
+        private final BinaryOperator<T> op;
+        private boolean seen;   // 是否已接收过元素
+        private T acc;          // 累积值
+        
+        AdaptedScanSpliterator(Spliterator<T> source, BinaryOperator<T> op) {
+            this.source = source;
+            this.op = op;
+        }
+        
+        // 接收上游元素，更新累积值
+        @Override
+        public void accept(T t) {
+            if(seen) {
+                acc = op.apply(acc, t);
+            } else {
+                seen = true;
+                acc = t;
+            }
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            
+            if(!source.tryAdvance(this)) {
+                return false;
+            }
+            
+            action.accept(acc);
+            return true;
+        }
+        
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+        
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+        
+        @Override
+        public int characteristics() {
+            return source.characteristics() & (Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+    }
+}
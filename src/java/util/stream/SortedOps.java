@@ -27,6 +27,7 @@ package java.util.stream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.IntFunction;
@@ -157,6 +158,11 @@ final class SortedOps {
                 return downSink;
             }
             
+            // 启用了外部排序时，使用可以将元素溢出到磁盘的Sink
+            if(SpillingSorter.enabled()) {
+                return new SpillingRefSortingSink<>(downSink, comparator);
+            }
+            
             // 2.如果上个阶段的流中元素数量有限，则可以使用支持"有限元素排序"的Sink
             if(StreamOpFlag.SIZED.isKnown(flags)) {
                 return new SizedRefSortingSink<>(downSink, comparator);
@@ -191,6 +197,14 @@ final class SortedOps {
             // helper流阶段的元素是否已经按自然顺序排好序了
             boolean sorted = StreamOpFlag.SORTED.isKnown(streamAndOpFlags) && isNaturalSort;
             
+            /*
+             * 元素数量超过内存上限或未知，且启用了外部排序时，将元素依次放入可溢出到磁盘的缓冲区，
+             * 排序结果在下游遍历时才被归并，不必将所有元素收集到内存中
+             */
+            if(!sorted && SpillingSorter.useFor(helper.exactOutputSizeIfKnown(spliterator))) {
+                return helper.wrapAndCopyInto(new SpillingSorter<T>(comparator), spliterator).build();
+            }
+            
             /*
              * 获取helper流阶段的输出元素
              *
@@ -270,6 +284,12 @@ final class SortedOps {
             // helper流阶段的元素是否已经按自然顺序排好序了
             boolean sorted = StreamOpFlag.SORTED.isKnown(streamAndOpFlags);
             
+            // 元素数量较大或未知，且启用了堆外存储时，在堆外收集并排序，不必将元素降维到堆上的数组中
+            if(!sorted && OffHeapSpinedBuffer.useFor(helper.exactOutputSizeIfKnown(spliterator))) {
+                Node.OfInt node = (Node.OfInt) helper.evaluate(spliterator, false, generator);
+                return OffHeapSpinedBuffer.OfInt.sort(node);
+            }
+            
             /*
              * 获取helper流阶段的输出元素
              *
@@ -349,6 +369,12 @@ final class SortedOps {
             // helper流阶段的元素是否已经按自然顺序排好序了
             boolean sorted = StreamOpFlag.SORTED.isKnown(streamAndOpFlags);
             
+            // 元素数量较大或未知，且启用了堆外存储时，在堆外收集并排序，不必将元素降维到堆上的数组中
+            if(!sorted && OffHeapSpinedBuffer.useFor(helper.exactOutputSizeIfKnown(spliterator))) {
+                Node.OfLong node = (Node.OfLong) helper.evaluate(spliterator, false, generator);
+                return OffHeapSpinedBuffer.OfLong.sort(node);
+            }
+            
             /*
              * 获取helper流阶段的输出元素
              *
@@ -428,6 +454,12 @@ final class SortedOps {
             // helper流阶段的元素是否已经按自然顺序排好序了
             boolean sorted = StreamOpFlag.SORTED.isKnown(streamAndOpFlags);
             
+            // 元素数量较大或未知，且启用了堆外存储时，在堆外收集并排序，不必将元素降维到堆上的数组中
+            if(!sorted && OffHeapSpinedBuffer.useFor(helper.exactOutputSizeIfKnown(spliterator))) {
+                Node.OfDouble node = (Node.OfDouble) helper.evaluate(spliterator, false, generator);
+                return OffHeapSpinedBuffer.OfDouble.sort(node);
+            }
+            
             /*
              * 获取helper流阶段的输出元素
              *
@@ -990,6 +1022,59 @@ final class SortedOps {
         
     }
     
+    /**
+     * {@link Sink} for implementing sort on reference streams that may spill
+     * sorted runs to disk, see {@link SpillingSorter}.
+     */
+    // 支持"外部排序"的Sink(引用类型版本)，内存中的元素超过上限时，将其排序后写入临时文件，最后再进行多路归并
+    private static final class SpillingRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private SpillingSorter<T> sorter; // 存储上游发来的数据
+        
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator) {
+            super(sink, comparator);
+        }
+        
+        @Override
+        public void begin(long size) {
+            sorter = new SpillingSorter<>(comparator);
+            sorter.begin(size);
+        }
+        
+        @Override
+        public void accept(T t) {
+            sorter.accept(t);
+        }
+        
+        @Override
+        public void end() {
+            try {
+                // 一边归并一边向下游传递元素
+                Iterator<T> it = sorter.iterator();
+                
+                // 将元素数量传递给了下游
+                downstream.begin(sorter.count());
+                
+                // 如果没有收到取消信号，则一切照旧，将当前阶段的元素传递到下游
+                if(!cancellationRequestedCalled) {
+                    it.forEachRemaining(downstream::accept);
+                    
+                    // 如果收到了取消申请，则需要将该申请向下游传递，如果下游反馈说可以取消，则停止归并
+                } else {
+                    while(it.hasNext() && !downstream.cancellationRequested()) {
+                        downstream.accept(it.next());
+                    }
+                }
+                
+                // 结束流
+                downstream.end();
+            } finally {
+                // 删除临时文件
+                sorter.close();
+                sorter = null;
+            }
+        }
+    }
+    
     /**
      * {@link Sink} for implementing sort on int streams.
      */
@@ -0,0 +1,502 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import jdk.internal.ref.CleanerFactory;
+
+/**
+ * A sort buffer for reference streams that holds a bounded number of
+ * elements in memory. Whenever the buffer fills up its elements are sorted
+ * with {@link Arrays#parallelSort(Object[], int, int, Comparator)} and
+ * written, as a sorted run, to a temporary file. The sorted result is
+ * produced lazily by a k-way merge of the runs and of the elements still in
+ * memory, so a stream can be sorted with a heap that holds one run.
+ *
+ * <p>Spilling is only used when the system property
+ * {@code org.openjdk.java.util.stream.sortRunSize} is set. Its value is the
+ * number of elements a sort may hold in memory; the stream elements must
+ * then be {@link java.io.Serializable}. Run files are created in the
+ * directory named by {@code org.openjdk.java.util.stream.sortSpillDir}, by
+ * default {@code java.io.tmpdir}, and are deleted once the merge completes
+ * or the buffer becomes unreachable.
+ *
+ * <p>Elements that compare equal are produced in the order they were
+ * accepted, so the sort is stable like {@code sorted()} on ordered streams.
+ *
+ * <p>A buffer is both a {@link Node.Builder} and the {@link Node} it builds,
+ * which allows it to take the place of an in-memory node in the parallel
+ * {@code sorted()} operation.
+ *
+ * @param <T> the type of elements
+ *
+ * @see OffHeapSpinedBuffer
+ */
+/*
+ * 可溢出到磁盘的排序缓冲区(引用类型版本)，用于外部归并排序
+ *
+ * 内存中最多缓存sortRunSize个元素，缓冲区满后，使用Arrays.parallelSort将其排序，
+ * 然后作为一个有序的"归并段"写入临时文件。
+ * 读取排序结果时，对所有归并段以及仍在内存中的元素进行多路归并，且是一边读取一边归并，
+ * 因此，只需要能容纳一个归并段的堆内存，就可以对任意规模的流进行排序。
+ *
+ * 只有设置了系统属性org.openjdk.java.util.stream.sortRunSize时才会启用，该属性给出了内存中最多缓存的元素数量，
+ * 此时流中的元素必须可以序列化。
+ * 临时文件位于系统属性org.openjdk.java.util.stream.sortSpillDir指定的目录中，默认是java.io.tmpdir；
+ * 归并结束后，或者缓冲区不可达时，临时文件会被删除。
+ *
+ * 相等的元素按照其被接收的顺序输出，即排序是稳定的。
+ *
+ * 该缓冲区既是Node构建器，也是其构建出的Node，因此可以在并行的sorted()操作中代替内存中的Node。
+ */
+final class SpillingSorter<T> implements Node<T>, Node.Builder<T> {
+    
+    private static final String RUN_SIZE_PROPERTY = "org.openjdk.java.util.stream.sortRunSize";
+    private static final String SPILL_DIR_PROPERTY = "org.openjdk.java.util.stream.sortSpillDir";
+    
+    /** Elements a sort may hold in memory; -1 if spilling is disabled */
+    // 内存中最多缓存的元素数量，未设置系统属性(即未启用)时为-1
+    static final int RUN_SIZE = AccessController.doPrivileged((PrivilegedAction<Integer>) () -> {
+        Long size = Long.getLong(RUN_SIZE_PROPERTY);
+        return size == null ? -1 : (int) Math.max(1, Math.min(size, Nodes.MAX_ARRAY_SIZE));
+    });
+    
+    /** Directory of the run files, or null for the default temporary-file directory */
+    // 存放临时文件的目录，为null时使用默认的临时文件目录
+    private static final String SPILL_DIR = AccessController.doPrivileged((PrivilegedAction<String>) () -> System.getProperty(SPILL_DIR_PROPERTY));
+    
+    /** Capacity of the in-memory buffer when the input size is not known */
+    // 上游元素数量未知时，内存缓冲区的初始容量
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    
+    /** Size of the I/O buffers used to write and read runs */
+    // 读写归并段时使用的缓冲区大小
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    
+    /** Number of objects written between two resets of an object stream */
+    // 每写入这么多对象，就重置一次对象输出流，以释放其中缓存的对象引用
+    private static final int RESET_INTERVAL = 1 << 10;
+    
+    private final Comparator<? super T> comparator;
+    
+    private final List<Run> runs = new ArrayList<>();   // 已写入临时文件的归并段，按写入顺序排列
+    private final Cleaner.Cleanable cleanable;          // 负责关闭(删除)临时文件
+    
+    private Object[] buffer;    // 内存中的元素
+    private int count;          // 内存中的元素数量
+    private long spilled;       // 已写入临时文件的元素数量
+    private boolean sealed;     // 内存中的元素是否已排序，此后不再接收新元素
+    
+    SpillingSorter(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.buffer = new Object[Math.min(INITIAL_CAPACITY, RUN_SIZE)];
+        
+        List<Run> files = runs;
+        this.cleanable = CleanerFactory.cleaner().register(this, () -> closeAll(files));
+    }
+    
+    /**
+     * Returns whether spilling is enabled.
+     */
+    // 判断是否启用了溢出到磁盘的外部排序
+    static boolean enabled() {
+        return RUN_SIZE>0;
+    }
+    
+    /**
+     * Returns whether a sort of {@code size} elements, or of an unknown
+     * number of elements if {@code size} is negative, may need to spill.
+     */
+    // 判断对size个元素排序时是否可能需要溢出到磁盘；size为负数表示元素数量未知
+    static boolean useFor(long size) {
+        return enabled() && (size<0 || size>RUN_SIZE);
+    }
+    
+    
+    
+    /*▼ Node.Builder ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 元素数量已知时，直接分配足够(但不超过RUN_SIZE)的内存缓冲区
+    @Override
+    public void begin(long size) {
+        if(size>buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(size, RUN_SIZE));
+        }
+    }
+    
+    // 接收元素，内存缓冲区已满时将其排序后写入临时文件
+    @Override
+    public void accept(T t) {
+        if(sealed) {
+            throw new IllegalStateException();
+        }
+        
+        if(count == buffer.length) {
+            if(count == RUN_SIZE) {
+                spill();
+            } else {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(RUN_SIZE, count + (count >> 1) + 1L));
+            }
+        }
+        
+        buffer[count++] = t;
+    }
+    
+    @Override
+    public void end() {
+    }
+    
+    @Override
+    public Node<T> build() {
+        return this;
+    }
+    
+    /*▲ Node.Builder ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ Node ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    // 返回排序后的元素数量
+    @Override
+    public long count() {
+        return spilled + count;
+    }
+    
+    // 返回排序后的元素上的流迭代器，元素在遍历时才被归并
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), count(), Spliterator.ORDERED);
+    }
+    
+    // 按排序后的顺序遍历元素
+    @Override
+    public void forEach(Consumer<? super T> consumer) {
+        iterator().forEachRemaining(consumer);
+    }
+    
+    // 将排序后的元素复制到array中offset处
+    @Override
+    public void copyInto(T[] array, int offset) {
+        Iterator<T> it = iterator();
+        while(it.hasNext()) {
+            array[offset++] = it.next();
+        }
+    }
+    
+    // 将排序后的元素存入generator生成的数组中
+    @Override
+    public T[] asArray(IntFunction<T[]> generator) {
+        long size = count();
+        if(size >= Nodes.MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException(Nodes.BAD_SIZE);
+        }
+        
+        T[] array = generator.apply((int) size);
+        copyInto(array, 0);
+        return array;
+    }
+    
+    /*▲ Node ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /**
+     * Returns an iterator over the elements in sorted order. The first call
+     * sorts the elements still held in memory; afterwards no elements may
+     * be accepted. Once an iterator over spilled runs is exhausted the run
+     * files are deleted and the buffer is closed.
+     */
+    // 返回按排序后的顺序遍历元素的迭代器；首次调用时会对内存中的元素排序，此后不再接收新元素；归并结束后会删除临时文件并关闭缓冲区
+    @SuppressWarnings("unchecked")
+    Iterator<T> iterator() {
+        if(buffer == null) {
+            throw new IllegalStateException("sorter closed");
+        }
+        
+        if(!sealed) {
+            sealed = true;
+            Arrays.parallelSort((T[]) buffer, 0, count, comparator);
+        }
+        
+        // 没有溢出时，直接遍历内存中的元素
+        if(runs.isEmpty()) {
+            return Spliterators.iterator(Spliterators.spliterator(buffer, 0, count, Spliterator.ORDERED));
+        }
+        
+        return new MergeIterator();
+    }
+    
+    /**
+     * Deletes the run files. The buffer may not be used afterwards.
+     */
+    // 删除临时文件，此后不能再使用该缓冲区
+    void close() {
+        buffer = null;
+        cleanable.clean();
+    }
+    
+    // 将内存中的元素排序后写入一个新的临时文件，并清空内存缓冲区
+    @SuppressWarnings("unchecked")
+    private void spill() {
+        Arrays.parallelSort((T[]) buffer, 0, count, comparator);
+        
+        Run run = AccessController.doPrivileged((PrivilegedAction<Run>) () -> {
+            FileChannel channel = null;
+            try {
+                Path file = SPILL_DIR == null ? Files.createTempFile("stream-sort", ".tmp") : Files.createTempFile(Paths.get(SPILL_DIR), "stream-sort", ".tmp");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+                
+                // 不关闭输出流，以免关闭通道(这会删除文件)
+                ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_SIZE));
+                for(int i = 0; i<count; i++) {
+                    out.writeObject(buffer[i]);
+                    if(i % RESET_INTERVAL == RESET_INTERVAL - 1) {
+                        out.reset();
+                    }
+                }
+                out.flush();
+                
+                return new Run(channel, count);
+            } catch(IOException e) {
+                closeQuietly(channel);
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        runs.add(run);
+        spilled += count;
+        
+        Arrays.fill(buffer, 0, count, null);
+        count = 0;
+    }
+    
+    // 关闭所有临时文件
+    private static void closeAll(List<Run> runs) {
+        for(Run run : runs) {
+            closeQuietly(run.channel);
+        }
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if(channel != null) {
+            try {
+                channel.close();
+            } catch(IOException ignore) {
+            }
+        }
+    }
+    
+    
+    /**
+     * A sorted run written to a temporary file.
+     */
+    // 写入临时文件的归并段
+    private static final class Run {
+        final FileChannel channel;
+        final int count;    // 元素数量
+        
+        Run(FileChannel channel, int count) {
+            this.channel = channel;
+            this.count = count;
+        }
+    }
+    
+    /**
+     * An input stream reading a run file with positional reads, so that
+     * several iterations over the same run do not interfere.
+     */
+    // 使用绝对位置读取归并段文件的输入流，因此对同一个归并段的多次遍历互不干扰
+    private static final class RunInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        
+        RunInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if(n>0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+    
+    /**
+     * A cursor over one run, either a run file or the sorted elements still
+     * held in memory. Cursors with a lower index hold elements accepted
+     * earlier and win ties, which keeps the merge stable.
+     */
+    // 归并段上的游标，归并段可以是临时文件，也可以是内存中排好序的元素；序号较小的游标包含较早接收的元素，相等时优先输出，以保证排序的稳定性
+    private final class Cursor {
+        final int index;            // 归并段序号
+        final ObjectInputStream in; // 读取临时文件，为null时读取内存中的元素
+        int remaining;              // 剩余未读取的元素数量
+        int next;                   // 下一个待读取的内存中的元素
+        T head;                     // 当前元素
+        
+        Cursor(int index, Run run) throws IOException {
+            this.index = index;
+            this.in = new ObjectInputStream(new BufferedInputStream(new RunInputStream(run.channel), IO_BUFFER_SIZE));
+            this.remaining = run.count;
+        }
+        
+        Cursor(int index, int count) {
+            this.index = index;
+            this.in = null;
+            this.remaining = count;
+        }
+        
+        // 前进到下一个元素，如果已经没有元素，返回false
+        @SuppressWarnings("unchecked")
+        boolean advance() {
+            if(remaining == 0) {
+                head = null;
+                return false;
+            }
+            
+            remaining--;
+            if(in == null) {
+                head = (T) buffer[next++];
+                return true;
+            }
+            
+            try {
+                head = (T) in.readObject();
+                return true;
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            } catch(ClassNotFoundException e) {
+                throw new UncheckedIOException(new IOException(e));
+            }
+        }
+        
+        // 关闭读取临时文件的输入流
+        void close() {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch(IOException ignore) {
+                }
+            }
+        }
+    }
+    
+    /**
+     * Merges the runs lazily: each call to {@code next()} reads one element
+     * from the run whose current element is the least.
+     */
+    // 多路归并迭代器：每次调用next()时，从当前元素最小的归并段中读取一个元素
+    private final class MergeIterator implements Iterator<T> {
+        private final PriorityQueue<Cursor> heap;
+        
+        MergeIterator() {
+            Comparator<Cursor> byHead = (a, b) -> {
+                int c = comparator.compare(a.head, b.head);
+                return c != 0 ? c : Integer.compare(a.index, b.index);
+            };
+            heap = new PriorityQueue<>(runs.size() + 1, byHead);
+            
+            try {
+                for(int i = 0; i<runs.size(); i++) {
+                    push(new Cursor(i, runs.get(i)));
+                }
+            } catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            
+            // 内存中的元素最晚被接收
+            push(new Cursor(runs.size(), count));
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+        
+        @Override
+        public T next() {
+            Cursor cursor = heap.poll();
+            if(cursor == null) {
+                throw new NoSuchElementException();
+            }
+            
+            T t = cursor.head;
+            push(cursor);
+            return t;
+        }
+        
+        // 游标前进一个元素后，如果仍有元素，则将其放回堆中；否则关闭该游标，所有游标都已耗尽时删除临时文件
+        private void push(Cursor cursor) {
+            if(cursor.advance()) {
+                heap.offer(cursor);
+                return;
+            }
+            
+            cursor.close();
+            
+            if(heap.isEmpty()) {
+                close();
+            }
+        }
+    }
+}
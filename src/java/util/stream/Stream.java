@@ -29,6 +29,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -1097,6 +1098,106 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
         return stream.onClose(this::close);
     }
     
+    /**
+     * Returns a stream consisting of the elements of this stream grouped
+     * into consecutive, non-overlapping chunks of {@code size} elements, in
+     * encounter order. The last chunk holds the remaining elements and may
+     * be shorter than {@code size}; an empty stream yields no chunks.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline makes a single pass
+     * and buffers at most one chunk; a parallel pipeline first collects the
+     * elements of this stream, as {@link #sorted()} does.
+     *
+     * @param size the number of elements in each chunk but the last
+     *
+     * @return the new stream, whose elements are unmodifiable lists of elements of this stream
+     *
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @implSpec The default implementation wraps the {@link #spliterator()}
+     * of this stream in a spliterator that does not split, so the windows
+     * are cut sequentially even if this stream is parallel.
+     * @apiNote Chunking is the usual way to batch the elements of a stream
+     * into bulk operations:
+     * <pre>{@code
+     *     rows.stream().chunked(500).forEach(batch -> dao.insertAll(batch));
+     * }</pre>
+     * @since 11
+     */
+    // 分块：将相邻的size个元素分为一组，各组互不重叠，最后一组的元素可能不足size个
+    default Stream<List<T>> chunked(int size) {
+        return WindowOps.adapt(this, size, false);
+    }
+    
+    /**
+     * Returns a stream consisting of the sliding windows of {@code size}
+     * consecutive elements of this stream, in encounter order. Each window
+     * starts one element after the previous one, so a stream of <em>n</em>
+     * &gt;= {@code size} elements yields <em>n - size + 1</em> windows. A
+     * non-empty stream of fewer than {@code size} elements yields a single
+     * window holding all of them; an empty stream yields no windows.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline makes a single pass
+     * and buffers at most one window; a parallel pipeline first collects the
+     * elements of this stream, as {@link #sorted()} does.
+     *
+     * @param size the number of elements in each window
+     *
+     * @return the new stream, whose elements are unmodifiable lists of elements of this stream
+     *
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @implSpec The default implementation wraps the {@link #spliterator()}
+     * of this stream in a spliterator that does not split, so the windows
+     * are cut sequentially even if this stream is parallel.
+     * @since 11
+     */
+    // 滑动窗口：每个窗口包含相邻的size个元素，每次向后滑动一个元素；元素不足size个时，只返回一个包含全部元素的窗口
+    default Stream<List<T>> windowSliding(int size) {
+        return WindowOps.adapt(this, size, true);
+    }
+    
+    /**
+     * Returns a stream consisting of the running results of combining the
+     * elements of this stream with the given associative accumulation
+     * function, in encounter order. The first element of the new stream is
+     * the first element of this stream, and each following element is the
+     * result of applying the function to the previous result and the
+     * corresponding element of this stream:
+     * <pre>{@code
+     *     r[0] = e[0]; r[i] = accumulator.apply(r[i - 1], e[i]);
+     * }</pre>
+     * The new stream has as many elements as this stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>. A sequential pipeline carries the running
+     * result from one element to the next; a parallel pipeline first
+     * collects the elements of this stream and then computes the running
+     * results in parallel, as {@link java.util.Arrays#parallelPrefix} does,
+     * which requires the function to be associative.
+     *
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values
+     *
+     * @return the new stream
+     *
+     * @apiNote Running totals are a typical use:
+     * <pre>{@code
+     *     Stream<BigInteger> balances = deposits.stream().scan(BigInteger::add);
+     * }</pre>
+     * @implSpec The default implementation wraps the {@link #spliterator()}
+     * of this stream in a non-splitting spliterator that carries the running
+     * result from one element to the next; closing the returned stream
+     * closes this stream.
+     * @since 11
+     */
+    // 前缀运算：将每个元素替换为其之前(含其自身)所有元素按遭遇顺序累积运算的结果
+    default Stream<T> scan(BinaryOperator<T> accumulator) {
+        return ScanOps.adapt(this, accumulator);
+    }
+    
     /*▲ 中间操作-有状态 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -0,0 +1,657 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Factory for stateful intermediate operations that group consecutive
+ * elements of a stream into windows, either disjoint chunks
+ * ({@code chunked(size)}) or overlapping windows that advance by one
+ * element ({@code windowSliding(size)}).
+ *
+ * <p>Sequentially a window operation makes a single pass over its input
+ * and never buffers more than one window. In parallel the input is first
+ * collected in encounter order, as for {@code sorted()}, and the windows
+ * are then cut from the collected elements by window index, so that the
+ * downstream stages can again split the work and encounter order is
+ * preserved.
+ *
+ * @since 11
+ */
+/*
+ * 应用在有状态的中间阶段的辅助类，服务于chunked(int)方法和windowSliding(int)方法
+ *
+ * 分块(chunked)：将相邻的size个元素分为一组，各组互不重叠，最后一组的元素可能不足size个。
+ * 滑动窗口(windowSliding)：每个窗口包含相邻的size个元素，每次向后滑动一个元素；元素不足size个时，只返回一个包含全部元素的窗口。
+ *
+ * 顺序流中只需遍历一遍元素，最多缓存一个窗口的元素。
+ * 并行流中先按遭遇顺序收集上游元素(与sorted()相同)，再按窗口序号切分出各个窗口，下游阶段依然可以并行处理这些窗口，且保持遭遇顺序。
+ */
+final class WindowOps {
+    
+    /** Initial buffer capacity when the window size exceeds the known input */
+    // 上游元素数量未知时，窗口缓冲区的初始容量
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private WindowOps() {
+    }
+    
+    
+    /**
+     * Appends a window operation to the provided reference stream.
+     *
+     * @param upstream a reference stream with element type T
+     * @param size     the number of elements in a full window
+     * @param sliding  whether windows overlap and advance by one element,
+     *                 rather than being disjoint
+     *
+     * @return the new stream of windows, each an unmodifiable list
+     */
+    // 构造可以执行"分块"或"滑动窗口"任务的流的中间阶段(引用类型版本)，每个窗口都是不可变的List
+    static <T> Stream<List<T>> makeRef(AbstractPipeline<?, T, ?> upstream, int size, boolean sliding) {
+        int step = sliding ? 1 : size;
+        
+        return new ReferencePipeline.StatefulOp<T, List<T>>(upstream, StreamShape.REFERENCE, StreamOpFlag.NOT_SIZED | StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> downSink) {
+                return new RefWindowSink<>(downSink, size, step);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回由所有窗口组成的Node
+            @Override
+            <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper, Spliterator<P_IN> spliterator, IntFunction<List<T>[]> generator) {
+                return windowNode(collect(helper, spliterator), generator);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回可以按窗口序号分割的流迭代器
+            @Override
+            <P_IN> Spliterator<List<T>> opEvaluateParallelLazy(PipelineHelper<List<T>> helper, Spliterator<P_IN> spliterator) {
+                return collect(helper, spliterator);
+            }
+            
+            // 按遭遇顺序收集helper流阶段输出的全部元素，返回这些元素上的窗口流迭代器
+            private <P_IN> WindowSpliterator<List<T>> collect(PipelineHelper<List<T>> helper, Spliterator<P_IN> spliterator) {
+                // helper是上个流阶段，其输出的元素类型为T
+                @SuppressWarnings("unchecked")
+                PipelineHelper<T> input = (PipelineHelper<T>) (PipelineHelper<?>) helper;
+                @SuppressWarnings("unchecked")
+                IntFunction<T[]> objects = n -> (T[]) new Object[n];
+                T[] data = input.evaluate(spliterator, true, objects).asArray(objects);
+                
+                return new WindowSpliterator<>(data.length, size, step, (from, to) -> list(Arrays.copyOfRange(data, from, to)));
+            }
+        };
+    }
+    
+    /**
+     * Appends a window operation to the provided int stream.
+     *
+     * @param upstream an int stream
+     * @param size     the number of elements in a full window
+     * @param sliding  whether windows overlap and advance by one element,
+     *                 rather than being disjoint
+     *
+     * @return the new stream of windows, each a newly allocated array
+     */
+    // 构造可以执行"分块"或"滑动窗口"任务的流的中间阶段(int类型版本)，每个窗口都是新分配的数组
+    static Stream<int[]> makeInt(AbstractPipeline<?, Integer, ?> upstream, int size, boolean sliding) {
+        int step = sliding ? 1 : size;
+        
+        return new ReferencePipeline.StatefulOp<Integer, int[]>(upstream, StreamShape.INT_VALUE, StreamOpFlag.NOT_SIZED | StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<int[]> downSink) {
+                return new IntWindowSink(downSink, size, step);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回由所有窗口组成的Node
+            @Override
+            <P_IN> Node<int[]> opEvaluateParallel(PipelineHelper<int[]> helper, Spliterator<P_IN> spliterator, IntFunction<int[][]> generator) {
+                return windowNode(collect(helper, spliterator), generator);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回可以按窗口序号分割的流迭代器
+            @Override
+            <P_IN> Spliterator<int[]> opEvaluateParallelLazy(PipelineHelper<int[]> helper, Spliterator<P_IN> spliterator) {
+                return collect(helper, spliterator);
+            }
+            
+            // 按遭遇顺序收集helper流阶段输出的全部元素，返回这些元素上的窗口流迭代器
+            private <P_IN> WindowSpliterator<int[]> collect(PipelineHelper<int[]> helper, Spliterator<P_IN> spliterator) {
+                // helper是上个流阶段，其输出的元素类型为int
+                @SuppressWarnings("unchecked")
+                PipelineHelper<Integer> input = (PipelineHelper<Integer>) (PipelineHelper<?>) helper;
+                int[] data = ((Node.OfInt) input.evaluate(spliterator, true, Integer[]::new)).asPrimitiveArray();
+                
+                return new WindowSpliterator<>(data.length, size, step, (from, to) -> Arrays.copyOfRange(data, from, to));
+            }
+        };
+    }
+    
+    /**
+     * Appends a window operation to the provided long stream.
+     *
+     * @param upstream a long stream
+     * @param size     the number of elements in a full window
+     * @param sliding  whether windows overlap and advance by one element,
+     *                 rather than being disjoint
+     *
+     * @return the new stream of windows, each a newly allocated array
+     */
+    // 构造可以执行"分块"或"滑动窗口"任务的流的中间阶段(long类型版本)，每个窗口都是新分配的数组
+    static Stream<long[]> makeLong(AbstractPipeline<?, Long, ?> upstream, int size, boolean sliding) {
+        int step = sliding ? 1 : size;
+        
+        return new ReferencePipeline.StatefulOp<Long, long[]>(upstream, StreamShape.LONG_VALUE, StreamOpFlag.NOT_SIZED | StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
+            
+            // 构造并返回属于当前流阶段的sink，该sink通常与downSink形成一个链条，以决定如何处理上个流阶段发来的数据
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<long[]> downSink) {
+                return new LongWindowSink(downSink, size, step);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回由所有窗口组成的Node
+            @Override
+            <P_IN> Node<long[]> opEvaluateParallel(PipelineHelper<long[]> helper, Spliterator<P_IN> spliterator, IntFunction<long[][]> generator) {
+                return windowNode(collect(helper, spliterator), generator);
+            }
+            
+            // 并行处理helper流阶段输出的元素，返回可以按窗口序号分割的流迭代器
+            @Override
+            <P_IN> Spliterator<long[]> opEvaluateParallelLazy(PipelineHelper<long[]> helper, Spliterator<P_IN> spliterator) {
+                return collect(helper, spliterator);
+            }
+            
+            // 按遭遇顺序收集helper流阶段输出的全部元素，返回这些元素上的窗口流迭代器
+            private <P_IN> WindowSpliterator<long[]> collect(PipelineHelper<long[]> helper, Spliterator<P_IN> spliterator) {
+                // helper是上个流阶段，其输出的元素类型为long
+                @SuppressWarnings("unchecked")
+                PipelineHelper<Long> input = (PipelineHelper<Long>) (PipelineHelper<?>) helper;
+                long[] data = ((Node.OfLong) input.evaluate(spliterator, true, Long[]::new)).asPrimitiveArray();
+                
+                return new WindowSpliterator<>(data.length, size, step, (from, to) -> Arrays.copyOfRange(data, from, to));
+            }
+        };
+    }
+    
+    
+    /**
+     * Returns the number of windows over {@code count} elements. A non-empty
+     * input shorter than a window still yields one, partial, window.
+     */
+    // 返回count个元素可以划分出的窗口数量；元素不足一个窗口时，也会生成一个(不完整的)窗口
+    static long windowCount(long count, int size, int step) {
+        if(count == 0) {
+            return 0;
+        }
+        
+        if(count<=size) {
+            return 1;
+        }
+        
+        return (count - size + step - 1) / step + 1;
+    }
+    
+    /**
+     * Returns a stream of the windows of the elements of {@code stream},
+     * cut by a spliterator that wraps the spliterator of {@code stream}.
+     * This backs the default {@code chunked} and {@code windowSliding}
+     * methods of {@link Stream}, for implementations other than
+     * {@link ReferencePipeline}.
+     *
+     * @param stream  a stream with element type T
+     * @param size    the number of elements in a full window
+     * @param sliding whether windows overlap and advance by one element,
+     *                rather than being disjoint
+     *
+     * @return the new stream of windows, each an unmodifiable list
+     */
+    // 在stream的流迭代器上包装出窗口流，用作Stream中chunked(int)与windowSliding(int)的默认实现
+    static <T> Stream<List<T>> adapt(Stream<T> stream, int size, boolean sliding) {
+        if(size<=0) {
+            throw new IllegalArgumentException(Integer.toString(size));
+        }
+        
+        Spliterator<List<T>> windows = new AdaptedWindowSpliterator<>(stream.spliterator(), size, sliding ? 1 : size);
+        
+        // 为窗口流注册关闭回调：如果窗口流关闭了，也顺便将stream关闭
+        return StreamSupport.stream(windows, stream.isParallel()).onClose(stream::close);
+    }
+    
+    // 将所有窗口存入generator生成的数组，并将该数组封装到Node中返回
+    private static <W> Node<W> windowNode(WindowSpliterator<W> windows, IntFunction<W[]> generator) {
+        long count = windows.estimateSize();
+        if(count >= Nodes.MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException(Nodes.BAD_SIZE);
+        }
+        
+        W[] array = generator.apply((int) count);
+        
+        // 各窗口互不依赖，可以并行生成
+        Arrays.parallelSetAll(array, windows::window);
+        
+        return Nodes.node(array);
+    }
+    
+    // 将数组封装为不可变的List
+    private static <T> List<T> list(T[] window) {
+        return Collections.unmodifiableList(Arrays.asList(window));
+    }
+    
+    // 计算窗口缓冲区的初始容量
+    private static int initialCapacity(int size, long expected) {
+        return (int) Math.min(size, expected >= 0 ? expected : INITIAL_CAPACITY);
+    }
+    
+    // 计算窗口缓冲区扩容后的容量，不超过窗口大小
+    private static int grow(int capacity, int size) {
+        return (int) Math.min(size, Math.max(INITIAL_CAPACITY, 2L * capacity));
+    }
+    
+    
+    /**
+     * Cuts windows from elements that have been collected into an array.
+     */
+    // 从元素区间[from, to)生成一个窗口
+    @FunctionalInterface
+    private interface Cutter<W> {
+        W cut(int from, int to);
+    }
+    
+    /**
+     * A spliterator over the windows of collected elements. It splits by
+     * window index, so each window is produced by exactly one half and the
+     * halves remain in encounter order.
+     */
+    // 窗口流迭代器：按窗口序号分割，因此每个窗口只会出现在一个子迭代器中，且子迭代器之间保持遭遇顺序
+    private static final class WindowSpliterator<W> implements Spliterator<W> {
+        private final int length;       // 元素总数
+        private final int size;         // 窗口大小
+        private final int step;         // 相邻窗口起点之间的距离
+        private final Cutter<W> cutter; // 从元素区间生成窗口
+        private long index;             // 下一个窗口的序号
+        private final long fence;       // 窗口序号的上界(不包含)
+        
+        WindowSpliterator(int length, int size, int step, Cutter<W> cutter) {
+            this(length, size, step, cutter, 0, windowCount(length, size, step));
+        }
+        
+        private WindowSpliterator(int length, int size, int step, Cutter<W> cutter, long index, long fence) {
+            this.length = length;
+            this.size = size;
+            this.step = step;
+            this.cutter = cutter;
+            this.index = index;
+            this.fence = fence;
+        }
+        
+        // 返回序号为i的窗口
+        W window(long i) {
+            long from = i * step;
+            return cutter.cut((int) from, (int) Math.min(length, from + size));
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            if(index >= fence) {
+                return false;
+            }
+            
+            action.accept(window(index++));
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            long i = index, hi = fence;
+            index = hi;
+            for(; i<hi; i++) {
+                action.accept(window(i));
+            }
+        }
+        
+        @Override
+        public Spliterator<W> trySplit() {
+            long lo = index, mid = (lo + fence) >>> 1;
+            if(lo >= mid) {
+                return null;
+            }
+            
+            index = mid;
+            return new WindowSpliterator<>(length, size, step, cutter, lo, mid);
+        }
+        
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+        
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        }
+    }
+    
+    /**
+     * State shared by the window sinks: the window geometry, the number of
+     * buffered elements and whether a full window has been pushed downstream.
+     * <p>
+     * A window sink buffers elements until a window is full and then pushes
+     * it downstream. A chunking sink ({@code step == size}) hands its buffer
+     * over and starts a new one. A sliding sink uses its full buffer as a
+     * ring: it pushes the window unrolled into a new array, the only copy
+     * made per window, and then drops the oldest {@code step} elements by
+     * advancing the head of the ring. At the end of the input a chunking
+     * sink pushes its partial last chunk, while a sliding sink pushes a
+     * partial window only if the input was shorter than a window.
+     */
+    // 窗口sink的状态
+    private static final class WindowState {
+        final int size;     // 窗口大小
+        final int step;     // 相邻窗口起点之间的距离
+        int head;           // 滑动窗口：缓冲区(环形)中最早的元素的位置；在缓冲区第一次填满前总是0
+        int count;          // 缓冲区中的元素数量
+        boolean pushed;     // 是否已向下游发送过完整的窗口
+        
+        WindowState(int size, int step) {
+            this.size = size;
+            this.step = step;
+        }
+        
+        // 结束时，缓冲区中剩余的元素是否需要作为最后一个窗口发送
+        boolean hasPartialWindow() {
+            return count>0 && (step == size || !pushed);
+        }
+        
+        // 返回下一个元素在容量为capacity的缓冲区中的存放位置，并增加元素数量
+        int next(int capacity) {
+            int i = head + count++;
+            return i<capacity ? i : i - capacity;
+        }
+        
+        // 滑动窗口：将已满的环形缓冲区ring按顺序复制到window中，然后丢弃最早的step个元素
+        void slide(Object ring, Object window) {
+            System.arraycopy(ring, head, window, 0, size - head);
+            System.arraycopy(ring, 0, window, size - head, head);
+            head += step;
+            if(head >= size) {
+                head -= size;
+            }
+            count -= step;
+        }
+    }
+    
+    // 窗口sink(引用类型版本)
+    private static final class RefWindowSink<T> extends Sink.ChainedReference<T, List<T>> {
+        private final WindowState state;
+        private Object[] buffer;
+        
+        RefWindowSink(Sink<? super List<T>> downstream, int size, int step) {
+            super(downstream);
+            this.state = new WindowState(size, step);
+        }
+        
+        @Override
+        public void begin(long size) {
+            WindowState s = state;
+            buffer = new Object[initialCapacity(s.size, size)];
+            downstream.begin(size<0 ? -1 : windowCount(size, s.size, s.step));
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(T t) {
+            WindowState s = state;
+            if(s.count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(buffer.length, s.size));
+            }
+            
+            buffer[s.next(buffer.length)] = t;
+            if(s.count<s.size) {
+                return;
+            }
+            
+            s.pushed = true;
+            if(s.step == s.size) {
+                Object[] full = buffer;
+                buffer = new Object[full.length];
+                s.count = 0;
+                downstream.accept(list((T[]) full));
+            } else {
+                Object[] window = new Object[s.size];
+                s.slide(buffer, window);
+                downstream.accept(list((T[]) window));
+            }
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public void end() {
+            if(state.hasPartialWindow() && !downstream.cancellationRequested()) {
+                downstream.accept(list((T[]) Arrays.copyOf(buffer, state.count)));
+            }
+            
+            buffer = null;
+            downstream.end();
+        }
+    }
+    
+    // 窗口sink(int类型版本)
+    private static final class IntWindowSink extends Sink.ChainedInt<int[]> {
+        private final WindowState state;
+        private int[] buffer;
+        
+        IntWindowSink(Sink<? super int[]> downstream, int size, int step) {
+            super(downstream);
+            this.state = new WindowState(size, step);
+        }
+        
+        @Override
+        public void begin(long size) {
+            WindowState s = state;
+            buffer = new int[initialCapacity(s.size, size)];
+            downstream.begin(size<0 ? -1 : windowCount(size, s.size, s.step));
+        }
+        
+        @Override
+        public void accept(int t) {
+            WindowState s = state;
+            if(s.count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(buffer.length, s.size));
+            }
+            
+            buffer[s.next(buffer.length)] = t;
+            if(s.count<s.size) {
+                return;
+            }
+            
+            s.pushed = true;
+            if(s.step == s.size) {
+                int[] full = buffer;
+                buffer = new int[full.length];
+                s.count = 0;
+                downstream.accept(full);
+            } else {
+                int[] window = new int[s.size];
+                s.slide(buffer, window);
+                downstream.accept(window);
+            }
+        }
+        
+        @Override
+        public void end() {
+            if(state.hasPartialWindow() && !downstream.cancellationRequested()) {
+                downstream.accept(Arrays.copyOf(buffer, state.count));
+            }
+            
+            buffer = null;
+            downstream.end();
+        }
+    }
+    
+    // 窗口sink(long类型版本)
+    private static final class LongWindowSink extends Sink.ChainedLong<long[]> {
+        private final WindowState state;
+        private long[] buffer;
+        
+        LongWindowSink(Sink<? super long[]> downstream, int size, int step) {
+            super(downstream);
+            this.state = new WindowState(size, step);
+        }
+        
+        @Override
+        public void begin(long size) {
+            WindowState s = state;
+            buffer = new long[initialCapacity(s.size, size)];
+            downstream.begin(size<0 ? -1 : windowCount(size, s.size, s.step));
+        }
+        
+        @Override
+        public void accept(long t) {
+            WindowState s = state;
+            if(s.count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(buffer.length, s.size));
+            }
+            
+            buffer[s.next(buffer.length)] = t;
+            if(s.count<s.size) {
+                return;
+            }
+            
+            s.pushed = true;
+            if(s.step == s.size) {
+                long[] full = buffer;
+                buffer = new long[full.length];
+                s.count = 0;
+                downstream.accept(full);
+            } else {
+                long[] window = new long[s.size];
+                s.slide(buffer, window);
+                downstream.accept(window);
+            }
+        }
+        
+        @Override
+        public void end() {
+            if(state.hasPartialWindow() && !downstream.cancellationRequested()) {
+                downstream.accept(Arrays.copyOf(buffer, state.count));
+            }
+            
+            buffer = null;
+            downstream.end();
+        }
+    }
+    
+    /**
+     * A spliterator that cuts windows from the elements of a wrapped
+     * spliterator, buffering them as the window sinks do. It does not
+     * split, so the windows are produced in encounter order.
+     */
+    // 包装了上游流迭代器的窗口流迭代器，与窗口sink一样缓存元素；不可分割，因此窗口总是按遭遇顺序生成
+    private static final class AdaptedWindowSpliterator<T> implements Spliterator<List<T>>, Consumer<T> {
+        private final Spliterator<T> source;
+        private final WindowState state;
+        private Object[] buffer;
+        private boolean exhausted;  // 上游元素是否已经耗尽
+        
+        AdaptedWindowSpliterator(Spliterator<T> source, int size, int step) {
+            this.source = source;
+            this.state = new WindowState(size, step);
+            this.buffer = new Object[initialCapacity(size, source.getExactSizeIfKnown())];
+        }
+        
+        // 接收上游元素
+        @Override
+        public void accept(T t) {
+            WindowState s = state;
+            if(s.count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(buffer.length, s.size));
+            }
+            
+            buffer[s.next(buffer.length)] = t;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            Objects.requireNonNull(action);
+            
+            WindowState s = state;
+            while(!exhausted && s.count<s.size) {
+                exhausted = !source.tryAdvance(this);
+            }
+            
+            Object[] window;
+            if(s.count == s.size) {
+                s.pushed = true;
+                if(s.step == s.size) {
+                    window = buffer;
+                    buffer = new Object[window.length];
+                    s.count = 0;
+                } else {
+                    window = new Object[s.size];
+                    s.slide(buffer, window);
+                }
+            } else if(s.hasPartialWindow()) {
+                window = Arrays.copyOf(buffer, s.count);
+                s.count = 0;
+            } else {
+                return false;
+            }
+            
+            action.accept(list((T[]) window));
+            return true;
+        }
+        
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            return null;
+        }
+        
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+        
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & Spliterator.ORDERED) | Spliterator.NONNULL;
+        }
+    }
+}
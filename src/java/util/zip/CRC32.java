@@ -43,6 +43,8 @@ import jdk.internal.HotSpotIntrinsicCandidate;
 // CRC32循环冗余校验的实现
 public class CRC32 implements Checksum {
     
+    private static final int REVERSED_CRC32_POLY = 0xedb88320;  // CRC-32的生成多项式(反转)
+    
     private int crc;    // CRC-32校验和
     
     static {
@@ -142,6 +144,98 @@ public class CRC32 implements Checksum {
         crc = 0;
     }
     
+    /**
+     * Returns the CRC-32 of the concatenation of two byte sequences, given
+     * the CRC-32 of each sequence and the length of the second one. This
+     * allows the CRC-32 of a large input to be computed in parts, possibly
+     * in parallel, and the partial results to be merged.
+     *
+     * @param crc1 the CRC-32 of the first sequence
+     * @param crc2 the CRC-32 of the second sequence
+     * @param len2 the length of the second sequence, in bytes
+     *
+     * @return the CRC-32 of the first sequence followed by the second
+     *
+     * @throws IllegalArgumentException if {@code len2} is negative
+     * @since 11
+     */
+    /*
+     * 合并两段相邻数据的校验和：crc1是前一段数据的校验和，crc2是后一段数据(长度为len2)的校验和，
+     * 返回两段数据拼接后的校验和，算法与zlib中的crc32_combine相同。
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        if(len2<0) {
+            throw new IllegalArgumentException("len2 < 0");
+        }
+        
+        return combine0(REVERSED_CRC32_POLY, (int) crc1, (int) crc2, len2) & 0xffffffffL;
+    }
+    
+    /*
+     * 合并两段相邻数据的校验和，poly是(反转后的)生成多项式，适用于CRC-32与CRC-32C
+     *
+     * 在GF(2)上，在数据后追加一个0比特相当于将校验和乘以一个32x32的矩阵，
+     * 因此追加len2个0字节可以通过对该矩阵反复平方，在O(log(len2))次矩阵运算内完成。
+     */
+    static int combine0(int poly, int crc1, int crc2, long len2) {
+        if(len2<=0) {
+            return crc1;
+        }
+        
+        int[] even = new int[32];   // 追加偶数次幂个0比特的运算矩阵
+        int[] odd = new int[32];    // 追加奇数次幂个0比特的运算矩阵
+        
+        // 追加1个0比特的运算矩阵
+        odd[0] = poly;              // 生成多项式(反转)
+        int row = 1;
+        for(int n = 1; n<32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        
+        gf2MatrixSquare(even, odd); // 追加2个0比特
+        gf2MatrixSquare(odd, even); // 追加4个0比特
+        
+        // 从追加1个0字节(8个0比特)开始，按len2的二进制位依次作用到crc1上
+        do {
+            gf2MatrixSquare(even, odd);
+            if((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>>= 1;
+            
+            if(len2 == 0) {
+                break;
+            }
+            
+            gf2MatrixSquare(odd, even);
+            if((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>>= 1;
+        } while(len2 != 0);
+        
+        return crc1 ^ crc2;
+    }
+    
+    // GF(2)上矩阵与向量的乘积
+    private static int gf2MatrixTimes(int[] mat, int vec) {
+        int sum = 0;
+        for(int i = 0; vec != 0; i++, vec >>>= 1) {
+            if((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+        }
+        return sum;
+    }
+    
+    // GF(2)上矩阵的平方：square = mat * mat
+    private static void gf2MatrixSquare(int[] square, int[] mat) {
+        for(int n = 0; n<32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+    
     // 用指定的字节更新当前校验和
     @HotSpotIntrinsicCandidate
     private static native int update(int crc, int b);
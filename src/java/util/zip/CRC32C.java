@@ -203,6 +203,27 @@ public final class CRC32C implements Checksum {
         return (~crc) & 0xFFFFFFFFL;
     }
 
+    /**
+     * Returns the CRC-32C of the concatenation of two byte sequences, given
+     * the CRC-32C of each sequence and the length of the second one.
+     *
+     * @param crc1 the CRC-32C of the first sequence
+     * @param crc2 the CRC-32C of the second sequence
+     * @param len2 the length of the second sequence, in bytes
+     *
+     * @return the CRC-32C of the first sequence followed by the second
+     *
+     * @throws IllegalArgumentException if {@code len2} is negative
+     * @since 11
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        if (len2 < 0) {
+            throw new IllegalArgumentException("len2 < 0");
+        }
+        return CRC32.combine0(REVERSED_CRC32C_POLY, (int) crc1, (int) crc2, len2)
+                & 0xFFFFFFFFL;
+    }
+
     /**
      * Updates the CRC-32C checksum with the specified array of bytes.
      */
@@ -172,6 +172,9 @@ public class Deflater {
     
     private final DeflaterZStreamRef zsRef; // 资源清理器
     
+    DeflaterPool pool;  // 创建该压缩器的压缩器池，由压缩器池设置
+    boolean idle;       // 该压缩器是否空闲(位于压缩器池中)，由压缩器池在加锁后读写
+    
     // 存储待压缩数据
     private byte[] inputArray;      // 1号缓冲区
     private int inputPos, inputLim; // 1号缓冲区的读游标与未处理字节数量
@@ -527,152 +530,56 @@ public class Deflater {
         }
         
         synchronized(zsRef) {
-            ensureOpen();
-            
-            ByteBuffer input = this.input;
-            
-            // 如果需要使用压缩模式：FINISH
-            if(finish) {
-                // disregard given flush mode in this case
-                flush = FINISH;
-            }
-            
-            int params;
-            
-            if(setParams) {
-                // bit 0: true to set params
-                // bit 1-2: strategy (0, 1, or 2)
-                // bit 3-31: level (0..9 or -1)
-                params = 1 | strategy << 1 | level << 3;
-            } else {
-                params = 0;
-            }
-            
-            int outputPos = output.position();
-            int outputRem = Math.max(output.limit() - outputPos, 0);
-            int inputPos;
-            long result;
-            
-            // 2号缓冲区为空
-            if(input == null) {
-                // 1号缓冲区的读游标
-                inputPos = this.inputPos;
-                
-                // 如果压缩缓冲区output是直接缓冲区
-                if(output.isDirect()) {
-                    // 获取压缩缓冲区output起始地址
-                    long outputAddress = ((DirectBuffer) output).address();
-                    
-                    try {
-                        // 将1号缓冲区中的数据压缩后存入压缩缓冲区地址处的存储中
-                        result = deflateBytesBuffer(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputAddress + outputPos, outputRem, flush, params);
-                    } finally {
-                        Reference.reachabilityFence(output);
-                    }
-                    
-                    // 压缩缓冲区不是直接缓冲区
-                } else {
-                    byte[] outputArray = ZipUtils.getBufferArray(output);
-                    int outputOffset = ZipUtils.getBufferOffset(output);
-                    
-                    // 将1号缓冲区中的数据压缩后存入压缩缓冲区output
-                    result = deflateBytesBytes(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputArray, outputOffset + outputPos, outputRem, flush, params);
-                }
-                
-                // 2号缓冲区不为空
-            } else {
-                inputPos = input.position();
-                int inputRem = Math.max(input.limit() - inputPos, 0);
-                
-                // 2号缓冲区是直接缓冲区
-                if(input.isDirect()) {
-                    // 获取2号缓冲区起始地址
-                    long inputAddress = ((DirectBuffer) input).address();
-                    
-                    try {
-                        // 压缩缓冲区是直接缓冲区
-                        if(output.isDirect()) {
-                            // 获取压缩缓冲区起始地址
-                            long outputAddress = outputPos + ((DirectBuffer) output).address();
-                            
-                            try {
-                                // 将2号缓冲区地址处缓存的数据压缩后存入压缩缓冲区地址处的存储中
-                                result = deflateBufferBuffer(zsRef.address(), inputAddress + inputPos, inputRem, outputAddress, outputRem, flush, params);
-                            } finally {
-                                Reference.reachabilityFence(output);
-                            }
-                            
-                            // 压缩缓冲区不是直接缓冲区
-                        } else {
-                            byte[] outputArray = ZipUtils.getBufferArray(output);
-                            int outputOffset = ZipUtils.getBufferOffset(output);
-                            
-                            // 将2号缓冲区地址处缓存的数据压缩后存入压缩缓冲区outputArray
-                            result = deflateBufferBytes(zsRef.address(), inputAddress + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem, flush, params);
-                        }
-                    } finally {
-                        Reference.reachabilityFence(input);
-                    }
-                    
-                    // 2号缓冲区不是直接缓冲区
-                } else {
-                    byte[] inputArray = ZipUtils.getBufferArray(input);
-                    int inputOffset = ZipUtils.getBufferOffset(input);
-                    
-                    // 压缩缓冲区是直接缓冲区
-                    if(output.isDirect()) {
-                        long outputAddress = ((DirectBuffer) output).address();
-                        
-                        try {
-                            // 将2号缓冲区中的数据压缩后存入压缩缓冲区地址处的存储中
-                            result = deflateBytesBuffer(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputAddress + outputPos, outputRem, flush, params);
-                        } finally {
-                            Reference.reachabilityFence(output);
-                        }
-                        
-                        // 压缩缓冲区不是直接缓冲区
-                    } else {
-                        byte[] outputArray = ZipUtils.getBufferArray(output);
-                        int outputOffset = ZipUtils.getBufferOffset(output);
-                        
-                        // 将2号缓冲区中的数据压缩后存入压缩缓冲区output
-                        result = deflateBytesBytes(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem, flush, params);
-                    }
-                }
-            }
-            
-            // 读取了多少压缩前的字节数
-            int read = (int) (result & 0x7fff_ffffL);
-            
-            // 写入了多少压缩后的字节数
-            int written = (int) (result >>> 31 & 0x7fff_ffffL);
-            
-            if((result >>> 62 & 1) != 0) {
-                finished = true;    // 标记完成压缩
-            }
-            
-            if(params != 0 && (result >>> 63 & 1) == 0) {
-                setParams = false;
-            }
+            return deflate0(output, flush);
+        }
+    }
+    
+    /**
+     * Compresses the data in the given input buffer into the given output
+     * buffer. Returns the actual number of bytes of compressed data written
+     * to the output buffer.
+     *
+     * <p>This is equivalent to calling {@link #setInput(ByteBuffer)} followed
+     * by {@link #deflate(ByteBuffer, int)}, except that both steps are performed
+     * under a single acquisition of this deflater's lock, and that this deflater
+     * does not keep a reference to the input buffer once this method returns.
+     * The input buffer's position is advanced by the number of bytes consumed
+     * and the output buffer's position by the number of bytes written; any
+     * input not consumed should be passed to the next invocation of this method.
+     * Call {@link #finish()} before the invocations that should end the
+     * compressed data stream.
+     *
+     * @param input  the buffer holding the data to be compressed
+     * @param output the buffer for the compressed data
+     * @param flush  the compression flush mode
+     *
+     * @return the actual number of bytes of compressed data written to the output buffer
+     *
+     * @throws IllegalArgumentException if the flush mode is invalid
+     * @throws ReadOnlyBufferException  if the given output buffer is read-only
+     * @since 11
+     */
+    // 将input中的数据压缩后填充到output中，刷新模式由flush指定，返回实际填充的字节数。设置待压缩数据与压缩只需加一次锁，且压缩器不会保留对input的引用
+    public int deflate(ByteBuffer input, ByteBuffer output, int flush) {
+        Objects.requireNonNull(input);
+        
+        if(output.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        
+        if(flush != NO_FLUSH && flush != SYNC_FLUSH && flush != FULL_FLUSH) {
+            throw new IllegalArgumentException();
+        }
+        
+        synchronized(zsRef) {
+            this.input = input;
+            this.inputArray = null;
             
-            // 如果2号缓冲区不为空
-            if(input != null) {
-                // 游标前进，跳过已读的压缩前的字节
-                input.position(inputPos + read);
-                
-                // 2号缓冲区为空时，需要处理1号缓冲区的游标
-            } else {
-                // 游标前进，跳过已读的压缩前的字节
-                this.inputPos = inputPos + read;
+            try {
+                return deflate0(output, flush);
+            } finally {
+                this.input = ZipUtils.defaultBuf;
             }
-            
-            // 处理压缩缓冲区的游标
-            output.position(outputPos + written);
-            
-            bytesWritten += written;
-            bytesRead += read;
-            
-            return written;
         }
     }
     
@@ -1091,6 +998,172 @@ public class Deflater {
         }
     }
     
+    // 向压缩缓冲区output的可用范围填充压缩后的数据，刷新模式由flush指定，返回实际填充的字节数，调用前需持有zsRef锁
+    private int deflate0(ByteBuffer output, int flush) {
+        ensureOpen();
+        
+        ByteBuffer input = this.input;
+        
+        // 如果需要使用压缩模式：FINISH
+        if(finish) {
+            // disregard given flush mode in this case
+            flush = FINISH;
+        }
+        
+        int params;
+        
+        if(setParams) {
+            // bit 0: true to set params
+            // bit 1-2: strategy (0, 1, or 2)
+            // bit 3-31: level (0..9 or -1)
+            params = 1 | strategy << 1 | level << 3;
+        } else {
+            params = 0;
+        }
+        
+        int outputPos = output.position();
+        int outputRem = Math.max(output.limit() - outputPos, 0);
+        int inputPos;
+        long result;
+        
+        // 2号缓冲区为空
+        if(input == null) {
+            // 1号缓冲区的读游标
+            inputPos = this.inputPos;
+            
+            // 如果压缩缓冲区output是直接缓冲区
+            if(output.isDirect()) {
+                // 获取压缩缓冲区output起始地址
+                long outputAddress = ((DirectBuffer) output).address();
+                
+                try {
+                    // 将1号缓冲区中的数据压缩后存入压缩缓冲区地址处的存储中
+                    result = deflateBytesBuffer(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputAddress + outputPos, outputRem, flush, params);
+                } finally {
+                    Reference.reachabilityFence(output);
+                }
+                
+                // 压缩缓冲区不是直接缓冲区
+            } else {
+                byte[] outputArray = ZipUtils.getBufferArray(output);
+                int outputOffset = ZipUtils.getBufferOffset(output);
+                
+                // 将1号缓冲区中的数据压缩后存入压缩缓冲区output
+                result = deflateBytesBytes(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputArray, outputOffset + outputPos, outputRem, flush, params);
+            }
+            
+            // 2号缓冲区不为空
+        } else {
+            inputPos = input.position();
+            int inputRem = Math.max(input.limit() - inputPos, 0);
+            
+            // 2号缓冲区是直接缓冲区
+            if(input.isDirect()) {
+                // 获取2号缓冲区起始地址
+                long inputAddress = ((DirectBuffer) input).address();
+                
+                try {
+                    // 压缩缓冲区是直接缓冲区
+                    if(output.isDirect()) {
+                        // 获取压缩缓冲区起始地址
+                        long outputAddress = outputPos + ((DirectBuffer) output).address();
+                        
+                        try {
+                            // 将2号缓冲区地址处缓存的数据压缩后存入压缩缓冲区地址处的存储中
+                            result = deflateBufferBuffer(zsRef.address(), inputAddress + inputPos, inputRem, outputAddress, outputRem, flush, params);
+                        } finally {
+                            Reference.reachabilityFence(output);
+                        }
+                        
+                        // 压缩缓冲区不是直接缓冲区
+                    } else {
+                        byte[] outputArray = ZipUtils.getBufferArray(output);
+                        int outputOffset = ZipUtils.getBufferOffset(output);
+                        
+                        // 将2号缓冲区地址处缓存的数据压缩后存入压缩缓冲区outputArray
+                        result = deflateBufferBytes(zsRef.address(), inputAddress + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem, flush, params);
+                    }
+                } finally {
+                    Reference.reachabilityFence(input);
+                }
+                
+                // 2号缓冲区不是直接缓冲区
+            } else {
+                byte[] inputArray = ZipUtils.getBufferArray(input);
+                int inputOffset = ZipUtils.getBufferOffset(input);
+                
+                // 压缩缓冲区是直接缓冲区
+                if(output.isDirect()) {
+                    long outputAddress = ((DirectBuffer) output).address();
+                    
+                    try {
+                        // 将2号缓冲区中的数据压缩后存入压缩缓冲区地址处的存储中
+                        result = deflateBytesBuffer(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputAddress + outputPos, outputRem, flush, params);
+                    } finally {
+                        Reference.reachabilityFence(output);
+                    }
+                    
+                    // 压缩缓冲区不是直接缓冲区
+                } else {
+                    byte[] outputArray = ZipUtils.getBufferArray(output);
+                    int outputOffset = ZipUtils.getBufferOffset(output);
+                    
+                    // 将2号缓冲区中的数据压缩后存入压缩缓冲区output
+                    result = deflateBytesBytes(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem, flush, params);
+                }
+            }
+        }
+        
+        // 读取了多少压缩前的字节数
+        int read = (int) (result & 0x7fff_ffffL);
+        
+        // 写入了多少压缩后的字节数
+        int written = (int) (result >>> 31 & 0x7fff_ffffL);
+        
+        if((result >>> 62 & 1) != 0) {
+            finished = true;    // 标记完成压缩
+        }
+        
+        if(params != 0 && (result >>> 63 & 1) == 0) {
+            setParams = false;
+        }
+        
+        // 如果2号缓冲区不为空
+        if(input != null) {
+            // 游标前进，跳过已读的压缩前的字节
+            input.position(inputPos + read);
+            
+            // 2号缓冲区为空时，需要处理1号缓冲区的游标
+        } else {
+            // 游标前进，跳过已读的压缩前的字节
+            this.inputPos = inputPos + read;
+        }
+        
+        // 处理压缩缓冲区的游标
+        output.position(outputPos + written);
+        
+        bytesWritten += written;
+        bytesRead += read;
+        
+        return written;
+    }
+    
+    /*
+     * 供压缩器池回收压缩器：重置压缩器，并恢复压缩级别与默认压缩策略，以便下次复用。
+     * 如果压缩器已被关闭，则返回false，此时该压缩器不能再被复用。
+     */
+    boolean recycle(int level) {
+        synchronized(zsRef) {
+            if(zsRef.address() == 0) {
+                return false;
+            }
+            reset();
+            setLevel(level);
+            setStrategy(DEFAULT_STRATEGY);
+            return true;
+        }
+    }
+    
     // 将字节数组inputArray中的数据压缩后存入压缩缓冲区outputArray
     private native long deflateBytesBytes(long addr, byte[] inputArray, int inputOff, int inputLen, byte[] outputArray, int outputOff, int outputLen, int flush, int params);
     // 将字节数组inputArray中的数据压缩后存入outputAddress地址处的压缩缓冲区
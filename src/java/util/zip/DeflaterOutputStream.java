@@ -48,6 +48,8 @@ public class DeflaterOutputStream extends FilterOutputStream {
     
     boolean usesDefaultDeflater = false; // 是否使用了具有默认压缩级别的压缩器
     
+    DeflaterPool pool; // 压缩器所属的压缩器池，关闭输出流时会将压缩器放回池中
+    
     /**
      * Output buffer for writing compressed data.
      */
@@ -198,6 +200,31 @@ public class DeflaterOutputStream extends FilterOutputStream {
         this.syncFlush = syncFlush;
     }
     
+    /**
+     * Creates a new output stream with a compressor acquired from the
+     * specified pool, and the specified buffer size and flush mode. The
+     * compressor is released to the pool when this stream is closed.
+     *
+     * @param out       the output stream
+     * @param pool      the pool that supplies the compressor ("deflater")
+     * @param size      the output buffer size
+     * @param syncFlush if {@code true} the {@link #flush()} method of this
+     *                  instance flushes the compressor with flush mode
+     *                  {@link Deflater#SYNC_FLUSH} before flushing the output
+     *                  stream, otherwise only flushes the output stream
+     *
+     * @throws IllegalArgumentException if {@code size <= 0}
+     * @since 11
+     */
+    /*
+     * 用指定的最终输出流out、从压缩器池中获取的压缩器、压缩缓冲区容量size来构造(压缩)输出流，
+     * syncFlush指示是否开启同步刷新，关闭输出流时会将压缩器放回池中。
+     */
+    public DeflaterOutputStream(OutputStream out, DeflaterPool pool, int size, boolean syncFlush) {
+        this(out, acquire(out, pool, size), size, syncFlush);
+        this.pool = pool;
+    }
+    
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -231,6 +258,8 @@ public class DeflaterOutputStream extends FilterOutputStream {
      */
     // 将字节数组b中off处起的len个字节压缩后写入压缩输出流。该方法将阻塞，直到可以写入字节为止
     public void write(byte[] b, int off, int len) throws IOException {
+        ensureDeflaterOwned();
+        
         // 如果压缩器已经完成压缩
         if(def.finished()) {
             throw new IOException("write beyond end of stream");
@@ -299,6 +328,8 @@ public class DeflaterOutputStream extends FilterOutputStream {
      * 否则，仅会刷新最终输出流的缓冲区。
      */
     public void flush() throws IOException {
+        ensureDeflaterOwned();
+        
         // 如果允许同步刷新，且压缩器还未完成压缩
         if(syncFlush && !def.finished()) {
             int len = 0;
@@ -340,6 +371,8 @@ public class DeflaterOutputStream extends FilterOutputStream {
      * 调用此方法后，其他压缩器仍可以在此输出流上工作。
      */
     public void finish() throws IOException {
+        ensureDeflaterOwned();
+        
         // 如果压缩器还未完成压缩
         if(!def.finished()) {
             
@@ -365,21 +398,51 @@ public class DeflaterOutputStream extends FilterOutputStream {
      */
     public void close() throws IOException {
         if(!closed) {
-            // 刷新缓冲区的数据到最终输出流
-            finish();
-            
-            // 如果使用了默认的压缩器
-            if(usesDefaultDeflater) {
-                def.end();  // 关闭压缩器(本地)并丢弃所有未处理的输入。
+            try {
+                // 刷新缓冲区的数据到最终输出流
+                finish();
+            } finally {
+                // 即使finish()失败也要归还压缩器，并标记为已关闭，以免重复放回压缩器池
+                closed = true;
+                
+                // 如果使用了默认的压缩器
+                if(usesDefaultDeflater) {
+                    def.end();  // 关闭压缩器(本地)并丢弃所有未处理的输入。
+                } else if(pool != null) {
+                    pool.release(def);  // 将压缩器放回压缩器池
+                }
             }
             
             // 关闭最终输出流
             out.close();
-            
-            closed = true;
         }
     }
     
     /*▲  ████████████████████████████████████████████████████████████████████████████████┛ */
     
+    
+    
+    /**
+     * Checks that the compressor still belongs to this stream. A compressor
+     * acquired from a pool is released when this stream is closed, and may
+     * then be in use by another stream.
+     */
+    // 确保压缩器仍归当前输出流所有：从压缩器池中获取的压缩器在关闭输出流时已放回池中，之后可能正被其他输出流使用
+    void ensureDeflaterOwned() throws IOException {
+        if(closed && pool != null) {
+            throw new IOException("Stream closed");
+        }
+    }
+    
+    // 校验构造参数后再从压缩器池中获取压缩器，以免参数非法时获取的压缩器无人放回
+    private static Deflater acquire(OutputStream out, DeflaterPool pool, int size) {
+        if(out == null) {
+            throw new NullPointerException();
+        } else if(size<=0) {
+            throw new IllegalArgumentException("buffer size <= 0");
+        }
+        
+        return pool.acquire();
+    }
+    
 }
@@ -0,0 +1,204 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A bounded pool of {@link Deflater} instances.
+ *
+ * <p>Every new {@code Deflater} allocates a native zlib stream and registers
+ * it with a {@link java.lang.ref.Cleaner}. Applications that compress many
+ * short streams can share a {@code DeflaterPool} to reuse deflaters instead:
+ * {@link #acquire()} returns a deflater that is ready for new input, and
+ * {@link #release(Deflater)} resets it, restores the pool's compression level
+ * and the default strategy, and keeps it for the next caller. At
+ * most {@code capacity} idle deflaters are kept; deflaters released to a full
+ * pool are {@linkplain Deflater#end() ended}.
+ *
+ * <p>The pool is thread-safe. An acquired deflater should be used by one
+ * thread at a time, and must not be used after it has been released.
+ * Deflaters that are never released are cleaned up as usual when they
+ * become unreachable.
+ *
+ * @see DeflaterOutputStream#DeflaterOutputStream(java.io.OutputStream, DeflaterPool, int, boolean)
+ * @see GZIPOutputStream#GZIPOutputStream(java.io.OutputStream, int, boolean, DeflaterPool)
+ * @see InflaterPool
+ * @since 11
+ */
+/*
+ * 压缩器池，缓存有限数量的空闲压缩器，避免频繁创建压缩器(本地)以及向Cleaner注册清理动作
+ *
+ * acquire()获取一个可以直接使用的压缩器，release()将其重置后放回池中，
+ * 池中的空闲压缩器已满时，放回的压缩器会被直接关闭。
+ */
+public final class DeflaterPool {
+    
+    private final int level;            // 池中压缩器的压缩级别
+    private final boolean nowrap;       // 池中压缩器是否兼容GZIP
+    private final int capacity;         // 最多缓存的空闲压缩器数量
+    private final Deque<Deflater> idle; // 空闲的压缩器
+    
+    /**
+     * Creates a pool of deflaters that keeps at most {@code capacity} idle
+     * deflaters.
+     *
+     * @param level    the compression level (0-9) of the deflaters
+     * @param nowrap   if true then the deflaters use GZIP compatible
+     *                 compression, see {@link Deflater#Deflater(int, boolean)}
+     * @param capacity the maximum number of idle deflaters kept by the pool
+     *
+     * @throws IllegalArgumentException if the compression level is invalid
+     *                                  or {@code capacity} is negative
+     */
+    // 构造压缩器池，level指示压缩级别，nowrap指示压缩器是否兼容GZIP，capacity指示最多缓存的空闲压缩器数量
+    public DeflaterPool(int level, boolean nowrap, int capacity) {
+        if((level<0 || level>9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        
+        if(capacity<0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        
+        this.level = level;
+        this.nowrap = nowrap;
+        this.capacity = capacity;
+        this.idle = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+    
+    /**
+     * Returns a deflater from this pool, creating a new one if no idle
+     * deflater is available.
+     *
+     * @return a deflater that is ready for new input
+     */
+    // 从池中取出一个空闲的压缩器，没有空闲的压缩器时新建一个
+    public Deflater acquire() {
+        synchronized(idle) {
+            // 后进先出，最近放回的压缩器更可能还在CPU缓存中
+            Deflater def = idle.pollLast();
+            if(def != null) {
+                def.idle = false;
+                return def;
+            }
+        }
+        
+        Deflater def = new Deflater(level, nowrap);
+        def.pool = this;
+        return def;
+    }
+    
+    /**
+     * Resets the given deflater and returns it to this pool. If the pool
+     * already holds {@code capacity} idle deflaters, or the deflater has been
+     * ended, the deflater is ended instead.
+     *
+     * @param def a deflater obtained from {@link #acquire()} of this pool
+     *
+     * @throws IllegalArgumentException if the deflater was not obtained from this pool
+     * @throws IllegalStateException    if the deflater has already been released
+     */
+    // 重置压缩器并将其放回池中，池已满时关闭该压缩器
+    public void release(Deflater def) {
+        if(def.pool != this) {
+            throw new IllegalArgumentException("deflater does not belong to this pool");
+        }
+        
+        // 先标记为空闲，以免同一个压缩器被重复放回
+        synchronized(idle) {
+            if(def.idle) {
+                throw new IllegalStateException("deflater already released");
+            }
+            def.idle = true;
+        }
+        
+        // 已被关闭的压缩器无法复用
+        if(!def.recycle(level)) {
+            return;
+        }
+        
+        synchronized(idle) {
+            if(idle.size()<capacity) {
+                idle.addLast(def);
+                return;
+            }
+        }
+        
+        def.end();
+    }
+    
+    /**
+     * Ends and discards all idle deflaters held by this pool. Deflaters that
+     * are currently acquired are not affected and can still be released.
+     */
+    // 关闭并丢弃池中所有空闲的压缩器
+    public void clear() {
+        Deflater[] defs;
+        synchronized(idle) {
+            defs = idle.toArray(new Deflater[0]);
+            idle.clear();
+        }
+        
+        for(Deflater def : defs) {
+            def.end();
+        }
+    }
+    
+    /**
+     * Returns whether the deflaters of this pool support GZIP compatible
+     * compression.
+     *
+     * @return the {@code nowrap} value this pool was created with
+     */
+    // 池中压缩器是否兼容GZIP
+    public boolean isNowrap() {
+        return nowrap;
+    }
+    
+    /**
+     * Returns the compression level of the deflaters of this pool.
+     *
+     * @return the compression level this pool was created with
+     */
+    // 返回池中压缩器的压缩级别
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * Returns the number of idle deflaters currently held by this pool.
+     *
+     * @return the number of idle deflaters
+     */
+    // 返回池中空闲压缩器的数量
+    public int getIdleCount() {
+        synchronized(idle) {
+            return idle.size();
+        }
+    }
+    
+}
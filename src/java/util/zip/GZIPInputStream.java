@@ -109,6 +109,37 @@ public class GZIPInputStream extends InflaterInputStream {
         readHeader(in);
     }
     
+    /**
+     * Creates a new input stream with the specified buffer size and a
+     * decompressor acquired from the specified pool. The decompressor is
+     * released to the pool when this stream is closed.
+     *
+     * @param in   the input stream
+     * @param size the input buffer size
+     * @param pool the pool that supplies the decompressor, its inflaters
+     *             must support GZIP compatible compression
+     *
+     * @throws ZipException             if a GZIP format error has occurred or the
+     *                                  compression method used is unsupported
+     * @throws IOException              if an I/O error has occurred
+     * @throws IllegalArgumentException if {@code size <= 0}, or if the pool
+     *                                  does not supply GZIP compatible inflaters
+     * @since 11
+     */
+    // 用指定的源头输入流、缓冲区容量以及从解压器池中获取的解压器构造gzip输入流
+    public GZIPInputStream(InputStream in, int size, InflaterPool pool) throws IOException {
+        super(in, requireNowrap(pool), size);
+        
+        try {
+            // 解压前：读取gzip文件头信息
+            readHeader(in);
+        } catch(IOException e) {
+            // 构造失败，调用方无法关闭该输入流，需要在这里放回解压器
+            pool.release(inf);
+            throw e;
+        }
+    }
+    
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -374,4 +405,12 @@ public class GZIPInputStream extends InflaterInputStream {
         }
     }
     
+    // 确保解压器池中的解压器兼容GZIP
+    private static InflaterPool requireNowrap(InflaterPool pool) {
+        if(!pool.isNowrap()) {
+            throw new IllegalArgumentException("GZIP requires a nowrap inflater pool");
+        }
+        return pool;
+    }
+    
 }
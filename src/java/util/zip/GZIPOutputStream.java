@@ -33,6 +33,7 @@ import java.io.IOException;
  * the GZIP file format.
  *
  * @author David Connelly
+ * @see ParallelGZIPOutputStream
  * @since 1.1
  */
 // gzip输出流：读取指定内存处的原始数据，将其压缩为gzip文件后写入最终输出流(适用于对单个文件的压缩)
@@ -144,6 +145,43 @@ public class GZIPOutputStream extends DeflaterOutputStream {
         crc.reset();
     }
     
+    /**
+     * Creates a new output stream with the specified buffer size and flush
+     * mode, and a compressor acquired from the specified pool. The
+     * compressor is released to the pool when this stream is closed.
+     *
+     * @param out       the output stream
+     * @param size      the output buffer size
+     * @param syncFlush if {@code true} invocation of the inherited
+     *                  {@link DeflaterOutputStream#flush() flush()} method of
+     *                  this instance flushes the compressor with flush mode
+     *                  {@link Deflater#SYNC_FLUSH} before flushing the output
+     *                  stream, otherwise only flushes the output stream
+     * @param pool      the pool that supplies the compressor, its deflaters
+     *                  must use GZIP compatible compression
+     *
+     * @throws IOException              If an I/O error has occurred.
+     * @throws IllegalArgumentException if {@code size <= 0}, or if the pool
+     *                                  does not supply GZIP compatible deflaters
+     * @since 11
+     */
+    // 用指定的最终输出流、缓冲区容量以及从压缩器池中获取的压缩器构造gzip输出流，syncFlush指示是否开启同步刷新
+    public GZIPOutputStream(OutputStream out, int size, boolean syncFlush, DeflaterPool pool) throws IOException {
+        super(out, requireNowrap(pool), size, syncFlush);
+        
+        try {
+            // 压缩前：写入gzip文件头信息
+            writeHeader();
+        } catch(IOException e) {
+            // 构造失败，调用方无法关闭该输出流，需要在这里放回压缩器
+            pool.release(def);
+            throw e;
+        }
+        
+        // 重置校验和
+        crc.reset();
+    }
+    
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -183,6 +221,8 @@ public class GZIPOutputStream extends DeflaterOutputStream {
      */
     // 结束压缩，并将剩余待压缩数据压缩后写入最终输出流，最后写入gzip文件尾信息
     public void finish() throws IOException {
+        ensureDeflaterOwned();
+        
         // 如果压缩器已经完成压缩，直接返回
         if(def.finished()) {
             return;
@@ -268,4 +308,12 @@ public class GZIPOutputStream extends DeflaterOutputStream {
         buf[offset + 1] = (byte) ((s >> 8) & 0xff);
     }
     
+    // 确保压缩器池中的压缩器兼容GZIP
+    private static DeflaterPool requireNowrap(DeflaterPool pool) {
+        if(!pool.isNowrap()) {
+            throw new IllegalArgumentException("GZIP requires a nowrap deflater pool");
+        }
+        return pool;
+    }
+    
 }
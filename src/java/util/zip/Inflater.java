@@ -104,6 +104,9 @@ public class Inflater {
     
     private final InflaterZStreamRef zsRef; // 资源清理器
     
+    InflaterPool pool;  // 创建该解压器的解压器池，由解压器池设置
+    boolean idle;       // 该解压器是否空闲(位于解压器池中)，由解压器池在加锁后读写
+    
     // 存储待解压数据(可能会混杂不需要解压的数据)
     private byte[] inputArray;          // 1号缓冲区
     private int inputPos, inputLim;     // 1号缓冲区的读游标与未处理字节数量
@@ -388,155 +391,50 @@ public class Inflater {
         }
         
         synchronized(zsRef) {
-            ensureOpen();
-            
-            ByteBuffer input = this.input;
-            long result;
-            int inputPos;
-            int outputPos = output.position();
-            int outputRem = Math.max(output.limit() - outputPos, 0);
+            return inflate0(output);
+        }
+    }
+    
+    /**
+     * Uncompresses bytes from the given input buffer into the given output
+     * buffer. Returns the actual number of bytes uncompressed.
+     * <p>
+     * This is equivalent to calling {@link #setInput(ByteBuffer)} followed by
+     * {@link #inflate(ByteBuffer)}, except that both steps are performed under
+     * a single acquisition of this inflater's lock, and that this inflater does
+     * not keep a reference to the input buffer once this method returns. The
+     * input buffer's position is advanced by the number of bytes consumed and
+     * the output buffer's position by the number of bytes written; any input
+     * not consumed should be passed to the next invocation of this method.
+     *
+     * @param input  the buffer holding the compressed data
+     * @param output the buffer for the uncompressed data
+     *
+     * @return the actual number of uncompressed bytes
+     *
+     * @throws DataFormatException     if the compressed data format is invalid
+     * @throws ReadOnlyBufferException if the given output buffer is read-only
+     * @see Inflater#finished
+     * @see Inflater#needsDictionary
+     * @since 11
+     */
+    // 将input中的数据解压后填充到output中，返回实际填充的字节数。设置待解压数据与解压只需加一次锁，且解压器不会保留对input的引用
+    public int inflate(ByteBuffer input, ByteBuffer output) throws DataFormatException {
+        Objects.requireNonNull(input);
+        
+        if(output.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        
+        synchronized(zsRef) {
+            this.input = input;
+            this.inputArray = null;
             
             try {
-                // 2号缓冲区为空
-                if(input == null) {
-                    // 1号缓冲区的读游标
-                    inputPos = this.inputPos;
-                    
-                    try {
-                        // 如果解压缓冲区output是直接缓冲区
-                        if(output.isDirect()) {
-                            // 获取解压缓冲区output起始地址
-                            long outputAddress = ((DirectBuffer) output).address();
-                            
-                            try {
-                                // 将1号缓冲区中的数据解压后存入解压缓冲区地址处的存储中
-                                result = inflateBytesBuffer(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputAddress + outputPos, outputRem);
-                            } finally {
-                                Reference.reachabilityFence(output);
-                            }
-                            
-                            // 解压缓冲区不是直接缓冲区
-                        } else {
-                            byte[] outputArray = ZipUtils.getBufferArray(output);
-                            int outputOffset = ZipUtils.getBufferOffset(output);
-                            
-                            // 将1号缓冲区中的数据解压后存入解压缓冲区output
-                            result = inflateBytesBytes(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputArray, outputOffset + outputPos, outputRem);
-                        }
-                    } catch(DataFormatException e) {
-                        this.inputPos = inputPos + inputConsumed;
-                        throw e;
-                    }
-                    
-                    // 2号缓冲区不为空
-                } else {
-                    inputPos = input.position();
-                    int inputRem = Math.max(input.limit() - inputPos, 0);
-                    
-                    try {
-                        // 2号缓冲区是直接缓冲区
-                        if(input.isDirect()) {
-                            // 获取2号缓冲区起始地址
-                            long inputAddress = ((DirectBuffer) input).address();
-                            
-                            try {
-                                // 解压缓冲区是直接缓冲区
-                                if(output.isDirect()) {
-                                    // 获取解压缓冲区起始地址
-                                    long outputAddress = ((DirectBuffer) output).address();
-                                    
-                                    try {
-                                        // 将2号缓冲区地址处缓存的数据解压后存入解压缓冲区地址处的存储中
-                                        result = inflateBufferBuffer(zsRef.address(), inputAddress + inputPos, inputRem, outputAddress + outputPos, outputRem);
-                                    } finally {
-                                        Reference.reachabilityFence(output);
-                                    }
-                                    
-                                    // 解压缓冲区不是直接缓冲区
-                                } else {
-                                    byte[] outputArray = ZipUtils.getBufferArray(output);
-                                    int outputOffset = ZipUtils.getBufferOffset(output);
-                                    
-                                    // 将2号缓冲区地址处缓存的数据解压后存入解压缓冲区outputArray
-                                    result = inflateBufferBytes(zsRef.address(), inputAddress + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem);
-                                }
-                            } finally {
-                                Reference.reachabilityFence(input);
-                            }
-                            
-                            // 2号缓冲区不是直接缓冲区
-                        } else {
-                            byte[] inputArray = ZipUtils.getBufferArray(input);
-                            int inputOffset = ZipUtils.getBufferOffset(input);
-                            
-                            // 解压缓冲区是直接缓冲区
-                            if(output.isDirect()) {
-                                long outputAddress = ((DirectBuffer) output).address();
-                                
-                                try {
-                                    // 将2号缓冲区中的数据解压后存入解压缓冲区地址处的存储中
-                                    result = inflateBytesBuffer(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputAddress + outputPos, outputRem);
-                                } finally {
-                                    Reference.reachabilityFence(output);
-                                }
-                                
-                                // 解压缓冲区不是直接缓冲区
-                            } else {
-                                byte[] outputArray = ZipUtils.getBufferArray(output);
-                                int outputOffset = ZipUtils.getBufferOffset(output);
-                                
-                                // 将2号缓冲区中的数据解压后存入解压缓冲区output
-                                result = inflateBytesBytes(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem);
-                            }
-                        }
-                    } catch(DataFormatException e) {
-                        input.position(inputPos + inputConsumed);
-                        throw e;
-                    }
-                }
-            } catch(DataFormatException e) {
-                bytesRead += inputConsumed;
-                inputConsumed = 0;
-                int written = outputConsumed;
-                output.position(outputPos + written);
-                bytesWritten += written;
-                outputConsumed = 0;
-                throw e;
+                return inflate0(output);
+            } finally {
+                this.input = ZipUtils.defaultBuf;
             }
-            
-            // 读取了多少解压前的字节数
-            int read = (int) (result & 0x7fff_ffffL);
-            
-            // 写入了多少解压后的字节数
-            int written = (int) (result >>> 31 & 0x7fff_ffffL);
-            
-            if((result >>> 62 & 1) != 0) {
-                finished = true;    // 标记解压完成
-            }
-            
-            if((result >>> 63 & 1) != 0) {
-                needDict = true;    // 需要字典
-            }
-            
-            // 如果2号缓冲区不为空
-            if(input != null) {
-                // 游标前进，跳过已读的解压前的字节
-                input.position(inputPos + read);
-                
-                // 2号缓冲区为空时，需要处理1号缓冲区的游标
-            } else {
-                // 游标前进，跳过已读的解压前的字节
-                this.inputPos = inputPos + read;
-            }
-            
-            /* Note: this method call also serves to keep the byteBuffer ref alive */
-            // 处理解压缓冲区的游标
-            output.position(outputPos + written);
-            
-            bytesWritten += written;
-            bytesRead += read;
-            
-            return written;
         }
     }
     
@@ -923,6 +821,173 @@ public class Inflater {
         }
     }
     
+    // 向解压缓冲区output的可用范围填充解压后的数据，返回实际填充的字节数，调用前需持有zsRef锁
+    private int inflate0(ByteBuffer output) throws DataFormatException {
+        ensureOpen();
+        
+        ByteBuffer input = this.input;
+        long result;
+        int inputPos;
+        int outputPos = output.position();
+        int outputRem = Math.max(output.limit() - outputPos, 0);
+        
+        try {
+            // 2号缓冲区为空
+            if(input == null) {
+                // 1号缓冲区的读游标
+                inputPos = this.inputPos;
+                
+                try {
+                    // 如果解压缓冲区output是直接缓冲区
+                    if(output.isDirect()) {
+                        // 获取解压缓冲区output起始地址
+                        long outputAddress = ((DirectBuffer) output).address();
+                        
+                        try {
+                            // 将1号缓冲区中的数据解压后存入解压缓冲区地址处的存储中
+                            result = inflateBytesBuffer(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputAddress + outputPos, outputRem);
+                        } finally {
+                            Reference.reachabilityFence(output);
+                        }
+                        
+                        // 解压缓冲区不是直接缓冲区
+                    } else {
+                        byte[] outputArray = ZipUtils.getBufferArray(output);
+                        int outputOffset = ZipUtils.getBufferOffset(output);
+                        
+                        // 将1号缓冲区中的数据解压后存入解压缓冲区output
+                        result = inflateBytesBytes(zsRef.address(), inputArray, inputPos, inputLim - inputPos, outputArray, outputOffset + outputPos, outputRem);
+                    }
+                } catch(DataFormatException e) {
+                    this.inputPos = inputPos + inputConsumed;
+                    throw e;
+                }
+                
+                // 2号缓冲区不为空
+            } else {
+                inputPos = input.position();
+                int inputRem = Math.max(input.limit() - inputPos, 0);
+                
+                try {
+                    // 2号缓冲区是直接缓冲区
+                    if(input.isDirect()) {
+                        // 获取2号缓冲区起始地址
+                        long inputAddress = ((DirectBuffer) input).address();
+                        
+                        try {
+                            // 解压缓冲区是直接缓冲区
+                            if(output.isDirect()) {
+                                // 获取解压缓冲区起始地址
+                                long outputAddress = ((DirectBuffer) output).address();
+                                
+                                try {
+                                    // 将2号缓冲区地址处缓存的数据解压后存入解压缓冲区地址处的存储中
+                                    result = inflateBufferBuffer(zsRef.address(), inputAddress + inputPos, inputRem, outputAddress + outputPos, outputRem);
+                                } finally {
+                                    Reference.reachabilityFence(output);
+                                }
+                                
+                                // 解压缓冲区不是直接缓冲区
+                            } else {
+                                byte[] outputArray = ZipUtils.getBufferArray(output);
+                                int outputOffset = ZipUtils.getBufferOffset(output);
+                                
+                                // 将2号缓冲区地址处缓存的数据解压后存入解压缓冲区outputArray
+                                result = inflateBufferBytes(zsRef.address(), inputAddress + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem);
+                            }
+                        } finally {
+                            Reference.reachabilityFence(input);
+                        }
+                        
+                        // 2号缓冲区不是直接缓冲区
+                    } else {
+                        byte[] inputArray = ZipUtils.getBufferArray(input);
+                        int inputOffset = ZipUtils.getBufferOffset(input);
+                        
+                        // 解压缓冲区是直接缓冲区
+                        if(output.isDirect()) {
+                            long outputAddress = ((DirectBuffer) output).address();
+                            
+                            try {
+                                // 将2号缓冲区中的数据解压后存入解压缓冲区地址处的存储中
+                                result = inflateBytesBuffer(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputAddress + outputPos, outputRem);
+                            } finally {
+                                Reference.reachabilityFence(output);
+                            }
+                            
+                            // 解压缓冲区不是直接缓冲区
+                        } else {
+                            byte[] outputArray = ZipUtils.getBufferArray(output);
+                            int outputOffset = ZipUtils.getBufferOffset(output);
+                            
+                            // 将2号缓冲区中的数据解压后存入解压缓冲区output
+                            result = inflateBytesBytes(zsRef.address(), inputArray, inputOffset + inputPos, inputRem, outputArray, outputOffset + outputPos, outputRem);
+                        }
+                    }
+                } catch(DataFormatException e) {
+                    input.position(inputPos + inputConsumed);
+                    throw e;
+                }
+            }
+        } catch(DataFormatException e) {
+            bytesRead += inputConsumed;
+            inputConsumed = 0;
+            int written = outputConsumed;
+            output.position(outputPos + written);
+            bytesWritten += written;
+            outputConsumed = 0;
+            throw e;
+        }
+        
+        // 读取了多少解压前的字节数
+        int read = (int) (result & 0x7fff_ffffL);
+        
+        // 写入了多少解压后的字节数
+        int written = (int) (result >>> 31 & 0x7fff_ffffL);
+        
+        if((result >>> 62 & 1) != 0) {
+            finished = true;    // 标记解压完成
+        }
+        
+        if((result >>> 63 & 1) != 0) {
+            needDict = true;    // 需要字典
+        }
+        
+        // 如果2号缓冲区不为空
+        if(input != null) {
+            // 游标前进，跳过已读的解压前的字节
+            input.position(inputPos + read);
+            
+            // 2号缓冲区为空时，需要处理1号缓冲区的游标
+        } else {
+            // 游标前进，跳过已读的解压前的字节
+            this.inputPos = inputPos + read;
+        }
+        
+        /* Note: this method call also serves to keep the byteBuffer ref alive */
+        // 处理解压缓冲区的游标
+        output.position(outputPos + written);
+        
+        bytesWritten += written;
+        bytesRead += read;
+        
+        return written;
+    }
+    
+    /*
+     * 供解压器池回收解压器：重置解压器，以便下次复用。
+     * 如果解压器已被关闭，则返回false，此时该解压器不能再被复用。
+     */
+    boolean recycle() {
+        synchronized(zsRef) {
+            if(zsRef.address() == 0) {
+                return false;
+            }
+            reset();
+            return true;
+        }
+    }
+    
     // 将字节数组inputArray中的数据解压后存入解压缓冲区outputArray
     private native long inflateBytesBytes(long addr, byte[] inputArray, int inputOff, int inputLen, byte[] outputArray, int outputOff, int outputLen) throws DataFormatException;
     // 将字节数组inputArray中的数据解压后存入outputAddress地址处的解压缓冲区
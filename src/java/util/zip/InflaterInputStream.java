@@ -49,6 +49,8 @@ public class InflaterInputStream extends FilterInputStream {
     
     boolean usesDefaultInflater = false;    // 是否使用了具有默认解压级别的解压器
     
+    InflaterPool pool;  // 解压器所属的解压器池，关闭输入流时会将解压器放回池中
+    
     /**
      * Input buffer for decompression.
      */
@@ -127,6 +129,27 @@ public class InflaterInputStream extends FilterInputStream {
         buf = new byte[size];
     }
     
+    /**
+     * Creates a new input stream with a decompressor acquired from the
+     * specified pool and the specified buffer size. The decompressor is
+     * released to the pool when this stream is closed.
+     *
+     * @param in   the input stream
+     * @param pool the pool that supplies the decompressor ("inflater")
+     * @param size the input buffer size
+     *
+     * @throws IllegalArgumentException if {@code size <= 0}
+     * @since 11
+     */
+    /*
+     * 用指定的源头输入流和从解压器池中获取的解压器构造(解压)输入流。
+     * 解压缓冲区的容量由size参数指定，关闭输入流时会将解压器放回池中。
+     */
+    public InflaterInputStream(InputStream in, InflaterPool pool, int size) {
+        this(in, acquire(in, pool, size), size);
+        this.pool = pool;
+    }
+    
     /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
     
     
@@ -373,9 +396,12 @@ public class InflaterInputStream extends FilterInputStream {
         if(!closed) {
             if(usesDefaultInflater) {
                 inf.end();
+            } else if(pool != null) {
+                // 将解压器放回解压器池
+                pool.release(inf);
             }
-            in.close();
             closed = true;
+            in.close();
         }
     }
     
@@ -383,6 +409,17 @@ public class InflaterInputStream extends FilterInputStream {
     
     
     
+    // 校验构造参数后再从解压器池中获取解压器，以免参数非法时获取的解压器无人放回
+    private static Inflater acquire(InputStream in, InflaterPool pool, int size) {
+        if(in == null) {
+            throw new NullPointerException();
+        } else if(size<=0) {
+            throw new IllegalArgumentException("buffer size <= 0");
+        }
+        
+        return pool.acquire();
+    }
+    
     /**
      * Check to make sure that this stream has not been closed
      */
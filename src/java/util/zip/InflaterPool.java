@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A bounded pool of {@link Inflater} instances.
+ *
+ * <p>Every new {@code Inflater} allocates a native zlib stream and registers
+ * it with a {@link java.lang.ref.Cleaner}. Applications that decompress many
+ * short streams can share an {@code InflaterPool} to reuse inflaters instead:
+ * {@link #acquire()} returns an inflater that is ready for new input, and
+ * {@link #release(Inflater)} resets it and keeps it for the next caller. At
+ * most {@code capacity} idle inflaters are kept; inflaters released to a full
+ * pool are {@linkplain Inflater#end() ended}.
+ *
+ * <p>The pool is thread-safe. An acquired inflater should be used by one
+ * thread at a time, and must not be used after it has been released.
+ * Inflaters that are never released are cleaned up as usual when they
+ * become unreachable.
+ *
+ * @see InflaterInputStream#InflaterInputStream(java.io.InputStream, InflaterPool, int)
+ * @see GZIPInputStream#GZIPInputStream(java.io.InputStream, int, InflaterPool)
+ * @see DeflaterPool
+ * @since 11
+ */
+/*
+ * 解压器池，缓存有限数量的空闲解压器，避免频繁创建解压器(本地)以及向Cleaner注册清理动作
+ *
+ * acquire()获取一个可以直接使用的解压器，release()将其重置后放回池中，
+ * 池中的空闲解压器已满时，放回的解压器会被直接关闭。
+ */
+public final class InflaterPool {
+    
+    private final boolean nowrap;       // 池中解压器是否兼容GZIP
+    private final int capacity;         // 最多缓存的空闲解压器数量
+    private final Deque<Inflater> idle; // 空闲的解压器
+    
+    /**
+     * Creates a pool of inflaters that keeps at most {@code capacity} idle
+     * inflaters.
+     *
+     * @param nowrap   if true then the inflaters support GZIP compatible
+     *                 compression, see {@link Inflater#Inflater(boolean)}
+     * @param capacity the maximum number of idle inflaters kept by the pool
+     *
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    // 构造解压器池，nowrap指示解压器是否兼容GZIP，capacity指示最多缓存的空闲解压器数量
+    public InflaterPool(boolean nowrap, int capacity) {
+        if(capacity<0) {
+            throw new IllegalArgumentException("capacity < 0");
+        }
+        
+        this.nowrap = nowrap;
+        this.capacity = capacity;
+        this.idle = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+    
+    /**
+     * Returns an inflater from this pool, creating a new one if no idle
+     * inflater is available.
+     *
+     * @return an inflater that is ready for new input
+     */
+    // 从池中取出一个空闲的解压器，没有空闲的解压器时新建一个
+    public Inflater acquire() {
+        synchronized(idle) {
+            // 后进先出，最近放回的解压器更可能还在CPU缓存中
+            Inflater inf = idle.pollLast();
+            if(inf != null) {
+                inf.idle = false;
+                return inf;
+            }
+        }
+        
+        Inflater inf = new Inflater(nowrap);
+        inf.pool = this;
+        return inf;
+    }
+    
+    /**
+     * Resets the given inflater and returns it to this pool. If the pool
+     * already holds {@code capacity} idle inflaters, or the inflater has been
+     * ended, the inflater is ended instead.
+     *
+     * @param inf an inflater obtained from {@link #acquire()} of this pool
+     *
+     * @throws IllegalArgumentException if the inflater was not obtained from this pool
+     * @throws IllegalStateException    if the inflater has already been released
+     */
+    // 重置解压器并将其放回池中，池已满时关闭该解压器
+    public void release(Inflater inf) {
+        if(inf.pool != this) {
+            throw new IllegalArgumentException("inflater does not belong to this pool");
+        }
+        
+        // 先标记为空闲，以免同一个解压器被重复放回
+        synchronized(idle) {
+            if(inf.idle) {
+                throw new IllegalStateException("inflater already released");
+            }
+            inf.idle = true;
+        }
+        
+        // 已被关闭的解压器无法复用
+        if(!inf.recycle()) {
+            return;
+        }
+        
+        synchronized(idle) {
+            if(idle.size()<capacity) {
+                idle.addLast(inf);
+                return;
+            }
+        }
+        
+        inf.end();
+    }
+    
+    /**
+     * Ends and discards all idle inflaters held by this pool. Inflaters that
+     * are currently acquired are not affected and can still be released.
+     */
+    // 关闭并丢弃池中所有空闲的解压器
+    public void clear() {
+        Inflater[] infs;
+        synchronized(idle) {
+            infs = idle.toArray(new Inflater[0]);
+            idle.clear();
+        }
+        
+        for(Inflater inf : infs) {
+            inf.end();
+        }
+    }
+    
+    /**
+     * Returns whether the inflaters of this pool support GZIP compatible
+     * compression.
+     *
+     * @return the {@code nowrap} value this pool was created with
+     */
+    // 池中解压器是否兼容GZIP
+    public boolean isNowrap() {
+        return nowrap;
+    }
+    
+    /**
+     * Returns the number of idle inflaters currently held by this pool.
+     *
+     * @return the number of idle inflaters
+     */
+    // 返回池中空闲解压器的数量
+    public int getIdleCount() {
+        synchronized(idle) {
+            return idle.size();
+        }
+    }
+    
+}
@@ -0,0 +1,345 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class consists of static methods that compute the CRC-32, CRC-32C
+ * and Adler-32 checksums of large inputs in parallel.
+ *
+ * <p>The input is split into parts that are checksummed concurrently by
+ * tasks of the {@linkplain ForkJoinPool#commonPool() common pool}, and the
+ * partial results are merged with {@link CRC32#combine},
+ * {@link CRC32C#combine} or {@link Adler32#combine}. The result is the same
+ * as computing the checksum of the whole input with a single
+ * {@link Checksum} instance. Inputs smaller than 1M are checksummed in the
+ * calling thread.
+ *
+ * <p>A {@link java.nio.MappedByteBuffer} is a convenient input for files
+ * smaller than 2G; the methods taking a {@link FileChannel} read any file
+ * with positional reads, several parts of the file being read at once.
+ *
+ * <p> Passing a {@code null} argument to a method in this class will cause
+ * a {@link NullPointerException} to be thrown.</p>
+ *
+ * @see Checksum
+ * @since 11
+ */
+/*
+ * 并行计算校验和：将数据切分成若干段，在公共线程池中并行计算每一段的校验和，再依次合并
+ *
+ * 支持CRC-32、CRC-32C与Adler-32三种校验和，结果与使用单个Checksum对象顺序计算的结果相同。
+ * 数据来源可以是缓冲区(比如映射了文件的MappedByteBuffer)，也可以是文件通道(并发地按位置读取文件的不同部分)。
+ */
+public final class ParallelChecksums {
+    
+    private static final int MIN_SPLIT = 1024 * 1024;           // 每段数据的最小长度，小于该值的数据不再切分
+    private static final int READ_BUFFER_SIZE = 64 * 1024;      // 从文件通道读取数据时使用的缓冲区大小
+    
+    private ParallelChecksums() {
+    }
+    
+    
+    
+    /*▼ 缓冲区 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the CRC-32 of the remaining bytes in the buffer, starting at
+     * the buffer's position. Upon return, the buffer's position will be
+     * updated to its limit; its limit will not have been changed.
+     *
+     * @param buffer the buffer
+     *
+     * @return the CRC-32 of the remaining bytes in the buffer
+     */
+    // 并行计算缓冲区buffer中剩余字节的CRC-32校验和
+    public static long crc32(ByteBuffer buffer) {
+        return checksum(Algorithm.CRC32, buffer);
+    }
+    
+    /**
+     * Returns the CRC-32C of the remaining bytes in the buffer, starting at
+     * the buffer's position. Upon return, the buffer's position will be
+     * updated to its limit; its limit will not have been changed.
+     *
+     * @param buffer the buffer
+     *
+     * @return the CRC-32C of the remaining bytes in the buffer
+     */
+    // 并行计算缓冲区buffer中剩余字节的CRC-32C校验和
+    public static long crc32c(ByteBuffer buffer) {
+        return checksum(Algorithm.CRC32C, buffer);
+    }
+    
+    /**
+     * Returns the Adler-32 checksum of the remaining bytes in the buffer,
+     * starting at the buffer's position. Upon return, the buffer's position
+     * will be updated to its limit; its limit will not have been changed.
+     *
+     * @param buffer the buffer
+     *
+     * @return the Adler-32 checksum of the remaining bytes in the buffer
+     */
+    // 并行计算缓冲区buffer中剩余字节的Adler-32校验和
+    public static long adler32(ByteBuffer buffer) {
+        return checksum(Algorithm.ADLER32, buffer);
+    }
+    
+    /*▲ 缓冲区 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 文件通道 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Returns the CRC-32 of the content of the file, from its beginning to
+     * its current size. The position of the channel is not changed.
+     *
+     * @param channel the file channel, open for reading
+     *
+     * @return the CRC-32 of the content of the file
+     *
+     * @throws IOException if an I/O error occurs, or if the file is
+     *                     truncated while it is read
+     */
+    // 并行计算文件通道channel中全部数据的CRC-32校验和
+    public static long crc32(FileChannel channel) throws IOException {
+        return checksum(Algorithm.CRC32, channel);
+    }
+    
+    /**
+     * Returns the CRC-32C of the content of the file, from its beginning to
+     * its current size. The position of the channel is not changed.
+     *
+     * @param channel the file channel, open for reading
+     *
+     * @return the CRC-32C of the content of the file
+     *
+     * @throws IOException if an I/O error occurs, or if the file is
+     *                     truncated while it is read
+     */
+    // 并行计算文件通道channel中全部数据的CRC-32C校验和
+    public static long crc32c(FileChannel channel) throws IOException {
+        return checksum(Algorithm.CRC32C, channel);
+    }
+    
+    /**
+     * Returns the Adler-32 checksum of the content of the file, from its
+     * beginning to its current size. The position of the channel is not
+     * changed.
+     *
+     * @param channel the file channel, open for reading
+     *
+     * @return the Adler-32 checksum of the content of the file
+     *
+     * @throws IOException if an I/O error occurs, or if the file is
+     *                     truncated while it is read
+     */
+    // 并行计算文件通道channel中全部数据的Adler-32校验和
+    public static long adler32(FileChannel channel) throws IOException {
+        return checksum(Algorithm.ADLER32, channel);
+    }
+    
+    /*▲ 文件通道 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 计算缓冲区buffer中剩余字节的校验和，数据较多时并行计算
+    private static long checksum(Algorithm algorithm, ByteBuffer buffer) {
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        
+        long value;
+        if(limit - pos<=MIN_SPLIT) {
+            Checksum checksum = algorithm.create();
+            checksum.update(buffer.duplicate());
+            value = checksum.getValue();
+        } else {
+            value = ForkJoinPool.commonPool().invoke(new BufferTask(algorithm, buffer, pos, limit));
+        }
+        
+        buffer.position(limit);
+        
+        return value;
+    }
+    
+    // 计算文件通道channel中全部数据的校验和，数据较多时并行计算
+    private static long checksum(Algorithm algorithm, FileChannel channel) throws IOException {
+        long size = channel.size();
+        
+        if(size<=MIN_SPLIT) {
+            return new ChannelTask(algorithm, channel, 0, size).read();
+        }
+        
+        try {
+            return ForkJoinPool.commonPool().invoke(new ChannelTask(algorithm, channel, 0, size));
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    
+    // 校验和算法
+    private enum Algorithm {
+        CRC32 {
+            Checksum create() {
+                return new CRC32();
+            }
+            
+            long combine(long value1, long value2, long len2) {
+                return java.util.zip.CRC32.combine(value1, value2, len2);
+            }
+        },
+        
+        CRC32C {
+            Checksum create() {
+                return new CRC32C();
+            }
+            
+            long combine(long value1, long value2, long len2) {
+                return java.util.zip.CRC32C.combine(value1, value2, len2);
+            }
+        },
+        
+        ADLER32 {
+            Checksum create() {
+                return new Adler32();
+            }
+            
+            long combine(long value1, long value2, long len2) {
+                return Adler32.combine(value1, value2, len2);
+            }
+        };
+        
+        // 创建计算校验和的对象
+        abstract Checksum create();
+        
+        // 合并两段相邻数据的校验和，len2是后一段数据的长度
+        abstract long combine(long value1, long value2, long len2);
+    }
+    
+    // 计算缓冲区中[from, to)范围内数据的校验和的任务
+    private static final class BufferTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Algorithm algorithm;
+        private final ByteBuffer buffer;
+        private final int from, to;
+        
+        BufferTask(Algorithm algorithm, ByteBuffer buffer, int from, int to) {
+            this.algorithm = algorithm;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long compute() {
+            if(to - from<=MIN_SPLIT) {
+                ByteBuffer b = buffer.duplicate();
+                b.clear();
+                b.limit(to).position(from);
+                
+                Checksum checksum = algorithm.create();
+                checksum.update(b);
+                return checksum.getValue();
+            }
+            
+            int mid = (from + to) >>> 1;
+            
+            BufferTask left = new BufferTask(algorithm, buffer, from, mid);
+            left.fork();
+            long right = new BufferTask(algorithm, buffer, mid, to).compute();
+            
+            return algorithm.combine(left.join(), right, to - mid);
+        }
+    }
+    
+    // 计算文件中[from, to)范围内数据的校验和的任务
+    private static final class ChannelTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Algorithm algorithm;
+        private final FileChannel channel;
+        private final long from, to;
+        
+        ChannelTask(Algorithm algorithm, FileChannel channel, long from, long to) {
+            this.algorithm = algorithm;
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Long compute() {
+            if(to - from<=MIN_SPLIT) {
+                try {
+                    return read();
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            
+            long mid = (from + to) >>> 1;
+            
+            ChannelTask left = new ChannelTask(algorithm, channel, from, mid);
+            left.fork();
+            long right = new ChannelTask(algorithm, channel, mid, to).compute();
+            
+            return algorithm.combine(left.join(), right, to - mid);
+        }
+        
+        // 按位置读取[from, to)范围内的数据，并计算其校验和
+        long read() throws IOException {
+            Checksum checksum = algorithm.create();
+            ByteBuffer b = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, Math.max(to - from, 1)));
+            
+            long pos = from;
+            while(pos<to) {
+                b.clear();
+                b.limit((int) Math.min(b.capacity(), to - pos));
+                
+                int n = channel.read(b, pos);
+                if(n<0) {
+                    throw new EOFException("file truncated while computing checksum");
+                }
+                
+                b.flip();
+                checksum.update(b);
+                pos += n;
+            }
+            
+            return checksum.getValue();
+        }
+    }
+    
+}
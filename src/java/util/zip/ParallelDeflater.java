@@ -0,0 +1,293 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * 并行压缩器(仿照pigz)：将待压缩数据切分为固定大小的数据块，在ForkJoinPool中并行压缩各个数据块，再按输入顺序写出
+ *
+ * 每个数据块使用一个原始(nowrap)压缩器压缩，并以前一个数据块末尾的32KB数据作为字典，使压缩率接近串行压缩；
+ * 除最后一个数据块外，每个数据块都以SYNC_FLUSH结束(对齐到字节边界，且不设置BFINAL标记)，
+ * 因此各数据块压缩后的输出首尾相接，就是一个完整的deflate数据流。
+ * 每个数据块的CRC-32校验和在压缩时一并计算，写出时再依次合并。
+ *
+ * 已提交但未写出的数据块最多有maxPending个，超出时调用方会等待最早提交的数据块压缩完成并将其写出，
+ * 因此内存占用有上限，并且输出顺序总是与输入顺序一致。
+ *
+ * 该类不是线程安全的，只能由一个线程写入数据。
+ */
+final class ParallelDeflater {
+    
+    static final int DEFAULT_BLOCK_SIZE = 128 * 1024;  // 默认的数据块大小
+    
+    private static final int DICT_SIZE = 32 * 1024;    // deflate算法的窗口大小，即字典的最大长度
+    
+    private final OutputStream out;         // 最终输出流，压缩后的数据会写入此处
+    private final ForkJoinPool pool;        // 执行压缩任务的线程池
+    private final DeflaterPool deflaters;   // 压缩器池，供各个压缩任务复用压缩器
+    private final int blockSize;            // 数据块大小
+    private final int maxPending;           // 最多允许多少个数据块处于已提交但未写出的状态
+    
+    private final ArrayDeque<Block> pending = new ArrayDeque<>();   // 已提交但未写出的数据块，按提交顺序排列
+    
+    private byte[] buf;         // 当前正在填充的数据块
+    private int count;          // 当前数据块中已填充的字节数
+    
+    private byte[] prev;        // 上一个数据块，其末尾的数据会作为下一个数据块的字典
+    private int prevLen;        // 上一个数据块的长度
+    
+    private int crc;            // 已写出数据的CRC-32校验和
+    private long bytesRead;     // 已写出的压缩前的字节数
+    private long bytesWritten;  // 已写出的压缩后的字节数
+    
+    private boolean finished;   // 是否已完成压缩
+    
+    /*
+     * 构造并行压缩器
+     *
+     * out       - 最终输出流
+     * level     - 压缩级别
+     * blockSize - 数据块大小
+     * pool      - 执行压缩任务的线程池
+     */
+    ParallelDeflater(OutputStream out, int level, int blockSize, ForkJoinPool pool) {
+        if(blockSize<=0) {
+            throw new IllegalArgumentException("block size <= 0");
+        }
+        
+        this.out = out;
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.maxPending = Math.max(2, pool.getParallelism() * 2);
+        this.deflaters = new DeflaterPool(level, true, maxPending);
+        this.buf = new byte[blockSize];
+    }
+    
+    // 写入len个待压缩的字节，每填满一个数据块，就将其提交给线程池压缩
+    void write(byte[] b, int off, int len) throws IOException {
+        if(finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        
+        while(len>0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            
+            if(count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+    
+    // 提交当前未满的数据块(以SYNC_FLUSH结束)，并写出所有已提交的数据块
+    void flush() throws IOException {
+        if(finished) {
+            return;
+        }
+        
+        if(count>0) {
+            submit(false);
+        }
+        
+        while(!pending.isEmpty()) {
+            writeOldest();
+        }
+    }
+    
+    // 提交最后一个数据块(可能为空)，并写出所有已提交的数据块
+    void finish() throws IOException {
+        if(finished) {
+            return;
+        }
+        
+        submit(true);
+        
+        while(!pending.isEmpty()) {
+            writeOldest();
+        }
+        
+        finished = true;
+    }
+    
+    // 是否已完成压缩
+    boolean finished() {
+        return finished;
+    }
+    
+    // 返回已写出数据的CRC-32校验和
+    int getCrc() {
+        return crc;
+    }
+    
+    // 返回已写出的压缩前的字节数
+    long getBytesRead() {
+        return bytesRead;
+    }
+    
+    // 返回已写出的压缩后的字节数
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    // 重置并行压缩器，以便压缩一段新的数据
+    void reset() {
+        pending.clear();
+        if(buf == null) {
+            buf = new byte[blockSize];
+        }
+        count = 0;
+        prev = null;
+        prevLen = 0;
+        crc = 0;
+        bytesRead = 0;
+        bytesWritten = 0;
+        finished = false;
+    }
+    
+    // 释放压缩器池中缓存的压缩器；先等待仍在执行的压缩任务结束，以便它们先将压缩器放回压缩器池
+    void end() {
+        for(Block block : pending) {
+            block.quietlyJoin();
+        }
+        pending.clear();
+        deflaters.clear();
+        buf = prev = null;
+    }
+    
+    // 将当前数据块提交给线程池压缩，已提交但未写出的数据块过多时，先写出最早提交的数据块
+    private void submit(boolean last) throws IOException {
+        Block block = new Block(buf, count, prev, prevLen, last);
+        
+        prev = buf;
+        prevLen = count;
+        
+        // 最后一个数据块之后不再需要新的缓冲区
+        buf = last ? null : new byte[blockSize];
+        count = 0;
+        
+        while(pending.size() >= maxPending) {
+            writeOldest();
+        }
+        
+        pool.execute(block);
+        pending.add(block);
+    }
+    
+    // 等待最早提交的数据块压缩完成，并将压缩后的数据写入最终输出流
+    private void writeOldest() throws IOException {
+        Block block = pending.poll();
+        
+        block.join();
+        
+        out.write(block.output, 0, block.outputLen);
+        
+        crc = (int) CRC32.combine(Integer.toUnsignedLong(crc), Integer.toUnsignedLong(block.crc), block.len);
+        bytesRead += block.len;
+        bytesWritten += block.outputLen;
+    }
+    
+    
+    // 压缩单个数据块的任务
+    private final class Block extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private byte[] input;       // 待压缩数据
+        private final int len;      // 待压缩数据的长度
+        private byte[] dict;        // 上一个数据块，其末尾的数据用作字典
+        private final int dictLen;  // 上一个数据块的长度
+        private final boolean last; // 是否为最后一个数据块
+        
+        byte[] output;              // 压缩后的数据
+        int outputLen;              // 压缩后的数据长度
+        int crc;                    // 待压缩数据的CRC-32校验和
+        
+        Block(byte[] input, int len, byte[] dict, int dictLen, boolean last) {
+            this.input = input;
+            this.len = len;
+            this.dict = dict;
+            this.dictLen = dictLen;
+            this.last = last;
+        }
+        
+        @Override
+        protected void compute() {
+            Deflater def = deflaters.acquire();
+            
+            try {
+                // 使用上一个数据块末尾的数据作为字典(复制出来，因为本地的setDictionary会忽略off参数)
+                if(dictLen>0) {
+                    int n = Math.min(dictLen, DICT_SIZE);
+                    def.setDictionary(Arrays.copyOfRange(dict, dictLen - n, dictLen));
+                }
+                
+                def.setInput(input, 0, len);
+                
+                byte[] o = new byte[len + (len >>> 3) + 64];
+                int n = 0;
+                
+                if(last) {
+                    def.finish();
+                    while(!def.finished()) {
+                        if(n == o.length) {
+                            o = Arrays.copyOf(o, o.length * 2);
+                        }
+                        n += def.deflate(o, n, o.length - n);
+                    }
+                } else {
+                    // 以SYNC_FLUSH结束，当输出缓冲区未被填满时，说明数据已经全部刷新
+                    do {
+                        if(n == o.length) {
+                            o = Arrays.copyOf(o, o.length * 2);
+                        }
+                        n += def.deflate(o, n, o.length - n, Deflater.SYNC_FLUSH);
+                    } while(n == o.length);
+                }
+                
+                CRC32 checksum = new CRC32();
+                checksum.update(input, 0, len);
+                
+                this.crc = (int) checksum.getValue();
+                this.output = o;
+                this.outputLen = n;
+            } finally {
+                deflaters.release(def);
+                
+                // 压缩完成后不再需要输入数据
+                input = null;
+                dict = null;
+            }
+        }
+    }
+    
+}
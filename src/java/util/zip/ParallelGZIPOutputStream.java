@@ -0,0 +1,261 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class implements a stream filter for writing compressed data in the
+ * GZIP file format, compressing blocks of the input in parallel.
+ *
+ * <p>The input is split into blocks of a fixed size, and the blocks are
+ * compressed concurrently by the tasks of a {@link ForkJoinPool}. Each block
+ * is compressed with the last 32K of the preceding block as its preset
+ * dictionary, so the compression ratio stays close to that of
+ * {@link GZIPOutputStream}, and every block but the last ends with a
+ * {@linkplain Deflater#SYNC_FLUSH sync flush}. The compressed blocks are
+ * written in input order and together form a single standard GZIP member
+ * that can be read by {@link GZIPInputStream}; the CRC-32 values of the
+ * blocks are combined for the trailer.
+ *
+ * <p>At most twice the pool's parallelism of blocks are submitted but not
+ * yet written at any time. When that limit is reached, the writing thread
+ * waits for the oldest block to complete, which bounds the memory used by
+ * the stream to a small multiple of the block size.
+ *
+ * <p>Instances of this class are not safe for use by multiple threads.
+ *
+ * @see GZIPOutputStream
+ * @since 11
+ */
+/*
+ * 并行gzip输出流(仿照pigz)：将待压缩数据切分为固定大小的数据块，在ForkJoinPool中并行压缩，再按输入顺序写出
+ *
+ * 每个数据块以前一个数据块末尾的32KB数据作为字典，压缩率与GZIPOutputStream接近；
+ * 输出是一个标准的gzip文件，可以直接由GZIPInputStream读取。
+ * 已提交但未写出的数据块最多为线程池并行度的两倍，因此内存占用有上限。
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+    
+    /*
+     * GZIP header magic number.
+     */
+    private static final int GZIP_MAGIC = 0x8b1f;  // gzip文件的魔数
+    
+    private final ParallelDeflater deflater;        // 并行压缩器
+    
+    private final byte[] singleByteBuf = new byte[1];   // 临时存储单个待压缩的字节
+    
+    private boolean closed = false;     // 输出流是否已关闭
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a new output stream with the default block size and
+     * compression level, compressing blocks in the
+     * {@linkplain ForkJoinPool#commonPool() common pool}.
+     *
+     * @param out the output stream
+     *
+     * @throws IOException If an I/O error has occurred.
+     */
+    // 用指定的最终输出流构造并行gzip输出流，使用默认的数据块大小(128KB)与压缩级别，在公共线程池中压缩
+    public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+        this(out, ParallelDeflater.DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new output stream with the specified block size and
+     * compression level, compressing blocks in the specified pool.
+     *
+     * @param out       the output stream
+     * @param blockSize the size of the blocks that are compressed in parallel
+     * @param level     the compression level (0-9)
+     * @param pool      the pool that compresses the blocks
+     *
+     * @throws IOException              If an I/O error has occurred.
+     * @throws IllegalArgumentException if {@code blockSize <= 0} or the
+     *                                  compression level is invalid
+     */
+    /*
+     * 构造并行gzip输出流
+     *
+     * out       - 最终输出流，压缩后的数据会写入此处
+     * blockSize - 数据块大小
+     * level     - 压缩级别
+     * pool      - 执行压缩任务的线程池
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int blockSize, int level, ForkJoinPool pool) throws IOException {
+        super(Objects.requireNonNull(out));
+        
+        this.deflater = new ParallelDeflater(out, level, blockSize, Objects.requireNonNull(pool));
+        
+        // 压缩前：写入gzip文件头信息
+        writeHeader();
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 写/压缩 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Writes a byte to the compressed output stream.
+     *
+     * @param b the byte to be written
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 将单个字节写入并行gzip输出流
+    public void write(int b) throws IOException {
+        singleByteBuf[0] = (byte) b;
+        write(singleByteBuf, 0, 1);
+    }
+    
+    /**
+     * Writes an array of bytes to the compressed output stream. Every time a
+     * block is filled it is submitted for compression; this method blocks
+     * only when too many blocks are waiting to be written.
+     *
+     * @param b   the data to be written
+     * @param off the start offset of the data
+     * @param len the length of the data
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 将字节数组b中off处起的len个字节写入并行gzip输出流，每填满一个数据块就提交压缩
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        Objects.checkFromIndexSize(off, len, b.length);
+        deflater.write(b, off, len);
+    }
+    
+    /**
+     * Flushes the compressed output stream. The data written so far is
+     * compressed, ending with a {@linkplain Deflater#SYNC_FLUSH sync flush},
+     * and written to the output stream before the output stream is flushed.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 压缩当前未满的数据块，等待所有数据块压缩完成并写出后，刷新最终输出流
+    public void flush() throws IOException {
+        ensureOpen();
+        deflater.flush();
+        out.flush();
+    }
+    
+    /*▲ 写/压缩 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 压缩后 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Finishes writing compressed data to the output stream without closing
+     * the underlying stream.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 结束压缩，等待所有数据块压缩完成并写出，最后写入gzip文件尾信息
+    public void finish() throws IOException {
+        if(deflater.finished()) {
+            return;
+        }
+        
+        deflater.finish();
+        
+        // 压缩后：写入gzip文件尾信息
+        writeTrailer();
+    }
+    
+    /**
+     * Writes remaining compressed data to the output stream and closes the
+     * underlying stream.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 关闭并行gzip输出流，关闭前会先结束压缩
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        
+        closed = true;
+        
+        try {
+            finish();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+    
+    /*▲ 压缩后 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    // 压缩前：写入gzip文件头信息，与GZIPOutputStream写入的头信息相同
+    private void writeHeader() throws IOException {
+        byte[] header = new byte[]{
+            (byte) GZIP_MAGIC,          // Magic number (short)
+            (byte) (GZIP_MAGIC >> 8),   // Magic number (short)
+            Deflater.DEFLATED,          // Compression method (CM)
+            0,                          // Flags (FLG)
+            0,                          // Modification time MTIME (int)
+            0,                          // Modification time MTIME (int)
+            0,                          // Modification time MTIME (int)
+            0,                          // Modification time MTIME (int)
+            0,                          // Extra flags (XFLG)
+            0                           // Operating system (OS)
+        };
+        out.write(header);
+    }
+    
+    // 压缩后：写入gzip文件尾信息，包括合并后的CRC-32校验和，以及压缩前的字节数(模2^32)
+    private void writeTrailer() throws IOException {
+        int crc = deflater.getCrc();
+        int size = (int) deflater.getBytesRead();
+        byte[] trailer = new byte[]{
+            (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24),
+            (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+        };
+        out.write(trailer);
+    }
+    
+    // 确保输出流未关闭
+    private void ensureOpen() throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+    
+}
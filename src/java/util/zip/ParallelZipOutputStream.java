@@ -0,0 +1,500 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.util.zip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements an output stream filter for writing files in the
+ * ZIP file format, compressing entries in parallel.
+ *
+ * <p>The data of a {@link #DEFLATED} entry is buffered in memory until the
+ * entry is closed, and then compressed, together with its CRC-32 checksum,
+ * by a task of a {@link ForkJoinPool} while the caller goes on writing the
+ * following entries. The compressed entries are written in the order in
+ * which they were added. Since the size, compressed size and CRC-32 of a
+ * buffered entry are known before it is written, they are stored in its
+ * local file header and no data descriptor is written.
+ *
+ * <p>An entry whose data exceeds the buffer limit (1M) is not buffered.
+ * Instead, once the preceding entries have been written, its data is split
+ * into blocks that are compressed in parallel as by
+ * {@link ParallelGZIPOutputStream}, and its sizes and CRC-32 are stored in a
+ * data descriptor, using the ZIP64 format when necessary. {@link #STORED}
+ * entries are written as by {@link ZipOutputStream}, after the preceding
+ * entries.
+ *
+ * <p>At most twice the pool's parallelism of entries are compressed but
+ * not yet written at any time. When that limit is reached, the writing
+ * thread waits for the oldest entry to be compressed and writes it, which
+ * bounds the memory used by the stream.
+ *
+ * <p>Errors in the sizes or CRC-32 preset on a {@code DEFLATED} entry are
+ * reported when the entry is written, which may be during a later call to
+ * {@code putNextEntry}, {@code closeEntry}, {@code flush} or
+ * {@code finish}.
+ *
+ * <p>Unlike {@link ZipOutputStream}, which sets the size, compressed size
+ * and CRC-32 of a {@code DEFLATED} entry when the entry is closed, this
+ * class sets them only when the entry is written. Until then, after
+ * {@code closeEntry} returns, the {@code ZipEntry} may still report them
+ * as unknown; they are all set once {@code flush}, {@code finish} or
+ * {@code close} returns.
+ *
+ * @see ZipOutputStream
+ * @since 11
+ */
+/*
+ * 并行zip输出流：在ForkJoinPool中并行压缩各个实体，再按添加顺序写出
+ *
+ * 压缩方式为DEFLATED的实体，其数据先缓存在内存中，关闭实体时提交给线程池压缩并计算crc-32校验码，
+ * 调用者可以立即开始写入下一个实体。由于写出前已知实体的大小与crc-32校验码，它们会被直接记录在文件头信息中，不再需要扩展数据描述符。
+ *
+ * 数据超过1MB的大型实体不再缓存，而是在之前的实体全部写出后，像ParallelGZIPOutputStream那样分块并行压缩后直接写出，
+ * 其大小与crc-32校验码记录在扩展数据描述符中(必要时使用zip64格式)。
+ * 压缩方式为STORED的实体在之前的实体全部写出后，按ZipOutputStream的方式写出。
+ *
+ * 已压缩但未写出的实体最多为线程池并行度的两倍，超出时调用者会等待最早添加的实体压缩完成并将其写出，因此内存占用有上限。
+ *
+ * 与ZipOutputStream在关闭实体时就设置实体的大小、压缩后的大小与crc-32校验码不同，本类在写出实体时才设置它们，
+ * 因此closeEntry()返回后，ZipEntry中的这些信息可能仍是未知的，直到flush()、finish()或close()返回。
+ */
+public class ParallelZipOutputStream extends ZipOutputStream {
+    
+    private static final int ENTRY_BUFFER_LIMIT = 1024 * 1024;  // 实体数据在内存中缓存的上限，超出该值的实体会被分块并行压缩
+    
+    private final ForkJoinPool pool;    // 执行压缩任务的线程池
+    private final int maxPending;       // 最多允许多少个实体处于已提交但未写出的状态
+    
+    private final ArrayDeque<EntryTask> pending = new ArrayDeque<>();   // 已提交但未写出的实体，按添加顺序排列
+    
+    private int level = Deflater.DEFAULT_COMPRESSION;   // 压缩级别
+    
+    private final DeflaterPool[] deflaters = new DeflaterPool[11];   // 各压缩级别的压缩器池(下标为压缩级别+1)，供各个压缩任务复用压缩器
+    
+    private ZipEntry entry;             // 压缩方式为DEFLATED的待压缩实体
+    private byte[] buf;                 // 缓存的实体数据
+    private int count;                  // 缓存的实体数据的长度
+    
+    private ParallelDeflater streaming; // 并行压缩器，不为null时表示当前实体是大型实体，正在被分块并行压缩
+    
+    private boolean stored;             // 当前是否正在写入压缩方式为STORED的实体
+    
+    
+    
+    /*▼ 构造器 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Creates a new parallel ZIP output stream that compresses entries in
+     * the {@linkplain ForkJoinPool#commonPool() common pool}.
+     *
+     * <p>The UTF-8 {@link java.nio.charset.Charset charset} is used
+     * to encode the entry names and comments.
+     *
+     * @param out the actual output stream
+     */
+    // 用指定的最终输出流构造使用utf8字符集的并行zip输出流，在公共线程池中压缩
+    public ParallelZipOutputStream(OutputStream out) {
+        this(out, StandardCharsets.UTF_8, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new parallel ZIP output stream that compresses entries in
+     * the specified pool.
+     *
+     * @param out     the actual output stream
+     * @param charset the {@linkplain java.nio.charset.Charset charset}
+     *                to be used to encode the entry names and comments
+     * @param pool    the pool that compresses the entries
+     */
+    // 用指定的最终输出流构造使用指定字符集的并行zip输出流，在指定的线程池中压缩
+    public ParallelZipOutputStream(OutputStream out, Charset charset, ForkJoinPool pool) {
+        super(out, charset);
+        this.pool = Objects.requireNonNull(pool);
+        this.maxPending = Math.max(2, pool.getParallelism() * 2);
+    }
+    
+    /*▲ 构造器 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 压缩前 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Begins writing a new ZIP file entry. Closes the current entry if still
+     * active. The data of a {@code DEFLATED} entry is buffered until the
+     * entry is closed.
+     *
+     * @param e the ZIP entry to be written
+     *
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException  if an I/O error has occurred
+     */
+    // 初始化待压缩实体，压缩方式为STORED的实体会在之前的实体全部写出后立即写入文件头信息
+    @Override
+    public void putNextEntry(ZipEntry e) throws IOException {
+        ensureOpen();
+        
+        // 关闭之前的待压缩实体
+        closeEntry();
+        
+        // 校验并初始化待压缩实体
+        initEntry(e);
+        
+        if(e.method == STORED) {
+            // 写出之前的所有实体
+            writePending();
+            
+            beginEntry(e);
+            stored = true;
+        } else {
+            entry = e;
+            buf = new byte[(e.size>0 && e.size<=ENTRY_BUFFER_LIMIT) ? (int) e.size : 8192];
+            count = 0;
+        }
+    }
+    
+    /**
+     * Sets the compression level for subsequent entries which are DEFLATED.
+     * The default setting is DEFAULT_COMPRESSION.
+     *
+     * @param level the compression level (0-9)
+     *
+     * @throws IllegalArgumentException if the compression level is invalid
+     */
+    // 设置压缩级别，对之后添加的实体生效
+    @Override
+    public void setLevel(int level) {
+        super.setLevel(level);
+        this.level = level;
+    }
+    
+    /*▲ 压缩前 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 写/压缩 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Writes an array of bytes to the current ZIP entry data.
+     *
+     * @param b   the data to be written
+     * @param off the start offset in the data
+     * @param len the number of bytes that are written
+     *
+     * @throws ZipException if a ZIP file error has occurred
+     * @throws IOException  if an I/O error has occurred
+     */
+    /*
+     * 写入实体数据：压缩方式为DEFLATED的实体，数据先缓存在内存中；
+     * 缓存的数据超过上限时，改为分块并行压缩后直接写出。
+     */
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        
+        if(off<0 || len<0 || off>b.length - len) {
+            throw new IndexOutOfBoundsException();
+        } else if(len == 0) {
+            return;
+        }
+        
+        if(stored) {
+            super.write(b, off, len);
+            return;
+        }
+        
+        // 不存在待压缩实体，则会抛异常
+        if(entry == null) {
+            throw new ZipException("no current ZIP entry");
+        }
+        
+        if(streaming != null) {
+            streaming.write(b, off, len);
+            return;
+        }
+        
+        if(len<=ENTRY_BUFFER_LIMIT - count) {
+            if(len>buf.length - count) {
+                buf = Arrays.copyOf(buf, Math.min(ENTRY_BUFFER_LIMIT, Math.max(buf.length * 2, count + len)));
+            }
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+            return;
+        }
+        
+        // 实体数据超过了缓存上限，在之前的实体全部写出后，改为分块并行压缩
+        writePending();
+        
+        beginEntry(entry);
+        
+        streaming = new ParallelDeflater(out, level, ParallelDeflater.DEFAULT_BLOCK_SIZE, pool);
+        streaming.write(buf, 0, count);
+        streaming.write(b, off, len);
+        
+        buf = null;
+        count = 0;
+    }
+    
+    /**
+     * Flushes this output stream. All the entries that have been closed are
+     * compressed and written before the underlying stream is flushed.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    // 写出已关闭的实体(大型实体则刷新已写入的数据)，随后刷新最终输出流
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        
+        writePending();
+        
+        if(streaming != null) {
+            streaming.flush();
+        }
+        
+        out.flush();
+    }
+    
+    /*▲ 写/压缩 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*▼ 压缩后 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /**
+     * Closes the current ZIP entry. The data of a buffered {@code DEFLATED}
+     * entry is submitted for compression, and this method blocks only when
+     * too many entries are waiting to be written.
+     *
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException  if an I/O error has occurred
+     */
+    // 关闭当前实体：缓存的实体数据会被提交给线程池压缩，已提交但未写出的实体过多时，先写出最早添加的实体
+    @Override
+    public void closeEntry() throws IOException {
+        ensureOpen();
+        
+        if(stored) {
+            stored = false;
+            super.closeEntry();
+            return;
+        }
+        
+        if(entry == null) {
+            return;
+        }
+        
+        ZipEntry e = entry;
+        entry = null;
+        
+        // 大型实体：等待剩余的数据块压缩完成并写出，然后写入扩展数据描述符
+        if(streaming != null) {
+            ParallelDeflater pd = streaming;
+            streaming = null;
+            try {
+                pd.finish();
+                endEntry(pd.getBytesRead(), pd.getBytesWritten(), pd.getCrc() & 0xffffffffL);
+            } finally {
+                pd.end();
+            }
+            return;
+        }
+        
+        while(pending.size() >= maxPending) {
+            writeOldest();
+        }
+        
+        EntryTask task = new EntryTask(e, buf, count, deflaters());
+        buf = null;
+        count = 0;
+        
+        pool.execute(task);
+        pending.add(task);
+    }
+    
+    /**
+     * Finishes writing the contents of the ZIP output stream without closing
+     * the underlying stream. Waits for all the entries to be compressed and
+     * written before writing the central directory.
+     *
+     * @throws ZipException if a ZIP file error has occurred
+     * @throws IOException  if an I/O exception has occurred
+     */
+    // 结束压缩操作：写出所有实体后，再写入zip文件的第二部分和第三部分
+    @Override
+    public void finish() throws IOException {
+        ensureOpen();
+        
+        closeEntry();
+        
+        writePending();
+        
+        super.finish();
+    }
+    
+    /**
+     * Closes the ZIP output stream as well as the stream being filtered.
+     *
+     * @throws ZipException if a ZIP file error has occurred
+     * @throws IOException  if an I/O error has occurred
+     */
+    // 关闭并行zip输出流，关闭前会先结束压缩，随后释放缓存的压缩器
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // 等待仍在执行的压缩任务结束，以便它们先将压缩器放回压缩器池，再统一释放
+            for(EntryTask task : pending) {
+                task.quietlyJoin();
+            }
+            pending.clear();
+            
+            if(streaming != null) {
+                streaming.end();
+                streaming = null;
+            }
+            
+            for(DeflaterPool p : deflaters) {
+                if(p != null) {
+                    p.clear();
+                }
+            }
+        }
+    }
+    
+    /*▲ 压缩后 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
+    /*
+     * 返回当前压缩级别的压缩器池。
+     * 压缩级别改变时，原先的压缩器池会被保留，因为使用它的压缩任务可能仍在执行，
+     * 这些任务结束后会将压缩器放回原先的压缩器池，关闭输出流时再统一释放。
+     */
+    private DeflaterPool deflaters() {
+        DeflaterPool p = deflaters[level + 1];
+        if(p == null) {
+            p = deflaters[level + 1] = new DeflaterPool(level, true, maxPending);
+        }
+        
+        return p;
+    }
+    
+    // 按添加顺序写出所有已提交的实体
+    private void writePending() throws IOException {
+        while(!pending.isEmpty()) {
+            writeOldest();
+        }
+    }
+    
+    // 等待最早添加的实体压缩完成，写入其文件头信息与压缩后的数据
+    private void writeOldest() throws IOException {
+        EntryTask task = pending.poll();
+        
+        task.join();
+        
+        ZipEntry e = task.entry;
+        long crc = task.crc & 0xffffffffL;
+        
+        // 写出前已知实体的大小与crc-32校验码，将其直接记录在文件头信息中
+        if((e.flag & 8) != 0) {
+            e.size = task.len;
+            e.csize = task.outputLen;
+            e.crc = crc;
+            e.flag &= ~8;
+        }
+        
+        beginEntry(e);
+        
+        out.write(task.output, 0, task.outputLen);
+        
+        endEntry(task.len, task.outputLen, crc);
+    }
+    
+    
+    // 压缩单个实体的任务
+    private static final class EntryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        final ZipEntry entry;       // 待压缩实体
+        final int len;              // 实体数据的长度
+        
+        private byte[] input;                   // 实体数据
+        private final DeflaterPool deflaters;   // 压缩器池
+        
+        byte[] output;              // 压缩后的数据
+        int outputLen;              // 压缩后的数据长度
+        int crc;                    // 实体数据的crc-32校验码
+        
+        EntryTask(ZipEntry entry, byte[] input, int len, DeflaterPool deflaters) {
+            this.entry = entry;
+            this.input = input;
+            this.len = len;
+            this.deflaters = deflaters;
+        }
+        
+        @Override
+        protected void compute() {
+            Deflater def = deflaters.acquire();
+            
+            try {
+                def.setInput(input, 0, len);
+                def.finish();
+                
+                byte[] o = new byte[len + (len >>> 3) + 64];
+                int n = 0;
+                while(!def.finished()) {
+                    if(n == o.length) {
+                        o = Arrays.copyOf(o, o.length * 2);
+                    }
+                    n += def.deflate(o, n, o.length - n);
+                }
+                
+                CRC32 checksum = new CRC32();
+                checksum.update(input, 0, len);
+                
+                this.crc = (int) checksum.getValue();
+                this.output = o;
+                this.outputLen = n;
+            } finally {
+                deflaters.release(def);
+                
+                // 压缩完成后不再需要实体数据
+                input = null;
+            }
+        }
+    }
+    
+}
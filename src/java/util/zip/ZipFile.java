@@ -33,6 +33,9 @@ import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.io.UncheckedIOException;
 import java.lang.ref.Cleaner.Cleanable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -61,10 +64,14 @@ import java.util.stream.StreamSupport;
 import jdk.internal.misc.JavaLangAccess;
 import jdk.internal.misc.JavaUtilZipFileAccess;
 import jdk.internal.misc.SharedSecrets;
+import jdk.internal.misc.Unsafe;
 import jdk.internal.misc.VM;
 import jdk.internal.perf.PerfCounter;
+import jdk.internal.ref.Cleaner;
 import jdk.internal.ref.CleanerFactory;
 import jdk.internal.vm.annotation.Stable;
+import sun.nio.ch.DirectBuffer;
+import sun.nio.ch.FileChannelImpl;
 
 import static java.util.zip.ZipConstants64.EXTID_ZIP64;
 import static java.util.zip.ZipConstants64.USE_UTF8;
@@ -109,6 +116,13 @@ import static java.util.zip.ZipUtils.get64;
  * or method in this class will cause a {@link NullPointerException} to be
  * thrown.
  *
+ * <p> If the system property {@code jdk.util.zip.mapped} is set to {@code true},
+ * zip files are opened in <em>mapped mode</em>: the file is memory mapped
+ * (files larger than 2GB fall back to positional reads), and entry lookups
+ * and entry reads do not lock the {@code ZipFile}, so many threads can read
+ * different entries of the same zip file in parallel. A zip file must not be
+ * modified or truncated while it is opened in mapped mode.
+ *
  * @author David Connelly
  * @apiNote To release resources used by this {@code ZipFile}, the {@link #close()} method
  * should be called explicitly or by try-with-resources. Subclasses are responsible
@@ -128,6 +142,10 @@ import static java.util.zip.ZipUtils.get64;
  *
  * 使用该类在解压zip文件时，需要借助zip文件的核心目录信息(zip文件的第二部分)，
  * 如果zip文件的结构是不完整的，如缺失了第二部分，那么该类无法正确识别zip实体信息。
+ *
+ * 设置系统属性jdk.util.zip.mapped为true后，zip文件以映射模式打开：
+ * 整个zip文件被映射到内存(超过2GB的文件使用定位读取)，查找实体与读取实体时不再对ZipFile加锁，
+ * 多个线程可以并行读取同一个zip文件中的不同实体。
  */
 public class ZipFile implements ZipConstants, Closeable {
     
@@ -152,6 +170,14 @@ public class ZipFile implements ZipConstants, Closeable {
     
     private static boolean isWindows; // 当前是否处于windows系统
     
+    /*
+     * 是否以映射模式打开zip文件
+     *
+     * 映射模式下，zip文件被映射到内存，读取操作使用定位读取而不再移动共享的文件指针，
+     * 且查找实体与读取实体时不对ZipFile加锁。
+     */
+    private static final boolean MAPPED_MODE;
+    
     private final String name; // zip文件原始名称(路径)
     
     @Stable
@@ -208,6 +234,8 @@ public class ZipFile implements ZipConstants, Closeable {
         JLA = jdk.internal.misc.SharedSecrets.getJavaLangAccess();
         
         isWindows = VM.getSavedProperty("os.name").contains("Windows");
+        
+        MAPPED_MODE = Boolean.parseBoolean(VM.getSavedProperty("jdk.util.zip.mapped"));
     }
     
     
@@ -459,64 +487,13 @@ public class ZipFile implements ZipConstants, Closeable {
     public InputStream getInputStream(ZipEntry entry) throws IOException {
         Objects.requireNonNull(entry, "entry");
         
-        int pos = -1;   // 指定实体的偏移位置
-        Source zsrc = res.zsrc;
-        Set<InputStream> istreams = res.istreams;
+        // 映射模式下不加锁
+        if(MAPPED_MODE) {
+            return getInputStream0(entry);
+        }
         
         synchronized(this) {
-            ensureOpen();
-            
-            if(Objects.equals(lastEntryName, entry.name)) {
-                pos = lastEntryPos;
-            } else if(!zc.isUTF8() && (entry.flag & USE_UTF8) != 0) {
-                pos = zsrc.getEntryPos(zc.getBytesUTF8(entry.name), false);
-            } else {
-                pos = zsrc.getEntryPos(zc.getBytes(entry.name), false);
-            }
-            
-            if(pos == -1) {
-                return null;
-            }
-            
-            // 返回针对指定ZipEntry的输入流
-            ZipFileInputStream in = new ZipFileInputStream(zsrc.cen, pos);
-            
-            // 判断该实体的压缩/解压方式
-            switch(CENHOW(zsrc.cen, pos)) {
-                case STORED:
-                    synchronized(istreams) {
-                        istreams.add(in);
-                    }
-                    
-                    // 对于未压缩的zip文件(没有本地文件头与数据描述符信息)，直接返回输入流就可以读取
-                    return in;
-                
-                case DEFLATED:
-                    /*
-                     * Inflater likes a bit of slack
-                     * MORE: Compute good size for inflater stream:
-                     */
-                    long size = CENLEN(zsrc.cen, pos) + 2;
-                    if(size>65536) {
-                        size = 8192;
-                    }
-                    
-                    if(size<=0) {
-                        size = 4096;
-                    }
-                    
-                    // 构造(解压)输入流
-                    InputStream is = new ZipFileInflaterInputStream(in, res, (int) size);
-                    synchronized(istreams) {
-                        istreams.add(is);
-                    }
-                    
-                    // 对于压缩过的zip文件，需要返回对应的(解压)输入流才能对其解压
-                    return is;
-                
-                default:
-                    throw new ZipException("invalid compression method");
-            }
+            return getInputStream0(entry);
         }
     }
     
@@ -571,7 +548,8 @@ public class ZipFile implements ZipConstants, Closeable {
     public Stream<? extends ZipEntry> stream() {
         synchronized(this) {
             ensureOpen();
-            EntrySpliterator<ZipEntry> spliterator = new EntrySpliterator<>(0, res.zsrc.total, pos -> getZipEntry(null, null, pos, ZipEntry::new));
+            Source zsrc = res.zsrc;
+            EntrySpliterator<ZipEntry> spliterator = new EntrySpliterator<>(0, zsrc.total, pos -> getZipEntry(zsrc, null, null, pos, ZipEntry::new));
             return StreamSupport.stream(spliterator, false);
         }
     }
@@ -634,8 +612,8 @@ public class ZipFile implements ZipConstants, Closeable {
     
     
     // 返回指定偏移处的实体的名称
-    private String getEntryName(int pos) {
-        byte[] cen = res.zsrc.cen;
+    private String getEntryName(Source zsrc, int pos) {
+        byte[] cen = zsrc.cen;
         
         int nlen = CENNAM(cen, pos);
         
@@ -648,8 +626,8 @@ public class ZipFile implements ZipConstants, Closeable {
     
     /** Checks ensureOpen() before invoke this method */
     // 返回指定偏移处名为name的实体条目
-    private ZipEntry getZipEntry(String name, byte[] bname, int pos, Function<String, ? extends ZipEntry> func) {
-        byte[] cen = res.zsrc.cen;
+    private ZipEntry getZipEntry(Source zsrc, String name, byte[] bname, int pos, Function<String, ? extends ZipEntry> func) {
+        byte[] cen = zsrc.cen;
         
         int nlen = CENNAM(cen, pos);    // 实体名长度
         int elen = CENEXT(cen, pos);    // 扩展区长度
@@ -693,8 +671,11 @@ public class ZipFile implements ZipConstants, Closeable {
             }
         }
         
-        lastEntryName = e.name;
-        lastEntryPos = pos;
+        // 映射模式下调用方未持有锁，不记录最近访问的实体
+        if(!MAPPED_MODE) {
+            lastEntryName = e.name;
+            lastEntryPos = pos;
+        }
         
         return e;
     }
@@ -712,23 +693,94 @@ public class ZipFile implements ZipConstants, Closeable {
     private ZipEntry getEntry(String name, Function<String, ? extends ZipEntry> func) {
         Objects.requireNonNull(name, "name");
         
+        // 映射模式下不加锁
+        if(MAPPED_MODE) {
+            return getEntry0(name, func);
+        }
+        
         synchronized(this) {
-            ensureOpen();
-            
-            // 编码：将字符串中的字符编码为字节后返回
-            byte[] bname = zc.getBytes(name);
-            
-            // 返回拥有指定名称的实体信息在核心目录表中的偏移量
-            int pos = res.zsrc.getEntryPos(bname, true);
-            if(pos != -1) {
-                // 返回指定偏移处名为name的实体条目
-                return getZipEntry(name, bname, pos, func);
-            }
+            return getEntry0(name, func);
+        }
+    }
+    
+    // 返回指定名称的ZipEntry实体信息，非映射模式下需要在ZipFile上加锁后调用
+    private ZipEntry getEntry0(String name, Function<String, ? extends ZipEntry> func) {
+        Source zsrc = source();
+        
+        // 编码：将字符串中的字符编码为字节后返回
+        byte[] bname = zc.getBytes(name);
+        
+        // 返回拥有指定名称的实体信息在核心目录表中的偏移量
+        int pos = zsrc.getEntryPos(bname, true);
+        if(pos != -1) {
+            // 返回指定偏移处名为name的实体条目
+            return getZipEntry(zsrc, name, bname, pos, func);
         }
         
         return null;
     }
     
+    // 返回针对指定ZipEntry条目的(解压)输入流，非映射模式下需要在ZipFile上加锁后调用
+    private InputStream getInputStream0(ZipEntry entry) throws IOException {
+        Source zsrc = source();
+        Set<InputStream> istreams = res.istreams;
+        
+        int pos;   // 指定实体的偏移位置
+        
+        // 映射模式下不使用(无锁保护的)最近访问记录
+        if(!MAPPED_MODE && Objects.equals(lastEntryName, entry.name)) {
+            pos = lastEntryPos;
+        } else if(!zc.isUTF8() && (entry.flag & USE_UTF8) != 0) {
+            pos = zsrc.getEntryPos(zc.getBytesUTF8(entry.name), false);
+        } else {
+            pos = zsrc.getEntryPos(zc.getBytes(entry.name), false);
+        }
+        
+        if(pos == -1) {
+            return null;
+        }
+        
+        // 返回针对指定ZipEntry的输入流
+        ZipFileInputStream in = new ZipFileInputStream(zsrc, pos);
+        
+        // 判断该实体的压缩/解压方式
+        switch(CENHOW(zsrc.cen, pos)) {
+            case STORED:
+                synchronized(istreams) {
+                    istreams.add(in);
+                }
+                
+                // 对于未压缩的zip文件(没有本地文件头与数据描述符信息)，直接返回输入流就可以读取
+                return in;
+            
+            case DEFLATED:
+                /*
+                 * Inflater likes a bit of slack
+                 * MORE: Compute good size for inflater stream:
+                 */
+                long size = CENLEN(zsrc.cen, pos) + 2;
+                if(size>65536) {
+                    size = 8192;
+                }
+                
+                if(size<=0) {
+                    size = 4096;
+                }
+                
+                // 构造(解压)输入流
+                InputStream is = new ZipFileInflaterInputStream(in, res, (int) size);
+                synchronized(istreams) {
+                    istreams.add(is);
+                }
+                
+                // 对于压缩过的zip文件，需要返回对应的(解压)输入流才能对其解压
+                return is;
+            
+            default:
+                throw new ZipException("invalid compression method");
+        }
+    }
+    
     // 返回一个JarEntry实体迭代器
     private Enumeration<JarEntry> entries(Function<String, JarEntry> func) {
         synchronized(this) {
@@ -752,7 +804,8 @@ public class ZipFile implements ZipConstants, Closeable {
     private Stream<JarEntry> stream(Function<String, JarEntry> func) {
         synchronized(this) {
             ensureOpen();
-            EntrySpliterator<JarEntry> spliterator = new EntrySpliterator<>(0, res.zsrc.total, pos -> (JarEntry) getZipEntry(null, null, pos, func));
+            Source zsrc = res.zsrc;
+            EntrySpliterator<JarEntry> spliterator = new EntrySpliterator<>(0, zsrc.total, pos -> (JarEntry) getZipEntry(zsrc, null, null, pos, func));
             return StreamSupport.stream(spliterator, false);
         }
     }
@@ -771,7 +824,8 @@ public class ZipFile implements ZipConstants, Closeable {
     private Stream<String> entryNameStream() {
         synchronized(this) {
             ensureOpen();
-            EntrySpliterator<String> spliterator = new EntrySpliterator<>(0, res.zsrc.total, this::getEntryName);
+            Source zsrc = res.zsrc;
+            EntrySpliterator<String> spliterator = new EntrySpliterator<>(0, zsrc.total, pos -> getEntryName(zsrc, pos));
             return StreamSupport.stream(spliterator, false);
         }
     }
@@ -805,12 +859,19 @@ public class ZipFile implements ZipConstants, Closeable {
     }
     
     private void ensureOpen() {
+        source();
+    }
+    
+    // 返回zip文件的元数据，如果zip文件已关闭，则抛出异常
+    private Source source() {
+        Source zsrc = res.zsrc;
         if(closeRequested) {
             throw new IllegalStateException("zip file closed");
         }
-        if(res.zsrc == null) {
+        if(zsrc == null) {
             throw new IllegalStateException("The object is not initialized.");
         }
+        return zsrc;
     }
     
     private void ensureOpenOrZipException() throws IOException {
@@ -832,6 +893,30 @@ public class ZipFile implements ZipConstants, Closeable {
         // zip文件
         private RandomAccessFile zfile;      // zfile of the underlying zip file
         
+        // 映射模式下，zfile的文件通道，用于定位读取(不移动共享的文件指针，因此无需加锁)
+        private final FileChannel ch;
+        
+        // 映射模式下，整个zip文件在内存中的映射，文件过大或映射失败时为null
+        private final MappedByteBuffer map;
+        
+        /*
+         * Number of threads reading the mapping, striped by thread so that
+         * concurrent readers on different cores update different cache
+         * lines. A reader increments its slot and then checks unmapped;
+         * unmap() sets unmapped and then waits for every slot to drain.
+         * Both sides use volatile accesses, so either the reader sees the
+         * flag or unmap() sees the reader.
+         */
+        // 映射模式下，正在读取映射的线程数，按线程分散到多个计数槽中(各占一个缓存行)，以免多核读取时争用同一个计数
+        private final int[] readers;
+        
+        // 映射是否已解除(或正在解除)，之后的读取将抛出异常
+        private volatile boolean unmapped;
+        
+        private static final Unsafe U = Unsafe.getUnsafe();
+        private static final int READER_PAD = 16;   // 相邻计数槽之间间隔的int数，使每个计数槽独占一个缓存行
+        private static final int READER_SLOTS = Math.min(32, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+        
         // zip文件及其基础文件属性的映射
         private final Key key;               // the key in files
         
@@ -906,6 +991,18 @@ public class ZipFile implements ZipConstants, Closeable {
             }
             
             try {
+                if(MAPPED_MODE) {
+                    this.ch = zfile.getChannel();
+                    // 多个线程共享该通道，不能因为其中某个线程被中断而关闭通道
+                    ((FileChannelImpl) ch).setUninterruptible();
+                    this.map = map(ch);
+                    this.readers = (map == null) ? null : new int[READER_SLOTS * READER_PAD];
+                } else {
+                    this.ch = null;
+                    this.map = null;
+                    this.readers = null;
+                }
+                
                 // 解析zip文件的元数据(读取核心目录区域(zip文件的第二部分))
                 initCEN(-1);
                 
@@ -918,6 +1015,7 @@ public class ZipFile implements ZipConstants, Closeable {
                     this.zfile.close();
                 } catch(IOException xx) {
                 }
+                unmap();
                 throw x;
             }
         }
@@ -958,6 +1056,19 @@ public class ZipFile implements ZipConstants, Closeable {
             }
         }
         
+        // 将整个zip文件映射到内存，文件过大或映射失败时返回null，此时退化为定位读取
+        private static MappedByteBuffer map(FileChannel ch) {
+            try {
+                long size = ch.size();
+                if(size == 0 || size>Integer.MAX_VALUE) {
+                    return null;
+                }
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch(IOException x) {
+                return null;
+            }
+        }
+        
         /* Reads zip file central directory */
         // 解析zip文件的元数据(读取核心目录区域(zip文件的第二部分))
         private void initCEN(int knownTotal) throws IOException {
@@ -1246,6 +1357,31 @@ public class ZipFile implements ZipConstants, Closeable {
         }
         
         private final int readFullyAt(byte[] buf, int off, int len, long pos) throws IOException {
+            if(map != null) {
+                long slot = enterMap();
+                try {
+                    if(pos<0 || pos>map.limit() - len) {
+                        throw new EOFException();
+                    }
+                    // 每次读取使用各自的视图，以免多个线程争用同一个position
+                    map.duplicate().position((int) pos).get(buf, off, len);
+                    return len;
+                } finally {
+                    exitMap(slot);
+                }
+            }
+            
+            if(ch != null) {
+                ByteBuffer bb = ByteBuffer.wrap(buf, off, len);
+                while(bb.hasRemaining()) {
+                    int n = ch.read(bb, pos + bb.position() - off);
+                    if(n<0) {
+                        throw new EOFException();
+                    }
+                }
+                return len;
+            }
+            
             synchronized(zfile) {
                 zfile.seek(pos);
                 int N = len;
@@ -1260,6 +1396,24 @@ public class ZipFile implements ZipConstants, Closeable {
         }
         
         private final int readAt(byte[] buf, int off, int len, long pos) throws IOException {
+            if(map != null) {
+                long slot = enterMap();
+                try {
+                    if(pos >= map.limit()) {
+                        return -1;
+                    }
+                    len = (int) Math.min(len, map.limit() - pos);
+                    map.duplicate().position((int) pos).get(buf, off, len);
+                    return len;
+                } finally {
+                    exitMap(slot);
+                }
+            }
+            
+            if(ch != null) {
+                return ch.read(ByteBuffer.wrap(buf, off, len), pos);
+            }
+            
             synchronized(zfile) {
                 zfile.seek(pos);
                 return zfile.read(buf, off, len);
@@ -1366,12 +1520,62 @@ public class ZipFile implements ZipConstants, Closeable {
         private void close() throws IOException {
             zfile.close();
             zfile = null;
+            
+            // 映射模式下，其他线程可能正在无锁查找实体，因此保留哈希表，由GC回收；但映射内存需要立即释放
+            if(MAPPED_MODE) {
+                unmap();
+                return;
+            }
+            
             cen = null;
             entries = null;
             table = null;
             metanames = null;
         }
         
+        /**
+         * Releases the mapping of the zip file, after waiting for the
+         * reads in progress on it to finish.
+         */
+        // 释放内存映射区：等待正在进行的读取结束后再解除映射，之后的读取将抛出异常
+        private void unmap() {
+            if(map == null || unmapped) {
+                return;
+            }
+            
+            unmapped = true;
+            
+            // 等待正在读取映射的线程读取完毕；此后才开始读取的线程会看到unmapped标记，不会访问映射内存
+            for(int i = 0; i<readers.length; i += READER_PAD) {
+                long offset = Unsafe.ARRAY_INT_BASE_OFFSET + (long) i * Unsafe.ARRAY_INT_INDEX_SCALE;
+                while(U.getIntVolatile(readers, offset) != 0) {
+                    Thread.yield();
+                }
+            }
+            
+            Cleaner cl = ((DirectBuffer) map).cleaner();
+            if(cl != null) {
+                cl.clean();
+            }
+        }
+        
+        // 登记当前线程开始读取映射，返回其计数槽的偏移量；映射已解除时抛出异常
+        private long enterMap() throws ZipException {
+            int i = ((int) Thread.currentThread().getId() & (READER_SLOTS - 1)) * READER_PAD;
+            long offset = Unsafe.ARRAY_INT_BASE_OFFSET + (long) i * Unsafe.ARRAY_INT_INDEX_SCALE;
+            U.getAndAddInt(readers, offset, 1);
+            if(unmapped) {
+                U.getAndAddInt(readers, offset, -1);
+                throw new ZipException("ZipFile closed");
+            }
+            return offset;
+        }
+        
+        // 登记当前线程结束读取映射
+        private void exitMap(long offset) {
+            U.getAndAddInt(readers, offset, -1);
+        }
+        
         
         // zip文件及其基础文件属性的映射
         private static class Key {
@@ -1426,14 +1630,18 @@ public class ZipFile implements ZipConstants, Closeable {
         // 当前实体对应的本地文件头(zip文件第一部分的第1小节)的起始位置在zip文件中的相对位移
         private long pos;       // current position within entry data
         private volatile boolean closeRequested;
+        // zip文件的元数据
+        private final Source zsrc;
         
         /**
          * 构造针对某个ZipEntry的输入流
          *
-         * cen    - 记录zip文件第二部分的全部内容和第三部分的起始标记
-         * cenpos - 某个实体信息在cen中的偏移量
+         * zsrc   - zip文件的元数据
+         * cenpos - 某个实体信息在核心目录表中的偏移量
          */
-        ZipFileInputStream(byte[] cen, int cenpos) {
+        ZipFileInputStream(Source zsrc, int cenpos) {
+            byte[] cen = zsrc.cen;
+            this.zsrc = zsrc;
             rem = CENSIZ(cen, cenpos);
             size = CENLEN(cen, cenpos);
             pos = CENOFF(cen, cenpos);
@@ -1444,7 +1652,7 @@ public class ZipFile implements ZipConstants, Closeable {
             }
             
             // negative for lazy initialization, see getDataOffset();
-            pos = -(pos + ZipFile.this.res.zsrc.locpos);
+            pos = -(pos + zsrc.locpos);
         }
         
         // 返回zip实体中的一个原始字节
@@ -1460,28 +1668,12 @@ public class ZipFile implements ZipConstants, Closeable {
         
         // 读取zip实体中的len个字节，并将其存入字节数组b的off处
         public int read(byte[] b, int off, int len) throws IOException {
-            synchronized(ZipFile.this) {
-                ensureOpenOrZipException();
-                
-                initDataOffset();
-                
-                if(rem == 0) {
-                    return -1;
-                }
-                
-                if(len>rem) {
-                    len = (int) rem;
-                }
-                
-                if(len<=0) {
-                    return 0;
-                }
-                
-                // 需要从zip文件的pos处读取数据，因为当前实体就位于pos处
-                len = ZipFile.this.res.zsrc.readAt(b, off, len, pos);
-                if(len>0) {
-                    pos += len;
-                    rem -= len;
+            // 映射模式下使用定位读取，多个实体的输入流可以并行读取
+            if(MAPPED_MODE) {
+                len = read0(b, off, len);
+            } else {
+                synchronized(ZipFile.this) {
+                    len = read0(b, off, len);
                 }
             }
             
@@ -1494,14 +1686,12 @@ public class ZipFile implements ZipConstants, Closeable {
         
         // 跳过该实体中的n个字节
         public long skip(long n) throws IOException {
-            synchronized(ZipFile.this) {
-                initDataOffset();
-                
-                if(n>rem) {
-                    n = rem;
+            if(MAPPED_MODE) {
+                n = skip0(n);
+            } else {
+                synchronized(ZipFile.this) {
+                    n = skip0(n);
                 }
-                pos += n;
-                rem -= n;
             }
             
             if(rem == 0) {
@@ -1532,6 +1722,45 @@ public class ZipFile implements ZipConstants, Closeable {
             }
         }
         
+        private int read0(byte[] b, int off, int len) throws IOException {
+            ensureOpenOrZipException();
+            
+            initDataOffset();
+            
+            if(rem == 0) {
+                return -1;
+            }
+            
+            if(len>rem) {
+                len = (int) rem;
+            }
+            
+            if(len<=0) {
+                return 0;
+            }
+            
+            // 需要从zip文件的pos处读取数据，因为当前实体就位于pos处
+            len = zsrc.readAt(b, off, len, pos);
+            if(len>0) {
+                pos += len;
+                rem -= len;
+            }
+            
+            return len;
+        }
+        
+        private long skip0(long n) throws IOException {
+            initDataOffset();
+            
+            if(n>rem) {
+                n = rem;
+            }
+            pos += n;
+            rem -= n;
+            
+            return n;
+        }
+        
         private void checkZIP64(byte[] cen, int cenpos) {
             int off = cenpos + CENHDR + CENNAM(cen, cenpos);
             int end = off + CENEXT(cen, cenpos);
@@ -1587,7 +1816,7 @@ public class ZipFile implements ZipConstants, Closeable {
             if(pos<=0) {
                 byte[] loc = new byte[LOCHDR];
                 pos = -pos;
-                int len = ZipFile.this.res.zsrc.readFullyAt(loc, 0, loc.length, pos);
+                int len = zsrc.readFullyAt(loc, 0, loc.length, pos);
                 
                 if(len != LOCHDR) {
                     throw new ZipException("ZipFile error reading zip file");
@@ -1713,7 +1942,8 @@ public class ZipFile implements ZipConstants, Closeable {
                 }
                 
                 // each "entry" has 3 ints in table entries
-                return (T) getZipEntry(null, null, res.zsrc.getEntryPos(i++ * 3), gen);
+                Source zsrc = res.zsrc;
+                return (T) getZipEntry(zsrc, null, null, zsrc.getEntryPos(i++ * 3), gen);
             }
         }
         
@@ -58,6 +58,7 @@ import static java.util.zip.ZipUtils.get16;
  * entries.
  *
  * @author David Connelly
+ * @see ParallelZipOutputStream
  * @since 1.1
  */
 /*
@@ -191,71 +192,11 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
             closeEntry();
         }
         
-        if(e.xdostime == -1) {
-            /* by default, do NOT use extended timestamps in extra data, for now */
-            // 设置当前时间为压缩实体的最后修改时间
-            e.setTime(System.currentTimeMillis());
-        }
-        
-        if(e.method == -1) {
-            e.method = method;  // use default method
-        }
-        
-        // store size, compressed size, and crc-32 in LOC header
-        e.flag = 0;
-        
-        switch(e.method) {
-            // 待压缩实体被设置为使用默认压缩方式(默认行为)
-            case DEFLATED:
-                // store size, compressed size, and crc-32 in data descriptor immediately following the compressed entry data
-                if(e.size == -1 || e.csize == -1 || e.crc == -1) {
-                    e.flag = 8;
-                }
-                break;
-            
-            // 待压缩实体被设置为不压缩
-            case STORED:
-                // compressed size, uncompressed size, and crc-32 must all be set for entries using STORED compression method
-                if(e.size == -1) {
-                    e.size = e.csize;
-                } else if(e.csize == -1) {
-                    e.csize = e.size;
-                    
-                    // 要求实体压缩前与压缩后的大小一致（因为此处不压缩）
-                } else if(e.size != e.csize) {
-                    throw new ZipException("STORED entry where compressed != uncompressed size");
-                }
-                
-                // 必须设置实体压缩前的大小/压缩后的大小、crc-32校验码这三个参数
-                if(e.size == -1 || e.crc == -1) {
-                    throw new ZipException("STORED entry missing size, compressed size, or crc-32");
-                }
-                
-                break;
-            
-            default:
-                throw new ZipException("unsupported compression method");
-        }
-        
-        // 实体名称不能重复
-        if(!names.add(e.name)) {
-            throw new ZipException("duplicate entry: " + e.name);
-        }
-        
-        // 如果当前编/解码器为UTF8格式
-        if(zc.isUTF8()) {
-            // 添加标记
-            e.flag |= USE_UTF8;
-        }
-        
-        // 构造待压缩实体
-        current = new XEntry(e, written);
+        // 校验并初始化待压缩实体
+        initEntry(e);
         
-        // 添加到待压缩实体的集合
-        xentries.add(current);
-        
-        // 写入文件头信息(属于zip文件的第一部分的第1小节)
-        writeLOC(current);
+        // 记录待压缩实体，并写入文件头信息(属于zip文件的第一部分的第1小节)
+        beginEntry(e);
     }
     
     /**
@@ -450,29 +391,10 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
                         deflate();
                     }
                     
-                    if((e.flag & 8) == 0) {
-                        // verify size, compressed size, and crc-32 settings
-                        if(e.size != def.getBytesRead()) {
-                            throw new ZipException("invalid entry size (expected " + e.size + " but got " + def.getBytesRead() + " bytes)");
-                        }
-                        
-                        if(e.csize != def.getBytesWritten()) {
-                            throw new ZipException("invalid entry compressed size (expected " + e.csize + " but got " + def.getBytesWritten() + " bytes)");
-                        }
-                        if(e.crc != crc.getValue()) {
-                            throw new ZipException("invalid entry CRC-32 (expected 0x" + Long.toHexString(e.crc) + " but got 0x" + Long.toHexString(crc.getValue()) + ")");
-                        }
-                    } else {
-                        e.size = def.getBytesRead();
-                        e.csize = def.getBytesWritten();
-                        e.crc = crc.getValue();
-                        
-                        // 写入扩展数据描述符(属于zip文件的第一部分的第3小节)
-                        writeEXT(e);
-                    }
+                    // 校验或记录实体的大小与crc-32校验码
+                    endEntry(def.getBytesRead(), def.getBytesWritten(), crc.getValue());
                     
                     def.reset();
-                    written += e.csize;
                     break;
                 
                 case STORED:
@@ -516,6 +438,125 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
     
     
     
+    /*▼ 由子类压缩的实体 ████████████████████████████████████████████████████████████████████████████████┓ */
+    
+    /*
+     * 以下方法供ParallelZipOutputStream使用：实体数据在其他线程中压缩，
+     * 压缩后的数据由调用者直接写入最终输出流，zip文件的结构信息(文件头、数据描述符、核心目录)仍由当前类写入。
+     */
+    
+    /*
+     * 校验并初始化待压缩实体：设置默认的修改时间与压缩方式、设置通用位标记，并检查实体名称是否重复。
+     * 压缩方式为DEFLATED且压缩前的大小/压缩后的大小/crc-32校验码中有任一未设置时，会将其记录在扩展数据描述符中。
+     */
+    void initEntry(ZipEntry e) throws ZipException {
+        if(e.xdostime == -1) {
+            /* by default, do NOT use extended timestamps in extra data, for now */
+            // 设置当前时间为压缩实体的最后修改时间
+            e.setTime(System.currentTimeMillis());
+        }
+        
+        if(e.method == -1) {
+            e.method = method;  // use default method
+        }
+        
+        // store size, compressed size, and crc-32 in LOC header
+        e.flag = 0;
+        
+        switch(e.method) {
+            // 待压缩实体被设置为使用默认压缩方式(默认行为)
+            case DEFLATED:
+                // store size, compressed size, and crc-32 in data descriptor immediately following the compressed entry data
+                if(e.size == -1 || e.csize == -1 || e.crc == -1) {
+                    e.flag = 8;
+                }
+                break;
+            
+            // 待压缩实体被设置为不压缩
+            case STORED:
+                // compressed size, uncompressed size, and crc-32 must all be set for entries using STORED compression method
+                if(e.size == -1) {
+                    e.size = e.csize;
+                } else if(e.csize == -1) {
+                    e.csize = e.size;
+                    
+                    // 要求实体压缩前与压缩后的大小一致（因为此处不压缩）
+                } else if(e.size != e.csize) {
+                    throw new ZipException("STORED entry where compressed != uncompressed size");
+                }
+                
+                // 必须设置实体压缩前的大小/压缩后的大小、crc-32校验码这三个参数
+                if(e.size == -1 || e.crc == -1) {
+                    throw new ZipException("STORED entry missing size, compressed size, or crc-32");
+                }
+                
+                break;
+            
+            default:
+                throw new ZipException("unsupported compression method");
+        }
+        
+        // 实体名称不能重复
+        if(!names.add(e.name)) {
+            throw new ZipException("duplicate entry: " + e.name);
+        }
+        
+        // 如果当前编/解码器为UTF8格式
+        if(zc.isUTF8()) {
+            // 添加标记
+            e.flag |= USE_UTF8;
+        }
+    }
+    
+    // 记录待压缩实体，并写入文件头信息(属于zip文件的第一部分的第1小节)
+    void beginEntry(ZipEntry e) throws IOException {
+        // 构造待压缩实体
+        current = new XEntry(e, written);
+        
+        // 添加到待压缩实体的集合
+        xentries.add(current);
+        
+        // 写入文件头信息(属于zip文件的第一部分的第1小节)
+        writeLOC(current);
+    }
+    
+    /*
+     * 结束压缩方式为DEFLATED的当前实体，压缩后的csize个字节已经写入了最终输出流。
+     *
+     * 如果文件头信息中已经记录了实体的大小与crc-32校验码，则对其进行校验，否则写入扩展数据描述符(属于zip文件的第一部分的第3小节)。
+     */
+    void endEntry(long size, long csize, long crc) throws IOException {
+        ZipEntry e = current.entry;
+        
+        if((e.flag & 8) == 0) {
+            // verify size, compressed size, and crc-32 settings
+            if(e.size != size) {
+                throw new ZipException("invalid entry size (expected " + e.size + " but got " + size + " bytes)");
+            }
+            
+            if(e.csize != csize) {
+                throw new ZipException("invalid entry compressed size (expected " + e.csize + " but got " + csize + " bytes)");
+            }
+            if(e.crc != crc) {
+                throw new ZipException("invalid entry CRC-32 (expected 0x" + Long.toHexString(e.crc) + " but got 0x" + Long.toHexString(crc) + ")");
+            }
+        } else {
+            e.size = size;
+            e.csize = csize;
+            e.crc = crc;
+            
+            // 写入扩展数据描述符(属于zip文件的第一部分的第3小节)
+            writeEXT(e);
+        }
+        
+        written += csize;
+        current = null;
+    }
+    
+    /*▲ 由子类压缩的实体 ████████████████████████████████████████████████████████████████████████████████┛ */
+    
+    
+    
     /*▼ 附加信息 ████████████████████████████████████████████████████████████████████████████████┓ */
     
     /**
@@ -1014,7 +1055,7 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
      * Checks to make sure that this stream has not been closed.
      */
     // 确保zip输出流未关闭
-    private void ensureOpen() throws IOException {
+    void ensureOpen() throws IOException {
         if(closed) {
             throw new IOException("Stream closed");
         }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package jdk.jfr.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.internal.Type;
+
+@Name(Type.EVENT_NAME_PREFIX + "CompletableFutureComplete")
+@Label("CompletableFuture Complete")
+@Category("Java Application")
+@Description("Triggering the dependents of a completed CompletableFuture on the completing thread")
+public final class CompletableFutureCompleteEvent extends AbstractJDKEvent {
+
+    public static final ThreadLocal<CompletableFutureCompleteEvent> EVENT =
+        new ThreadLocal<>() {
+            @Override protected CompletableFutureCompleteEvent initialValue() {
+                return new CompletableFutureCompleteEvent();
+            }
+        };
+
+    @Label("Future Class")
+    @Description("Class of the completed future")
+    public Class<?> futureClass;
+
+    @Label("Dependents")
+    @Description("Number of dependent actions waiting on the future when it completed")
+    public int dependents;
+
+    // set while a postComplete call is timing this event; not recorded
+    public transient boolean inUse;
+
+    public void reset() {
+        futureClass = null;
+        dependents = 0;
+        inUse = false;
+    }
+}
@@ -242,7 +242,7 @@ final class DCmdStart extends AbstractDCmd {
     }
 
     private boolean hasJDKEvents(Map<String, String> settings) {
-        String[] eventNames = new String[7];
+        String[] eventNames = new String[8];
         eventNames[0] = "FileRead";
         eventNames[1] = "FileWrite";
         eventNames[2] = "SocketRead";
@@ -250,6 +250,7 @@ final class DCmdStart extends AbstractDCmd {
         eventNames[4] = "JavaErrorThrow";
         eventNames[5] = "JavaExceptionThrow";
         eventNames[6] = "FileForce";
+        eventNames[7] = "CompletableFutureComplete";
         for (String eventName : eventNames) {
             if ("true".equals(settings.get(Type.EVENT_NAME_PREFIX + eventName + "#enabled"))) {
                 return true;
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package jdk.jfr.internal.instrument;
+
+import jdk.jfr.events.CompletableFutureCompleteEvent;
+
+/**
+ * See {@link JITracer} for an explanation of this code.
+ */
+@JIInstrumentationTarget("java.util.concurrent.CompletableFuture")
+@JITypeMapping(from = "jdk.jfr.internal.instrument.CompletableFutureInstrumentor$Completion",
+            to = "java.util.concurrent.CompletableFuture$Completion")
+final class CompletableFutureInstrumentor {
+
+    private CompletableFutureInstrumentor() {
+    }
+
+    // postComplete may run nested on the same thread, when a dependent
+    // completes another future. The outermost call reuses the thread's
+    // event object; nested calls, which find it in use, get their own.
+    @SuppressWarnings("deprecation")
+    @JIInstrumentationMethod
+    final void postComplete() {
+        if (stack == null) {
+            postComplete();
+            return;
+        }
+        CompletableFutureCompleteEvent event = CompletableFutureCompleteEvent.EVENT.get();
+        if (!event.isEnabled()) {
+            postComplete();
+            return;
+        }
+        if (event.inUse) {
+            event = new CompletableFutureCompleteEvent();
+        }
+        event.inUse = true;
+        int dependents = 0;
+        for (Completion p = stack; p != null; p = p.next) {
+            ++dependents;
+        }
+        try {
+            event.begin();
+            postComplete();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.futureClass = getClass();
+                event.dependents = dependents;
+                event.commit();
+            }
+            event.reset();
+        }
+    }
+
+    private volatile Completion stack = null;
+
+    void silenceFindBugsUnwrittenField(Completion dummy) {
+        stack = dummy;
+    }
+
+    static class Completion {
+        volatile Completion next;
+    }
+}
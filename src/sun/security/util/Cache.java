@@ -26,6 +26,7 @@
 package sun.security.util;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentCache;
 import java.lang.ref.*;
 
 /**
@@ -39,11 +40,13 @@ import java.lang.ref.*;
  *
  *  . keys and values must be non-null
  *
- *  . maximum size. Replacements are made in LRU order.
+ *  . maximum size. Replacements are made by the W-TinyLFU policy of
+ *    {@link java.util.concurrent.ConcurrentCache}, which favours entries
+ *    that are used frequently over those that were merely used recently.
  *
  *  . optional lifetime, specified in seconds.
  *
- *  . safe for concurrent use by multiple threads
+ *  . safe for concurrent use by multiple threads; lookups do not block
  *
  *  . values are held by either standard references or via SoftReferences.
  *    SoftReferences have the advantage that they are automatically cleared
@@ -57,15 +60,12 @@ import java.lang.ref.*;
  * eagerly. Performance may be improved if the Java heap size is set to larger
  * value using e.g. java -ms64M -mx128M foo.Test
  *
- * Cache sizing: the memory cache is implemented on top of a LinkedHashMap.
- * In its current implementation, the number of buckets (NOT entries) in
- * (Linked)HashMaps is always a power of two. It is recommended to set the
- * maximum cache size to value that uses those buckets fully. For example,
- * if a cache with somewhere between 500 and 1000 entries is desired, a
- * maximum size of 750 would be a good choice: try 1024 buckets, with a
- * load factor of 0.75f, the number of entries can be calculated as
- * buckets / 4 * 3. As mentioned above, with a SoftReference cache, it is
- * generally reasonable to set the size to a fairly large value.
+ * Cache sizing: the memory cache is implemented on top of a
+ * ConcurrentCache, which sizes its tables itself; the maximum size only
+ * bounds the number of entries. Eviction is applied shortly after, not
+ * exactly at, the put that exceeds the bound. As mentioned above, with a
+ * SoftReference cache, it is generally reasonable to set the size to a
+ * fairly large value.
  *
  * @author Andreas Sterbenz
  */
@@ -240,14 +240,15 @@ class NullCache<K,V> extends Cache<K,V> {
 
 class MemoryCache<K,V> extends Cache<K,V> {
 
-    private static final float LOAD_FACTOR = 0.75f;
-
     // XXXX
     private static final boolean DEBUG = false;
 
-    private final Map<K, CacheEntry<K,V>> cacheMap;
-    private int maxSize;
-    private long lifetime;
+    // Size bound and eviction (W-TinyLFU) are handled by the backing
+    // cache; expiration stays per entry so that a new timeout only
+    // applies to entries added after it was set.
+    private final ConcurrentCache<K, CacheEntry<K,V>> cacheMap;
+    private volatile long maxSize;
+    private volatile long lifetime;
 
     // ReferenceQueue is of type V instead of Cache<K,V>
     // to allow SoftCacheEntry to extend SoftReference<V>
@@ -258,15 +259,17 @@ class MemoryCache<K,V> extends Cache<K,V> {
     }
 
     public MemoryCache(boolean soft, int maxSize, int lifetime) {
-        this.maxSize = maxSize;
-        this.lifetime = lifetime * 1000;
+        this.lifetime = lifetime * 1000L;
         if (soft)
             this.queue = new ReferenceQueue<>();
         else
             this.queue = null;
 
-        int buckets = (int)(maxSize / LOAD_FACTOR) + 1;
-        cacheMap = new LinkedHashMap<>(buckets, LOAD_FACTOR, true);
+        this.maxSize = maxSize > 0 ? maxSize : Long.MAX_VALUE;
+        // entries evicted by the backing cache are invalidated just like
+        // removed ones, so that soft entries drop their key and value
+        cacheMap = new ConcurrentCache<>(this.maxSize, null,
+                (key, entry) -> entry.invalidate());
     }
 
     /**
@@ -280,7 +283,7 @@ class MemoryCache<K,V> extends Cache<K,V> {
         if (queue == null) {
             return;
         }
-        int startSize = cacheMap.size();
+        int cnt = 0;
         while (true) {
             @SuppressWarnings("unchecked")
             CacheEntry<K,V> entry = (CacheEntry<K,V>)queue.poll();
@@ -292,18 +295,16 @@ class MemoryCache<K,V> extends Cache<K,V> {
                 // key is null, entry has already been removed
                 continue;
             }
-            CacheEntry<K,V> currentEntry = cacheMap.remove(key);
-            // check if the entry in the map corresponds to the expired
-            // entry. If not, readd the entry
-            if ((currentEntry != null) && (entry != currentEntry)) {
-                cacheMap.put(key, currentEntry);
+            // only remove the mapping if it still refers to the cleared
+            // entry; it may have been replaced in the meantime
+            if (cacheMap.remove(key, entry)) {
+                cnt++;
             }
         }
         if (DEBUG) {
-            int endSize = cacheMap.size();
-            if (startSize != endSize) {
-                System.out.println("*** Expunged " + (startSize - endSize)
-                        + " entries, " + endSize + " entries left");
+            if (cnt != 0) {
+                System.out.println("*** Expunged " + cnt + " entries, "
+                        + cacheMap.estimatedSize() + " entries left");
             }
         }
     }
@@ -316,69 +317,63 @@ class MemoryCache<K,V> extends Cache<K,V> {
         if (lifetime == 0) {
             return;
         }
-        int cnt = 0;
         long time = System.currentTimeMillis();
-        for (Iterator<CacheEntry<K,V>> t = cacheMap.values().iterator();
-                t.hasNext(); ) {
-            CacheEntry<K,V> entry = t.next();
+        List<K> expired = new ArrayList<>();
+        cacheMap.forEach((key, entry) -> {
+            // isValid() invalidates the entry if it has expired
             if (entry.isValid(time) == false) {
-                t.remove();
-                cnt++;
+                if (cacheMap.remove(key, entry)) {
+                    expired.add(key);
+                }
             }
-        }
+        });
         if (DEBUG) {
-            if (cnt != 0) {
-                System.out.println("Removed " + cnt
-                        + " expired entries, remaining " + cacheMap.size());
+            if (!expired.isEmpty()) {
+                System.out.println("Removed " + expired.size()
+                        + " expired entries, remaining "
+                        + cacheMap.estimatedSize());
             }
         }
     }
 
-    public synchronized int size() {
+    public int size() {
         expungeExpiredEntries();
-        return cacheMap.size();
+        cacheMap.cleanUp();
+        return (int) Math.min(cacheMap.estimatedSize(), Integer.MAX_VALUE);
     }
 
-    public synchronized void clear() {
+    public void clear() {
         if (queue != null) {
             // if this is a SoftReference cache, first invalidate() all
             // entries so that GC does not have to enqueue them
-            for (CacheEntry<K,V> entry : cacheMap.values()) {
-                entry.invalidate();
-            }
+            cacheMap.forEach((key, entry) -> entry.invalidate());
+        }
+        cacheMap.clear();
+        if (queue != null) {
             while (queue.poll() != null) {
                 // empty
             }
         }
-        cacheMap.clear();
     }
 
-    public synchronized void put(K key, V value) {
+    public void put(K key, V value) {
         emptyQueue();
+        // when full, drop expired entries first so that they are not
+        // kept at the expense of a live entry chosen for eviction
+        if (lifetime != 0 && cacheMap.estimatedSize() >= maxSize) {
+            expungeExpiredEntries();
+        }
+        long lifetime = this.lifetime;
         long expirationTime = (lifetime == 0) ? 0 :
                                         System.currentTimeMillis() + lifetime;
         CacheEntry<K,V> newEntry = newEntry(key, value, expirationTime, queue);
         CacheEntry<K,V> oldEntry = cacheMap.put(key, newEntry);
         if (oldEntry != null) {
             oldEntry.invalidate();
-            return;
-        }
-        if (maxSize > 0 && cacheMap.size() > maxSize) {
-            expungeExpiredEntries();
-            if (cacheMap.size() > maxSize) { // still too large?
-                Iterator<CacheEntry<K,V>> t = cacheMap.values().iterator();
-                CacheEntry<K,V> lruEntry = t.next();
-                if (DEBUG) {
-                    System.out.println("** Overflow removal "
-                        + lruEntry.getKey() + " | " + lruEntry.getValue());
-                }
-                t.remove();
-                lruEntry.invalidate();
-            }
         }
     }
 
-    public synchronized V get(Object key) {
+    public V get(Object key) {
         emptyQueue();
         CacheEntry<K,V> entry = cacheMap.get(key);
         if (entry == null) {
@@ -389,13 +384,13 @@ class MemoryCache<K,V> extends Cache<K,V> {
             if (DEBUG) {
                 System.out.println("Ignoring expired entry");
             }
-            cacheMap.remove(key);
+            cacheMap.remove(key, entry);
             return null;
         }
         return entry.getValue();
     }
 
-    public synchronized void remove(Object key) {
+    public void remove(Object key) {
         emptyQueue();
         CacheEntry<K,V> entry = cacheMap.remove(key);
         if (entry != null) {
@@ -403,29 +398,17 @@ class MemoryCache<K,V> extends Cache<K,V> {
         }
     }
 
-    public synchronized void setCapacity(int size) {
+    public void setCapacity(int size) {
         expungeExpiredEntries();
-        if (size > 0 && cacheMap.size() > size) {
-            Iterator<CacheEntry<K,V>> t = cacheMap.values().iterator();
-            for (int i = cacheMap.size() - size; i > 0; i--) {
-                CacheEntry<K,V> lruEntry = t.next();
-                if (DEBUG) {
-                    System.out.println("** capacity reset removal "
-                        + lruEntry.getKey() + " | " + lruEntry.getValue());
-                }
-                t.remove();
-                lruEntry.invalidate();
-            }
-        }
-
-        maxSize = size > 0 ? size : 0;
+        maxSize = size > 0 ? size : Long.MAX_VALUE;
+        cacheMap.setMaximum(maxSize);
 
         if (DEBUG) {
             System.out.println("** capacity reset to " + size);
         }
     }
 
-    public synchronized void setTimeout(int timeout) {
+    public void setTimeout(int timeout) {
         emptyQueue();
         lifetime = timeout > 0 ? timeout * 1000L : 0L;
 
@@ -435,7 +418,7 @@ class MemoryCache<K,V> extends Cache<K,V> {
     }
 
     // it is a heavyweight method.
-    public synchronized void accept(CacheVisitor<K,V> visitor) {
+    public void accept(CacheVisitor<K,V> visitor) {
         expungeExpiredEntries();
         Map<K,V> cached = getCachedEntries();
 
@@ -443,11 +426,14 @@ class MemoryCache<K,V> extends Cache<K,V> {
     }
 
     private Map<K,V> getCachedEntries() {
-        Map<K,V> kvmap = new HashMap<>(cacheMap.size());
+        Map<K,V> kvmap = new HashMap<>();
 
-        for (CacheEntry<K,V> entry : cacheMap.values()) {
-            kvmap.put(entry.getKey(), entry.getValue());
-        }
+        cacheMap.forEach((key, entry) -> {
+            V value = entry.getValue();
+            if (value != null) {
+                kvmap.put(key, value);
+            }
+        });
 
         return kvmap;
     }
@@ -0,0 +1,111 @@
+package test.kang.array;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+// 基数排序：大型基本类型数组的排序、并行基数排序，以及按long型键值排序对象数组(sortByKey)
+public class ArrayTest04 {
+    static final int N = 5_000_000;
+
+    public static void main(String[] args) {
+        // 单核机器上公共线程池的并行度为1，不会走并行排序，这里手动指定(必须在首次使用公共线程池之前设置)
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+
+        Random random = new Random(7);
+
+        System.out.println("\n## 1. 特殊值 ##");
+        double[] d = random.doubles(10_000).map(x -> x - 0.5).toArray();
+        d[0] = Double.NaN;
+        d[1] = -0.0;
+        d[2] = 0.0;
+        d[3] = Double.NEGATIVE_INFINITY;
+        d[4] = Double.MAX_VALUE;
+        d[5] = -Double.MIN_VALUE;
+        Arrays.sort(d);
+        System.out.println(d[0] + " " + d[d.length - 1] + " " + sortedByCompare(d));
+        float[] f = {3f, -0.0f, Float.NaN, 0.0f, -1f};
+        float[] big = new float[10_000];
+        for(int i = 0; i<big.length; i++) {
+            big[i] = f[random.nextInt(f.length)] * random.nextInt(100);
+        }
+        Arrays.sort(big);
+        boolean ok = true;
+        for(int i = 1; i<big.length; i++) {
+            ok &= Float.compare(big[i - 1], big[i])<=0;
+        }
+        System.out.println(ok);
+
+        System.out.println("\n## 2. 顺序排序与并行排序 ##");
+        int[] ints = random.ints(N).toArray();
+        long[] timestamps = random.longs(N, 1_700_000_000_000L, 1_700_000_000_000L + 86_400_000L * 30).toArray();
+        for(int round = 0; round<3; round++) {
+            int[] a = ints.clone();
+            long t0 = System.nanoTime();
+            Arrays.sort(a);
+            long t1 = System.nanoTime();
+            int[] b = ints.clone();
+            Arrays.parallelSort(b);
+            long t2 = System.nanoTime();
+            long[] c = timestamps.clone();
+            Arrays.sort(c);
+            long t3 = System.nanoTime();
+            long[] e = timestamps.clone();
+            Arrays.parallelSort(e, 100, N - 100);
+            long t4 = System.nanoTime();
+            long[] g = timestamps.clone();
+            Arrays.sort(g, 100, N - 100);
+            System.out.println("int sort: " + (t1 - t0) / 1_000_000 + "ms, parallelSort: " + (t2 - t1) / 1_000_000 + "ms, "
+                + "long sort: " + (t3 - t2) / 1_000_000 + "ms, parallelSort(range): " + (t4 - t3) / 1_000_000 + "ms "
+                + Arrays.equals(a, b) + " " + isSorted(a) + " " + Arrays.equals(e, g));
+        }
+
+        System.out.println("\n## 3. 按键值排序对象数组 ##");
+        Event[] events = new Event[1_000_000];
+        for(int i = 0; i<events.length; i++) {
+            events[i] = new Event(timestamps[i] / 1000, i);
+        }
+        for(int round = 0; round<3; round++) {
+            Event[] x = events.clone();
+            long t0 = System.nanoTime();
+            Arrays.sortByKey(x, Event::time);
+            long t1 = System.nanoTime();
+            Event[] y = events.clone();
+            Arrays.sort(y, Comparator.comparingLong(Event::time));
+            long t2 = System.nanoTime();
+            System.out.println("sortByKey: " + (t1 - t0) / 1_000_000 + "ms, comparingLong: " + (t2 - t1) / 1_000_000 + "ms " + Arrays.equals(x, y));   // 稳定排序，结果相同
+        }
+    }
+
+    static boolean sortedByCompare(double[] a) {
+        for(int i = 1; i<a.length; i++) {
+            if(Double.compare(a[i - 1], a[i])>0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isSorted(int[] a) {
+        for(int i = 1; i<a.length; i++) {
+            if(a[i - 1]>a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static final class Event {
+        final long time;
+        final int id;
+
+        Event(long time, int id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        long time() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package test.kang.arrayqueue;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.MpmcArrayQueue;
+import java.util.concurrent.MpscArrayQueue;
+import java.util.concurrent.SpscArrayQueue;
+import java.util.function.Supplier;
+
+// 对比有界无锁环形队列与ArrayBlockingQueue、ConcurrentLinkedQueue在多生产者/多消费者下的吞吐量，并校验元素不丢失、不重复
+public class ArrayQueueTest01 {
+    static final int CAPACITY = 1024;
+    static final int ITEMS = 1_000_000;
+    
+    public static void main(String[] args) throws InterruptedException {
+        for(int round = 0; round<3; round++) {
+            System.out.println("-------- 第" + (round + 1) + "轮 --------");
+            
+            // 1个生产者，1个消费者
+            run("SPSC  SpscArrayQueue       ", 1, 1, () -> new SpscArrayQueue<>(CAPACITY));
+            run("SPSC  ArrayBlockingQueue   ", 1, 1, () -> new ArrayBlockingQueue<>(CAPACITY));
+            
+            // 4个生产者，1个消费者
+            run("MPSC  MpscArrayQueue       ", 4, 1, () -> new MpscArrayQueue<>(CAPACITY));
+            run("MPSC  ConcurrentLinkedQueue", 4, 1, ConcurrentLinkedQueue::new);
+            
+            // 4个生产者，4个消费者
+            run("MPMC  MpmcArrayQueue       ", 4, 4, () -> new MpmcArrayQueue<>(CAPACITY));
+            run("MPMC  ArrayBlockingQueue   ", 4, 4, () -> new ArrayBlockingQueue<>(CAPACITY));
+        }
+    }
+    
+    static void run(String name, int producers, int consumers, Supplier<Queue<Integer>> supplier) throws InterruptedException {
+        Queue<Integer> queue = supplier.get();
+        
+        int perProducer = ITEMS / producers;
+        int perConsumer = ITEMS / consumers;
+        long[] sums = new long[consumers];
+        
+        Thread[] threads = new Thread[producers + consumers];
+        for(int p = 0; p<producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for(int i = 0; i<perProducer; i++) {
+                    Integer e = base + i;
+                    while(!queue.offer(e)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for(int c = 0; c<consumers; c++) {
+            final int index = c;
+            threads[producers + c] = new Thread(() -> {
+                long sum = 0;
+                for(int i = 0; i<perConsumer; i++) {
+                    Integer e;
+                    while((e = queue.poll()) == null) {
+                        Thread.yield();
+                    }
+                    sum += e;
+                }
+                sums[index] = sum;
+            });
+        }
+        
+        long start = System.nanoTime();
+        for(Thread t : threads) {
+            t.start();
+        }
+        for(Thread t : threads) {
+            t.join();
+        }
+        long cost = (System.nanoTime() - start) / 1_000_000;
+        
+        long sum = 0;
+        for(long s : sums) {
+            sum += s;
+        }
+        long expected = (long) ITEMS * (ITEMS - 1) / 2;
+        
+        System.out.println(name + "：" + cost + "ms，校验" + (sum == expected && queue.isEmpty() ? "通过" : "失败"));
+    }
+}
@@ -0,0 +1,105 @@
+package test.kang.atomic;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.LongHistogram;
+
+// 多线程记录延迟，将LongHistogram的百分位与精确排序的结果比对；并观察大量LongAdder在争用高峰过后闲置时，cells被收缩前后的内存占用
+public class LongHistogramTest01 {
+    static final int THREADS = 4;
+    static final int PER_THREAD = 500_000;
+    
+    public static void main(String[] args) throws InterruptedException {
+        histogram();
+        contraction();
+    }
+    
+    static void histogram() throws InterruptedException {
+        LongHistogram histogram = new LongHistogram();
+        long[][] recorded = new long[THREADS][PER_THREAD];
+        CountDownLatch done = new CountDownLatch(THREADS);
+        
+        long start = System.nanoTime();
+        for(int t = 0; t<THREADS; t++) {
+            long[] values = recorded[t];
+            Random random = new Random(t);
+            new Thread(() -> {
+                for(int i = 0; i<PER_THREAD; i++) {
+                    // 指数分布的"延迟"，均值约为100微秒
+                    long latency = (long) (-Math.log(1 - random.nextDouble()) * 100_000);
+                    values[i] = latency;
+                    histogram.record(latency);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.println("记录" + THREADS * PER_THREAD + "个值耗时：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+        
+        long[] all = Arrays.stream(recorded).flatMapToLong(Arrays::stream).sorted().toArray();
+        LongHistogram.Snapshot snapshot = histogram.snapshotThenReset();
+        System.out.println(snapshot);
+        System.out.println("数量是否一致：" + (snapshot.getCount() == all.length) + "，总和是否一致：" + (snapshot.getSum() == Arrays.stream(all).sum()));
+        
+        for(double p : new double[]{50, 90, 99, 99.9, 100}) {
+            long exact = all[(int) Math.max(0, Math.ceil(p / 100 * all.length) - 1)];
+            long approx = snapshot.getValueAtPercentile(p);
+            System.out.printf("p%-5s 精确值：%-8d 直方图：%-8d 相对误差：%.2f%%%n", p, exact, approx, Math.abs(approx - exact) * 100.0 / exact);
+        }
+        
+        System.out.println("重置后：" + histogram.snapshot());
+    }
+    
+    static void contraction() throws InterruptedException {
+        LongAdder[] adders = new LongAdder[20_000];
+        for(int i = 0; i<adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        
+        System.out.println("初始内存占用：" + usedMemory() / 1024 + "KB");
+        
+        // 制造争用高峰，使各个LongAdder生成cells
+        CountDownLatch done = new CountDownLatch(8);
+        for(int t = 0; t<8; t++) {
+            new Thread(() -> {
+                for(int round = 0; round<50; round++) {
+                    for(LongAdder adder : adders) {
+                        adder.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        
+        System.out.println("争用高峰过后的内存占用：" + usedMemory() / 1024 + "KB");
+        
+        // 闲置期间定期读取总值，cells将被收缩
+        for(int i = 0; i<12; i++) {
+            for(LongAdder adder : adders) {
+                adder.sum();
+            }
+            Thread.sleep(120);
+        }
+        
+        boolean exact = true;
+        for(LongAdder adder : adders) {
+            exact &= adder.sum() == 8 * 50;
+            adder.increment();
+            exact &= adder.sum() == 8 * 50 + 1;
+        }
+        
+        System.out.println("闲置收缩后的内存占用：" + usedMemory() / 1024 + "KB");
+        System.out.println("总值是否正确：" + exact);
+    }
+    
+    static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i<3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
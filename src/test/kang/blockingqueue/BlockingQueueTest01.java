@@ -0,0 +1,87 @@
+package test.kang.blockingqueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 对比逐个入队/出队与批量入队/出队（offer(E[], int, int)、drainTo(c, max, timeout, unit)）在不同批量大小下的吞吐量
+public class BlockingQueueTest01 {
+    static final int COUNT = 2_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        test("ArrayBlockingQueue", () -> new ArrayBlockingQueue<>(4096));
+        test("LinkedBlockingQueue", () -> new LinkedBlockingQueue<>(4096));
+        test("LinkedBlockingDeque", () -> new LinkedBlockingDeque<>(4096));
+    }
+
+    static void test(String name, Supplier<BlockingQueue<Integer>> factory) throws InterruptedException {
+        System.out.println(name);
+        for(int batch = 1; batch<=1024; batch <<= 2) {
+            long single = run(factory.get(), batch, false);
+            long bulk = run(factory.get(), batch, true);
+            System.out.printf("  batch=%-5d 逐个：%5dms  批量：%5dms%n", batch, single, bulk);
+        }
+    }
+
+    static long run(BlockingQueue<Integer> queue, int batch, boolean bulk) throws InterruptedException {
+        Integer[] items = new Integer[batch];
+        for(int i = 0; i<batch; i++) {
+            items[i] = i;
+        }
+
+        long start = System.nanoTime();
+
+        Thread producer = new Thread(() -> {
+            try {
+                for(int sent = 0; sent<COUNT; ) {
+                    int len = Math.min(batch, COUNT - sent);
+                    if(bulk) {
+                        int n = queue.offer(items, 0, len);
+                        if(n == 0) {
+                            // 队满时退化为阻塞入队
+                            queue.put(items[0]);
+                            n = 1;
+                        }
+                        sent += n;
+                    } else {
+                        for(int i = 0; i<len; i++) {
+                            queue.put(items[i]);
+                        }
+                        sent += len;
+                    }
+                }
+            } catch(InterruptedException e) {
+                e.printStackTrace();
+            }
+        });
+        producer.start();
+
+        List<Integer> buffer = new ArrayList<>(batch);
+        long sum = 0;
+        for(int received = 0; received<COUNT; ) {
+            if(bulk) {
+                buffer.clear();
+                received += queue.drainTo(buffer, batch, 1, TimeUnit.SECONDS);
+                for(Integer x : buffer) {
+                    sum += x;
+                }
+            } else {
+                sum += queue.take();
+                received++;
+            }
+        }
+
+        producer.join();
+
+        if(!queue.isEmpty()) {
+            throw new AssertionError("队列未清空：" + queue.size() + ", sum=" + sum);
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,133 @@
+package test.kang.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentCache;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 在热点访问夹杂顺序扫描的负载下，对比ConcurrentCache与LRU（LinkedHashMap）的命中率；并校验多线程读写下的容量约束、过期行为与淘汰监听器
+public class ConcurrentCacheTest01 {
+    static final int MAXIMUM = 1000;
+    static final int REQUESTS = 1_000_000;
+    
+    public static void main(String[] args) throws InterruptedException {
+        hitRate();
+        concurrent();
+        expire();
+        listener();
+    }
+    
+    // 热点：1%的key承担大部分访问；扫描：不时插入一段从未出现过的连续key
+    static void hitRate() {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(MAXIMUM);
+        Map<Integer, Integer> lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size()>MAXIMUM;
+            }
+        };
+        
+        long lruHits = 0;
+        Random random = new Random(42);
+        int scan = 1_000_000;
+        for(int i = 0; i<REQUESTS; i++) {
+            int key;
+            if(i % 5000<1500) {
+                key = scan++;                               // 扫描
+            } else {
+                key = (int) Math.abs(random.nextGaussian() * 600);  // 热点
+            }
+            
+            if(cache.get(key) == null) {
+                cache.put(key, key);
+            }
+            
+            if(lru.get(key) != null) {
+                lruHits++;
+            } else {
+                lru.put(key, key);
+            }
+        }
+        
+        cache.cleanUp();
+        ConcurrentCache.Stats stats = cache.stats();
+        System.out.printf("W-TinyLFU命中率：%.2f%%，LRU命中率：%.2f%%%n", stats.hitRate() * 100, lruHits * 100.0 / REQUESTS);
+        System.out.println(stats);
+        System.out.println("缓存元素数量：" + cache.estimatedSize());
+    }
+    
+    // 多个线程同时读写，结束后容量不应超过上限，且读到的值必须与key对应
+    static void concurrent() throws InterruptedException {
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(MAXIMUM);
+        int threads = 8;
+        AtomicBoolean broken = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(threads);
+        
+        long start = System.nanoTime();
+        for(int t = 0; t<threads; t++) {
+            int seed = t;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                for(int i = 0; i<200_000; i++) {
+                    int key = random.nextInt(5000);
+                    Integer value = cache.computeIfAbsent(key, k -> k * 2);
+                    if(value != key * 2) {
+                        broken.set(true);
+                    }
+                    if((i & 63) == 0) {
+                        cache.remove(random.nextInt(5000));
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        
+        cache.cleanUp();
+        System.out.println("多线程读写耗时：" + elapsed / 1_000_000 + "ms，" + cache.stats());
+        System.out.println("多线程读写结束后元素数量：" + cache.estimatedSize() + "（上限" + MAXIMUM + "）" + (cache.estimatedSize()<=MAXIMUM ? "" : "，超出上限！"));
+        System.out.println("值是否一致：" + !broken.get());
+    }
+    
+    static void expire() throws InterruptedException {
+        ConcurrentCache<String, String> cache = new ConcurrentCache<>(MAXIMUM);
+        cache.setExpireAfterWrite(100, TimeUnit.MILLISECONDS);
+        cache.put("a", "1");
+        System.out.println("过期前：" + cache.get("a"));
+        Thread.sleep(150);
+        System.out.println("过期后：" + cache.get("a") + "，" + cache.stats());
+        
+        // 先写入元素，之后才设置过期时间：元素从写入/访问时开始计时，不会立即过期
+        ConcurrentCache<String, String> later = new ConcurrentCache<>(MAXIMUM);
+        later.put("b", "2");
+        later.get("b");
+        later.setExpireAfterWrite(100, TimeUnit.MILLISECONDS);
+        later.setExpireAfterAccess(100, TimeUnit.MILLISECONDS);
+        System.out.println("之后设置过期时间：" + later.get("b"));
+        Thread.sleep(150);
+        System.out.println("过期后：" + later.get("b"));
+    }
+    
+    // 被淘汰或过期的元素会通知监听器，显式移除与覆盖的元素不会
+    static void listener() throws InterruptedException {
+        AtomicInteger evicted = new AtomicInteger();
+        ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(10, null, (key, value) -> evicted.incrementAndGet());
+        for(int i = 0; i<100; i++) {
+            cache.put(i, i);
+        }
+        cache.put(99, -99);     // 最后写入的元素位于窗口区，覆盖与移除都不会通知监听器
+        cache.remove(99);
+        cache.cleanUp();
+        System.out.println("淘汰通知次数：" + evicted.get() + "，剩余元素数量：" + cache.estimatedSize() + "（两者之和应为99）");
+        
+        cache.setExpireAfterWrite(50, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        cache.cleanUp();
+        System.out.println("过期后的淘汰通知次数：" + evicted.get() + "，剩余元素数量：" + cache.estimatedSize());
+    }
+}
@@ -0,0 +1,86 @@
+package test.kang.completablefuture;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// 大量下游任务依赖同一个阶段：分批交给任务执行器处理；大量下游任务被处理后清理上游的下游任务栈；使用JFR记录触发下游任务的耗时
+public class CompletableFutureTest01 {
+    public static void main(String[] args) throws Exception {
+        // 必须在首次使用CompletableFuture之前设置
+        System.setProperty("java.util.concurrent.CompletableFuture.fanOutThreshold", "64");
+
+        Recording recording = new Recording();
+        recording.enable("jdk.CompletableFutureComplete");  // 未设置阈值，记录所有事件
+        recording.start();
+
+        System.out.println("\n## 1. 分批触发下游任务 ##");
+        for(int round = 0; round<3; round++) {
+            CompletableFuture<String> config = new CompletableFuture<>();
+            ConcurrentHashMap<String, AtomicInteger> threads = new ConcurrentHashMap<>();
+            CompletableFuture<?>[] dependents = new CompletableFuture<?>[1000];
+            for(int i = 0; i<dependents.length; i++) {
+                dependents[i] = config.thenAccept(c -> {
+                    threads.computeIfAbsent(Thread.currentThread().getName(), k -> new AtomicInteger()).incrementAndGet();
+                    sleep(1);   // 每个下游任务耗时约1ms
+                });
+            }
+            long t0 = System.nanoTime();
+            config.complete("loaded");
+            long t1 = System.nanoTime();
+            CompletableFuture.allOf(dependents).join();
+            long t2 = System.nanoTime();
+            System.out.println("complete(): " + (t1 - t0) / 1_000_000 + "ms, 全部下游任务完成: " + (t2 - t0) / 1_000_000 + "ms, "
+                + "完成线程执行了" + threads.get(Thread.currentThread().getName()) + "个, 共" + threads.size() + "个线程");
+        }
+
+        System.out.println("\n## 2. 清理上游的下游任务栈 ##");
+        for(int n : new int[]{10_000, 20_000, 40_000}) {
+            CompletableFuture<Integer> never = new CompletableFuture<>();
+            CompletableFuture<Integer>[] sources = newArray(n);
+            for(int i = 0; i<n; i++) {
+                sources[i] = new CompletableFuture<>();
+                never.applyToEither(sources[i], x -> x + 1);
+            }
+            long t0 = System.nanoTime();
+            // 按加入顺序完成，对应的已处理任务位于never的下游任务栈深处
+            for(int i = 0; i<n; i++) {
+                sources[i].complete(i);
+            }
+            long t1 = System.nanoTime();
+            System.out.println("n=" + n + ": " + (t1 - t0) / 1_000_000 + "ms, 残留的下游任务: " + never.getNumberOfDependents());
+        }
+
+        recording.stop();
+        Path file = Files.createTempFile("cf", ".jfr");
+        recording.dump(file);
+        recording.close();
+        int events = 0, max = 0;
+        for(RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            events++;
+            max = Math.max(max, event.getInt("dependents"));
+        }
+        Files.delete(file);
+
+        System.out.println("\n## 3. JFR事件 ##");
+        System.out.println("事件数量: " + events + ", 最多的下游任务: " + max);
+    }
+
+    @SuppressWarnings("unchecked")
+    static CompletableFuture<Integer>[] newArray(int n) {
+        return (CompletableFuture<Integer>[]) new CompletableFuture<?>[n];
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
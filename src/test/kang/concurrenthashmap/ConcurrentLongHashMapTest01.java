@@ -0,0 +1,143 @@
+package test.kang.concurrenthashmap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLongHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// 对比ConcurrentHashMap<Long, V>与ConcurrentLongHashMap<V>在1~64个线程下执行put/get/computeIfAbsent的耗时，并校验并发写入与并行归约的结果
+public class ConcurrentLongHashMapTest01 {
+    static final int KEYS = 1 << 20;
+    static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    
+    public static void main(String[] args) throws InterruptedException {
+        check();
+        
+        for(int threads : THREADS) {
+            System.out.println("-------- " + threads + "个线程 --------");
+            for(int round = 0; round<2; round++) {
+                System.out.println("ConcurrentHashMap<Long, V>：" + runBoxed(threads));
+                System.out.println("ConcurrentLongHashMap<V>  ：" + runPrimitive(threads));
+            }
+        }
+    }
+    
+    // 多线程并发写入、移除后，校验元素数量以及并行归约的结果
+    static void check() throws InterruptedException {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>();
+        
+        int threads = 8;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for(int t = 0; t<threads; t++) {
+            final int id = t;
+            new Thread(() -> {
+                // 每个线程写入各自的key区间，并移除其中的奇数key，这个过程中会频繁扩容
+                for(long k = id * 100_000L; k<(id + 1) * 100_000L; k++) {
+                    map.computeIfAbsent(k, Long::toString);
+                }
+                for(long k = id * 100_000L + 1; k<(id + 1) * 100_000L; k += 2) {
+                    map.remove(k);
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+        
+        long expectedSum = 0;
+        for(long k = 0; k<threads * 100_000L; k += 2) {
+            expectedSum += k;
+        }
+        
+        long keySum = map.reduceKeysToLong(1, k -> k, 0L, Long::sum);
+        long valueSum = map.reduceValuesToLong(1, Long::parseLong, 0L, Long::sum);
+        LongAdder count = new LongAdder();
+        map.forEach(1, (v, k) -> count.increment());
+        
+        boolean ok = map.size() == threads * 50_000 && keySum == expectedSum && valueSum == expectedSum && count.sum() == map.size() && "42".equals(map.get(42L)) && map.get(43L) == null;
+        System.out.println("校验" + (ok ? "通过" : "失败") + "，size=" + map.size());
+    }
+    
+    static String runBoxed(int threads) throws InterruptedException {
+        ConcurrentHashMap<Long, Object> map = new ConcurrentHashMap<>();
+        return run(threads, new Op() {
+            public void put(long k) {
+                map.put(k, Boolean.TRUE);
+            }
+            
+            public Object get(long k) {
+                return map.get(k);
+            }
+            
+            public Object compute(long k) {
+                return map.computeIfAbsent(k, x -> Boolean.FALSE);
+            }
+        });
+    }
+    
+    static String runPrimitive(int threads) throws InterruptedException {
+        ConcurrentLongHashMap<Object> map = new ConcurrentLongHashMap<>();
+        return run(threads, new Op() {
+            public void put(long k) {
+                map.put(k, Boolean.TRUE);
+            }
+            
+            public Object get(long k) {
+                return map.get(k);
+            }
+            
+            public Object compute(long k) {
+                return map.computeIfAbsent(k, x -> Boolean.FALSE);
+            }
+        });
+    }
+    
+    // 所有线程依次完成put、get、computeIfAbsent三个阶段，分别统计每个阶段的耗时
+    static String run(int threads, Op op) throws InterruptedException {
+        long put = phase(threads, (id, n) -> {
+            for(long k = id; k<KEYS; k += n) {
+                op.put(k * 31);
+            }
+        });
+        long get = phase(threads, (id, n) -> {
+            for(int r = 0; r<4; r++) {
+                for(long k = id; k<KEYS; k += n) {
+                    op.get(k * 31);
+                }
+            }
+        });
+        long compute = phase(threads, (id, n) -> {
+            for(long k = id; k<KEYS * 2L; k += n) {
+                op.compute(k * 31);
+            }
+        });
+        return "put " + put + "ms，get " + get + "ms，computeIfAbsent " + compute + "ms";
+    }
+    
+    static long phase(int threads, Task task) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        for(int i = 0; i<threads; i++) {
+            final int id = i;
+            ts[i] = new Thread(() -> task.run(id, threads));
+        }
+        long start = System.nanoTime();
+        for(Thread t : ts) {
+            t.start();
+        }
+        for(Thread t : ts) {
+            t.join();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+    
+    interface Op {
+        void put(long k);
+        
+        Object get(long k);
+        
+        Object compute(long k);
+    }
+    
+    interface Task {
+        void run(int id, int threads);
+    }
+}
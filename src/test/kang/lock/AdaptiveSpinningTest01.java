@@ -0,0 +1,88 @@
+package test.kang.lock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 在1~128个线程、临界区很短的情形下，对比ReentrantLock/ReentrantReadWriteLock/Semaphore在启用与禁用自适应自旋时的吞吐量，并校验互斥性
+public class AdaptiveSpinningTest01 {
+    static final int TOTAL_OPS = 400_000;
+    static long counter;
+    
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("处理器数量：" + Runtime.getRuntime().availableProcessors() + "（单处理器上不会自旋）");
+        
+        for(int threads : new int[]{1, 2, 4, 8, 16, 32, 64, 128}) {
+            System.out.println("-------- " + threads + "个线程 --------");
+            
+            run("ReentrantLock          ", threads, new ReentrantLock(false, false));
+            run("ReentrantLock(自旋)    ", threads, new ReentrantLock(false, true));
+            run("写锁                   ", threads, new ReentrantReadWriteLock(false, false).writeLock());
+            run("写锁(自旋)             ", threads, new ReentrantReadWriteLock(false, true).writeLock());
+            runSemaphore("Semaphore              ", threads, new Semaphore(1, false, false));
+            runSemaphore("Semaphore(自旋)        ", threads, new Semaphore(1, false, true));
+        }
+    }
+    
+    static void run(String name, int threads, Lock lock) throws InterruptedException {
+        measure(name, threads, () -> {
+            lock.lock();
+            try {
+                criticalSection();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+    
+    static void runSemaphore(String name, int threads, Semaphore semaphore) throws InterruptedException {
+        measure(name, threads, () -> {
+            semaphore.acquireUninterruptibly();
+            try {
+                criticalSection();
+            } finally {
+                semaphore.release();
+            }
+        });
+    }
+    
+    static void measure(String name, int threads, Runnable op) throws InterruptedException {
+        counter = 0;
+        int perThread = TOTAL_OPS / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        
+        for(int t = 0; t<threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch(InterruptedException e) {
+                    return;
+                }
+                for(int i = 0; i<perThread; i++) {
+                    op.run();
+                }
+                done.countDown();
+            }).start();
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        
+        boolean exclusive = counter == (long) perThread * threads;
+        System.out.printf("%s %8.0f ops/ms %s%n", name, (double) perThread * threads * 1_000_000 / elapsed, exclusive ? "" : "互斥性被破坏！");
+    }
+    
+    // 很短的临界区
+    static void criticalSection() {
+        long c = counter;
+        for(int i = 0; i<10; i++) {
+            c = c * 31 + i;
+        }
+        counter = counter + 1 + (c & 0);
+    }
+}
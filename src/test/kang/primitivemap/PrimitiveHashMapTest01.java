@@ -0,0 +1,124 @@
+package test.kang.primitivemap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IntIntHashMap;
+import java.util.IntObjectHashMap;
+import java.util.LongHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// 使用随机操作将基本类型哈希表与HashMap/HashSet的结果进行比对，并对比二者存入大量元素后的耗时与内存占用
+public class PrimitiveHashMapTest01 {
+    static final int COUNT = 1_000_000;
+    
+    public static void main(String[] args) {
+        check();
+        
+        for(int round = 0; round<3; round++) {
+            System.out.println("-------- 第" + (round + 1) + "轮 --------");
+            footprintOfHashMap();
+            footprintOfIntObjectHashMap();
+        }
+    }
+    
+    // 随机增删，并与HashMap/HashSet比对
+    static void check() {
+        Random random = new Random(42);
+        
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        IntIntHashMap counter = new IntIntHashMap();
+        Map<Integer, Integer> expectedCounter = new HashMap<>();
+        LongHashSet set = new LongHashSet();
+        Set<Long> expectedSet = new HashSet<>();
+        
+        for(int i = 0; i<200_000; i++) {
+            // 缩小取值范围，以便制造大量冲突与删除（包括键0）
+            int key = random.nextInt(5000) - 100;
+            long e = (long) key << 33;
+            if(random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+                counter.remove(key);
+                expectedCounter.remove(key);
+                set.remove(e);
+                expectedSet.remove(e);
+            } else {
+                map.put(key, "v" + i);
+                expected.put(key, "v" + i);
+                counter.merge(key, 1, Integer::sum);
+                expectedCounter.merge(key, 1, Integer::sum);
+                set.add(e);
+                expectedSet.add(e);
+            }
+        }
+        
+        boolean ok = map.size() == expected.size() && counter.size() == expectedCounter.size() && set.size() == expectedSet.size();
+        for(int key = -100; key<4900; key++) {
+            ok &= expected.getOrDefault(key, "none").equals(map.getOrDefault(key, "none"));
+            ok &= expectedCounter.getOrDefault(key, 0) == counter.get(key);
+            ok &= expectedSet.contains((long) key << 33) == set.contains((long) key << 33);
+        }
+        
+        // 通过基本类型的流遍历key
+        long sum = expected.keySet().stream().mapToLong(Integer::longValue).sum();
+        ok &= map.keyStream().asLongStream().sum() == sum;
+        ok &= map.keyStream().parallel().asLongStream().sum() == sum;
+        ok &= set.stream().parallel().count() == expectedSet.size();
+        
+        System.out.println("比对" + (ok ? "通过" : "失败") + "，map.size=" + map.size() + "，包含键0：" + map.containsKey(0));
+    }
+    
+    static void footprintOfHashMap() {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        
+        Map<Integer, Object> map = new HashMap<>();
+        for(int i = 0; i<COUNT; i++) {
+            map.put(i * 7, Boolean.TRUE);
+        }
+        long hits = 0;
+        for(int i = 0; i<COUNT * 7; i++) {
+            if(map.get(i) != null) {
+                hits++;
+            }
+        }
+        
+        long cost = (System.nanoTime() - start) / 1_000_000;
+        long used = usedMemory() - before;
+        System.out.println("HashMap<Integer, Object>：" + cost + "ms，约" + used / 1024 / 1024 + "MB，命中" + hits);
+        map.clear();
+    }
+    
+    static void footprintOfIntObjectHashMap() {
+        long before = usedMemory();
+        long start = System.nanoTime();
+        
+        IntObjectHashMap<Object> map = new IntObjectHashMap<>();
+        for(int i = 0; i<COUNT; i++) {
+            map.put(i * 7, Boolean.TRUE);
+        }
+        long hits = 0;
+        for(int i = 0; i<COUNT * 7; i++) {
+            if(map.get(i) != null) {
+                hits++;
+            }
+        }
+        
+        long cost = (System.nanoTime() - start) / 1_000_000;
+        long used = usedMemory() - before;
+        System.out.println("IntObjectHashMap<Object>：" + cost + "ms，约" + used / 1024 / 1024 + "MB，命中" + hits);
+        map.clear();
+    }
+    
+    // 粗略统计已使用的堆内存
+    static long usedMemory() {
+        for(int i = 0; i<3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+package test.kang.scheduledexecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimingWheelScheduledExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 时间轮定时任务线程池：检查任务的触发时间，并与ScheduledThreadPoolExecutor对比大量超时任务"添加后中止"的耗时
+public class TimingWheelScheduledExecutorTest01 {
+    public static void main(String[] args) throws InterruptedException {
+        checkDelay();
+
+        for(int round = 0; round<3; round++) {
+            ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor(2);
+            stpe.setRemoveOnCancelPolicy(true);
+            System.out.println("ScheduledThreadPoolExecutor ：" + scheduleAndCancel(stpe) + "ms");
+            System.out.println("TimingWheelScheduledExecutor：" + scheduleAndCancel(new TimingWheelScheduledExecutor(2, 1, TimeUnit.MILLISECONDS)) + "ms");
+        }
+    }
+
+    // 任务不会早于触发时间执行，且最多延后一个刻度（加上调度误差）
+    static void checkDelay() throws InterruptedException {
+        ScheduledExecutorService executor = new TimingWheelScheduledExecutor(2, 1, TimeUnit.MILLISECONDS);
+
+        long[] delays = {0, 1, 5, 63, 64, 65, 200, 1000, 4097};
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        AtomicLong maxLate = new AtomicLong();
+
+        for(long delay : delays) {
+            long start = System.nanoTime();
+            executor.schedule(() -> {
+                long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if(cost<delay) {
+                    System.out.println("过早执行：delay=" + delay + "ms, cost=" + cost + "ms");
+                }
+                maxLate.accumulateAndGet(cost - delay, Math::max);
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        // 重复性任务
+        CountDownLatch periodic = new CountDownLatch(5);
+        ScheduledFuture<?> future = executor.scheduleAtFixedRate(periodic::countDown, 10, 10, TimeUnit.MILLISECONDS);
+
+        latch.await();
+        periodic.await();
+        future.cancel(false);
+
+        System.out.println("最大延后：" + maxLate.get() + "ms");
+
+        executor.shutdown();
+        System.out.println("已终止：" + executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    static long scheduleAndCancel(ScheduledExecutorService executor) throws InterruptedException {
+        int n = 1_000_000;
+        Runnable timeout = () -> {
+        };
+
+        long start = System.nanoTime();
+
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[1024];
+        for(int i = 0; i<n; i++) {
+            // 添加一个超时任务，随后将其中止（模拟请求在超时前完成）
+            int slot = i & 1023;
+            if(futures[slot] != null) {
+                futures[slot].cancel(false);
+            }
+            futures[slot] = executor.schedule(timeout, 30 + (i & 255), TimeUnit.SECONDS);
+        }
+
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        return cost;
+    }
+}
@@ -0,0 +1,66 @@
+package test.kang.stream;
+
+import java.util.IntIntHashMap;
+import java.util.IntLongHashMap;
+import java.util.IntObjectHashMap;
+import java.util.List;
+import java.util.LongLongHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// 基本类型键的收集器测试（按int/long特征值分组、计数、求和，不装箱）
+public class StreamTest18 {
+    public static void main(String[] args) {
+        System.out.println("\n## 1. groupingByInt，将单词按长度分组 ##");
+        IntObjectHashMap<List<String>> byLength = Stream.of("Read", "The", "Fucking", "Source", "Code", "Java", "JDK")
+            .collect(Collectors.groupingByInt(String::length));
+        System.out.println(byLength);
+    
+        System.out.println("\n## 2. groupingByInt，将单词按长度分组，然后转换为大写并收集到Set ##");
+        IntObjectHashMap<Set<String>> upperByLength = Stream.of("Read", "The", "Fucking", "Source", "Code", "Java", "JDK")
+            .collect(Collectors.groupingByInt(String::length, Collectors.mapping(String::toUpperCase, Collectors.toSet())));
+        System.out.println(upperByLength);
+    
+        System.out.println("\n## 3. groupingByLong，将数字按除以3的余数分组，然后统计个数 ##");
+        System.out.println(LongStream.rangeClosed(1, 10).boxed()
+            .collect(Collectors.groupingByLong(x -> x % 3, Collectors.counting())));
+    
+        System.out.println("\n## 4. countingByInt / summingIntByKey / summingLongByKey ##");
+        System.out.println(Stream.of("Read", "The", "Fucking", "Source", "Code").collect(Collectors.countingByInt(String::length)));
+        IntIntHashMap chars = Stream.of("Read", "The", "Fucking", "Source", "Code")
+            .collect(Collectors.summingIntByKey(s -> s.charAt(0) & 1, String::length)); // 按首字母奇偶分组，统计字符数
+        System.out.println(chars);
+        System.out.println(IntStream.range(0, 10).boxed()
+            .collect(Collectors.summingLongByKey(x -> x % 2, x -> (long) x * Integer.MAX_VALUE)));
+    
+        System.out.println("\n## 5. countByValue，并行流中统计每个值出现的次数，并与装箱版本对比 ##");
+        int n = 5_000_000;
+        IntLongHashMap counts = IntStream.range(0, n).parallel().map(i -> (i * 31) % 1000).countByValue();
+        Map<Integer, Long> boxed = IntStream.range(0, n).parallel().map(i -> (i * 31) % 1000).boxed()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        boolean same = counts.size() == boxed.size();
+        for(Map.Entry<Integer, Long> e : boxed.entrySet()) {
+            same &= counts.get(e.getKey()) == e.getValue();
+        }
+        System.out.println("distinct=" + counts.size() + " count(7)=" + counts.get(7) + " 与装箱版本一致：" + same);
+    
+        LongLongHashMap longCounts = LongStream.range(0, n).parallel().map(i -> i & 0xFF).countByValue();
+        System.out.println("distinct=" + longCounts.size() + " count(255)=" + longCounts.get(255));
+    
+        System.out.println("\n## 6. 耗时对比 ##");
+        for(int round = 0; round<3; round++) {
+            long t0 = System.nanoTime();
+            IntStream.range(0, n).parallel().map(i -> i % 10000).countByValue();
+            long t1 = System.nanoTime();
+            IntStream.range(0, n).parallel().map(i -> i % 10000).boxed()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            long t2 = System.nanoTime();
+            System.out.println("countByValue: " + (t1 - t0) / 1_000_000 + "ms, groupingBy+counting: " + (t2 - t1) / 1_000_000 + "ms");
+        }
+    }
+}
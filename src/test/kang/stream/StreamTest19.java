@@ -0,0 +1,55 @@
+package test.kang.stream;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// 在指定的线程池中执行并行流
+public class StreamTest19 {
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(3, p -> {
+            var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("analytics-" + t.getPoolIndex());
+            return t;
+        }, null, false);
+        
+        System.out.println("\n## 1. parallel()，在共享线程池中执行 ##");
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        long sum = IntStream.range(0, 1_000_000).parallel().peek(i -> threads.add(Thread.currentThread().getName())).asLongStream().sum();
+        System.out.println(sum + " " + threads);
+        
+        System.out.println("\n## 2. parallel(pool)，在指定的线程池中执行 ##");
+        threads.clear();
+        sum = IntStream.range(0, 1_000_000).parallel(pool).peek(i -> threads.add(Thread.currentThread().getName())).asLongStream().sum();
+        System.out.println(sum + " " + threads);
+        
+        System.out.println("\n## 3. parallel(pool)，有状态的中间操作与toArray ##");
+        threads.clear();
+        int[] sorted = IntStream.range(0, 100_000).map(i -> 99_999 - i).parallel(pool)
+            .peek(i -> threads.add(Thread.currentThread().getName())).sorted().toArray();
+        System.out.println(sorted[0] + " " + sorted[sorted.length - 1] + " " + threads);
+        
+        System.out.println("\n## 4. parallel(pool)之后再调用parallel()，恢复使用共享线程池 ##");
+        threads.clear();
+        String s = IntStream.range(0, 100).boxed().parallel(pool).parallel()
+            .peek(i -> threads.add(Thread.currentThread().getName())).map(String::valueOf).collect(Collectors.joining(",")).substring(0, 9);
+        System.out.println(s + " " + threads);
+        
+        System.out.println("\n## 5. 异常会从指定的线程池中传递给调用者 ##");
+        try {
+            IntStream.range(0, 1000).parallel(pool).map(i -> 1 / (i - 500)).sum();
+        } catch(ArithmeticException e) {
+            System.out.println("捕获：" + e);
+        }
+        
+        System.out.println("\n## 6. 结果与顺序流一致 ##");
+        int[] a = IntStream.range(0, 50_000).parallel(pool).filter(i -> i % 3 == 0).toArray();
+        int[] b = IntStream.range(0, 50_000).filter(i -> i % 3 == 0).toArray();
+        System.out.println(Arrays.equals(a, b));
+        
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package test.kang.stream;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// 并行流的中间结果存储在堆外（排序与收集）
+public class StreamTest20 {
+    public static void main(String[] args) {
+        // 需要在首次使用堆外存储之前设置，也可以在启动参数中通过-D指定
+        System.setProperty("org.openjdk.java.util.stream.offHeapThreshold", "100000");
+        System.setProperty("org.openjdk.java.util.stream.offHeapSpillBytes", String.valueOf(16 << 20)); // 超过16MB的直接内存后，溢出到临时文件
+        
+        int n = 5_000_000;
+        int[] data = new Random(42).ints(n).toArray();
+        
+        System.out.println("\n## 1. 并行排序int流，中间结果存储在堆外 ##");
+        long start = System.nanoTime();
+        long sum = Arrays.stream(data).parallel().sorted().asLongStream().sum();
+        int[] offHeap = Arrays.stream(data).parallel().sorted().toArray();
+        System.out.println("耗时：" + (System.nanoTime() - start) / 1_000_000 + "ms");
+        int[] expected = data.clone();
+        Arrays.sort(expected);
+        System.out.println("与Arrays.sort结果一致：" + Arrays.equals(offHeap, expected) + "，sum一致：" + (sum == Arrays.stream(expected).asLongStream().sum()));
+        
+        System.out.println("\n## 2. 并行排序大小未知的long流(filter之后) ##");
+        long[] longs = LongStream.range(0, n).parallel().map(i -> (i * 2654435761L) % 1_000_003).filter(x -> x % 3 != 0).sorted().toArray();
+        long[] longsExpected = LongStream.range(0, n).map(i -> (i * 2654435761L) % 1_000_003).filter(x -> x % 3 != 0).toArray();
+        Arrays.sort(longsExpected);
+        System.out.println("元素数量：" + longs.length + "，结果一致：" + Arrays.equals(longs, longsExpected));
+        
+        System.out.println("\n## 3. 并行排序double流，包含NaN与正负零 ##");
+        double[] doubles = DoubleStream.concat(new Random(7).doubles(300_000, -1, 1), DoubleStream.of(Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY)).toArray();
+        double[] sortedDoubles = Arrays.stream(doubles).parallel().sorted().toArray();
+        double[] doublesExpected = doubles.clone();
+        Arrays.sort(doublesExpected);
+        System.out.println("结果一致：" + Arrays.equals(sortedDoubles, doublesExpected) + "，首尾：" + sortedDoubles[0] + " " + sortedDoubles[sortedDoubles.length - 1]);
+        
+        System.out.println("\n## 4. 排序后继续执行有短路的操作 ##");
+        System.out.println(Arrays.toString(IntStream.of(data).parallel().map(x -> x & 0xFFFF).sorted().distinct().limit(5).toArray()));
+    }
+}
@@ -0,0 +1,62 @@
+package test.kang.stream;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// 融合连续的map/filter/peek阶段，与手写循环对比耗时（先用多种lambda污染类型profile）
+public class StreamTest21 {
+    static final int N = 20_000_000;
+    
+    public static void main(String[] args) {
+        System.out.println("\n## 1. 结果与手写循环一致 ##");
+        System.out.println(pipeline() + " " + loop());
+        System.out.println(LongStream.range(0, 1000).map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).peek(x -> { }).sum());
+        System.out.println(IntStream.range(0, 10).map(x -> x * x).filter(x -> x % 2 == 1).boxed().collect(Collectors.toList()));
+        
+        System.out.println("\n## 2. 污染类型profile：运行多种形状的map/filter ##");
+        IntUnaryOperator[] maps = {x -> x + 1, x -> x * 2, x -> x ^ 5, x -> x - 7, x -> x >> 1, x -> ~x};
+        IntPredicate[] filters = {x -> x > 0, x -> (x & 1) == 0, x -> x % 3 != 0, x -> x < 1000, x -> x != 42};
+        long blackhole = 0;
+        for(int round = 0; round<3; round++) {
+            for(IntUnaryOperator m : maps) {
+                for(IntPredicate f : filters) {
+                    blackhole += IntStream.range(0, 100_000).map(m).filter(f).map(m).filter(f).sum();
+                }
+            }
+        }
+        System.out.println(blackhole);
+        
+        System.out.println("\n## 3. 耗时对比 ##");
+        for(int round = 0; round<5; round++) {
+            long t0 = System.nanoTime();
+            long a = pipeline();
+            long t1 = System.nanoTime();
+            long b = loop();
+            long t2 = System.nanoTime();
+            System.out.println("stream: " + (t1 - t0) / 1_000_000 + "ms, loop: " + (t2 - t1) / 1_000_000 + "ms" + (a == b ? "" : " 结果不一致"));
+        }
+    }
+    
+    static long pipeline() {
+        return IntStream.range(0, N).map(x -> x * 3).filter(x -> (x & 1) == 0).map(x -> x + 11).filter(x -> x % 5 != 0).asLongStream().sum();
+    }
+    
+    static long loop() {
+        long sum = 0;
+        for(int i = 0; i<N; i++) {
+            int x = i * 3;
+            if((x & 1) != 0) {
+                continue;
+            }
+            x += 11;
+            if(x % 5 == 0) {
+                continue;
+            }
+            sum += x;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,55 @@
+package test.kang.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// 分块与滑动窗口：chunked/windowSliding，顺序流与并行流结果一致
+public class StreamTest22 {
+    public static void main(String[] args) {
+        System.out.println("\n## 1. 分块 ##");
+        System.out.println(Stream.of("a", "b", "c", "d", "e").chunked(2).collect(Collectors.toList()));   // [[a, b], [c, d], [e]]
+        IntStream.rangeClosed(1, 7).chunked(3).forEach(c -> System.out.print(Arrays.toString(c) + " "));    // [1, 2, 3] [4, 5, 6] [7]
+        System.out.println();
+        System.out.println(Stream.empty().chunked(3).count());    // 0
+
+        System.out.println("\n## 2. 滑动窗口 ##");
+        System.out.println(Stream.of("a", "b", "c", "d", "e").windowSliding(3).collect(Collectors.toList()));  // [[a, b, c], [b, c, d], [c, d, e]]
+        LongStream.range(0, 5).windowSliding(2).forEach(w -> System.out.print(Arrays.toString(w) + " "));    // [0, 1] [1, 2] [2, 3] [3, 4]
+        System.out.println();
+        System.out.println(Stream.of(1, 2).windowSliding(5).collect(Collectors.toList()));   // [[1, 2]]
+
+        System.out.println("\n## 3. 滑动平均 ##");
+        System.out.println(IntStream.of(3, 5, 7, 9, 11).windowSliding(3).mapToDouble(w -> IntStream.of(w).average().getAsDouble()).boxed().collect(Collectors.toList()));
+
+        System.out.println("\n## 4. 短路：无限流中只取前几个窗口 ##");
+        System.out.println(Stream.iterate(0, x -> x + 1).chunked(4).limit(3).collect(Collectors.toList()));
+        System.out.println(IntStream.iterate(0, x -> x + 1).windowSliding(3).skip(10).findFirst().map(Arrays::toString).get());
+
+        System.out.println("\n## 5. 并行流与顺序流结果一致 ##");
+        for(int size : new int[]{1, 7, 1000, 200_000}) {
+            List<List<Integer>> seq = IntStream.range(0, 100_003).boxed().chunked(size).collect(Collectors.toList());
+            List<List<Integer>> par = IntStream.range(0, 100_003).boxed().parallel().chunked(size).collect(Collectors.toList());
+            long seqSum = LongStream.range(0, 100_003).windowSliding(size).mapToLong(w -> w[0] * 31 + w[w.length - 1]).sum();
+            long parSum = LongStream.range(0, 100_003).parallel().filter(x -> x >= 0).windowSliding(size).mapToLong(w -> w[0] * 31 + w[w.length - 1]).sum();
+            int[][] seqArr = IntStream.range(0, 100_003).windowSliding(size).toArray(int[][]::new);
+            int[][] parArr = IntStream.range(0, 100_003).parallel().windowSliding(size).toArray(int[][]::new);
+            System.out.println("size=" + size + ": chunks " + seq.size() + " " + seq.equals(par) + ", windows " + seqArr.length + " " + (seqSum == parSum) + " " + Arrays.deepEquals(seqArr, parArr));
+        }
+
+        System.out.println("\n## 6. 窗口不可修改 ##");
+        try {
+            Stream.of(1, 2, 3).chunked(2).findFirst().get().add(4);
+        } catch(UnsupportedOperationException e) {
+            System.out.println("UnsupportedOperationException");
+        }
+        try {
+            IntStream.empty().chunked(0);
+        } catch(IllegalArgumentException e) {
+            System.out.println("IllegalArgumentException: " + e.getMessage());
+        }
+    }
+}
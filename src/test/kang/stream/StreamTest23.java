@@ -0,0 +1,66 @@
+package test.kang.stream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// 外部归并排序：内存中最多缓存sortRunSize个元素，超出部分排序后写入临时文件，最后多路归并
+public class StreamTest23 {
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("sort-spill");
+
+        // 必须在首次排序前设置
+        System.setProperty("org.openjdk.java.util.stream.sortRunSize", "50000");
+        System.setProperty("org.openjdk.java.util.stream.sortSpillDir", dir.toString());
+
+        Random random = new Random(42);
+        String[] lines = new String[1_000_000];
+        for(int i = 0; i<lines.length; i++) {
+            lines[i] = "2024-05-" + (10 + random.nextInt(20)) + " host" + random.nextInt(100) + " request " + random.nextInt(1_000_000);
+        }
+        String[] expected = lines.clone();
+        Arrays.sort(expected);
+
+        System.out.println("\n## 1. 顺序流排序 ##");
+        long t = System.nanoTime();
+        Object[] seq = Stream.of(lines).sorted().toArray();
+        System.out.println(Arrays.equals(seq, expected) + " " + (System.nanoTime() - t) / 1_000_000 + "ms");
+
+        System.out.println("\n## 2. 并行流排序 ##");
+        t = System.nanoTime();
+        Object[] par = Stream.of(lines).parallel().filter(s -> !s.isEmpty()).sorted().toArray();
+        System.out.println(Arrays.equals(par, expected) + " " + (System.nanoTime() - t) / 1_000_000 + "ms");
+        try(Stream<Path> files = Files.list(dir)) {
+            System.out.println(files.count());  // 0，归并结束后立即删除临时文件
+        }
+
+        System.out.println("\n## 3. 排序后去重、短路 ##");
+        System.out.println(Stream.of(lines).map(s -> s.substring(0, 10)).sorted().distinct().collect(Collectors.toList()).size());   // 20
+        System.out.println(Stream.of(lines).parallel().sorted(Comparator.reverseOrder()).limit(3).collect(Collectors.toList()));
+
+        System.out.println("\n## 4. 稳定性：相等元素保持遭遇顺序 ##");
+        List<Integer> stable = IntStream.range(0, 200_000).boxed().sorted(Comparator.comparing(i -> i % 3)).collect(Collectors.toList());
+        boolean ordered = true;
+        for(int i = 1; i<stable.size(); i++) {
+            int a = stable.get(i - 1), b = stable.get(i);
+            if(a % 3 == b % 3 && a>b) {
+                ordered = false;
+            }
+        }
+        System.out.println(ordered);
+
+        System.out.println("\n## 5. 临时文件已删除 ##");
+        System.gc();
+        try(Stream<Path> files = Files.list(dir)) {
+            System.out.println(files.count());  // 0
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,45 @@
+package test.kang.stream;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// 前缀运算scan：顺序流逐个累积，并行流先收集再使用两趟并行前缀算法
+public class StreamTest24 {
+    public static void main(String[] args) {
+        System.out.println("\n## 1. 累加和、累积最大值 ##");
+        System.out.println(Arrays.toString(IntStream.rangeClosed(1, 10).scan(Integer::sum).toArray()));     // [1, 3, 6, 10, ..., 55]
+        System.out.println(Arrays.toString(DoubleStream.of(3, 1, 4, 1, 5, 9, 2, 6).scan(Math::max).toArray()));
+        System.out.println(Stream.of("a", "b", "c", "d").scan(String::concat).collect(Collectors.toList()));   // [a, ab, abc, abcd]
+
+        System.out.println("\n## 2. 与其它操作组合 ##");
+        System.out.println(LongStream.iterate(1, x -> x + 1).scan((a, b) -> a * b).limit(10).boxed().collect(Collectors.toList()));   // 阶乘
+        System.out.println(Stream.generate(() -> BigInteger.TWO).scan(BigInteger::multiply).skip(99).findFirst().get());  // 2^100
+        System.out.println(IntStream.range(0, 10).filter(x -> x % 2 == 0).scan(Integer::sum).count());   // 5
+
+        System.out.println("\n## 3. 并行流与顺序流结果一致 ##");
+        int n = 5_000_000;
+        long[] seq = LongStream.range(0, n).scan(Long::sum).toArray();
+        long[] par = LongStream.range(0, n).parallel().scan(Long::sum).toArray();
+        long[] unsized = LongStream.range(0, n).parallel().filter(x -> x % 3 != 0).scan(Long::sum).toArray();
+        long[] unsizedSeq = LongStream.range(0, n).filter(x -> x % 3 != 0).scan(Long::sum).toArray();
+        System.out.println(Arrays.equals(seq, par) + " " + Arrays.equals(unsized, unsizedSeq) + " " + par[n - 1]);
+        Object[] s1 = IntStream.range(0, 2000).mapToObj(Integer::toString).scan((a, b) -> a.length()<b.length() ? b : a).toArray();
+        Object[] s2 = IntStream.range(0, 2000).mapToObj(Integer::toString).parallel().scan((a, b) -> a.length()<b.length() ? b : a).toArray();
+        System.out.println(Arrays.equals(s1, s2) + " " + s2[99] + " " + s2[1999]);     // true 10 1000
+
+        System.out.println("\n## 4. 耗时 ##");
+        for(int round = 0; round<3; round++) {
+            long t0 = System.nanoTime();
+            LongStream.range(0, n).scan(Long::sum).sum();
+            long t1 = System.nanoTime();
+            LongStream.range(0, n).parallel().scan(Long::sum).sum();
+            long t2 = System.nanoTime();
+            System.out.println("sequential: " + (t1 - t0) / 1_000_000 + "ms, parallel: " + (t2 - t1) / 1_000_000 + "ms");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package test.kang.submissionpublisher;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+// 批量消费者与消费者自旋：对比逐条投递与批量投递大量小消息的耗时；观察慢消费者的积压、丢弃数量，以及消息队列的扩容与缩容
+public class SubmissionPublisherTest01 {
+    static final int N = 2_000_000;
+
+    public static void main(String[] args) throws Exception {
+        ForkJoinPool executor = new ForkJoinPool(2);
+
+        System.out.println("\n## 1. 逐条投递与批量投递 ##");
+        for(int round = 0; round<3; round++) {
+            long t0 = System.nanoTime();
+            long sum1 = publish(new SubmissionPublisher<>(executor, 1024, null), false);
+            long t1 = System.nanoTime();
+            long sum2 = publish(new SubmissionPublisher<>(executor, 1024, null), true);
+            long t2 = System.nanoTime();
+            long sum3 = publish(new SubmissionPublisher<>(executor, 1024, null, true), true);
+            long t3 = System.nanoTime();
+            System.out.println("onNext: " + (t1 - t0) / 1_000_000 + "ms, onNextBatch: " + (t2 - t1) / 1_000_000 + "ms, onNextBatch+自旋: " + (t3 - t2) / 1_000_000 + "ms "
+                + (sum1 == sum2 && sum2 == sum3));
+        }
+
+        System.out.println("\n## 2. 慢消费者的积压与丢弃 ##");
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, 64, null);
+        Sum slow = new Sum(10);
+        publisher.subscribe(slow);
+        slow.subscribed.get();
+        for(int i = 0; i<1000; i++) {
+            publisher.offer(i, (s, item) -> false);     // 消息队列满了就丢弃
+        }
+        long dropped = publisher.getDroppedCount(slow);
+        System.out.println("lag: " + publisher.estimateLag(slow) + ", dropped: " + dropped + ", capacity: " + publisher.getBufferCapacity(slow));
+        slow.subscription.request(Long.MAX_VALUE);
+        publisher.close();
+        slow.done.get();
+        System.out.println("received + dropped = " + (slow.count + dropped));     // 1000
+        System.out.println(publisher.estimateLag(slow) + " " + publisher.getDroppedCount(slow));       // 已关闭的消费者：-1 -1
+
+        System.out.println("\n## 3. 消息队列的扩容与缩容 ##");
+        publisher = new SubmissionPublisher<>(executor, 8192, null);
+        Sum lazy = new Sum(0);
+        publisher.subscribe(lazy);
+        lazy.subscribed.get();
+        for(int i = 0; i<5000; i++) {
+            publisher.submit(i);
+        }
+        System.out.println("积压时 capacity: " + publisher.getBufferCapacity(lazy) + ", lag: " + publisher.estimateLag(lazy));  // 8192 5000
+        lazy.subscription.request(Long.MAX_VALUE);
+        while(publisher.estimateLag(lazy)>0) {
+            Thread.onSpinWait();
+        }
+        // 之后逐条推送，每条消息都被及时消费
+        for(int i = 0; i<200_000; i++) {
+            publisher.submit(i);
+            if((i & 7) == 0) {
+                while(publisher.estimateLag(lazy)>4) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        System.out.println("空闲后 capacity: " + publisher.getBufferCapacity(lazy) + ", dropped: " + publisher.getDroppedCount(lazy));   // 32 0
+        publisher.close();
+        lazy.done.get();
+        System.out.println("received: " + lazy.count);     // 205000
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    // 推送N条消息，返回消费者收到的消息之和
+    static long publish(SubmissionPublisher<Integer> publisher, boolean batch) throws Exception {
+        CompletableFuture<Long> done;
+        if(batch) {
+            Batch subscriber = new Batch();
+            publisher.subscribe(subscriber);
+            done = subscriber.done;
+        } else {
+            long[] sum = new long[1];
+            done = publisher.consume(x -> sum[0] += x).thenApply(v -> sum[0]);
+        }
+        for(int i = 0; i<N; i++) {
+            publisher.submit(i);
+        }
+        publisher.close();
+        return done.get();
+    }
+
+    // 批量消费者
+    static final class Batch implements SubmissionPublisher.BatchSubscriber<Integer> {
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+        long sum;
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        public void onNextBatch(List<Integer> items) {
+            for(Integer item : items) {
+                sum += item;
+            }
+        }
+
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        public void onComplete() {
+            done.complete(sum);
+        }
+    }
+
+    // 普通消费者，初始时申请消费initial条消息
+    static final class Sum implements Flow.Subscriber<Integer> {
+        final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final long initial;
+        volatile Flow.Subscription subscription;
+        volatile long count;
+
+        Sum(long initial) {
+            this.initial = initial;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if(initial>0) {
+                subscription.request(initial);
+            }
+            subscribed.complete(null);
+        }
+
+        public void onNext(Integer item) {
+            count++;
+        }
+
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
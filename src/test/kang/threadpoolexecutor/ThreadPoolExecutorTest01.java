@@ -0,0 +1,48 @@
+package test.kang.threadpoolexecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// 对比默认模式与【分段记账】模式下，Worker频繁创建/退出以及读取统计信息时的耗时
+public class ThreadPoolExecutorTest01 {
+    static final int THREADS = Runtime.getRuntime().availableProcessors() * 4;
+    static final int TASKS = 200_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int round = 0; round<3; round++) {
+            System.out.println("默认模式：" + run(false) + "ms");
+            System.out.println("分段记账：" + run(true) + "ms");
+        }
+    }
+
+    static long run(boolean striped) throws InterruptedException {
+        // 直接移交任务，且Worker空闲后很快退出，以便制造大量的Worker创建与退出
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, THREADS, 1, TimeUnit.MICROSECONDS, new SynchronousQueue<>(), Thread::new, new ThreadPoolExecutor.CallerRunsPolicy(), striped);
+
+        CountDownLatch latch = new CountDownLatch(TASKS);
+
+        long start = System.nanoTime();
+
+        for(int i = 0; i<TASKS; i++) {
+            executor.execute(() -> {
+                // 任务执行时顺便读取统计信息
+                executor.getCompletedTaskCount();
+                executor.getLargestPoolSize();
+                latch.countDown();
+            });
+        }
+
+        latch.await();
+
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.println(executor);
+
+        return cost;
+    }
+}
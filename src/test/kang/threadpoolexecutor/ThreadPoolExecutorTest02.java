@@ -0,0 +1,56 @@
+package test.kang.threadpoolexecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.WorkStealingBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// 对比LinkedBlockingQueue与WorkStealingBlockingQueue作为阻塞队列时，执行大量短任务的耗时
+public class ThreadPoolExecutorTest02 {
+    static final int THREADS = Runtime.getRuntime().availableProcessors();
+    static final int TASKS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int round = 0; round<3; round++) {
+            System.out.println("LinkedBlockingQueue      ：" + run(new LinkedBlockingQueue<>()) + "ms");
+            System.out.println("WorkStealingBlockingQueue：" + run(new WorkStealingBlockingQueue<>()) + "ms");
+        }
+    }
+
+    static long run(BlockingQueue<Runnable> queue) throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.SECONDS, queue);
+        executor.prestartAllCoreThreads();
+
+        CountDownLatch latch = new CountDownLatch(TASKS);
+        LongAdder sum = new LongAdder();
+
+        long start = System.nanoTime();
+
+        // 每个任务再派生一个子任务，子任务优先由派生它的Worker执行
+        for(int i = 0; i<TASKS / 2; i++) {
+            final int x = i;
+            executor.execute(() -> {
+                sum.add(x);
+                latch.countDown();
+                executor.execute(() -> {
+                    sum.add(x);
+                    latch.countDown();
+                });
+            });
+        }
+
+        latch.await();
+
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.println("sum = " + sum.sum() + ", " + executor);
+
+        return cost;
+    }
+}
@@ -0,0 +1,91 @@
+package test.kang.zip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+import java.util.zip.ParallelChecksums;
+
+// 合并校验和(combine)，以及并行计算大型缓冲区与大文件的CRC-32/CRC-32C/Adler-32校验和
+public class ChecksumCombineTest01 {
+    public static void main(String[] args) throws IOException {
+        // 单核机器上公共线程池的并行度为1，这里手动指定(必须在首次使用公共线程池之前设置)
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+
+        Random random = new Random(42);
+
+        System.out.println("\n## 1. 任意切分后合并的校验和与整体计算的校验和相同 ##");
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        boolean ok = true;
+        for(int i = 0; i<1000; i++) {
+            int split = random.nextInt(data.length + 1);
+            ok &= CRC32.combine(value(new CRC32(), data, 0, split), value(new CRC32(), data, split, data.length), data.length - split) == value(new CRC32(), data, 0, data.length);
+            ok &= CRC32C.combine(value(new CRC32C(), data, 0, split), value(new CRC32C(), data, split, data.length), data.length - split) == value(new CRC32C(), data, 0, data.length);
+            ok &= Adler32.combine(value(new Adler32(), data, 0, split), value(new Adler32(), data, split, data.length), data.length - split) == value(new Adler32(), data, 0, data.length);
+        }
+        System.out.println(ok);
+        System.out.println(CRC32.combine(0x1234, new CRC32().getValue(), 0) == 0x1234);     // 后一段为空
+        try {
+            Adler32.combine(1, 1, -1);
+        } catch(IllegalArgumentException e) {
+            System.out.println("IllegalArgumentException: " + e.getMessage());
+        }
+
+        System.out.println("\n## 2. 并行计算缓冲区的校验和 ##");
+        byte[] big = new byte[64 * 1024 * 1024 + 13];
+        random.nextBytes(big);
+        ByteBuffer heap = ByteBuffer.wrap(big, 7, big.length - 20);
+        long expected = value(new CRC32(), big, 7, big.length - 13);
+        System.out.println((ParallelChecksums.crc32(heap) == expected) + " " + heap.position() + " " + heap.limit());
+        ByteBuffer direct = ByteBuffer.allocateDirect(big.length).put(big).flip();
+        System.out.println((ParallelChecksums.crc32c(direct) == value(new CRC32C(), big, 0, big.length)) + " "
+            + (ParallelChecksums.adler32(direct.rewind()) == value(new Adler32(), big, 0, big.length)));
+
+        System.out.println("\n## 3. 并行计算文件(文件通道与映射缓冲区)的校验和 ##");
+        Path path = Files.createTempFile("checksum", ".bin");
+        try(OutputStream out = Files.newOutputStream(path)) {
+            for(int i = 0; i<4; i++) {
+                out.write(big);
+            }
+        }
+        CRC32 crc = new CRC32();
+        for(int i = 0; i<4; i++) {
+            crc.update(big);
+        }
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            System.out.println(ch.size() + " " + (ParallelChecksums.crc32(ch) == crc.getValue()) + " " + ch.position());
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            System.out.println(ParallelChecksums.crc32(map) == crc.getValue());
+
+            System.out.println("\n## 4. 耗时 ##");
+            for(int round = 0; round<3; round++) {
+                long t0 = System.nanoTime();
+                CRC32 c = new CRC32();
+                c.update(map.rewind());
+                long t1 = System.nanoTime();
+                long p1 = ParallelChecksums.crc32(map.rewind());
+                long t2 = System.nanoTime();
+                long p2 = ParallelChecksums.crc32(ch);
+                long t3 = System.nanoTime();
+                System.out.println("CRC32.update: " + (t1 - t0) / 1_000_000 + "ms, ParallelChecksums(mapped): " + (t2 - t1) / 1_000_000 + "ms, "
+                    + "ParallelChecksums(channel): " + (t3 - t2) / 1_000_000 + "ms " + (c.getValue() == p1 && p1 == p2));
+            }
+        }
+        Files.delete(path);
+    }
+
+    static long value(Checksum checksum, byte[] b, int from, int to) {
+        checksum.update(b, from, to - from);
+        return checksum.getValue();
+    }
+}
@@ -0,0 +1,185 @@
+package test.kang.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.DeflaterPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.InflaterPool;
+
+// 解压器池与压缩器池：复用解压器/压缩器处理大量小型gzip数据；ByteBuffer到ByteBuffer的压缩与解压
+public class InflaterPoolTest01 {
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(3);
+        byte[][] bodies = new byte[1000][];
+        for(int i = 0; i<bodies.length; i++) {
+            bodies[i] = new byte[200 + random.nextInt(2000)];
+            for(int j = 0; j<bodies[i].length; j++) {
+                bodies[i][j] = (byte) ('A' + random.nextInt(8));
+            }
+        }
+        
+        InflaterPool inflaters = new InflaterPool(true, 8);
+        DeflaterPool deflaters = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, true, 8);
+        
+        System.out.println("\n## 1. 压缩与解压结果一致 ##");
+        byte[][] gzips = new byte[bodies.length][];
+        boolean ok = true;
+        for(int i = 0; i<bodies.length; i++) {
+            gzips[i] = gzip(bodies[i], null);
+            ok &= Arrays.equals(gzips[i], gzip(bodies[i], deflaters));
+            ok &= Arrays.equals(gunzip(gzips[i], inflaters), bodies[i]);
+        }
+        System.out.println(ok + " idle: " + inflaters.getIdleCount() + " " + deflaters.getIdleCount());    // true idle: 1 1
+        
+        System.out.println("\n## 2. 耗时 ##");
+        for(int round = 0; round<5; round++) {
+            long t0 = System.nanoTime();
+            for(int k = 0; k<20; k++) {
+                for(byte[] g : gzips) {
+                    gunzip(g, null);
+                }
+            }
+            long t1 = System.nanoTime();
+            for(int k = 0; k<20; k++) {
+                for(byte[] g : gzips) {
+                    gunzip(g, inflaters);
+                }
+            }
+            long t2 = System.nanoTime();
+            for(int k = 0; k<5; k++) {
+                for(byte[] b : bodies) {
+                    gzip(b, null);
+                }
+            }
+            long t3 = System.nanoTime();
+            for(int k = 0; k<5; k++) {
+                for(byte[] b : bodies) {
+                    gzip(b, deflaters);
+                }
+            }
+            long t4 = System.nanoTime();
+            System.out.println("gunzip new: " + (t1 - t0) / 1_000_000 + "ms, pooled: " + (t2 - t1) / 1_000_000 + "ms; "
+                + "gzip new: " + (t3 - t2) / 1_000_000 + "ms, pooled: " + (t4 - t3) / 1_000_000 + "ms");
+        }
+        
+        System.out.println("\n## 3. ByteBuffer到ByteBuffer ##");
+        ByteBuffer src = ByteBuffer.allocateDirect(64 * 1024);
+        for(byte[] b : bodies) {
+            if(src.remaining()<b.length) {
+                break;
+            }
+            src.put(b);
+        }
+        src.flip();
+        int total = src.remaining();
+        ByteBuffer compressed = ByteBuffer.allocateDirect(total);
+        Deflater def = deflaters.acquire();
+        def.finish();
+        while(!def.finished()) {
+            def.deflate(src, compressed, Deflater.NO_FLUSH);
+        }
+        compressed.flip();
+        System.out.println(total + " -> " + compressed.remaining());
+        
+        ByteBuffer plain = ByteBuffer.allocate(1024);
+        ByteBuffer restored = ByteBuffer.allocate(total);
+        Inflater inf = inflaters.acquire();
+        while(!inf.finished()) {
+            plain.clear();
+            if(inf.inflate(compressed, plain) == 0 && !compressed.hasRemaining()) {
+                inf.inflate(ByteBuffer.wrap(new byte[1]), plain);    // nowrap模式下需要额外的一个"哑"字节
+            }
+            restored.put(plain.flip());
+        }
+        System.out.println(restored.position() + " " + src.flip().equals(restored.flip()) + " " + inf.getRemaining());   // 解压器不再引用输入缓冲区
+        deflaters.release(def);
+        inflaters.release(inf);
+        
+        System.out.println("\n## 4. 错误用法 ##");
+        try {
+            inflaters.release(inf);
+        } catch(IllegalStateException e) {
+            System.out.println(e);
+        }
+        try {
+            inflaters.release(new Inflater(true));
+        } catch(IllegalArgumentException e) {
+            System.out.println(e);
+        }
+        try {
+            new GZIPInputStream(new ByteArrayInputStream(gzips[0]), 512, new InflaterPool(false, 1));
+        } catch(IllegalArgumentException e) {
+            System.out.println(e);
+        }
+        inf = inflaters.acquire();
+        try {
+            inf.inflate(ByteBuffer.wrap(new byte[]{7, 0, 0, 0}), ByteBuffer.allocate(16));    // 保留的块类型
+        } catch(DataFormatException e) {
+            System.out.println(e);
+        } finally {
+            inflaters.release(inf);     // 出错的解压器重置后仍可复用
+        }
+        System.out.println(Arrays.equals(gunzip(gzips[0], inflaters), bodies[0]));
+        
+        // 关闭后压缩器已放回池中，可能正被其他输出流使用，不能再通过已关闭的输出流写入
+        DeflaterPool one = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, false, 1);
+        ByteArrayOutputStream bos1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
+        DeflaterOutputStream s1 = new DeflaterOutputStream(bos1, one, 512, false);
+        s1.close();
+        DeflaterOutputStream s2 = new DeflaterOutputStream(bos2, one, 512, false);   // 复用s1放回的压缩器
+        s2.write("AAAA".getBytes());
+        try {
+            s1.write("LEAKED-FROM-S1".getBytes());
+        } catch(IOException e) {
+            System.out.println(e);
+        }
+        s2.close();
+        System.out.println(new String(new InflaterInputStream(new ByteArrayInputStream(bos2.toByteArray())).readAllBytes()));  // AAAA
+        
+        // 缓冲区容量非法时，不会从池中取走解压器/压缩器
+        int idle = one.getIdleCount();
+        try {
+            new DeflaterOutputStream(new ByteArrayOutputStream(), one, 0, false);
+        } catch(IllegalArgumentException e) {
+            System.out.println(e + " idle: " + (one.getIdleCount() == idle));
+        }
+        idle = inflaters.getIdleCount();
+        try {
+            new InflaterInputStream(new ByteArrayInputStream(gzips[0]), inflaters, 0);
+        } catch(IllegalArgumentException e) {
+            System.out.println(e + " idle: " + (inflaters.getIdleCount() == idle));
+        }
+        one.clear();
+        inflaters.clear();
+        deflaters.clear();
+        System.out.println(inflaters.getIdleCount() + " " + deflaters.getIdleCount());
+    }
+    
+    static byte[] gzip(byte[] data, DeflaterPool pool) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try(OutputStream out = pool == null ? new GZIPOutputStream(bos, 512) : new GZIPOutputStream(bos, 512, false, pool)) {
+            out.write(data);
+        }
+        return bos.toByteArray();
+    }
+    
+    static byte[] gunzip(byte[] gz, InflaterPool pool) throws IOException {
+        InputStream bis = new ByteArrayInputStream(gz);
+        try(InputStream in = pool == null ? new GZIPInputStream(bis, 512) : new GZIPInputStream(bis, 512, pool)) {
+            return in.readAllBytes();
+        }
+    }
+}
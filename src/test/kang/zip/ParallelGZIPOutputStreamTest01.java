@@ -0,0 +1,99 @@
+package test.kang.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ParallelGZIPOutputStream;
+
+// 并行gzip压缩：输出可由GZIPInputStream解压，与GZIPOutputStream比较耗时与压缩率
+public class ParallelGZIPOutputStreamTest01 {
+    public static void main(String[] args) throws IOException {
+        // 单核机器上公共线程池的并行度为1，这里手动指定(必须在首次使用公共线程池之前设置)
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+
+        byte[] data = logLines(32 * 1024 * 1024);
+
+        System.out.println("\n## 1. 往返：压缩后解压 ##");
+        byte[] gz = parallel(data, 128 * 1024);
+        System.out.println(Arrays.equals(data, gunzip(gz)));
+        for(int blockSize : new int[]{1000, 32 * 1024, 1024 * 1024}) {
+            byte[] part = Arrays.copyOf(data, 3_000_001);
+            System.out.println("blockSize=" + blockSize + " " + Arrays.equals(part, gunzip(parallel(part, blockSize))));
+        }
+
+        System.out.println("\n## 2. 空数据、单字节写入、中途刷新 ##");
+        System.out.println(gunzip(parallel(new byte[0], 1024)).length);   // 0
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try(ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(bout, 100, 6, ForkJoinPool.commonPool())) {
+            for(int i = 0; i<1000; i++) {
+                out.write('a' + i % 26);
+            }
+            out.flush();
+            int flushed = bout.size();
+            // 刷新后已写出的数据可以被解压出来(此时还没有gzip文件尾)
+            GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bout.toByteArray()));
+            byte[] head = in.readNBytes(1000);
+            System.out.println(flushed + " " + head.length + " " + (char) head[999]);
+            out.write(data, 0, 5000);
+        }
+        byte[] expected = new byte[6000];
+        for(int i = 0; i<1000; i++) {
+            expected[i] = (byte) ('a' + i % 26);
+        }
+        System.arraycopy(data, 0, expected, 1000, 5000);
+        System.out.println(Arrays.equals(expected, gunzip(bout.toByteArray())));
+
+        System.out.println("\n## 3. gzip文件尾中的CRC-32由各数据块的校验和合并得到 ##");
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        int trailer = (gz[gz.length - 8] & 0xff) | (gz[gz.length - 7] & 0xff) << 8 | (gz[gz.length - 6] & 0xff) << 16 | (gz[gz.length - 5] & 0xff) << 24;
+        System.out.println(Long.toHexString(crc.getValue()) + " " + Integer.toHexString(trailer));
+
+        System.out.println("\n## 4. 耗时与压缩率 ##");
+        for(int round = 0; round<3; round++) {
+            long t0 = System.nanoTime();
+            ByteArrayOutputStream serial = new ByteArrayOutputStream();
+            try(GZIPOutputStream out = new GZIPOutputStream(serial, 64 * 1024)) {
+                out.write(data);
+            }
+            long t1 = System.nanoTime();
+            byte[] par = parallel(data, 128 * 1024);
+            long t2 = System.nanoTime();
+            System.out.println("GZIPOutputStream: " + (t1 - t0) / 1_000_000 + "ms " + serial.size() + " bytes, "
+                + "ParallelGZIPOutputStream: " + (t2 - t1) / 1_000_000 + "ms " + par.length + " bytes");
+        }
+    }
+
+    static byte[] parallel(byte[] data, int blockSize) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try(ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(bout, blockSize, 6, ForkJoinPool.commonPool())) {
+            out.write(data);
+        }
+        return bout.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] gz) throws IOException {
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // 生成类似日志的文本数据
+    static byte[] logLines(int size) {
+        Random random = new Random(42);
+        String[] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+        StringBuilder sb = new StringBuilder(size + 200);
+        while(sb.length()<size) {
+            sb.append("2024-05-").append(10 + random.nextInt(20)).append(' ').append(levels[random.nextInt(4)])
+                .append(" host").append(random.nextInt(100)).append(" request ").append(random.nextInt(1_000_000))
+                .append(" took ").append(random.nextInt(5000)).append("ms\n");
+        }
+        return sb.substring(0, size).getBytes();
+    }
+}
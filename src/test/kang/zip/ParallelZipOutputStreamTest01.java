@@ -0,0 +1,167 @@
+package test.kang.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.ParallelZipOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+// 并行压缩zip文件：大量小型实体、大型实体、STORED实体，超过65535个实体时使用zip64格式，与ZipOutputStream比较耗时
+public class ParallelZipOutputStreamTest01 {
+    public static void main(String[] args) throws IOException {
+        // 单核机器上公共线程池的并行度为1，这里手动指定(必须在首次使用公共线程池之前设置)
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+
+        Random random = new Random(42);
+        byte[][] files = new byte[10_000][];
+        for(int i = 0; i<files.length; i++) {
+            files[i] = classLike(random, 1000 + random.nextInt(20_000));
+        }
+        files[100] = classLike(random, 5 * 1024 * 1024);     // 大型实体，会被分块并行压缩
+        files[200] = new byte[0];
+
+        System.out.println("\n## 1. 往返：ZipFile与ZipInputStream读取的内容与写入的内容一致 ##");
+        Path path = Files.createTempFile("parallel", ".zip");
+        try(OutputStream os = Files.newOutputStream(path)) {
+            write(new ParallelZipOutputStream(os), files);
+        }
+        try(ZipFile zf = new ZipFile(path.toFile())) {
+            boolean ok = zf.size() == files.length + 2;
+            for(int i = 0; i<files.length; i++) {
+                ZipEntry e = zf.getEntry("classes/C" + i + ".class");
+                ok &= Arrays.equals(files[i], zf.getInputStream(e).readAllBytes());
+            }
+            ok &= Arrays.equals(files[7], zf.getInputStream(zf.getEntry("stored.bin")).readAllBytes());
+            System.out.println(zf.size() + " " + ok + " " + zf.getEntry("classes/C100.class").getSize() + " " + zf.getEntry("stored.bin").getMethod());
+        }
+        try(ZipInputStream zin = new ZipInputStream(Files.newInputStream(path))) {
+            int n = 0;
+            boolean ok = true;
+            for(ZipEntry e; (e = zin.getNextEntry()) != null; n++) {
+                byte[] data = zin.readAllBytes();
+                if(e.getName().startsWith("classes/C")) {
+                    ok &= Arrays.equals(files[Integer.parseInt(e.getName().substring(9, e.getName().length() - 6))], data);
+                }
+            }
+            System.out.println(n + " " + ok);
+        }
+        Files.delete(path);
+
+        System.out.println("\n## 2. 缓存上限(1MB)附近的实体：超出上限的实体改为分块并行压缩 ##");
+        int[] sizes = {1024 * 1024 - 1, 1024 * 1024, 1024 * 1024 + 1, 3 * 1024 * 1024 + 7};
+        ByteArrayOutputStream limit = new ByteArrayOutputStream();
+        try(ParallelZipOutputStream zout = new ParallelZipOutputStream(limit)) {
+            for(int i = 0; i<sizes.length; i++) {
+                zout.putNextEntry(new ZipEntry("limit" + i));
+                zout.write(files[100], 0, sizes[i]);    // 一次写入
+                zout.putNextEntry(new ZipEntry("small" + i));
+                zout.write(files[i]);
+            }
+        }
+        try(ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(limit.toByteArray()))) {
+            boolean ok = true;
+            for(int i = 0; i<sizes.length; i++) {
+                ok &= zin.getNextEntry().getName().equals("limit" + i) && Arrays.equals(Arrays.copyOf(files[100], sizes[i]), zin.readAllBytes());
+                ok &= zin.getNextEntry().getName().equals("small" + i) && Arrays.equals(files[i], zin.readAllBytes());
+            }
+            System.out.println(ok + " " + (zin.getNextEntry() == null));
+        }
+
+        System.out.println("\n## 3. 超过65535个实体(zip64) ##");
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try(ParallelZipOutputStream zout = new ParallelZipOutputStream(bout)) {
+            for(int i = 0; i<70_000; i++) {
+                zout.putNextEntry(new ZipEntry("e" + i));
+                zout.write(("entry " + i).getBytes());
+            }
+        }
+        path = Files.createTempFile("zip64", ".zip");
+        Files.write(path, bout.toByteArray());
+        try(ZipFile zf = new ZipFile(path.toFile())) {
+            System.out.println(zf.size() + " " + new String(zf.getInputStream(zf.getEntry("e69999")).readAllBytes()));
+        }
+        Files.delete(path);
+
+        System.out.println("\n## 4. 错误：重复的实体名称、预设的crc-32校验码错误 ##");
+        try(ParallelZipOutputStream zout = new ParallelZipOutputStream(new ByteArrayOutputStream())) {
+            zout.putNextEntry(new ZipEntry("a"));
+            zout.putNextEntry(new ZipEntry("a"));
+        } catch(ZipException e) {
+            System.out.println("ZipException: " + e.getMessage());
+        }
+        try(ParallelZipOutputStream zout = new ParallelZipOutputStream(new ByteArrayOutputStream())) {
+            ZipEntry e = new ZipEntry("b");
+            e.setSize(3);
+            e.setCompressedSize(5);
+            e.setCrc(0);
+            zout.putNextEntry(e);
+            zout.write(new byte[]{1, 2, 3});
+            zout.closeEntry();
+            zout.flush();
+        } catch(ZipException e) {
+            System.out.println("ZipException: " + e.getMessage());
+        }
+
+        System.out.println("\n## 5. 耗时与大小 ##");
+        for(int round = 0; round<3; round++) {
+            ByteArrayOutputStream serial = new ByteArrayOutputStream(64 * 1024 * 1024);
+            long t0 = System.nanoTime();
+            write(new ZipOutputStream(serial), files);
+            long t1 = System.nanoTime();
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream(64 * 1024 * 1024);
+            write(new ParallelZipOutputStream(parallel, java.nio.charset.StandardCharsets.UTF_8, ForkJoinPool.commonPool()), files);
+            long t2 = System.nanoTime();
+            System.out.println("ZipOutputStream: " + (t1 - t0) / 1_000_000 + "ms " + serial.size() + " bytes, "
+                + "ParallelZipOutputStream: " + (t2 - t1) / 1_000_000 + "ms " + parallel.size() + " bytes");
+        }
+    }
+
+    static void write(ZipOutputStream zout, byte[][] files) throws IOException {
+        try(zout) {
+            zout.putNextEntry(new ZipEntry("classes/"));
+            for(int i = 0; i<files.length; i++) {
+                zout.putNextEntry(new ZipEntry("classes/C" + i + ".class"));
+                // 分多次写入
+                for(int off = 0; off<files[i].length; off += 4096) {
+                    zout.write(files[i], off, Math.min(4096, files[i].length - off));
+                }
+                zout.closeEntry();
+            }
+            ZipEntry stored = new ZipEntry("stored.bin");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(files[7].length);
+            CRC32 crc = new CRC32();
+            crc.update(files[7]);
+            stored.setCrc(crc.getValue());
+            zout.putNextEntry(stored);
+            zout.write(files[7]);
+        }
+    }
+
+    // 生成类似class文件的数据：少量的常量池字符串与随机字节
+    static byte[] classLike(Random random, int size) {
+        String[] words = {"java/lang/Object", "java/lang/String", "<init>", "()V", "Code", "LineNumberTable", "toString", "hashCode", "equals", "StackMapTable"};
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 32);
+        while(out.size()<size) {
+            if(random.nextInt(8) == 0) {
+                for(int i = 0; i<8; i++) {
+                    out.write(random.nextInt(256));
+                }
+            } else {
+                out.writeBytes(words[random.nextInt(words.length)].getBytes());
+            }
+        }
+        return Arrays.copyOf(out.toByteArray(), size);
+    }
+}
@@ -0,0 +1,123 @@
+package test.kang.zip;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+// 多线程并发读取同一个zip文件中的不同实体，运行时添加-Djdk.util.zip.mapped=true开启映射模式，对比两种模式下的吞吐量
+public class ZipFileTest01 {
+    static final int ENTRIES = 4000;
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("mapped mode: " + Boolean.getBoolean("jdk.util.zip.mapped"));
+        
+        File file = File.createTempFile("zipfile-test", ".jar");
+        file.deleteOnExit();
+        byte[][] contents = create(file);
+        
+        // 第3节需要显式关闭zf，因此不使用try-with-resources
+        ZipFile zf = new ZipFile(file);
+        try {
+            System.out.println("\n## 1. 顺序读取全部实体 ##");
+            boolean ok = true;
+            for(int i = 0; i<ENTRIES; i++) {
+                ok &= Arrays.equals(read(zf, i), contents[i]);
+            }
+            System.out.println(zf.size() + " " + ok);
+            System.out.println(zf.getEntry("dir") != null);             // 自动补全"/"
+            System.out.println(zf.getEntry("none.class") == null);
+            
+            System.out.println("\n## 2. 并发读取 ##");
+            for(int threads : new int[]{1, 4, 16}) {
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                for(int round = 0; round<3; round++) {
+                    long t = System.nanoTime();
+                    Future<?>[] fs = new Future<?>[threads];
+                    for(int k = 0; k<threads; k++) {
+                        fs[k] = pool.submit(() -> {
+                            ThreadLocalRandom random = ThreadLocalRandom.current();
+                            for(int j = 0; j<20_000 / threads; j++) {
+                                int i = random.nextInt(ENTRIES);
+                                if(!Arrays.equals(read(zf, i), contents[i])) {
+                                    throw new AssertionError(i);
+                                }
+                            }
+                            return null;
+                        });
+                    }
+                    for(Future<?> f : fs) {
+                        f.get();
+                    }
+                    long ns = System.nanoTime() - t;
+                    System.out.println("threads=" + threads + ": " + (20_000L / threads * threads) * 1_000_000_000L / ns + " ops/s");
+                }
+                pool.shutdown();
+            }
+            
+            System.out.println("\n## 3. 关闭后访问 ##");
+            InputStream in = zf.getInputStream(zf.getEntry(name(1)));
+            zf.close();
+            try {
+                in.read();
+            } catch(IOException e) {
+                System.out.println(e);
+            }
+            try {
+                zf.getEntry(name(1));
+            } catch(IllegalStateException e) {
+                System.out.println(e);
+            }
+        } finally {
+            zf.close();
+        }
+    }
+    
+    // 偶数实体压缩存储，奇数实体不压缩存储
+    static byte[][] create(File file) throws IOException {
+        Random random = new Random(11);
+        byte[][] contents = new byte[ENTRIES][];
+        try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("dir/"));
+            for(int i = 0; i<ENTRIES; i++) {
+                byte[] data = new byte[512 + random.nextInt(8192)];
+                for(int j = 0; j<data.length; j++) {
+                    data[j] = (byte) ('a' + random.nextInt(i % 3 + 2));
+                }
+                contents[i] = data;
+                ZipEntry e = new ZipEntry(name(i));
+                if(i % 2 == 1) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    e.setMethod(ZipEntry.STORED);
+                    e.setSize(data.length);
+                    e.setCrc(crc.getValue());
+                }
+                out.putNextEntry(e);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+        return contents;
+    }
+    
+    static byte[] read(ZipFile zf, int i) throws IOException {
+        try(InputStream in = zf.getInputStream(zf.getEntry(name(i)))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    static String name(int i) {
+        return "dir/pkg" + i % 50 + "/Class" + i + ".class";
+    }
+}